@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.benchmarks;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.faces.FactoryFinder;
+import javax.portlet.PortletConfig;
+import javax.portlet.PortletContext;
+import javax.portlet.PortletMode;
+import javax.portlet.PortletSession;
+import javax.portlet.PortletURL;
+import javax.portlet.RenderRequest;
+import javax.portlet.RenderResponse;
+import javax.portlet.ResourceURL;
+
+import org.jboss.portletbridge.bridge.config.BridgeConfig;
+import org.jboss.portletbridge.bridge.config.BridgeConfigImpl;
+import org.jboss.portletbridge.bridge.context.BridgeContext;
+import org.jboss.portletbridge.bridge.context.BridgeContextImpl;
+import org.jboss.portletbridge.bridge.logger.JULLoggerImpl;
+import org.jboss.portletbridge.bridge.scope.BridgeRequestScopeManager;
+
+/**
+ * A {@link BridgeContext} for a render request of a portlet deployed at {@link #CONTEXT_PATH}, as the bridge would
+ * have setup before executing the Faces lifecycle. As the {@link BridgeContext} is bound to the current thread, a
+ * fixture must be created by the thread that runs the benchmark.
+ */
+final class BridgeFixture {
+
+    static final String CONTEXT_PATH = "/portletbridge";
+    static final String PORTAL_URL = "/portal/classic/benchmark";
+
+    private final BridgeContextImpl bridgeContext;
+    private final PortletContext portletContext;
+    private final RenderRequest request;
+    private final RenderResponse response;
+
+    BridgeFixture(String... servletMappings) {
+        Map<String, Object> context = new HashMap<String, Object>();
+        context.put("getResource", new Stubs.Answer() {
+            @Override
+            public Object answer(Object[] args) {
+                try {
+                    return new URL("file:" + args[0]);
+                } catch (MalformedURLException e) {
+                    throw new IllegalArgumentException(e);
+                }
+            }
+        });
+        portletContext = Stubs.stub(PortletContext.class, context);
+
+        Map<String, Object> config = new HashMap<String, Object>();
+        config.put("getPortletName", "benchmark");
+        config.put("getPortletContext", portletContext);
+        PortletConfig portletConfig = Stubs.stub(PortletConfig.class, config);
+
+        BridgeConfig bridgeConfig = new BridgeConfigImpl();
+        bridgeConfig.setPortletConfig(portletConfig);
+        bridgeConfig.setLogger(new JULLoggerImpl(BridgeFixture.class.getName()));
+        bridgeConfig.setFacesServletMappings(Arrays.asList(servletMappings));
+        bridgeConfig.setFacesSuffixes(Arrays.asList(".xhtml", ".jsp"));
+
+        // No bridge request scope, as for a render request without a preceding action
+        Map<String, Object> session = new HashMap<String, Object>();
+        session.put("getAttribute", new Stubs.Answer() {
+            private final BridgeRequestScopeManager scopeManager = Stubs.stub(BridgeRequestScopeManager.class,
+                    Collections.<String, Object> emptyMap());
+
+            @Override
+            public Object answer(Object[] args) {
+                return BridgeContextImpl.REQUEST_SCOPE_MANAGER.equals(args[0]) ? scopeManager : null;
+            }
+        });
+        PortletSession portletSession = Stubs.stub(PortletSession.class, session);
+
+        Map<String, Object> req = new HashMap<String, Object>();
+        req.put("getPortletSession", portletSession);
+        req.put("getContextPath", CONTEXT_PATH);
+        req.put("getPortletMode", PortletMode.VIEW);
+        req.put("getScheme", "http");
+        req.put("getServerName", "localhost");
+        req.put("getServerPort", Integer.valueOf(8080));
+        request = Stubs.stub(RenderRequest.class, req);
+
+        Map<String, Object> resp = new HashMap<String, Object>();
+        resp.put("getNamespace", "_benchmark_WAR_portletbridge_");
+        resp.put("encodeURL", Stubs.FIRST_ARGUMENT);
+        resp.put("createActionURL", new Stubs.Answer() {
+            @Override
+            public Object answer(Object[] args) {
+                return Stubs.portletUrl(PortletURL.class, PORTAL_URL + "?p_p_lifecycle=1");
+            }
+        });
+        resp.put("createRenderURL", new Stubs.Answer() {
+            @Override
+            public Object answer(Object[] args) {
+                return Stubs.portletUrl(PortletURL.class, PORTAL_URL + "?p_p_lifecycle=0");
+            }
+        });
+        resp.put("createResourceURL", new Stubs.Answer() {
+            @Override
+            public Object answer(Object[] args) {
+                return Stubs.portletUrl(ResourceURL.class, PORTAL_URL + "?p_p_lifecycle=2");
+            }
+        });
+        response = Stubs.stub(RenderResponse.class, resp);
+
+        FactoryFinder.setFactory(FactoryFinder.APPLICATION_FACTORY, BenchmarkApplicationFactory.class.getName());
+        bridgeContext = new BridgeContextImpl(bridgeConfig);
+        bridgeContext.setPortletContext(portletContext);
+        bridgeContext.setPortletRequest(request);
+        bridgeContext.setPortletResponse(response);
+    }
+
+    BridgeContext getBridgeContext() {
+        return bridgeContext;
+    }
+
+    PortletContext getPortletContext() {
+        return portletContext;
+    }
+
+    RenderRequest getRequest() {
+        return request;
+    }
+
+    RenderResponse getResponse() {
+        return response;
+    }
+
+    void release() {
+        bridgeContext.release();
+        FactoryFinder.releaseFactories();
+    }
+}
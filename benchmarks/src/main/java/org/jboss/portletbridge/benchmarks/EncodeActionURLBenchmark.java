@@ -0,0 +1,88 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.portletbridge.context.PortletExternalContextImpl;
+import org.jboss.portletbridge.context.RenderPortletExternalContextImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PortletExternalContextImpl#encodeActionURL(String)} during a render request, for a Faces view under either
+ * an extension or a prefix mapping of the Faces servlet, and for a URL outside the portlet application.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeActionURLBenchmark {
+
+    @Param({ "*.jsf", "/faces/*" })
+    private String mapping;
+
+    private BridgeFixture fixture;
+    private PortletExternalContextImpl externalContext;
+    private String facesUrl;
+
+    @Setup
+    public void setup() {
+        fixture = new BridgeFixture(mapping);
+        externalContext = new RenderPortletExternalContextImpl(fixture.getPortletContext(), fixture.getRequest(),
+                fixture.getResponse());
+
+        if (mapping.startsWith("*")) {
+            facesUrl = BridgeFixture.CONTEXT_PATH + "/home" + mapping.substring(1) + "?tab=2&sort=name";
+        } else {
+            facesUrl = BridgeFixture.CONTEXT_PATH + mapping.substring(0, mapping.length() - 1)
+                    + "home.xhtml?tab=2&sort=name";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.release();
+    }
+
+    @Benchmark
+    public String facesView() {
+        return externalContext.encodeActionURL(facesUrl);
+    }
+
+    @Benchmark
+    public String external() {
+        return externalContext.encodeActionURL("http://www.jboss.org/portletbridge/?lang=en");
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.portletbridge.io.ByteBuffer;
+import org.jboss.portletbridge.io.CharBuffer;
+import org.jboss.portletbridge.io.FastBufferOutputStream;
+import org.jboss.portletbridge.io.FastBufferWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Buffering of rendered markup in {@link FastBufferWriter}, and its conversion to bytes, for a small fragment and a
+ * large page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FastBufferWriterBenchmark {
+
+    private static final char[] MARKUP = ("<tr class=\"rf-dt-r\"><td class=\"rf-dt-c\">Caf\u00e9 cr\u00e8me</td>"
+            + "<td class=\"rf-dt-c\"><a href=\"#\" onclick=\"return false;\">Details</a></td></tr>\n").toCharArray();
+
+    @Param({ "4096", "262144" })
+    private int length;
+
+    private FastBufferWriter written;
+
+    @Setup
+    public void setup() throws IOException {
+        written = write();
+    }
+
+    @Benchmark
+    public FastBufferWriter write() throws IOException {
+        FastBufferWriter writer = new FastBufferWriter();
+        for (int remaining = length; remaining > 0; remaining -= MARKUP.length) {
+            writer.write(MARKUP, 0, Math.min(remaining, MARKUP.length));
+        }
+        return writer;
+    }
+
+    @Benchmark
+    public FastBufferOutputStream convertToOutputStream() throws IOException {
+        return written.convertToOutputStream("UTF-8");
+    }
+
+    @Benchmark
+    public ByteBuffer charBufferToByteBuffer() throws IOException {
+        CharBuffer buffer = written.getFirstBuffer();
+        return buffer.toByteBuffer("UTF-8");
+    }
+
+    @Benchmark
+    public char[] toCharArray() {
+        return written.toCharArray();
+    }
+}
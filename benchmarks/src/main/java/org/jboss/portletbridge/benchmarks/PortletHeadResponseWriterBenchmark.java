@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.faces.context.ResponseWriter;
+import javax.portlet.RenderResponse;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.jboss.portletbridge.renderkit.portlet.PortletHeadResponseWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Building the head elements of a page with {@link PortletHeadResponseWriter}: a stylesheet link, and an inline
+ * script that is written in chunks the way Faces renderers write it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortletHeadResponseWriterBenchmark {
+
+    private static final String SCRIPT_LINE = "RichFaces.ui.DataTable(\"form:table\", {\"ajaxEventOption\":{}});\n";
+
+    @Param({ "10", "500" })
+    private int scriptLines;
+
+    private BridgeFixture fixture;
+    private RenderResponse response;
+
+    @Setup
+    public void setup() throws ParserConfigurationException {
+        fixture = new BridgeFixture("*.jsf");
+
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Map<String, Object> resp = new HashMap<String, Object>();
+        resp.put("createElement", new Stubs.Answer() {
+            @Override
+            public Object answer(Object[] args) {
+                return document.createElement((String) args[0]);
+            }
+        });
+        response = Stubs.stub(RenderResponse.class, resp);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.release();
+    }
+
+    @Benchmark
+    public ResponseWriter writeHead() throws IOException {
+        ResponseWriter writer = new PortletHeadResponseWriter(null, response);
+
+        writer.startElement("link", null);
+        writer.writeAttribute("type", "text/css", null);
+        writer.writeAttribute("rel", "stylesheet", null);
+        writer.writeURIAttribute("href", "/portletbridge/javax.faces.resource/skinning.ecss.jsf?ln=org.richfaces", null);
+        writer.endElement("link");
+
+        writer.startElement("script", null);
+        writer.writeAttribute("type", "text/javascript", null);
+        for (int i = 0; i < scriptLines; i++) {
+            writer.write(SCRIPT_LINE);
+        }
+        writer.endElement("script");
+
+        return writer;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.benchmarks;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URLEncoder;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Creates the container objects needed by the benchmarks, as there is no portal to supply them. Interfaces are stubbed
+ * with dynamic proxies that answer from a map of method name to value, and return the default value of the return type
+ * for every other method.
+ */
+final class Stubs {
+
+    static final Answer FIRST_ARGUMENT = new Answer() {
+        @Override
+        public Object answer(Object[] args) {
+            return args[0];
+        }
+    };
+
+    private static final Map<Class<?>, Object> DEFAULTS = new HashMap<Class<?>, Object>();
+
+    static {
+        DEFAULTS.put(boolean.class, Boolean.FALSE);
+        DEFAULTS.put(byte.class, Byte.valueOf((byte) 0));
+        DEFAULTS.put(short.class, Short.valueOf((short) 0));
+        DEFAULTS.put(char.class, Character.valueOf((char) 0));
+        DEFAULTS.put(int.class, Integer.valueOf(0));
+        DEFAULTS.put(long.class, Long.valueOf(0L));
+        DEFAULTS.put(float.class, Float.valueOf(0f));
+        DEFAULTS.put(double.class, Double.valueOf(0d));
+    }
+
+    private Stubs() {
+        // Prevent instantiation
+    }
+
+    static <T> T stub(Class<T> type, final Map<String, ?> answers) {
+        return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[] { type },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        Object value = answers.get(method.getName());
+                        if (value instanceof Answer) {
+                            return ((Answer) value).answer(args);
+                        }
+                        if (null != value) {
+                            return value;
+                        }
+                        return defaultAnswer(proxy, method, args);
+                    }
+                }));
+    }
+
+    /**
+     * Stubs a portlet URL that keeps its parameters and writes them in a form similar to a portal, so the cost of
+     * encoding a URL includes building the parameter map and writing the result.
+     */
+    static <T> T portletUrl(Class<T> type, final String base) {
+        return type.cast(Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[] { type },
+                new InvocationHandler() {
+                    private final Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if ("setParameter".equals(name)) {
+                            if (args[1] instanceof String[]) {
+                                parameters.put((String) args[0], (String[]) args[1]);
+                            } else {
+                                parameters.put((String) args[0], new String[] { (String) args[1] });
+                            }
+                            return null;
+                        } else if ("setParameters".equals(name)) {
+                            parameters.clear();
+                            parameters.putAll((Map<String, String[]>) args[0]);
+                            return null;
+                        } else if ("getParameterMap".equals(name)) {
+                            return parameters;
+                        } else if ("write".equals(name)) {
+                            boolean escape = args.length < 2 || (Boolean) args[1];
+                            ((Writer) args[0]).write(toUrl(base, parameters, escape));
+                            return null;
+                        } else if ("toString".equals(name)) {
+                            return toUrl(base, parameters, false);
+                        }
+                        return defaultAnswer(proxy, method, args);
+                    }
+                }));
+    }
+
+    private static String toUrl(String base, Map<String, String[]> parameters, boolean escape) throws IOException {
+        StringBuilder url = new StringBuilder(base);
+        char separator = base.indexOf('?') == -1 ? '?' : '&';
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                if (separator == '&' && escape) {
+                    url.append("&amp;");
+                } else {
+                    url.append(separator);
+                }
+                url.append(encode(parameter.getKey())).append('=').append(encode(value));
+                separator = '&';
+            }
+        }
+        return url.toString();
+    }
+
+    private static String encode(String value) throws UnsupportedEncodingException {
+        return null == value ? "" : URLEncoder.encode(value, "UTF-8");
+    }
+
+    private static Object defaultAnswer(Object proxy, Method method, Object[] args) {
+        if (method.getDeclaringClass() == Object.class) {
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            }
+            return method.getDeclaringClass().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+        }
+        return DEFAULTS.get(method.getReturnType());
+    }
+
+    /**
+     * Computes the value returned by a stubbed method from its arguments.
+     */
+    interface Answer {
+        Object answer(Object[] args);
+    }
+}
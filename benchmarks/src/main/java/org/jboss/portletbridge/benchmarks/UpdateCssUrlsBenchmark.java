@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.benchmarks;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.faces.application.Application;
+import javax.faces.application.ApplicationWrapper;
+import javax.faces.application.Resource;
+import javax.faces.application.ResourceHandler;
+import javax.faces.application.ResourceHandlerWrapper;
+import javax.faces.context.FacesContext;
+import javax.faces.context.FacesContextWrapper;
+
+import org.jboss.portletbridge.richfaces.application.resource.RichFacesPortletResourceHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rewriting of the image URLs in a RichFaces skin stylesheet by
+ * {@link RichFacesPortletResourceHandler#handleResourceRequest(FacesContext)}, for a small and a large stylesheet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateCssUrlsBenchmark {
+
+    private static final String RULES = ".rf-dt-shdr{background-image:url(../../org.richfaces.images/tableGradient.png)}\n"
+            + ".rf-ds-btn{background:url(../org.richfaces.images/dsButtonGradient.png) top left repeat-x}\n"
+            + ".rf-p-hdr{border-width:1px;background-image:url(org.richfaces.images/panelGradient.png)}\n"
+            + ".rf-tr-nd{color:#000000;font-family:Arial,Verdana,sans-serif;font-size:11px}\n";
+
+    @Param({ "10", "200" })
+    private int rules;
+
+    private String css;
+    private CssHandler handler;
+    private FacesContext facesContext;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("@charset \"UTF-8\";\n");
+        for (int i = 0; i < rules; i++) {
+            builder.append(RULES);
+        }
+        css = builder.toString();
+
+        handler = new CssHandler();
+
+        final ResourceHandler resourceHandler = new ResourceHandlerWrapper() {
+            @Override
+            public ResourceHandler getWrapped() {
+                return null;
+            }
+
+            @Override
+            public Resource createResource(String resourceName, String libraryName) {
+                BenchmarkResource resource = new BenchmarkResource();
+                resource.setResourceName(resourceName);
+                resource.setLibraryName(libraryName);
+                return resource;
+            }
+        };
+        final Application application = new ApplicationWrapper() {
+            @Override
+            public Application getWrapped() {
+                return null;
+            }
+
+            @Override
+            public ResourceHandler getResourceHandler() {
+                return resourceHandler;
+            }
+        };
+        facesContext = new FacesContextWrapper() {
+            @Override
+            public FacesContext getWrapped() {
+                return null;
+            }
+
+            @Override
+            public Application getApplication() {
+                return application;
+            }
+        };
+    }
+
+    @Benchmark
+    public String updateCssUrls() {
+        return handler.updateCssUrls(facesContext, css);
+    }
+
+    /**
+     * Exposes the rewriting of the stylesheet, and leaves resources unwrapped as there is no portlet request to
+     * encode their URLs against.
+     */
+    private static class CssHandler extends RichFacesPortletResourceHandler {
+
+        CssHandler() {
+            super(null);
+        }
+
+        @Override
+        protected String updateCssUrls(FacesContext context, String cssContent) {
+            return super.updateCssUrls(context, cssContent);
+        }
+
+        @Override
+        protected boolean isRichFacesPortletResource(Resource res) {
+            return true;
+        }
+    }
+
+    private static class BenchmarkResource extends Resource {
+
+        @Override
+        public InputStream getInputStream() {
+            return null;
+        }
+
+        @Override
+        public Map<String, String> getResponseHeaders() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getRequestPath() {
+            return "/portal/classic/benchmark?p_p_lifecycle=2&javax.faces.resource=" + getResourceName() + "&ln="
+                    + getLibraryName();
+        }
+
+        @Override
+        public URL getURL() {
+            return null;
+        }
+
+        @Override
+        public boolean userAgentNeedsUpdate(FacesContext context) {
+            return false;
+        }
+    }
+}
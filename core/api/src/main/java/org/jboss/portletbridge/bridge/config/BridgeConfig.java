@@ -483,4 +483,98 @@ public interface BridgeConfig {
      * @return <code>true</code> if the namespace should be shortened. <code>false</code> indicates it should not.
      */
     boolean isComponentNamespaceShortened();
+
+    /**
+     * Sets whether or not JSF resource URLs are encoded by substituting parameter values into a template that is created
+     * once per request, rather than creating a new <code>ResourceURL</code> for every resource.
+     *
+     * @param jsfResourceUrlTemplateEnabled <code>Boolean.TRUE</code> indicates resource URLs are created from a template.
+     *                                      <code>Boolean.FALSE</code> indicates a <code>ResourceURL</code> is created for
+     *                                      each resource.
+     */
+    void setJsfResourceUrlTemplateEnabled(boolean jsfResourceUrlTemplateEnabled);
+
+    /**
+     * Gets whether or not JSF resource URLs are encoded from a template. If not previously set, it returns
+     * <code>false</code>.
+     *
+     * @return <code>true</code> if resource URLs are created from a template. <code>false</code> indicates they are not.
+     */
+    boolean isJsfResourceUrlTemplateEnabled();
+
+    /**
+     * Sets the number of chars or bytes of view content that is buffered in memory before it is streamed to the portlet
+     * response, or spilled to a temporary file when the content may still need to be discarded or reordered.
+     *
+     * @param responseBufferLimit Buffer limit. A value less than <code>1</code> indicates the buffer is unbounded.
+     * @since 3.3.5
+     */
+    void setResponseBufferLimit(int responseBufferLimit);
+
+    /**
+     * Gets the number of chars or bytes of view content that is buffered in memory. If not previously set, it returns
+     * <code>0</code>.
+     *
+     * @return Buffer limit. A value less than <code>1</code> indicates the buffer is unbounded.
+     * @since 3.3.5
+     */
+    int getResponseBufferLimit();
+
+    /**
+     * Sets whether or not the head elements rendered for a view are cached per view id and portlet mode, and added to
+     * later responses without encoding the head resources again.
+     *
+     * @param headResourceCacheEnabled <code>Boolean.TRUE</code> indicates head elements are cached.
+     *                                 <code>Boolean.FALSE</code> indicates head resources are encoded on every render.
+     * @since 3.3.5
+     */
+    void setHeadResourceCacheEnabled(boolean headResourceCacheEnabled);
+
+    /**
+     * Gets whether or not the head elements rendered for a view are cached. If not previously set, it returns
+     * <code>false</code>.
+     *
+     * @return <code>true</code> if head elements are cached. <code>false</code> indicates they are not.
+     * @since 3.3.5
+     */
+    boolean isHeadResourceCacheEnabled();
+
+    /**
+     * Sets whether or not the default views of the portlet are compiled, and their head resources resolved, when the
+     * bridge is initialized.
+     *
+     * @param viewWarmupEnabled <code>Boolean.TRUE</code> indicates default views are prepared during initialization.
+     *                          <code>Boolean.FALSE</code> indicates they are prepared by the first request for them.
+     * @since 3.3.5
+     */
+    void setViewWarmupEnabled(boolean viewWarmupEnabled);
+
+    /**
+     * Gets whether or not the default views of the portlet are prepared during initialization. If not previously set, it
+     * returns <code>false</code>.
+     *
+     * @return <code>true</code> if default views are prepared during initialization. <code>false</code> indicates they
+     *         are not.
+     * @since 3.3.5
+     */
+    boolean isViewWarmupEnabled();
+
+    /**
+     * Sets whether or not the bridge request scope is disabled for the portlet. Without a scope nothing is carried from
+     * an action or event to the following render, which rebuilds the view from its render parameters alone.
+     *
+     * @param bridgeScopeDisabled <code>Boolean.TRUE</code> indicates no bridge request scope is created or managed.
+     *                            <code>Boolean.FALSE</code> indicates it is.
+     * @since 3.3.5
+     */
+    void setBridgeScopeDisabled(boolean bridgeScopeDisabled);
+
+    /**
+     * Gets whether or not the bridge request scope is disabled for the portlet. If not previously set, it returns
+     * <code>false</code>.
+     *
+     * @return <code>true</code> if no bridge request scope is created or managed. <code>false</code> indicates it is.
+     * @since 3.3.5
+     */
+    boolean isBridgeScopeDisabled();
 }
\ No newline at end of file
@@ -69,4 +69,36 @@ public interface PortletBridgeConstants {
      * Parameter to specify whether the generated namespace for a component should be shortened.
      */
     String COMPONENT_NAMESPACE_SHORTENED = "org.jboss.portletbridge.COMPONENT_NAMESPACE_SHORTENED";
+
+    /**
+     * Parameter to specify whether JSF resource URLs are produced from a per request template, instead of creating a
+     * container ResourceURL for each resource.
+     */
+    String JSF_RESOURCE_URL_TEMPLATE_ENABLED = "org.jboss.portletbridge.JSF_RESOURCE_URL_TEMPLATE_ENABLED";
+
+    /**
+     * Parameter to specify the number of chars or bytes of view content the bridge buffers in memory before it streams
+     * the content to the portlet response, or spills it to a temporary file. By default the buffer is unbounded.
+     */
+    String RESPONSE_BUFFER_LIMIT = "org.jboss.portletbridge.RESPONSE_BUFFER_LIMIT";
+
+    /**
+     * Parameter to enable caching of the head elements rendered for a view, so that views rendering the same head
+     * resources on every request don't encode them again. Default value is disabled.
+     */
+    String HEAD_RESOURCE_CACHE_ENABLED = "org.jboss.portletbridge.HEAD_RESOURCE_CACHE_ENABLED";
+
+    /**
+     * Parameter to enable compiling the default views of a portlet, and resolving their head resources, when the
+     * portlet is initialized instead of on the first request for each of them. Default value is disabled.
+     */
+    String VIEW_WARMUP_ENABLED = "org.jboss.portletbridge.VIEW_WARMUP_ENABLED";
+
+    /**
+     * Parameter to disable the bridge request scope of a portlet, so that no per-user state is kept by the bridge
+     * between an action and the following render. A single view can opt in by setting an attribute of the same name on
+     * its view root, e.g. with <code>&lt;f:attribute name="org.jboss.portletbridge.BRIDGE_SCOPE_DISABLED"
+     * value="true"/&gt;</code> as a child of <code>f:view</code>. Default value is disabled.
+     */
+    String BRIDGE_SCOPE_DISABLED = "org.jboss.portletbridge.BRIDGE_SCOPE_DISABLED";
 }
@@ -21,7 +21,6 @@
  */
 package org.jboss.portletbridge;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -30,10 +29,8 @@ import java.util.logging.Logger;
 
 import javax.faces.FactoryFinder;
 import javax.faces.application.ApplicationFactory;
-import javax.faces.application.ViewHandler;
 import javax.faces.context.FacesContext;
 import javax.faces.event.SystemEvent;
-import javax.faces.webapp.FacesServlet;
 import javax.portlet.ActionRequest;
 import javax.portlet.ActionResponse;
 import javax.portlet.EventRequest;
@@ -54,17 +51,21 @@ import javax.portlet.faces.BridgeUninitializedException;
 import javax.portlet.faces.BridgeWriteBehindResponse;
 
 import org.jboss.portletbridge.bridge.config.BridgeConfig;
+import org.jboss.portletbridge.bridge.config.FacesServletMappingMatcher;
 import org.jboss.portletbridge.bridge.context.BridgeContext;
 import org.jboss.portletbridge.bridge.controller.BridgeController;
 import org.jboss.portletbridge.bridge.event.BridgeDestroyRequestSystemEvent;
 import org.jboss.portletbridge.bridge.event.BridgeInitializeRequestSystemEvent;
+import org.jboss.portletbridge.bridge.event.BridgePostConfigureSystemEvent;
 import org.jboss.portletbridge.bridge.factory.BridgeConfigFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeContextFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeControllerFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeFactoryFinder;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger;
+import org.jboss.portletbridge.config.BridgeConfigIndex;
 import org.jboss.portletbridge.config.FacesConfigProcessor;
-import org.jboss.portletbridge.config.WebXmlProcessor;
+import org.jboss.portletbridge.config.StartupReport;
+import org.jboss.portletbridge.config.WebXmlModel;
 import org.jboss.portletbridge.context.InitFacesContext;
 
 /**
@@ -96,21 +97,83 @@ public class PortletBridgeImpl implements Bridge {
             logger.fine("Commenced Portlet Bridge initialization for " + portletName);
         }
 
-        this.bridgeConfig = getBridgeConfig(portletConfig);
+        StartupReport startupReport = getStartupReport(portletConfig.getPortletContext());
+        StartupReport.Timer initTimer = startTimer(startupReport, portletName, "init");
 
-        this.bridgeController = ((BridgeControllerFactory) BridgeFactoryFinder
-                .getFactoryInstance(BridgeControllerFactory.class)).getBridgeController(bridgeConfig);
+        StartupReport.Timer timer = startTimer(startupReport, portletName, "factories");
+        BridgeConfigFactory configFactory = (BridgeConfigFactory) BridgeFactoryFinder
+                .getFactoryInstance(BridgeConfigFactory.class);
+        BridgeControllerFactory controllerFactory = (BridgeControllerFactory) BridgeFactoryFinder
+                .getFactoryInstance(BridgeControllerFactory.class);
+        stopTimer(timer);
+
+        timer = startTimer(startupReport, portletName, "config");
+        this.bridgeConfig = getBridgeConfig(portletConfig, configFactory);
+        stopTimer(timer);
+
+        timer = startTimer(startupReport, portletName, "controller");
+        this.bridgeController = controllerFactory.getBridgeController(bridgeConfig);
+        stopTimer(timer);
 
         this.initialized = true;
+
+        // Let extensions initialize themselves for this portlet
+        timer = startTimer(startupReport, portletName, "post-configure");
+        fireFacesSystemEvent(bridgeConfig, BridgePostConfigureSystemEvent.class);
+        stopTimer(timer);
+
+        stopTimer(initTimer);
+        if (null != startupReport) {
+            try {
+                startupReport.logSummary(portletName);
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "Unable to log the startup report of " + portletName, e);
+            }
+        }
+
         if (logger.isLoggable(Level.FINE)) {
             logger.fine("Completed Portlet Bridge initialization for " + portletName);
         }
     }
 
+    /**
+     * The startup report is only diagnostics, so a failure to create it leaves the portlet initialized without one.
+     */
+    private static StartupReport getStartupReport(PortletContext portletContext) {
+        try {
+            return StartupReport.getInstance(portletContext);
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Unable to create the startup report", e);
+        } catch (LinkageError e) {
+            logger.log(Level.FINE, "Unable to create the startup report", e);
+        }
+        return null;
+    }
+
+    private static StartupReport.Timer startTimer(StartupReport startupReport, String scope, String step) {
+        if (null != startupReport) {
+            try {
+                return startupReport.start(scope, step);
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "Unable to time " + scope + "/" + step, e);
+            }
+        }
+        return null;
+    }
+
+    private static void stopTimer(StartupReport.Timer timer) {
+        if (null != timer) {
+            try {
+                timer.stop();
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "Unable to record a startup step", e);
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
-    private BridgeConfig getBridgeConfig(PortletConfig portletConfig) {
-        BridgeConfig bridgeConfig = ((BridgeConfigFactory) BridgeFactoryFinder.getFactoryInstance(BridgeConfigFactory.class))
-                .getBridgeConfig();
+    private BridgeConfig getBridgeConfig(PortletConfig portletConfig, BridgeConfigFactory configFactory) {
+        BridgeConfig bridgeConfig = configFactory.getBridgeConfig();
 
         bridgeConfig.setPortletConfig(portletConfig);
 
@@ -139,52 +202,44 @@ public class PortletBridgeImpl implements Bridge {
         bridgeConfig.setExcludedRequestAttributes((List<String>) portletContext.getAttribute(bridgeParametersPrefix
                 + Bridge.EXCLUDED_REQUEST_ATTRIBUTES));
 
-        // Lifecycle Id
-        String lifecycleId = portletContext.getInitParameter(FacesServlet.LIFECYCLE_ID_ATTR);
-        if (null != lifecycleId && lifecycleId.trim().length() != 0) {
-            bridgeConfig.setLifecyleId(lifecycleId);
+        // Configuration recorded when the application was built, if present
+        BridgeConfigIndex index = BridgeConfigIndex.getInstance(portletContext);
+        if (null != index) {
+            bridgeConfig.getAttributes().put(BridgeConfigIndex.ATTRIBUTE_NAME, index);
         }
 
-        // Faces Suffixes. JSF 2.0 allows multiple
-        String suffixString = portletContext.getInitParameter(ViewHandler.DEFAULT_SUFFIX_PARAM_NAME);
-        if (null == suffixString) {
-            suffixString = ViewHandler.DEFAULT_SUFFIX;
-        }
-        bridgeConfig.setFacesSuffixes(Arrays.asList(suffixString.split(" ")));
+        // Process web.xml content, shared by every portlet of the application
+        WebXmlModel webXml = WebXmlModel.getInstance(portletContext);
 
-        // Process web.xml content
-        WebXmlProcessor webXmlProc = new WebXmlProcessor(portletConfig.getPortletContext());
-        // Check if we have what we need to proceed
-        if (null == webXmlProc.getFacesServlet()) {
-            throw new BridgeException("No Faces Servlet defined in web.xml");
-        }
-        if (null == webXmlProc.getFacesServlet().getMappings()) {
-            throw new BridgeException("No Faces Servlet Mapping defined in web.xml");
+        // Lifecycle Id
+        if (null != webXml.getLifecycleId()) {
+            bridgeConfig.setLifecyleId(webXml.getLifecycleId());
         }
 
+        // Faces Suffixes. JSF 2.0 allows multiple
+        bridgeConfig.setFacesSuffixes(webXml.getFacesSuffixes());
+
         // Retrieve Faces Servlet Mapping
-        bridgeConfig.setFacesServletMappings(webXmlProc.getFacesServlet().getMappings());
+        bridgeConfig.setFacesServletMappings(webXml.getFacesServletMappings());
+        FacesServletMappingMatcher.compile(bridgeConfig);
         // Retrieve Error Page Mapping
-        bridgeConfig.setFacesErrorViewMappings(webXmlProc.getErrorViews());
+        bridgeConfig.setFacesErrorViewMappings(webXml.getErrorViews());
 
-        // Retrieve faces-config.xml settings
-        // Excluded Request Attributes from Faces Config
-        List<String> excludedAttrs = FacesConfigProcessor.getExcludedAttributes();
-        if (null != excludedAttrs) {
-            bridgeConfig.getExcludedRequestAttributes().addAll(excludedAttrs);
-        }
+        // Retrieve faces-config.xml settings, shared by every portlet of the application
+        FacesConfigProcessor facesConfig = FacesConfigProcessor.getInstance(portletContext);
+        if (null != facesConfig) {
+            // Excluded Request Attributes from Faces Config
+            bridgeConfig.getExcludedRequestAttributes().addAll(facesConfig.getExcludedAttributes());
 
-        // Public Parameter Mapping
-        Map<String, String> publicParams = FacesConfigProcessor.getPublicParameterMappings();
-        if (null != publicParams) {
-            bridgeConfig.getPublicRenderParameterMappings().putAll(publicParams);
-        }
+            // Public Parameter Mapping
+            bridgeConfig.getPublicRenderParameterMappings().putAll(facesConfig.getPublicParameterMappings());
 
-        // Write Behind Response Wrappers
-        bridgeConfig.setWriteBehindRenderResponseWrapper(createWrapper(FacesConfigProcessor
-                .getWriteBehindRenderResponseWrapperClassName()));
-        bridgeConfig.setWriteBehindResourceResponseWrapper(createWrapper(FacesConfigProcessor
-                .getWriteBehindResourceResponseWrapperClassName()));
+            // Write Behind Response Wrappers
+            bridgeConfig.setWriteBehindRenderResponseWrapper(createWrapper(facesConfig
+                    .getWriteBehindRenderResponseWrapperClassName()));
+            bridgeConfig.setWriteBehindResourceResponseWrapper(createWrapper(facesConfig
+                    .getWriteBehindResourceResponseWrapperClassName()));
+        }
 
         // Default View Id Mappings
         bridgeConfig.setDefaultViewMappings((Map<String, String>) portletContext.getAttribute(bridgeParametersPrefix
@@ -194,34 +249,29 @@ public class PortletBridgeImpl implements Bridge {
         }
 
         // PBR-495 - Parameter to determine whether HeadRenderer forces non self-closing script tags
-        String preventSelfClosing = portletContext.getInitParameter(PortletBridgeConstants.PREVENT_SELF_CLOSING_SCRIPT_TAG_PARAM);
-        if (preventSelfClosing != null) {
-            bridgeConfig.setPreventSelfClosingScriptTag(Boolean.parseBoolean(preventSelfClosing) ? true : false);
+        if (null != webXml.getPreventSelfClosingScriptTag()) {
+            bridgeConfig.setPreventSelfClosingScriptTag(webXml.getPreventSelfClosingScriptTag());
         }
 
         // PBR-510 - Parameter to determine whether f:viewParam will work during Render Response
-        String disableViewParam = portletContext.getInitParameter(PortletBridgeConstants.VIEW_PARAM_DISABLED);
-        if (disableViewParam != null) {
-            bridgeConfig.setViewParamHandlingDisabled(Boolean.parseBoolean(disableViewParam) ? true : false);
+        if (null != webXml.getViewParamHandlingDisabled()) {
+            bridgeConfig.setViewParamHandlingDisabled(webXml.getViewParamHandlingDisabled());
         }
 
         // PBR-516 - Parameter to determine whether to udpate the Bridge Request Scope with the result of an Ajax call
-        String ajaxEnabledParam = portletContext.getInitParameter(PortletBridgeConstants.SCOPE_ENABLED_ON_AJAX);
-        if (ajaxEnabledParam != null) {
-            bridgeConfig.setBridgeScopeEnabledOnAjaxRequest(Boolean.parseBoolean(ajaxEnabledParam) ? true : false);
+        if (null != webXml.getBridgeScopeEnabledOnAjaxRequest()) {
+            bridgeConfig.setBridgeScopeEnabledOnAjaxRequest(webXml.getBridgeScopeEnabledOnAjaxRequest());
         }
 
         // PBR-516 - Parameter to determine whether to store Faces Messages in Bridge Request Scope if
         // PortletBridgeConstants.SCOPE_ENABLED_ON_AJAX is true
-        String facesMessagesEnabledParam = portletContext.getInitParameter(PortletBridgeConstants.FACES_MESSAGES_STORED_ON_AJAX);
-        if (facesMessagesEnabledParam != null) {
-            bridgeConfig.setFacesMessagesStoredOnAjaxRequest(Boolean.parseBoolean(facesMessagesEnabledParam) ? true : false);
+        if (null != webXml.getFacesMessagesStoredOnAjaxRequest()) {
+            bridgeConfig.setFacesMessagesStoredOnAjaxRequest(webXml.getFacesMessagesStoredOnAjaxRequest());
         }
 
         // Retrieve name of session id parameter, if set
-        String sessionIdParameter = portletContext.getInitParameter(PortletBridgeConstants.SESSION_ID_PARAMETER_NAME);
-        if (sessionIdParameter != null && sessionIdParameter.trim().length() > 0) {
-            bridgeConfig.setSessionIdParameterName(sessionIdParameter);
+        if (null != webXml.getSessionIdParameterName()) {
+            bridgeConfig.setSessionIdParameterName(webXml.getSessionIdParameterName());
         }
 
         // PBR-499 - Parameter to determine whether Bridge Scope is retained after Render
@@ -236,6 +286,41 @@ public class PortletBridgeImpl implements Bridge {
             bridgeConfig.setComponentNamespaceShortened(Boolean.parseBoolean(componentNamespaceShortened) ? true : false);
         }
 
+        // Parameter to determine whether JSF resource URLs are created from a per request template
+        String resourceUrlTemplateEnabled = getInitParameter(portletConfig, PortletBridgeConstants.JSF_RESOURCE_URL_TEMPLATE_ENABLED);
+        if (resourceUrlTemplateEnabled != null) {
+            bridgeConfig.setJsfResourceUrlTemplateEnabled(Boolean.parseBoolean(resourceUrlTemplateEnabled));
+        }
+
+        // Parameter to bound the view content buffered in memory
+        String responseBufferLimit = getInitParameter(portletConfig, PortletBridgeConstants.RESPONSE_BUFFER_LIMIT);
+        if (responseBufferLimit != null) {
+            try {
+                bridgeConfig.setResponseBufferLimit(Integer.parseInt(responseBufferLimit.trim()));
+            } catch (NumberFormatException e) {
+                logger.log(Level.WARNING, "Invalid value for " + PortletBridgeConstants.RESPONSE_BUFFER_LIMIT + ": "
+                        + responseBufferLimit);
+            }
+        }
+
+        // Parameter to determine whether head elements rendered for a view are cached
+        String headResourceCacheEnabled = getInitParameter(portletConfig, PortletBridgeConstants.HEAD_RESOURCE_CACHE_ENABLED);
+        if (headResourceCacheEnabled != null) {
+            bridgeConfig.setHeadResourceCacheEnabled(Boolean.parseBoolean(headResourceCacheEnabled));
+        }
+
+        // Parameter to determine whether default views are prepared during initialization
+        String viewWarmupEnabled = getInitParameter(portletConfig, PortletBridgeConstants.VIEW_WARMUP_ENABLED);
+        if (viewWarmupEnabled != null) {
+            bridgeConfig.setViewWarmupEnabled(Boolean.parseBoolean(viewWarmupEnabled));
+        }
+
+        // Parameter to determine whether the bridge request scope is disabled
+        String bridgeScopeDisabled = getInitParameter(portletConfig, PortletBridgeConstants.BRIDGE_SCOPE_DISABLED);
+        if (bridgeScopeDisabled != null) {
+            bridgeConfig.setBridgeScopeDisabled(Boolean.parseBoolean(bridgeScopeDisabled));
+        }
+
         // Determine whether we're running with JSF 2.2 Runtime or not
         // Use FlashFactory presence to determine it
         try {
@@ -345,6 +430,11 @@ public class PortletBridgeImpl implements Bridge {
             if (logger.isLoggable(Level.FINE)) {
                 logger.fine("Destroy Portlet Bridge for " + this.bridgeConfig.getPortletConfig().getPortletName());
             }
+            FacesServletMappingMatcher matcher = (FacesServletMappingMatcher) this.bridgeConfig.getAttributes().remove(
+                    FacesServletMappingMatcher.ATTRIBUTE_NAME);
+            if (null != matcher) {
+                matcher.clearCache();
+            }
             this.bridgeConfig = null;
             this.bridgeController = null;
             this.initialized = false;
@@ -396,7 +486,7 @@ public class PortletBridgeImpl implements Bridge {
         bridgeContext.release();
     }
 
-    private void fireFacesSystemEvent(BridgeContext bridgeContext, Class<? extends SystemEvent> eventClass) {
+    private void fireFacesSystemEvent(Object source, Class<? extends SystemEvent> eventClass) {
         FacesContext facesContext = FacesContext.getCurrentInstance();
         boolean createdInitContext = false;
 
@@ -407,7 +497,7 @@ public class PortletBridgeImpl implements Bridge {
             createdInitContext = true;
         }
 
-        facesContext.getApplication().publishEvent(facesContext, eventClass, bridgeContext);
+        facesContext.getApplication().publishEvent(facesContext, eventClass, source);
 
         if (createdInitContext) {
             facesContext.release();
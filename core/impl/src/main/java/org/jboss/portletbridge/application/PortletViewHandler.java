@@ -38,6 +38,7 @@ import javax.portlet.faces.BridgeUtil;
 import javax.portlet.faces.annotation.PortletNamingContainer;
 import javax.portlet.faces.component.PortletNamingContainerUIViewRoot;
 
+import org.jboss.portletbridge.application.view.BufferedMimeResponseWrapper;
 import org.jboss.portletbridge.bridge.context.BridgeContext;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger.Level;
@@ -221,6 +222,16 @@ public class PortletViewHandler extends ViewHandlerWrapper {
                 // to use original view handler functionality.
                 super.renderView(context, viewToRender);
             } catch (Exception e) {
+                if (Boolean.TRUE.equals(externalContext.getRequestMap().get(
+                        BufferedMimeResponseWrapper.RESPONSE_STREAMED_ATTRIBUTE))) {
+                    // Part of the view has already been written to the portlet response, so don't render it again
+                    if (e instanceof IOException) {
+                        throw (IOException) e;
+                    } else if (e instanceof RuntimeException) {
+                        throw (RuntimeException) e;
+                    }
+                    throw new FacesException(e);
+                }
                 logger.log(Level.DEBUG,
                     "Error rendering view by parent ViewHandler, try to render as portletbridge JSP page", e);
                 // Restore request/response objects if parent renderer change
@@ -25,7 +25,6 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.List;
 
 import javax.faces.application.Resource;
 import javax.faces.application.ResourceHandler;
@@ -33,6 +32,7 @@ import javax.faces.application.ResourceWrapper;
 import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
 
+import org.jboss.portletbridge.bridge.config.FacesServletMappingMatcher;
 import org.jboss.portletbridge.bridge.context.BridgeContext;
 
 /**
@@ -101,16 +101,13 @@ public class PortletResource extends ResourceWrapper implements Externalizable {
 
         if (null != wrappedPath) {
             if (wrappedPath.contains(ResourceHandler.RESOURCE_IDENTIFIER)) {
-                List<String> servletMappings = BridgeContext.getCurrentInstance().getBridgeConfig().getFacesServletMappings();
-                //TODO Handle this nicer? Maybe cache extension mappings on startup
-                for (String mapping : servletMappings) {
-                    if (mapping.startsWith("*.")) {
-                        mapping = mapping.substring(1);
-                        String libraryToken = mapping + "?ln";
-                        int pos = wrappedPath.indexOf(libraryToken);
-                        if (pos > 0) {
-                            wrappedPath = wrappedPath.substring(0, pos) + wrappedPath.substring(pos + mapping.length());
-                        }
+                FacesServletMappingMatcher mappingMatcher = FacesServletMappingMatcher.getInstance(BridgeContext
+                        .getCurrentInstance().getBridgeConfig());
+                for (String extension : mappingMatcher.getExtensions()) {
+                    String libraryToken = extension + "?ln";
+                    int pos = wrappedPath.indexOf(libraryToken);
+                    if (pos > 0) {
+                        wrappedPath = wrappedPath.substring(0, pos) + wrappedPath.substring(pos + extension.length());
                     }
                 }
             }
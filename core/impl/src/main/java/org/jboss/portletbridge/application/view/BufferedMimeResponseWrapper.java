@@ -21,10 +21,25 @@
  */
 package org.jboss.portletbridge.application.view;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.FacesContext;
 
 import javax.portlet.CacheControl;
 import javax.portlet.MimeResponse;
@@ -34,6 +49,7 @@ import javax.portlet.faces.BridgeWriteBehindResponse;
 import javax.portlet.filter.PortletResponseWrapper;
 
 import org.jboss.portletbridge.io.FastBufferOutputStream;
+import org.jboss.portletbridge.io.FastBufferWriter;
 import org.jboss.portletbridge.io.FastPrintWriter;
 
 /**
@@ -41,12 +57,34 @@ import org.jboss.portletbridge.io.FastPrintWriter;
  */
 public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper implements MimeResponse, BridgeWriteBehindResponse {
 
+    /**
+     * Request attribute set to <code>Boolean.TRUE</code> once buffered content has been streamed to the portlet
+     * response, after which the view can't be rendered again for the request.
+     */
+    public static final String RESPONSE_STREAMED_ATTRIBUTE = "org.jboss.portletbridge.RESPONSE_STREAMED";
+
+    private static final Logger logger = Logger.getLogger(BufferedMimeResponseWrapper.class.getName());
+
+    private static final String SPILL_ENCODING = "UTF-8";
+
     protected FastBufferOutputStream fastBufferStream = null;
 
     protected FastPrintWriter fastPrintWriter = null;
 
     private boolean hasWriteBehindMarkup = false;
 
+    /**
+     * Number of chars or bytes held in memory before content is streamed or spilled, unbounded if less than 1.
+     */
+    private int bufferLimit = 0;
+
+    /**
+     * Write behind content past the buffer limit, and the stream or writer filling it.
+     */
+    private File spillFile;
+
+    private Closeable spillOutput;
+
     public BufferedMimeResponseWrapper(MimeResponse response) {
         super(response);
     }
@@ -56,6 +94,17 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
         return (MimeResponse) super.getResponse();
     }
 
+    /**
+     * Bounds the content held in memory. Past the limit, content is streamed to the wrapped response, or spilled to a
+     * temporary file once write behind markup has been flagged, as that is written after the view.
+     *
+     * @param bufferLimit number of chars or bytes, unbounded if less than <code>1</code>
+     * @since 3.3.5
+     */
+    public void setBufferLimit(int bufferLimit) {
+        this.bufferLimit = bufferLimit;
+    }
+
     /**
      * @return
      * @throws IOException
@@ -67,7 +116,7 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
         }
 
         if (null == fastBufferStream) {
-            fastBufferStream = new FastBufferOutputStream();
+            fastBufferStream = bufferLimit > 0 ? new LimitedOutputStream() : new FastBufferOutputStream();
         }
 
         return fastBufferStream;
@@ -84,7 +133,7 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
         }
 
         if (null == fastPrintWriter) {
-            fastPrintWriter = new FastPrintWriter();
+            fastPrintWriter = bufferLimit > 0 ? new LimitedPrintWriter() : new FastPrintWriter();
         }
 
         return fastPrintWriter;
@@ -98,6 +147,8 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
         if (fastPrintWriter != null) {
             fastPrintWriter.reset();
         }
+
+        discardSpill();
     }
 
     /**
@@ -130,13 +181,61 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
     public void writeBufferedData() throws IOException {
         if (fastBufferStream != null) {
             OutputStream outputStream = getResponse().getPortletOutputStream();
-            fastBufferStream.writeTo(outputStream);
+            writeBufferedBytes(outputStream);
             outputStream.flush();
         } else if (fastPrintWriter != null) {
             PrintWriter writer = getResponse().getWriter();
-            fastPrintWriter.writeTo(writer);
+            writeBufferedChars(writer);
             writer.flush();
         }
+        resetBuffers();
+    }
+
+    /**
+     * Writes the buffered bytes, whether held in memory or spilled, to out.
+     *
+     * @since 3.3.5
+     */
+    protected void writeBufferedBytes(OutputStream out) throws IOException {
+        if (null != spillFile) {
+            spillOutput.close();
+            InputStream in = new FileInputStream(spillFile);
+            try {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        } else {
+            fastBufferStream.writeTo(out);
+        }
+    }
+
+    /**
+     * Writes the buffered chars, whether held in memory or spilled, to out.
+     *
+     * @since 3.3.5
+     */
+    protected void writeBufferedChars(Writer out) throws IOException {
+        fastPrintWriter.flush();
+        if (null != spillFile) {
+            spillOutput.close();
+            Reader in = new InputStreamReader(new FileInputStream(spillFile), SPILL_ENCODING);
+            try {
+                char[] buffer = new char[4096];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        } else {
+            fastPrintWriter.writeTo(out);
+        }
     }
 
     public String toString() {
@@ -218,6 +317,15 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
     public char[] getChars() {
         if (isChars()) {
             fastPrintWriter.flush();
+            if (null != spillFile) {
+                FastBufferWriter content = new FastBufferWriter(4096);
+                try {
+                    writeBufferedChars(content);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to read spilled content", e);
+                }
+                return content.toCharArray();
+            }
             return fastPrintWriter.toCharArray();
         }
         return null;
@@ -231,6 +339,15 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
     @Override
     public byte[] getBytes() {
         if (isBytes()) {
+            if (null != spillFile) {
+                FastBufferOutputStream content = new FastBufferOutputStream(4096);
+                try {
+                    writeBufferedBytes(content);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to read spilled content", e);
+                }
+                return content.toByteArray();
+            }
             return fastBufferStream.toByteArray();
         }
         return null;
@@ -239,15 +356,208 @@ public abstract class BufferedMimeResponseWrapper extends PortletResponseWrapper
     public void flushContentToWrappedResponse() throws IOException {
         hasWriteBehindMarkup = true;
         flushMarkupToWrappedResponse();
+        stopStreaming();
     }
 
     public void flushToWrappedResponse() throws IOException {
         hasWriteBehindMarkup = true;
         flushMarkupToWrappedResponse();
+        stopStreaming();
     }
 
     @Override
     public boolean hasFacesWriteBehindMarkup() {
         return hasWriteBehindMarkup;
     }
+
+    /**
+     * Write behind markup follows, which has to be held back again.
+     */
+    private void stopStreaming() throws IOException {
+        if (fastPrintWriter instanceof LimitedPrintWriter) {
+            ((LimitedPrintWriter) fastPrintWriter).restore();
+        } else if (fastBufferStream instanceof LimitedOutputStream) {
+            ((LimitedOutputStream) fastBufferStream).restore();
+        }
+    }
+
+    private Writer openOverflowWriter() throws IOException {
+        if (hasWriteBehindMarkup) {
+            createSpillFile();
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(spillFile), SPILL_ENCODING));
+            spillOutput = writer;
+            return writer;
+        }
+        markStreamed();
+        return getResponse().getWriter();
+    }
+
+    private OutputStream openOverflowStream() throws IOException {
+        if (hasWriteBehindMarkup) {
+            createSpillFile();
+            OutputStream stream = new BufferedOutputStream(new FileOutputStream(spillFile));
+            spillOutput = stream;
+            return stream;
+        }
+        markStreamed();
+        return getResponse().getPortletOutputStream();
+    }
+
+    private void createSpillFile() throws IOException {
+        spillFile = File.createTempFile("portletbridge", ".buf");
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Buffer limit of " + bufferLimit + " exceeded, spilling write behind markup to " + spillFile);
+        }
+    }
+
+    private void markStreamed() {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        if (null != facesContext) {
+            facesContext.getExternalContext().getRequestMap().put(RESPONSE_STREAMED_ATTRIBUTE, Boolean.TRUE);
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Buffer limit of " + bufferLimit + " exceeded, streaming content to the portlet response");
+        }
+    }
+
+    private void discardSpill() {
+        if (null == spillFile) {
+            return;
+        }
+        try {
+            spillOutput.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Unable to close " + spillFile, e);
+        }
+        if (!spillFile.delete()) {
+            logger.warning("Unable to delete " + spillFile);
+        }
+        spillFile = null;
+        spillOutput = null;
+        stopSpilling();
+    }
+
+    private void stopSpilling() {
+        if (fastPrintWriter instanceof LimitedPrintWriter) {
+            ((LimitedPrintWriter) fastPrintWriter).detach();
+        } else if (fastBufferStream instanceof LimitedOutputStream) {
+            ((LimitedOutputStream) fastBufferStream).detach();
+        }
+    }
+
+    /**
+     * Writer that moves its content to the overflow writer, and writes through to it, once the buffer limit is passed.
+     */
+    private final class LimitedPrintWriter extends FastPrintWriter {
+
+        private final Writer buffer = out;
+
+        @Override
+        public void write(int c) {
+            super.write(c);
+            checkLimit();
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            super.write(buf, off, len);
+            checkLimit();
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            super.write(s, off, len);
+            checkLimit();
+        }
+
+        private void checkLimit() {
+            if (out == buffer && getLength() > bufferLimit) {
+                synchronized (lock) {
+                    try {
+                        Writer overflow = openOverflowWriter();
+                        writeTo(overflow);
+                        reset();
+                        out = overflow;
+                    } catch (IOException e) {
+                        setError();
+                    }
+                }
+            }
+        }
+
+        void restore() throws IOException {
+            synchronized (lock) {
+                if (out != buffer && null == spillFile) {
+                    out.flush();
+                    out = buffer;
+                }
+            }
+        }
+
+        void detach() {
+            synchronized (lock) {
+                out = buffer;
+            }
+        }
+    }
+
+    /**
+     * Stream that moves its content to the overflow stream, and writes through to it, once the buffer limit is passed.
+     */
+    private final class LimitedOutputStream extends FastBufferOutputStream {
+
+        private OutputStream overflow;
+
+        @Override
+        public void write(int c) throws IOException {
+            if (null != overflow) {
+                overflow.write(c);
+            } else {
+                super.write(c);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (null != overflow) {
+                overflow.write(b, off, len);
+            } else {
+                super.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (null != overflow) {
+                overflow.flush();
+            }
+        }
+
+        private void checkLimit() throws IOException {
+            if (getLength() > bufferLimit) {
+                OutputStream target = openOverflowStream();
+                writeTo(target);
+                reset();
+                overflow = target;
+            }
+        }
+
+        void restore() throws IOException {
+            if (null != overflow && null == spillFile) {
+                overflow.flush();
+                overflow = null;
+            }
+        }
+
+        void detach() {
+            overflow = null;
+        }
+    }
 }
\ No newline at end of file
@@ -65,12 +65,11 @@ public class BufferedRenderResponseWrapper extends BufferedMimeResponseWrapper i
         flushBuffer();
 
         if (isBytes()) {
-            response.getPortletOutputStream().write(getBytes());
-            fastBufferStream.reset();
+            writeBufferedBytes(response.getPortletOutputStream());
         } else if (isChars()) {
-            response.getWriter().write(getChars());
-            fastPrintWriter.reset();
+            writeBufferedChars(response.getWriter());
         }
+        resetBuffers();
     }
 
 }
@@ -71,11 +71,10 @@ public class BufferedResourceResponseWrapper extends BufferedMimeResponseWrapper
         flushBuffer();
 
         if (isBytes()) {
-            response.getPortletOutputStream().write(getBytes());
-            fastBufferStream.reset();
+            writeBufferedBytes(response.getPortletOutputStream());
         } else if (isChars()) {
-            response.getWriter().write(getChars());
-            fastPrintWriter.reset();
+            writeBufferedChars(response.getWriter());
         }
+        resetBuffers();
     }
 }
@@ -105,17 +105,29 @@ public class PortletJspVdlImpl extends VdlWrapper {
             }
         } else {
             // Use our wrappers
+            BufferedMimeResponseWrapper buffered;
             if (Bridge.PortletPhase.RENDER_PHASE == BridgeUtil.getPortletRequestPhase()) {
-                wrapped = new BufferedRenderResponseWrapper((RenderResponse) response);
+                buffered = new BufferedRenderResponseWrapper((RenderResponse) response);
             } else {
-                wrapped = new BufferedResourceResponseWrapper((ResourceResponse) response);
+                buffered = new BufferedResourceResponseWrapper((ResourceResponse) response);
             }
+            buffered.setBufferLimit(bridgeContext.getBridgeConfig().getResponseBufferLimit());
+            wrapped = buffered;
             externalContext.setResponse(wrapped);
         }
 
         externalContext.getRequestMap().put(Bridge.RENDER_CONTENT_AFTER_VIEW, Boolean.TRUE);
 
-        externalContext.dispatch(viewToRender.getViewId());
+        boolean dispatched = false;
+        try {
+            externalContext.dispatch(viewToRender.getViewId());
+            dispatched = true;
+        } finally {
+            if (!dispatched && wrapped instanceof BufferedMimeResponseWrapper) {
+                // Drop buffered content, including any spilled to a temporary file
+                ((BufferedMimeResponseWrapper) wrapped).resetBuffers();
+            }
+        }
 
         if (null != wrapped) {
             externalContext.setResponse(response);
@@ -124,6 +136,10 @@ public class PortletJspVdlImpl extends VdlWrapper {
 
             if (null == obj && wrapped.hasFacesWriteBehindMarkup()) {
                 obj = wrapped.isChars() ? wrapped.getChars() : wrapped.getBytes();
+                if (wrapped instanceof BufferedMimeResponseWrapper) {
+                    // Content has been copied, so the buffer segments can go back to the pool
+                    ((BufferedMimeResponseWrapper) wrapped).resetBuffers();
+                }
             }
 
             if (null != obj) {
@@ -148,13 +164,13 @@ public class PortletJspVdlImpl extends VdlWrapper {
         RenderKit renderKit = renderFactory.getRenderKit(facesContext, viewToRender.getRenderKitId());
 
         ResponseWriter oldWriter = facesContext.getResponseWriter();
-        StringBuilderWriter strWriter = new StringBuilderWriter(facesContext, renderResponse.getWriter(), 4096);
+        JspStateWriter stateWriter = new JspStateWriter(facesContext, renderResponse.getWriter());
         try {
             ResponseWriter newWriter;
             if (null != oldWriter) {
-                newWriter = oldWriter.cloneWithWriter(strWriter);
+                newWriter = oldWriter.cloneWithWriter(stateWriter);
             } else {
-                newWriter = renderKit.createResponseWriter(strWriter, null, renderResponse.getCharacterEncoding());
+                newWriter = renderKit.createResponseWriter(stateWriter, null, renderResponse.getCharacterEncoding());
             }
             facesContext.setResponseWriter(newWriter);
 
@@ -162,10 +178,10 @@ public class PortletJspVdlImpl extends VdlWrapper {
             viewToRender.encodeAll(facesContext);
             newWriter.endDocument();
 
-            strWriter.flushToWriter();
+            stateWriter.flushToWriter();
 
         } finally {
-            strWriter.release();
+            stateWriter.release();
         }
 
         BridgeContext bridgeContext = BridgeContext.getCurrentInstance();
@@ -194,85 +210,35 @@ public class PortletJspVdlImpl extends VdlWrapper {
         facesContext.getResponseWriter().flush();
     }
 
-    private static final class StringBuilderWriter extends Writer {
+    /**
+     * Streams the rendered view to the response writer, writing the view state in place of each
+     * {@link #RI_SAVE_STATE_MARKER}.
+     */
+    private static final class JspStateWriter extends StateMarkerWriter {
 
-        private static final ThreadLocal<StringBuilderWriter> instance = new ThreadLocal<StringBuilderWriter>();
-        private final StringBuilder mBuilder;
         private final FacesContext facesContext;
         private final Writer responseWriter;
-        private static final int SAVESTATE_MARK_LEN = RI_SAVE_STATE_MARKER.length();
+        private StateManager stateManager;
+        private Object stateToWrite;
 
-        public StringBuilderWriter(FacesContext context, Writer responseWriter, int initialCapacity) {
-            if (initialCapacity < 0) {
-                throw new IllegalArgumentException();
-            }
-            mBuilder = new StringBuilder(initialCapacity);
+        public JspStateWriter(FacesContext context, Writer responseWriter) {
+            super(responseWriter, RI_SAVE_STATE_MARKER);
             this.facesContext = context;
             this.responseWriter = responseWriter;
-            instance.set(this);
-        }
-
-        public void release() {
-            instance.remove();
-        }
-
-        public static StringBuilderWriter getInstance() {
-            return instance.get();
-        }
-
-        @Override
-        public void write(char[] cbuf, int off, int len) throws IOException {
-            if (off < 0 || off > cbuf.length || len < 0 || off + len > cbuf.length || off + len < 0) {
-                throw new IndexOutOfBoundsException();
-            } else if (len == 0) {
-                return;
-            }
-            mBuilder.append(cbuf, off, len);
         }
 
         @Override
-        public void flush() throws IOException {
-        }
-
-        @Override
-        public void close() throws IOException {
-        }
-
-        @Override
-        public void write(String str) throws IOException {
-            mBuilder.append(str);
-        }
-
-        @Override
-        public void write(String str, int off, int len) throws IOException {
-            mBuilder.append(str, off, off + len);
-        }
-
-        public StringBuilder getBuffer() {
-            return mBuilder;
-        }
-
-        @Override
-        public String toString() {
-            return mBuilder.toString();
+        protected void writeState() throws IOException {
+            stateManager.writeState(facesContext, stateToWrite);
         }
 
         public void flushToWriter() throws IOException {
-            // TODO: Buffer?
-            StateManager stateManager = facesContext.getApplication().getStateManager();
+            stateManager = facesContext.getApplication().getStateManager();
             ResponseWriter oldResponseWriter = facesContext.getResponseWriter();
             facesContext.setResponseWriter(oldResponseWriter.cloneWithWriter(responseWriter));
-            Object stateToWrite = stateManager.saveView(facesContext);
-
-            int stateStart = mBuilder.indexOf(RI_SAVE_STATE_MARKER);
-            int pos = 0;
-            while (stateStart >= 0) {
-                responseWriter.write(mBuilder.substring(pos, stateStart));
-                stateManager.writeState(facesContext, stateToWrite);
-                pos = stateStart + SAVESTATE_MARK_LEN;
-                stateStart = mBuilder.indexOf(RI_SAVE_STATE_MARKER, pos);
-            }
-            responseWriter.write(mBuilder.substring(pos));
+            stateToWrite = stateManager.saveView(facesContext);
+
+            finish();
 
             facesContext.setResponseWriter(oldResponseWriter);
         }
@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.application.view;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.portletbridge.io.FastBufferWriter;
+
+/**
+ * Writer that forwards rendered view content to the response writer as it is produced and replaces every occurrence
+ * of a state marker with the saved view state.
+ * <p>
+ * The state can only be saved once the whole view has been encoded, so content is forwarded directly up to the first
+ * marker only. From there on it is held in pooled buffers, one per marker, until {@link #finish()} writes the state
+ * in place of each marker. Views without a form are never buffered. At most a partial marker match is held back
+ * between writes, and it never needs to be stored as it is a prefix of the marker.
+ * </p>
+ */
+abstract class StateMarkerWriter extends Writer {
+
+    private static final int SCRATCH_SIZE = 512;
+
+    private final Writer target;
+
+    private final char[] marker;
+
+    /**
+     * Content following each marker, in order. Empty until the first marker is seen.
+     */
+    private final List<FastBufferWriter> deferred = new ArrayList<FastBufferWriter>(2);
+
+    private Writer current;
+
+    /**
+     * Number of marker chars matched by the content written last.
+     */
+    private int matched;
+
+    /**
+     * Chars of written strings are scanned from here.
+     */
+    private char[] scratch;
+
+    /**
+     * @param target writer to forward content to
+     * @param marker must not repeat its first char before its last one, so that a failed partial match can never
+     *        overlap with the start of another one.
+     */
+    StateMarkerWriter(Writer target, String marker) {
+        this.target = target;
+        this.marker = marker.toCharArray();
+        current = target;
+    }
+
+    /**
+     * Writes the saved state in place of a marker, to the writer that {@link #finish()} was called with.
+     */
+    protected abstract void writeState() throws IOException;
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        if (off < 0 || off > cbuf.length || len < 0 || off + len > cbuf.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            char c = cbuf[i];
+            if (c == marker[matched]) {
+                if (0 == matched && i > start) {
+                    current.write(cbuf, start, i - start);
+                }
+                start = i + 1;
+                if (++matched == marker.length) {
+                    matched = 0;
+                    markerFound();
+                }
+            } else if (matched > 0) {
+                // Release the partial match and look at c again
+                current.write(marker, 0, matched);
+                matched = 0;
+                start = i;
+                i--;
+            }
+        }
+        if (end > start) {
+            current.write(cbuf, start, end - start);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (null == scratch) {
+            scratch = new char[SCRATCH_SIZE];
+        }
+        int end = off + len;
+        while (off < end) {
+            int n = Math.min(SCRATCH_SIZE, end - off);
+            str.getChars(off, off + n, scratch, 0);
+            write(scratch, 0, n);
+            off += n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * Writes a trailing partial marker match and the held back content, with the state in place of each marker.
+     */
+    public void finish() throws IOException {
+        if (matched > 0) {
+            current.write(marker, 0, matched);
+            matched = 0;
+        }
+        for (FastBufferWriter content : deferred) {
+            writeState();
+            content.writeTo(target);
+            content.reset();
+        }
+        deferred.clear();
+        current = target;
+    }
+
+    /**
+     * Returns held back content to the pool without writing it.
+     */
+    public void release() {
+        for (FastBufferWriter content : deferred) {
+            content.reset();
+        }
+        deferred.clear();
+    }
+
+    private void markerFound() {
+        FastBufferWriter content = new FastBufferWriter();
+        deferred.add(content);
+        current = content;
+    }
+}
@@ -75,6 +75,11 @@ public class BridgeConfigImpl implements BridgeConfig {
     private String sessionIdParameterName = "jsessionid";
     private boolean bridgeScopePreservedPostRender = false;
     private boolean componentNamespaceShortened = true;
+    private boolean jsfResourceUrlTemplateEnabled = false;
+    private int responseBufferLimit = 0;
+    private boolean headResourceCacheEnabled = false;
+    private boolean viewWarmupEnabled = false;
+    private boolean bridgeScopeDisabled = false;
 
     public BridgeConfigImpl() {
     }
@@ -121,6 +126,7 @@ public class BridgeConfigImpl implements BridgeConfig {
         if (null != mappings) {
             facesServletMappings = new ArrayList<String>(mappings);
         }
+        removeMappingMatcher();
     }
 
     /**
@@ -334,6 +340,14 @@ public class BridgeConfigImpl implements BridgeConfig {
         if (null != suffixes) {
             facesSuffixes = new ArrayList<String>(suffixes);
         }
+        removeMappingMatcher();
+    }
+
+    private void removeMappingMatcher() {
+        // Mappings have changed, so it needs to be compiled again
+        if (null != attributes) {
+            attributes.remove(FacesServletMappingMatcher.ATTRIBUTE_NAME);
+        }
     }
 
     /**
@@ -505,4 +519,84 @@ public class BridgeConfigImpl implements BridgeConfig {
     public void setComponentNamespaceShortened(boolean componentNamespaceShortened) {
         this.componentNamespaceShortened = componentNamespaceShortened;
     }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#isJsfResourceUrlTemplateEnabled()
+     */
+    @Override
+    public boolean isJsfResourceUrlTemplateEnabled() {
+        return jsfResourceUrlTemplateEnabled;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#setJsfResourceUrlTemplateEnabled(boolean)
+     */
+    @Override
+    public void setJsfResourceUrlTemplateEnabled(boolean jsfResourceUrlTemplateEnabled) {
+        this.jsfResourceUrlTemplateEnabled = jsfResourceUrlTemplateEnabled;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#getResponseBufferLimit()
+     */
+    @Override
+    public int getResponseBufferLimit() {
+        return responseBufferLimit;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#setResponseBufferLimit(int)
+     */
+    @Override
+    public void setResponseBufferLimit(int responseBufferLimit) {
+        this.responseBufferLimit = responseBufferLimit;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#isHeadResourceCacheEnabled()
+     */
+    @Override
+    public boolean isHeadResourceCacheEnabled() {
+        return headResourceCacheEnabled;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#setHeadResourceCacheEnabled(boolean)
+     */
+    @Override
+    public void setHeadResourceCacheEnabled(boolean headResourceCacheEnabled) {
+        this.headResourceCacheEnabled = headResourceCacheEnabled;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#isViewWarmupEnabled()
+     */
+    @Override
+    public boolean isViewWarmupEnabled() {
+        return viewWarmupEnabled;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#setViewWarmupEnabled(boolean)
+     */
+    @Override
+    public void setViewWarmupEnabled(boolean viewWarmupEnabled) {
+        this.viewWarmupEnabled = viewWarmupEnabled;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#isBridgeScopeDisabled()
+     */
+    @Override
+    public boolean isBridgeScopeDisabled() {
+        return bridgeScopeDisabled;
+    }
+
+    /**
+     * @see org.jboss.portletbridge.bridge.config.BridgeConfig#setBridgeScopeDisabled(boolean)
+     */
+    @Override
+    public void setBridgeScopeDisabled(boolean bridgeScopeDisabled) {
+        this.bridgeScopeDisabled = bridgeScopeDisabled;
+    }
 }
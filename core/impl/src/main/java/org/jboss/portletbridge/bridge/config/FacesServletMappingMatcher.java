@@ -0,0 +1,295 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.bridge.config;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.faces.application.ProjectStage;
+import javax.portlet.PortletContext;
+import javax.portlet.faces.BridgeException;
+
+import org.jboss.portletbridge.bridge.logger.BridgeLogger;
+import org.jboss.portletbridge.util.LRUMap;
+
+/**
+ * Compiled form of the <code>FacesServlet</code> URL mappings and Faces suffixes held by a {@link BridgeConfig}. The
+ * mappings are split into prefix and extension mappings once, so matching a path doesn't require re-evaluating the mapping
+ * list. The matcher also holds a bounded cache from a path to its resolved Faces view id, which is discarded with the
+ * {@link BridgeConfig} when the application is redeployed.
+ */
+public class FacesServletMappingMatcher {
+
+    public static final String ATTRIBUTE_NAME = FacesServletMappingMatcher.class.getName();
+
+    /**
+     * Context init parameter to specify the maximum number of paths whose view id is cached.
+     */
+    public static final String VIEW_ID_CACHE_SIZE = "org.jboss.portletbridge.VIEW_ID_CACHE_SIZE";
+
+    public static final int DEFAULT_VIEW_ID_CACHE_SIZE = 1000;
+
+    // Marks a path in the cache that is not mapped to Faces
+    private static final String NOT_FACES = "\u0000";
+
+    private final String[] prefixes;
+    private final String[] extensions;
+    private final Set<String> extensionSet;
+    private final String[] suffixes;
+    private final String defaultPrefix;
+    private final String defaultExtension;
+    private final Map<String, String> viewIdCache;
+
+    FacesServletMappingMatcher(List<String> mappings, List<String> facesSuffixes, int cacheSize) {
+        List<String> prefixList = new ArrayList<String>();
+        List<String> extensionList = new ArrayList<String>();
+        String firstPrefix = null;
+        String firstExtension = null;
+
+        for (String mapping : mappings) {
+            if (mapping.startsWith("*.")) {
+                extensionList.add(mapping.substring(1));
+            } else if (mapping.startsWith("/")) {
+                int index = mapping.lastIndexOf("/*");
+                if (index != -1) {
+                    prefixList.add(mapping.substring(0, index));
+                }
+            }
+        }
+
+        if (!mappings.isEmpty()) {
+            String mapping = mappings.get(0);
+            if (mapping.startsWith("*")) {
+                firstExtension = mapping.substring(mapping.indexOf('.'));
+            } else if (mapping.endsWith("*")) {
+                firstPrefix = mapping.substring(0, mapping.length() - 1);
+                if (firstPrefix.endsWith("/")) {
+                    firstPrefix = firstPrefix.substring(0, firstPrefix.length() - 1);
+                }
+            }
+        }
+
+        this.prefixes = prefixList.toArray(new String[prefixList.size()]);
+        this.extensions = extensionList.toArray(new String[extensionList.size()]);
+        this.extensionSet = new HashSet<String>(extensionList);
+        this.defaultPrefix = firstPrefix;
+        this.defaultExtension = firstExtension;
+
+        this.suffixes = new String[facesSuffixes.size()];
+        for (int i = 0; i < suffixes.length; i++) {
+            String suffix = facesSuffixes.get(i);
+            suffixes[i] = suffix.startsWith(".") ? suffix : "." + suffix;
+        }
+
+        if (cacheSize > 0) {
+            this.viewIdCache = Collections.synchronizedMap(new LRUMap<String, String>(cacheSize));
+        } else {
+            this.viewIdCache = null;
+        }
+    }
+
+    /**
+     * Compiles the mappings of the given config and stores the matcher as a config attribute.
+     *
+     * @param bridgeConfig the config holding the Faces servlet mappings and suffixes.
+     * @return the compiled matcher.
+     */
+    public static FacesServletMappingMatcher compile(BridgeConfig bridgeConfig) {
+        FacesServletMappingMatcher matcher = new FacesServletMappingMatcher(bridgeConfig.getFacesServletMappings(),
+                bridgeConfig.getFacesSuffixes(), getViewIdCacheSize(bridgeConfig));
+        bridgeConfig.getAttributes().put(ATTRIBUTE_NAME, matcher);
+        return matcher;
+    }
+
+    /**
+     * Retrieves the matcher of the given config, compiling it if that has not already happened.
+     *
+     * @param bridgeConfig the config holding the Faces servlet mappings and suffixes.
+     * @return the compiled matcher.
+     */
+    public static FacesServletMappingMatcher getInstance(BridgeConfig bridgeConfig) {
+        FacesServletMappingMatcher matcher = (FacesServletMappingMatcher) bridgeConfig.getAttributes().get(ATTRIBUTE_NAME);
+        if (null == matcher) {
+            matcher = compile(bridgeConfig);
+        }
+        return matcher;
+    }
+
+    private static int getViewIdCacheSize(BridgeConfig bridgeConfig) {
+        int cacheSize = DEFAULT_VIEW_ID_CACHE_SIZE;
+        if (null != bridgeConfig.getPortletConfig() && null != bridgeConfig.getPortletConfig().getPortletContext()) {
+            PortletContext portletContext = bridgeConfig.getPortletConfig().getPortletContext();
+
+            // Views can be added without a redeploy during development, so don't cache where they are
+            if (ProjectStage.Development.toString().equals(portletContext.getInitParameter(ProjectStage.PROJECT_STAGE_PARAM_NAME))) {
+                return 0;
+            }
+
+            String cacheSizeParam = portletContext.getInitParameter(VIEW_ID_CACHE_SIZE);
+            if (null != cacheSizeParam) {
+                try {
+                    cacheSize = Integer.parseInt(cacheSizeParam);
+                } catch (NumberFormatException e) {
+                    bridgeConfig.getLogger().log(BridgeLogger.Level.WARNING,
+                            "web.xml contains invalid value for " + VIEW_ID_CACHE_SIZE);
+                }
+            }
+        }
+        return cacheSize;
+    }
+
+    /**
+     * @return the prefix of the first mapping, without the trailing <code>/*</code>, if it is a prefix mapping.
+     */
+    public String getDefaultPrefix() {
+        return defaultPrefix;
+    }
+
+    /**
+     * @return the extension, including the '.', of the first mapping if it is an extension mapping.
+     */
+    public String getDefaultExtension() {
+        return defaultExtension;
+    }
+
+    /**
+     * @return the first prefix mapping that the path starts with, or <code>null</code> if there is none.
+     */
+    public String getPrefix(String path) {
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return <code>true</code> if the extension of the path, ignoring any query string, is an extension mapping.
+     */
+    public boolean isExtensionMapped(String path) {
+        int end = path.indexOf('?');
+        if (end == -1) {
+            end = path.length();
+        }
+        int extLoc = path.lastIndexOf('.', end - 1);
+        if (extLoc != -1 && extLoc > path.lastIndexOf('/', end - 1)) {
+            return extensionSet.contains(path.substring(extLoc, end));
+        }
+        return false;
+    }
+
+    /**
+     * @return the extension mapping that the path ends with, or <code>null</code> if there is none.
+     */
+    public String getMatchingExtension(String path) {
+        for (String extension : extensions) {
+            if (path.endsWith(extension)) {
+                return extension;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the path with any extension mapping it ends with removed.
+     */
+    public String removeExtension(String path) {
+        String extension = getMatchingExtension(path);
+        if (null != extension) {
+            return path.substring(0, path.length() - extension.length());
+        }
+        return path;
+    }
+
+    /**
+     * @return the extension mappings, each including the '.'.
+     */
+    public String[] getExtensions() {
+        return extensions.clone();
+    }
+
+    /**
+     * Resolves the Faces view id for a path that has had its query string, session id and context path removed.
+     * Results, including paths that are not mapped to Faces, are cached so subsequent requests for the same path are a
+     * single map lookup.
+     *
+     * @param path the path within the context.
+     * @param portletContext used to find which of the Faces suffixes has an underlying resource.
+     * @return the view id, or <code>null</code> if the path is not mapped to Faces.
+     */
+    public String getViewId(String path, PortletContext portletContext) throws BridgeException {
+        String viewId = null;
+        if (null != viewIdCache) {
+            viewId = viewIdCache.get(path);
+        }
+
+        if (null == viewId) {
+            String prefix;
+            if (isExtensionMapped(path)) {
+                viewId = viewIdFromSuffixMapping(path, portletContext);
+            } else if (null != (prefix = getPrefix(path))) {
+                viewId = path.substring(prefix.length());
+            }
+
+            if (null != viewIdCache) {
+                viewIdCache.put(path, null != viewId ? viewId : NOT_FACES);
+            }
+        }
+
+        return NOT_FACES.equals(viewId) ? null : viewId;
+    }
+
+    private String viewIdFromSuffixMapping(String path, PortletContext portletContext) {
+        int index = path.lastIndexOf('.');
+        if (index != -1) {
+            String base = path.substring(0, index);
+            for (String suffix : suffixes) {
+                path = base + suffix;
+                // now verify if this exists
+                String testPath = path.startsWith("/") ? path : "/" + path;
+                try {
+                    if (portletContext.getResource(testPath) != null) {
+                        break;
+                    }
+                } catch (MalformedURLException m) {
+                    throw new BridgeException("View Id " + testPath + " does not exist.", m);
+                }
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Removes all cached view ids.
+     */
+    public void clearCache() {
+        if (null != viewIdCache) {
+            viewIdCache.clear();
+        }
+    }
+}
@@ -43,17 +43,18 @@ import javax.portlet.PortletSession;
 import javax.portlet.faces.Bridge;
 import javax.portlet.faces.Bridge.PortletPhase;
 import javax.portlet.faces.BridgeDefaultViewNotSpecifiedException;
-import javax.portlet.faces.BridgeException;
 import javax.portlet.faces.BridgeInvalidViewPathException;
 import javax.portlet.faces.BridgeNotAFacesRequestException;
 
 import org.jboss.portletbridge.bridge.config.BridgeConfig;
+import org.jboss.portletbridge.bridge.config.FacesServletMappingMatcher;
 import org.jboss.portletbridge.bridge.factory.BridgeFactoryFinder;
 import org.jboss.portletbridge.bridge.factory.BridgeRequestScopeManagerFactory;
 import org.jboss.portletbridge.bridge.scope.BridgeRequestScope;
 import org.jboss.portletbridge.bridge.scope.BridgeRequestScopeManager;
 import org.jboss.portletbridge.bridge.scope.BridgeRequestScopeManagerImpl;
 import org.jboss.portletbridge.context.PortalActionURL;
+import org.jboss.portletbridge.context.PortalUrlQueryString;
 import org.jboss.portletbridge.el.ELContextImpl;
 
 /**
@@ -371,11 +372,41 @@ public class BridgeContextImpl extends BridgeContext implements ELContextListene
      */
     @Override
     public void setViewHistory(String mode, String viewId, boolean preserveRenderParams) {
-        PortalActionURL historyViewId = null;
-        try {
-            historyViewId = new PortalActionURL(viewId);
-        } catch (MalformedURLException e) {
-            log("MalformedURL for " + viewId + " in setViewHistory()", e);
+        String historyViewPath = getViewHistoryPath(mode, viewId, preserveRenderParams);
+
+        if (null != historyViewPath) {
+            String historyKey = Bridge.VIEWID_HISTORY + "." + mode;
+            PortletSession session = getPortletRequest().getPortletSession(false);
+            if (null == session) {
+                // Without a session the history of a mode is its default view, so only another view needs one
+                if (historyViewPath.equals(getDefaultViewHistory(mode))) {
+                    return;
+                }
+                session = getPortletRequest().getPortletSession(true);
+            } else if (historyViewPath.equals(session.getAttribute(historyKey))) {
+                // Rewriting an unchanged entry would only mark the session dirty for replication
+                return;
+            }
+            session.setAttribute(historyKey, historyViewPath);
+        }
+    }
+
+    private String getViewHistoryPath(String mode, String viewId, boolean preserveRenderParams) {
+        String path = null;
+        PortalUrlQueryString historyViewId = null;
+        if (viewId.indexOf('?') < 0 && viewId.indexOf(':') < 0 && !viewId.startsWith("//")) {
+            // A plain view id is its own path, so skip parsing it as a URL
+            path = viewId;
+            historyViewId = new PortalUrlQueryString(null);
+        } else {
+            try {
+                PortalActionURL viewUrl = new PortalActionURL(viewId);
+                path = viewUrl.getPath();
+                historyViewId = new PortalUrlQueryString(null);
+                historyViewId.setParameters(viewUrl.getParameters());
+            } catch (MalformedURLException e) {
+                log("MalformedURL for " + viewId + " in setViewHistory()", e);
+            }
         }
 
         if (null != historyViewId) {
@@ -406,10 +437,18 @@ public class BridgeContextImpl extends BridgeContext implements ELContextListene
                 }
             }
 
-            String queryString = historyViewId.getQueryString();
-            String historyViewPath = historyViewId.getPath() + (queryString != null ? "?" + queryString : "");
-            getPortletRequest().getPortletSession(true).setAttribute(Bridge.VIEWID_HISTORY + "." + mode, historyViewPath);
+            String queryString = historyViewId.toString();
+            return path + (queryString != null ? "?" + queryString : "");
+        }
+        return null;
+    }
+
+    private String getDefaultViewHistory(String mode) {
+        String defaultViewId = bridgeConfig.getDefaultViewMappings().get(mode);
+        if (null == defaultViewId || defaultViewId.length() == 0) {
+            return null;
         }
+        return getViewHistoryPath(mode, defaultViewId, false);
     }
 
     /**
@@ -418,8 +457,12 @@ public class BridgeContextImpl extends BridgeContext implements ELContextListene
     @Override
     public String getViewHistory(String mode) {
         StringBuffer key = new StringBuffer(100);
-        return (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap()
+        String history = (String) FacesContext.getCurrentInstance().getExternalContext().getSessionMap()
                 .get(key.append(Bridge.VIEWID_HISTORY).append('.').append(mode).toString());
+        if (null == history) {
+            history = getDefaultViewHistory(mode);
+        }
+        return history;
     }
 
     /**
@@ -476,16 +519,21 @@ public class BridgeContextImpl extends BridgeContext implements ELContextListene
      */
     @Override
     public BridgeRequestScopeManager getBridgeRequestScopeManager() {
-        PortletSession session = getPortletRequest().getPortletSession(true);
-        BridgeRequestScopeManager scopeManager = (BridgeRequestScopeManager) session.getAttribute(REQUEST_SCOPE_MANAGER);
+        BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
 
         if (null == scopeManager) {
-            scopeManager = createBridgeRequestScopeManager();
+            // Only create the session and the manager once a scope is created
+            scopeManager = new DeferredRequestScopeManager();
         }
 
         return scopeManager;
     }
 
+    private BridgeRequestScopeManager getExistingBridgeRequestScopeManager() {
+        PortletSession session = getPortletRequest().getPortletSession(false);
+        return null != session ? (BridgeRequestScopeManager) session.getAttribute(REQUEST_SCOPE_MANAGER) : null;
+    }
+
     private synchronized BridgeRequestScopeManager createBridgeRequestScopeManager() {
         BridgeRequestScopeManager scopeManager = (BridgeRequestScopeManager) getPortletRequest().getPortletSession(true)
                 .getAttribute(REQUEST_SCOPE_MANAGER);
@@ -524,19 +572,8 @@ public class BridgeContextImpl extends BridgeContext implements ELContextListene
         // Now remove up through the ContextPath
         path = getPathWithoutContext(path, getPortletRequest().getContextPath());
 
-        String viewId = null;
-        List<String> facesMappings = getBridgeConfig().getFacesServletMappings();
-        List<String> facesSuffixes = getBridgeConfig().getFacesSuffixes();
-        String prefix = getPrefix(path, facesMappings);
-        if (isSuffixedMapped(path, facesMappings)) {
-            viewId = viewIdFromSuffixMapping(path, facesSuffixes);
-        } else if (null != prefix) {
-            viewId = path.substring(prefix.length());
-        } else {
-            // Not a Faces URL
-            viewId = null;
-        }
-        return viewId;
+        // Returns null when not a Faces URL
+        return FacesServletMappingMatcher.getInstance(getBridgeConfig()).getViewId(path, getPortletContext());
     }
 
     private String getPathWithoutContext(String path, String contextPath) {
@@ -650,81 +687,21 @@ public class BridgeContextImpl extends BridgeContext implements ELContextListene
 
     protected void initViewHistory() {
         if (!viewHistoryInitialized) {
-            Map<String, String> viewIdDefaultMap = bridgeConfig.getDefaultViewMappings();
-
-            for (String mode : viewIdDefaultMap.keySet()) {
-                String modeView = viewIdDefaultMap.get(mode);
-                if (null != modeView && modeView.length() > 0) {
-                    setViewHistory(mode, modeView, false);
-                }
-            }
-
-            viewHistoryInitialized = true;
-        }
-    }
-
-    protected boolean isSuffixedMapped(String url, List<String> mappings) {
-        // see if the viewId terminates with an extension
-        // if non-null value contains *.xxx where xxx is the extension
-        String ext = extensionMappingFromViewId(url);
-        return null != ext && mappings.contains(ext);
-    }
-
-    protected String extensionMappingFromViewId(String viewId) {
-        // first remove/ignore any querystring
-        int index = viewId.indexOf('?');
-        if (index != -1) {
-            viewId = viewId.substring(0, index);
-        }
-
-        int extLoc = viewId.lastIndexOf('.');
-
-        if (extLoc != -1 && extLoc > viewId.lastIndexOf('/')) {
-            StringBuilder sb = new StringBuilder("*");
-            sb.append(viewId.substring(extLoc));
-            return sb.toString();
-        }
-        return null;
-    }
-
-    protected String viewIdFromSuffixMapping(String url, List<String> suffixes) {
-        int index = url.lastIndexOf('.');
-        if (index != -1) {
-            for (String suffix : suffixes) {
-                if (suffix.startsWith(".")) {
-                    url = url.substring(0, index) + suffix;
-                } else {
-                    // shouldn't happen
-                    url = url.substring(0, index) + "." + suffix;
-                }
-                // now verify if this exists
-                String testPath = url.startsWith("/") ? url : "/" + url;
-                try {
-                    if (portletContext.getResource(testPath) != null) {
-                        break;
+            // Without a session getViewHistory() already answers the default views, and a portlet without a bridge
+            // request scope keeps no history
+            if (!bridgeConfig.isBridgeScopeDisabled() && null != getPortletRequest().getPortletSession(false)) {
+                Map<String, String> viewIdDefaultMap = bridgeConfig.getDefaultViewMappings();
+
+                for (String mode : viewIdDefaultMap.keySet()) {
+                    String modeView = viewIdDefaultMap.get(mode);
+                    if (null != modeView && modeView.length() > 0) {
+                        setViewHistory(mode, modeView, false);
                     }
-                } catch (MalformedURLException m) {
-                    throw new BridgeException("View Id " + testPath + " does not exist.", m);
                 }
             }
-        }
-        return url;
-    }
 
-    protected String getPrefix(String url, List<String> mappings) {
-        for (String mapping : mappings) {
-            String prefix = null;
-            if (mapping.startsWith("/")) {
-                int index = mapping.lastIndexOf("/*");
-                if (index != -1) {
-                    prefix = mapping.substring(0, index);
-                }
-            }
-            if (null != prefix && url.startsWith(prefix)) {
-                return prefix;
-            }
+            viewHistoryInitialized = true;
         }
-        return null;
     }
 
     protected String getViewId(PortletRequest request, boolean excludeQueryString)
@@ -781,4 +758,118 @@ public class BridgeContextImpl extends BridgeContext implements ELContextListene
 
         return viewId;
     }
+
+    /**
+     * {@link BridgeRequestScopeManager} handed out while the session holds none. Lookups and removals find nothing, and
+     * the session and the manager are only created when a scope is.
+     */
+    private final class DeferredRequestScopeManager implements BridgeRequestScopeManager {
+
+        @Override
+        public BridgeRequestScope createRequestScope(BridgeContext ctx, String portletName, String sessionId,
+                String viewId, String portletMode) {
+            return createBridgeRequestScopeManager().createRequestScope(ctx, portletName, sessionId, viewId, portletMode);
+        }
+
+        @Override
+        public BridgeRequestScope createRequestScope(BridgeContext ctx, String viewId) {
+            return createBridgeRequestScopeManager().createRequestScope(ctx, viewId);
+        }
+
+        @Override
+        public BridgeRequestScope getRequestScopeById(BridgeContext ctx, String id) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.getRequestScopeById(ctx, id) : null;
+        }
+
+        @Override
+        public BridgeRequestScope getRequestScope(BridgeContext ctx, String portletName, String sessionId, String viewId,
+                String portletMode) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.getRequestScope(ctx, portletName, sessionId, viewId, portletMode)
+                    : null;
+        }
+
+        @Override
+        public BridgeRequestScope getRequestScope(BridgeContext ctx, String viewId, String portletMode) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.getRequestScope(ctx, viewId, portletMode) : null;
+        }
+
+        @Override
+        public BridgeRequestScope getRequestScope(BridgeContext ctx, String viewId) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.getRequestScope(ctx, viewId) : null;
+        }
+
+        @Override
+        public BridgeRequestScope getRequestScope(BridgeContext ctx) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.getRequestScope(ctx) : null;
+        }
+
+        @Override
+        public BridgeRequestScope removeRequestScopeById(BridgeContext ctx, String id) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.removeRequestScopeById(ctx, id) : null;
+        }
+
+        @Override
+        public BridgeRequestScope removeRequestScope(BridgeContext ctx, BridgeRequestScope scope) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.removeRequestScope(ctx, scope) : null;
+        }
+
+        @Override
+        public BridgeRequestScope removeRequestScope(BridgeContext ctx, String portletName, String sessionId,
+                String viewId, String portletMode) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.removeRequestScope(ctx, portletName, sessionId, viewId,
+                    portletMode) : null;
+        }
+
+        @Override
+        public BridgeRequestScope removeRequestScope(BridgeContext ctx, String viewId, String portletMode) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.removeRequestScope(ctx, viewId, portletMode) : null;
+        }
+
+        @Override
+        public BridgeRequestScope removeRequestScope(BridgeContext ctx, String viewId) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            return null != scopeManager ? scopeManager.removeRequestScope(ctx, viewId) : null;
+        }
+
+        @Override
+        public void removeRequestScopesByPortlet(BridgeContext ctx, String portletName) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            if (null != scopeManager) {
+                scopeManager.removeRequestScopesByPortlet(ctx, portletName);
+            }
+        }
+
+        @Override
+        public void removeRequestScopesByPortlet(BridgeContext ctx) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            if (null != scopeManager) {
+                scopeManager.removeRequestScopesByPortlet(ctx);
+            }
+        }
+
+        @Override
+        public void removeRequestScopesBySession(BridgeContext ctx, String sessionId) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            if (null != scopeManager) {
+                scopeManager.removeRequestScopesBySession(ctx, sessionId);
+            }
+        }
+
+        @Override
+        public void removeRequestScopesBySession(BridgeContext ctx) {
+            BridgeRequestScopeManager scopeManager = getExistingBridgeRequestScopeManager();
+            if (null != scopeManager) {
+                scopeManager.removeRequestScopesBySession(ctx);
+            }
+        }
+    }
 }
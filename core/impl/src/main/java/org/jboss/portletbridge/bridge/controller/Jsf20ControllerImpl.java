@@ -23,6 +23,7 @@ package org.jboss.portletbridge.bridge.controller;
 
 import com.sun.faces.context.StateContext;
 
+import org.jboss.portletbridge.PortletBridgeConstants;
 import org.jboss.portletbridge.bridge.config.BridgeConfig;
 import org.jboss.portletbridge.bridge.context.BridgeContext;
 import org.jboss.portletbridge.bridge.event.BridgePostConstructFacesContextSystemEvent;
@@ -125,7 +126,10 @@ public class Jsf20ControllerImpl implements BridgeController {
         PublicParameterPhaseListener ppPhaseListener = null;
 
         // Remove any lingering BridgeRequestScopes. Not required by spec, but prevents issues
-        bridgeContext.getBridgeRequestScopeManager().removeRequestScope(bridgeContext, bridgeContext.getFacesViewId(true));
+        if (!bridgeConfig.isBridgeScopeDisabled()) {
+            bridgeContext.getBridgeRequestScopeManager().removeRequestScope(bridgeContext,
+                    bridgeContext.getFacesViewId(true));
+        }
 
         try {
             facesLifecycle = getFacesLifecycle();
@@ -339,7 +343,7 @@ public class Jsf20ControllerImpl implements BridgeController {
         processOutgoingParameters(facesContext, bridgeContext.getPortletRequest(),
                 (StateAwareResponse) bridgeContext.getPortletResponse());
 
-        if (bridgeContext.isBridgeRequestScopePreserved()) {
+        if (bridgeContext.isBridgeRequestScopePreserved() && !isBridgeScopeDisabled(facesContext)) {
             scope = bridgeContext.getBridgeScope();
             if (null == scope) {
                 // Action starts new lifecycle
@@ -457,8 +461,10 @@ public class Jsf20ControllerImpl implements BridgeController {
 
             if (!facesContext.getResponseComplete()) {
                 facesLifecycle.render(facesContext);
-                bridgeContext.setViewHistory(bridgeContext.getPortletRequest().getPortletMode().toString(), facesContext
-                        .getViewRoot().getViewId(), true);
+                if (!isBridgeScopeDisabled(facesContext)) {
+                    bridgeContext.setViewHistory(bridgeContext.getPortletRequest().getPortletMode().toString(),
+                            facesContext.getViewRoot().getViewId(), true);
+                }
             }
         }
 
@@ -503,7 +509,7 @@ public class Jsf20ControllerImpl implements BridgeController {
             saveFacesView(scope, facesContext);
         } else {
             // We're in Resource Request
-            if (isBridgeScopeAjaxEnabled()) {
+            if (isBridgeScopeAjaxEnabled() && !isBridgeScopeDisabled(facesContext)) {
                 if (null == scope) {
                     scope = newBridgeRequestScope(bridgeContext);
                 }
@@ -523,6 +529,23 @@ public class Jsf20ControllerImpl implements BridgeController {
         return bridgeConfig.isBridgeScopeEnabledOnAjaxRequest();
     }
 
+    /**
+     * Whether the current request runs without a bridge request scope, either because the portlet disables it or
+     * because the view sets the {@link PortletBridgeConstants#BRIDGE_SCOPE_DISABLED} attribute. The view is then
+     * rebuilt from the render parameters on each render.
+     */
+    protected boolean isBridgeScopeDisabled(FacesContext facesContext) {
+        if (bridgeConfig.isBridgeScopeDisabled()) {
+            return true;
+        }
+        UIViewRoot viewRoot = facesContext.getViewRoot();
+        if (null == viewRoot) {
+            return false;
+        }
+        Object disabled = viewRoot.getAttributes().get(PortletBridgeConstants.BRIDGE_SCOPE_DISABLED);
+        return null != disabled && Boolean.parseBoolean(disabled.toString());
+    }
+
     protected boolean isFacesMessagesStoredOnAjax() {
         return bridgeConfig.isFacesMessagesStoredOnAjaxRequest();
     }
@@ -741,7 +764,7 @@ public class Jsf20ControllerImpl implements BridgeController {
     protected void releaseFacesContext(BridgeContext bridgeContext, FacesContext facesContext) {
         fireFacesSystemEvent(bridgeContext, BridgePreReleaseFacesContextSystemEvent.class);
 
-        PortletFlash.needHttpResponse.remove();
+        PortletFlash.release(facesContext);
 
         facesContext.release();
     }
@@ -754,6 +777,9 @@ public class Jsf20ControllerImpl implements BridgeController {
 
     protected BridgeRequestScope getBridgeRequestScope(BridgeContext bridgeContext) {
         BridgeRequestScope scope = null;
+        if (bridgeConfig.isBridgeScopeDisabled()) {
+            return scope;
+        }
         if (Bridge.PortletPhase.RENDER_PHASE == bridgeContext.getPortletRequestPhase()) {
             String bridgeRequestScopeId = bridgeContext.getPortletRequest().getParameter(REQUEST_SCOPE_ID);
             if (null != bridgeRequestScopeId) {
@@ -767,6 +793,9 @@ public class Jsf20ControllerImpl implements BridgeController {
     }
 
     protected void clearBridgeRequestScope(BridgeContext bridgeContext) {
+        if (bridgeConfig.isBridgeScopeDisabled()) {
+            return;
+        }
         BridgeRequestScope scope = bridgeContext.getBridgeScope();
         if (null != scope) {
             scope.clear();
@@ -31,9 +31,11 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import javax.portlet.faces.annotation.BridgePreDestroy;
 
+import org.jboss.portletbridge.bridge.context.BridgeContext;
 import org.jboss.portletbridge.bridge.factory.BridgeLoggerFactoryImpl;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger.Level;
+import org.jboss.portletbridge.config.BridgeConfigIndex;
 import org.jboss.portletbridge.listener.PortletBridgeListener;
 
 /**
@@ -207,32 +209,39 @@ public class BridgeRequestScopeImpl extends ConcurrentHashMap<String, Object> im
      */
     private Object callPreDestroy(String key, Object obj) {
         if (null != obj) {
-            for (Method method : obj.getClass().getMethods()) {
-                // Check for Method with BridgePreDestroy annotation
-                if (method.isAnnotationPresent(BridgePreDestroy.class)) {
-                    // Check for Public method only
-                    if (!Modifier.isPublic(method.getModifiers())) {
-                        continue;
-                    }
-
-                    // Check for no arg method
-                    if (method.getParameterTypes().length > 0) {
-                        continue;
-                    }
-
-                    // Check for void return type
-                    if (method.getReturnType() != Void.class) {
-                        continue;
-                    }
-
+            BridgeConfigIndex index = getIndex();
+            if (null != index && index.isIndexed(obj.getClass())) {
+                // Methods were found when the application was built
+                for (String methodName : index.getPreDestroyMethods(obj.getClass())) {
                     try {
-                        // Invoke pre destroy method
-                        method.invoke(obj, (Object) null);
-                    } catch (Exception e) {
-                        logger.log(Level.ERROR, "Error invoking @BridgePreDestroy method: " + method.getName() + " on: "
+                        invokePreDestroy(obj, obj.getClass().getMethod(methodName));
+                    } catch (NoSuchMethodException e) {
+                        logger.log(Level.ERROR, "Error invoking @BridgePreDestroy method: " + methodName + " on: "
                             + obj.getClass().getName(), e);
                     }
                 }
+            } else {
+                for (Method method : obj.getClass().getMethods()) {
+                    // Check for Method with BridgePreDestroy annotation
+                    if (method.isAnnotationPresent(BridgePreDestroy.class)) {
+                        // Check for Public method only
+                        if (!Modifier.isPublic(method.getModifiers())) {
+                            continue;
+                        }
+
+                        // Check for no arg method
+                        if (method.getParameterTypes().length > 0) {
+                            continue;
+                        }
+
+                        // Check for void return type
+                        if (method.getReturnType() != Void.TYPE) {
+                            continue;
+                        }
+
+                        invokePreDestroy(obj, method);
+                    }
+                }
             }
 
             PortletBridgeListener listener = PortletBridgeListener.getCurrentInstance();
@@ -243,4 +252,22 @@ public class BridgeRequestScopeImpl extends ConcurrentHashMap<String, Object> im
         return obj;
     }
 
+    private void invokePreDestroy(Object obj, Method method) {
+        try {
+            // Invoke pre destroy method
+            method.invoke(obj);
+        } catch (Exception e) {
+            logger.log(Level.ERROR, "Error invoking @BridgePreDestroy method: " + method.getName() + " on: "
+                + obj.getClass().getName(), e);
+        }
+    }
+
+    private BridgeConfigIndex getIndex() {
+        BridgeContext bridgeContext = BridgeContext.getCurrentInstance();
+        if (null != bridgeContext && null != bridgeContext.getBridgeConfig()) {
+            return (BridgeConfigIndex) bridgeContext.getBridgeConfig().getAttributes().get(BridgeConfigIndex.ATTRIBUTE_NAME);
+        }
+        return null;
+    }
+
 }
@@ -120,8 +120,12 @@ public class BridgeRequestScopeManagerImpl implements BridgeRequestScopeManager,
      *      java.lang.String, java.lang.String)
      */
     public BridgeRequestScope getRequestScope(BridgeContext ctx, String viewId, String portletMode) {
-        return getRequestScope(ctx, ctx.getBridgeConfig().getPortletConfig().getPortletName(), ctx.getPortletRequest()
-            .getPortletSession(true).getId(), viewId, portletMode);
+        PortletSession portletSession = ctx.getPortletRequest().getPortletSession(false);
+        if (null == portletSession) {
+            return null;
+        }
+        return getRequestScope(ctx, ctx.getBridgeConfig().getPortletConfig().getPortletName(), portletSession.getId(),
+            viewId, portletMode);
     }
 
     /**
@@ -184,8 +188,12 @@ public class BridgeRequestScopeManagerImpl implements BridgeRequestScopeManager,
      *      java.lang.String, java.lang.String)
      */
     public BridgeRequestScope removeRequestScope(BridgeContext ctx, String viewId, String portletMode) {
-        return removeRequestScope(ctx, ctx.getBridgeConfig().getPortletConfig().getPortletName(), ctx
-            .getPortletRequest().getPortletSession(true).getId(), viewId, portletMode);
+        PortletSession portletSession = ctx.getPortletRequest().getPortletSession(false);
+        if (null == portletSession) {
+            return null;
+        }
+        return removeRequestScope(ctx, ctx.getBridgeConfig().getPortletConfig().getPortletName(), portletSession.getId(),
+            viewId, portletMode);
     }
 
     /**
@@ -0,0 +1,350 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.ExternalContext;
+import javax.portlet.PortletContext;
+
+import org.jboss.portletbridge.bridge.factory.BridgeFactory;
+import org.jboss.portletbridge.bridge.logger.BridgeLogger;
+
+/**
+ * Bridge configuration of an application recorded at build time by {@link BridgeIndexProcessor}. When an application
+ * contains the index, the bridge reads the <code>FacesServlet</code> mappings, error pages, the bridge elements of
+ * <code>/WEB-INF/faces-config.xml</code> and the <code>BridgePreDestroy</code> methods of the application classes from
+ * it, instead of parsing and reflecting on them during startup. Anything that isn't in the index is discovered at
+ * runtime as before.
+ * <p>
+ * The index records the size and SHA-1 hash of each descriptor it was built from. A descriptor deployed with other
+ * content, such as after an incremental build that skipped the processor, a WAR overlay or an edit of the deployed
+ * web.xml, is parsed at runtime instead of being read from the index.
+ * </p>
+ */
+public final class BridgeConfigIndex {
+
+    public static final String ATTRIBUTE_NAME = BridgeConfigIndex.class.getName();
+
+    /**
+     * Location of the index within the classes output of the application.
+     */
+    public static final String CLASSPATH_RESOURCE = "META-INF/portletbridge-index.properties";
+
+    static final String FACES_SERVLET_MAPPINGS = "faces-servlet.mappings";
+    static final String ERROR_PAGE_PREFIX = "error-page.";
+    static final String FACES_CONFIG_PRESENT = "faces-config.present";
+    static final String EXCLUDED_ATTRIBUTES = "faces-config.excluded-attributes";
+    static final String PUBLIC_PARAMETER_PREFIX = "faces-config.public-parameter.";
+    static final String FACTORY_PREFIX = "faces-config.factory.";
+    static final String RENDER_RESPONSE_WRAPPER = "faces-config.render-response-wrapper";
+    static final String RESOURCE_RESPONSE_WRAPPER = "faces-config.resource-response-wrapper";
+    static final String CLASSES = "classes";
+    static final String PRE_DESTROY_PREFIX = "bridge-pre-destroy.";
+    static final String WEB_XML_FINGERPRINT = "web.xml";
+    static final String FACES_CONFIG_FINGERPRINT = "faces-config";
+    static final String SIZE_SUFFIX = ".size";
+    static final String HASH_SUFFIX = ".sha1";
+
+    static final String WEB_XML_PATH = "/WEB-INF/web.xml";
+    static final String FACES_CONFIG_PATH = "/WEB-INF/faces-config.xml";
+
+    private static final Logger logger = Logger.getLogger(BridgeConfigIndex.class.getName(), BridgeLogger.LOGGING_BUNDLE);
+
+    private static final String RESOURCE_PATH = "/WEB-INF/classes/" + CLASSPATH_RESOURCE;
+
+    // Stored when an application has no index, so it is only looked for once
+    private static final Object ABSENT = new Object();
+
+    private final List<String> facesServletMappings;
+    private final Map<String, String> errorPages;
+    private final FacesConfigProcessor.ParsedDocument facesConfig;
+    private final Set<String> classes;
+    private final Map<String, List<String>> preDestroyMethods;
+
+    BridgeConfigIndex(Properties index) {
+        String mappings = index.getProperty(FACES_SERVLET_MAPPINGS);
+        this.facesServletMappings = null != mappings ? Collections.unmodifiableList(split(mappings)) : null;
+
+        Map<String, String> pages = new LinkedHashMap<String, String>();
+        Map<String, String> parameterMapping = new HashMap<String, String>();
+        Map<Class<? extends BridgeFactory<?>>, List<String>> factories =
+            new LinkedHashMap<Class<? extends BridgeFactory<?>>, List<String>>();
+        Map<String, List<String>> methods = new HashMap<String, List<String>>();
+        for (String key : index.stringPropertyNames()) {
+            String value = index.getProperty(key);
+            if (key.startsWith(ERROR_PAGE_PREFIX)) {
+                pages.put(key.substring(ERROR_PAGE_PREFIX.length()), value);
+            } else if (key.startsWith(PUBLIC_PARAMETER_PREFIX)) {
+                parameterMapping.put(key.substring(PUBLIC_PARAMETER_PREFIX.length()), value);
+            } else if (key.startsWith(FACTORY_PREFIX)) {
+                Class<? extends BridgeFactory<?>> factoryType = getFactoryType(key.substring(FACTORY_PREFIX.length()));
+                if (null != factoryType) {
+                    factories.put(factoryType, split(value));
+                }
+            } else if (key.startsWith(PRE_DESTROY_PREFIX)) {
+                methods.put(key.substring(PRE_DESTROY_PREFIX.length()), Collections.unmodifiableList(split(value)));
+            }
+        }
+        this.errorPages = Collections.unmodifiableMap(pages);
+        this.preDestroyMethods = methods;
+
+        String facesConfigPresent = index.getProperty(FACES_CONFIG_PRESENT);
+        if (null == facesConfigPresent) {
+            this.facesConfig = null;
+        } else if (Boolean.parseBoolean(facesConfigPresent)) {
+            this.facesConfig = new FacesConfigProcessor.ParsedDocument(split(index.getProperty(EXCLUDED_ATTRIBUTES, "")),
+                parameterMapping, factories, index.getProperty(RENDER_RESPONSE_WRAPPER),
+                index.getProperty(RESOURCE_RESPONSE_WRAPPER));
+        } else {
+            this.facesConfig = new FacesConfigProcessor.ParsedDocument(0);
+        }
+
+        this.classes = new HashSet<String>(split(index.getProperty(CLASSES, "")));
+    }
+
+    /**
+     * Retrieve the index of the application, loading it the first time it is asked for.
+     *
+     * @param portletContext the context of the application.
+     * @return the index, or null if the application doesn't contain one.
+     */
+    public static BridgeConfigIndex getInstance(final PortletContext portletContext) {
+        Object index = portletContext.getAttribute(ATTRIBUTE_NAME);
+        if (null == index) {
+            index = load(new Resources() {
+                public InputStream getResourceAsStream(String path) {
+                    return portletContext.getResourceAsStream(path);
+                }
+            });
+            portletContext.setAttribute(ATTRIBUTE_NAME, index);
+        }
+        return ABSENT != index ? (BridgeConfigIndex) index : null;
+    }
+
+    /**
+     * Retrieve the index of the application, loading it the first time it is asked for.
+     *
+     * @param externalContext the context of the application.
+     * @return the index, or null if the application doesn't contain one.
+     */
+    public static BridgeConfigIndex getInstance(final ExternalContext externalContext) {
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        Object index = applicationMap.get(ATTRIBUTE_NAME);
+        if (null == index) {
+            index = load(new Resources() {
+                public InputStream getResourceAsStream(String path) {
+                    return externalContext.getResourceAsStream(path);
+                }
+            });
+            applicationMap.put(ATTRIBUTE_NAME, index);
+        }
+        return ABSENT != index ? (BridgeConfigIndex) index : null;
+    }
+
+    private static Object load(Resources resources) {
+        InputStream inputStream = resources.getResourceAsStream(RESOURCE_PATH);
+        if (null == inputStream) {
+            return ABSENT;
+        }
+        try {
+            Properties index = new Properties();
+            try {
+                index.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+            removeStale(index, resources);
+            return new BridgeConfigIndex(index);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Can't read " + RESOURCE_PATH, e);
+            return ABSENT;
+        }
+    }
+
+    /**
+     * Removes the entries read from a descriptor that is deployed with other content than the index was built from, so
+     * that it is parsed at runtime.
+     */
+    static void removeStale(Properties index, Resources resources) throws IOException {
+        if (null != index.getProperty(FACES_SERVLET_MAPPINGS)
+            && !isCurrent(index, WEB_XML_FINGERPRINT, resources.getResourceAsStream(WEB_XML_PATH))) {
+            logger.log(Level.INFO, WEB_XML_PATH + " doesn't match " + RESOURCE_PATH + ", it will be parsed");
+            remove(index, FACES_SERVLET_MAPPINGS, ERROR_PAGE_PREFIX);
+        }
+
+        String facesConfigPresent = index.getProperty(FACES_CONFIG_PRESENT);
+        if (null != facesConfigPresent) {
+            InputStream facesConfig = resources.getResourceAsStream(FACES_CONFIG_PATH);
+            boolean current;
+            if (Boolean.parseBoolean(facesConfigPresent)) {
+                current = isCurrent(index, FACES_CONFIG_FINGERPRINT, facesConfig);
+            } else {
+                current = null == facesConfig;
+                if (null != facesConfig) {
+                    facesConfig.close();
+                }
+            }
+            if (!current) {
+                logger.log(Level.INFO, FACES_CONFIG_PATH + " doesn't match " + RESOURCE_PATH + ", it will be parsed");
+                remove(index, FACES_CONFIG_PRESENT, EXCLUDED_ATTRIBUTES, RENDER_RESPONSE_WRAPPER,
+                    RESOURCE_RESPONSE_WRAPPER, PUBLIC_PARAMETER_PREFIX, FACTORY_PREFIX);
+            }
+        }
+    }
+
+    private static boolean isCurrent(Properties index, String descriptor, InputStream inputStream) throws IOException {
+        if (null == inputStream) {
+            return false;
+        }
+        String size = index.getProperty(descriptor + SIZE_SUFFIX);
+        String hash = index.getProperty(descriptor + HASH_SUFFIX);
+        String[] fingerprint;
+        try {
+            fingerprint = fingerprint(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        return fingerprint[0].equals(size) && fingerprint[1].equals(hash);
+    }
+
+    private static void remove(Properties index, String... keysOrPrefixes) {
+        for (Iterator<Object> keys = index.keySet().iterator(); keys.hasNext();) {
+            String key = (String) keys.next();
+            for (String keyOrPrefix : keysOrPrefixes) {
+                if (keyOrPrefix.endsWith(".") ? key.startsWith(keyOrPrefix) : key.equals(keyOrPrefix)) {
+                    keys.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the size in bytes and the hex SHA-1 hash of the content of inputStream, which is left open.
+     */
+    static String[] fingerprint(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[4096];
+        long size = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            size += read;
+        }
+
+        StringBuilder hash = new StringBuilder(40);
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return new String[] { Long.toString(size), hash.toString() };
+    }
+
+    static List<String> split(String value) {
+        List<String> values = new ArrayList<String>();
+        for (String item : value.split(",")) {
+            item = item.trim();
+            if (item.length() > 0) {
+                values.add(item);
+            }
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends BridgeFactory<?>> getFactoryType(String className) {
+        try {
+            Class<?> factoryType = Class.forName(className, false, BridgeFactory.class.getClassLoader());
+            return (Class<? extends BridgeFactory<?>>) factoryType.asSubclass(BridgeFactory.class);
+        } catch (ClassNotFoundException e) {
+            logger.log(Level.WARNING, "Ignoring unknown bridge factory type " + className + " in " + RESOURCE_PATH);
+        } catch (ClassCastException e) {
+            logger.log(Level.WARNING, "Ignoring unknown bridge factory type " + className + " in " + RESOURCE_PATH);
+        }
+        return null;
+    }
+
+    /**
+     * @return the <code>FacesServlet</code> mappings, or null if web.xml wasn't indexed.
+     */
+    public List<String> getFacesServletMappings() {
+        return facesServletMappings;
+    }
+
+    /**
+     * @return the error page locations keyed by exception class name.
+     */
+    public Map<String, String> getErrorPages() {
+        return errorPages;
+    }
+
+    /**
+     * @return the bridge elements of <code>/WEB-INF/faces-config.xml</code>, or null if it wasn't indexed.
+     */
+    FacesConfigProcessor.ParsedDocument getFacesConfig() {
+        return facesConfig;
+    }
+
+    /**
+     * @param clazz an application class.
+     * @return whether the annotations of the class were recorded in the index.
+     */
+    public boolean isIndexed(Class<?> clazz) {
+        return classes.contains(clazz.getName());
+    }
+
+    /**
+     * @param clazz a class that {@link #isIndexed(Class)}.
+     * @return names of the public, no argument, void methods of the class annotated with <code>BridgePreDestroy</code>.
+     */
+    public List<String> getPreDestroyMethods(Class<?> clazz) {
+        List<String> methods = preDestroyMethods.get(clazz.getName());
+        return null != methods ? methods : Collections.<String>emptyList();
+    }
+
+    /**
+     * Access to the web application resources the index and descriptors are read from.
+     */
+    interface Resources {
+        InputStream getResourceAsStream(String path);
+    }
+}
@@ -42,6 +42,8 @@ public class BridgeConfigureListener implements ServletContextListener {
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
+        StartupReport.Timer timer = StartupReport.getInstance(sce.getServletContext()).start(StartupReport.APPLICATION,
+                "configure-listener");
         if (null == WebXmlProcessor.facesServlet) {
             ServletRegistration reg = getFacesServlet(sce.getServletContext());
 
@@ -51,11 +53,15 @@ public class BridgeConfigureListener implements ServletContextListener {
                 WebXmlProcessor.facesServlet = facesServlet;
             }
         }
+        timer.stop();
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
-        // Do Nothing
+        StartupReport report = (StartupReport) sce.getServletContext().getAttribute(StartupReport.ATTRIBUTE_NAME);
+        if (null != report) {
+            report.unregister();
+        }
     }
 
     private ServletRegistration getFacesServlet(ServletContext ctx) {
@@ -0,0 +1,231 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.portlet.faces.annotation.BridgePreDestroy;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.jboss.portletbridge.bridge.factory.BridgeFactory;
+import org.xml.sax.InputSource;
+
+/**
+ * Annotation processor generating the {@link BridgeConfigIndex} of an application while its classes are compiled. It
+ * records every compiled class along with its <code>BridgePreDestroy</code> methods, and when the
+ * <code>portletbridge.webapp</code> option names the web application source directory, the <code>FacesServlet</code>
+ * mappings and error pages of its web.xml and the bridge elements of its faces-config.xml, along with the size and hash
+ * of each of those descriptors.
+ * <p>
+ * The processor isn't registered as a service, so it has to be named in the <code>annotationProcessors</code> of the
+ * maven-compiler-plugin configuration of the WAR, with <code>-Aportletbridge.webapp=${basedir}/src/main/webapp</code>
+ * added to its <code>compilerArgs</code>.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(BridgeIndexProcessor.WEBAPP_OPTION)
+public class BridgeIndexProcessor extends AbstractProcessor {
+
+    public static final String WEBAPP_OPTION = "portletbridge.webapp";
+
+    private final Set<String> classes = new TreeSet<String>();
+    private final Map<String, List<String>> preDestroyMethods = new TreeMap<String, List<String>>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            index(type);
+        }
+
+        if (roundEnv.processingOver()) {
+            Properties index = new Properties();
+            index.setProperty(BridgeConfigIndex.CLASSES, join(classes));
+            for (Map.Entry<String, List<String>> entry : preDestroyMethods.entrySet()) {
+                index.setProperty(BridgeConfigIndex.PRE_DESTROY_PREFIX + entry.getKey(), join(entry.getValue()));
+            }
+
+            String webapp = processingEnv.getOptions().get(WEBAPP_OPTION);
+            if (null != webapp) {
+                try {
+                    indexWebXml(new File(webapp, "WEB-INF/web.xml"), index);
+                    indexFacesConfig(new File(webapp, "WEB-INF/faces-config.xml"), index);
+                } catch (Exception e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Portlet Bridge can't index the configuration of " + webapp + ": " + e);
+                }
+            }
+
+            write(index);
+        }
+        return false;
+    }
+
+    private void index(TypeElement type) {
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        classes.add(className);
+
+        // Same checks as made by reflection at runtime, including inherited methods
+        List<String> methods = new ArrayList<String>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (null != method.getAnnotation(BridgePreDestroy.class) && method.getModifiers().contains(Modifier.PUBLIC)
+                && method.getParameters().isEmpty() && method.getReturnType().getKind() == TypeKind.VOID) {
+                methods.add(method.getSimpleName().toString());
+            }
+        }
+        if (!methods.isEmpty()) {
+            preDestroyMethods.put(className, methods);
+        }
+
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            index(nested);
+        }
+    }
+
+    private void indexWebXml(File webXml, Properties index) throws IOException {
+        if (!webXml.isFile()) {
+            return;
+        }
+
+        Map<String, String> pages = new LinkedHashMap<String, String>();
+        ServletBean facesServlet;
+        InputStream inputStream = new FileInputStream(webXml);
+        try {
+            facesServlet = WebXmlProcessor.parseDetached(inputStream, pages);
+        } finally {
+            inputStream.close();
+        }
+
+        // Without a FacesServlet in web.xml it is registered at runtime, so leave it to be discovered then
+        if (null != facesServlet) {
+            setFingerprint(webXml, BridgeConfigIndex.WEB_XML_FINGERPRINT, index);
+            index.setProperty(BridgeConfigIndex.FACES_SERVLET_MAPPINGS, join(facesServlet.getMappings()));
+            for (Map.Entry<String, String> entry : pages.entrySet()) {
+                index.setProperty(BridgeConfigIndex.ERROR_PAGE_PREFIX + entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void indexFacesConfig(File facesConfig, Properties index) throws IOException, ParsingException {
+        if (!facesConfig.isFile()) {
+            index.setProperty(BridgeConfigIndex.FACES_CONFIG_PRESENT, Boolean.FALSE.toString());
+            return;
+        }
+
+        FacesConfigProcessor.ParsedDocument document;
+        InputStream inputStream = new FileInputStream(facesConfig);
+        try {
+            document = FacesConfigProcessor.parseDocument(new InputSource(inputStream), 0);
+        } finally {
+            inputStream.close();
+        }
+
+        // An invalid document is left to be reported when it is parsed at runtime
+        if (null != document) {
+            setFingerprint(facesConfig, BridgeConfigIndex.FACES_CONFIG_FINGERPRINT, index);
+            index.setProperty(BridgeConfigIndex.FACES_CONFIG_PRESENT, Boolean.TRUE.toString());
+            index.setProperty(BridgeConfigIndex.EXCLUDED_ATTRIBUTES, join(document.getExcludedAttributes()));
+            for (Map.Entry<String, String> entry : document.getParameterMapping().entrySet()) {
+                index.setProperty(BridgeConfigIndex.PUBLIC_PARAMETER_PREFIX + entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<Class<? extends BridgeFactory<?>>, List<String>> entry : document.getFactoryDefinitions()
+                .entrySet()) {
+                index.setProperty(BridgeConfigIndex.FACTORY_PREFIX + entry.getKey().getName(), join(entry.getValue()));
+            }
+            if (null != document.getRenderResponseWrapper()) {
+                index.setProperty(BridgeConfigIndex.RENDER_RESPONSE_WRAPPER, document.getRenderResponseWrapper());
+            }
+            if (null != document.getResourceResponseWrapper()) {
+                index.setProperty(BridgeConfigIndex.RESOURCE_RESPONSE_WRAPPER, document.getResourceResponseWrapper());
+            }
+        }
+    }
+
+    /**
+     * Records the size and hash of a descriptor, so that the bridge can tell whether the deployed one still matches.
+     */
+    private void setFingerprint(File descriptor, String name, Properties index) throws IOException {
+        String[] fingerprint;
+        InputStream inputStream = new FileInputStream(descriptor);
+        try {
+            fingerprint = BridgeConfigIndex.fingerprint(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        index.setProperty(name + BridgeConfigIndex.SIZE_SUFFIX, fingerprint[0]);
+        index.setProperty(name + BridgeConfigIndex.HASH_SUFFIX, fingerprint[1]);
+    }
+
+    private void write(Properties index) {
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                BridgeConfigIndex.CLASSPATH_RESOURCE);
+            OutputStream outputStream = resource.openOutputStream();
+            try {
+                index.store(outputStream, "Portlet Bridge configuration index");
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "Portlet Bridge can't write " + BridgeConfigIndex.CLASSPATH_RESOURCE + ": " + e);
+        }
+    }
+
+    private static String join(Iterable<String> values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+}
@@ -65,11 +65,13 @@ public class BridgeInitializer implements ServletContainerInitializer {
 
     @Override
     public void onStartup(Set<Class<?>> classes, ServletContext ctx) throws ServletException {
+        StartupReport.Timer timer = StartupReport.getInstance(ctx).start(StartupReport.APPLICATION, "initializer");
         if (null != classes && !classes.isEmpty()) {
             if (ctx.getMajorVersion() < 3) {
                 ctx.addListener(BridgeConfigureListener.class);
             }
         }
+        timer.stop();
     }
 
 }
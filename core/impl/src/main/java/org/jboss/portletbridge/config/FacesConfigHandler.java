@@ -24,6 +24,7 @@ package org.jboss.portletbridge.config;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,7 +32,6 @@ import org.jboss.portletbridge.bridge.factory.BridgeConfigFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeContextFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeControllerFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeFactory;
-import org.jboss.portletbridge.bridge.factory.BridgeFactoryFinder;
 import org.jboss.portletbridge.bridge.factory.BridgeLoggerFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeRequestScopeFactory;
 import org.jboss.portletbridge.bridge.factory.BridgeRequestScopeManagerFactory;
@@ -72,6 +72,8 @@ public class FacesConfigHandler extends DefaultHandler {
 
     private final Map<String, String> parameterMapping;
 
+    private final Map<Class<? extends BridgeFactory<?>>, List<String>> factoryDefinitions;
+
     private String renderResponseWrapperClass;
     private String resourceResponseWrapperClass;
 
@@ -81,6 +83,7 @@ public class FacesConfigHandler extends DefaultHandler {
         this.reader = reader;
         this.excludedAttributes = new ArrayList<String>();
         this.parameterMapping = new HashMap<String, String>();
+        this.factoryDefinitions = new LinkedHashMap<Class<? extends BridgeFactory<?>>, List<String>>();
     }
 
     /**
@@ -97,6 +100,13 @@ public class FacesConfigHandler extends DefaultHandler {
         return parameterMapping;
     }
 
+    /**
+     * @return the bridge factory implementation class names, in document order, keyed by factory type
+     */
+    public Map<Class<? extends BridgeFactory<?>>, List<String>> getFactoryDefinitions() {
+        return factoryDefinitions;
+    }
+
     /**
      * @return RenderResponse Wrapper Class
      */
@@ -334,7 +344,12 @@ public class FacesConfigHandler extends DefaultHandler {
 
         @Override
         protected void endLastElement() {
-            BridgeFactoryFinder.addFactoryDefinition(bridgeType, getResult().toString().trim());
+            List<String> definitions = factoryDefinitions.get(bridgeType);
+            if (null == definitions) {
+                definitions = new ArrayList<String>(1);
+                factoryDefinitions.put(bridgeType, definitions);
+            }
+            definitions.add(getResult().toString().trim());
         }
     }
 }
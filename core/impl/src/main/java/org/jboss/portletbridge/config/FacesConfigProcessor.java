@@ -21,18 +21,37 @@
  */
 package org.jboss.portletbridge.config;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.faces.FacesException;
+import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
 import javax.faces.event.AbortProcessingException;
 import javax.faces.event.SystemEvent;
@@ -43,16 +62,26 @@ import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
+import org.jboss.portletbridge.bridge.factory.BridgeFactory;
+import org.jboss.portletbridge.bridge.factory.BridgeFactoryFinder;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 /**
+ * Reads the bridge specific elements of the faces-config.xml files of an application. A scan is held by the listener
+ * instance registered for the application, which is published as an application attribute once the scan completes.
+ * The <code>META-INF/faces-config.xml</code> files found on the classpath are parsed in parallel, skipping those
+ * without any extension elements, and the result for each one is cached in the application temporary directory so
+ * unchanged JARs aren't parsed again when the application is redeployed.
+ *
  * @author kenfinnigan
  */
 public final class FacesConfigProcessor implements SystemEventListener {
 
+    public static final String ATTRIBUTE_NAME = FacesConfigProcessor.class.getName();
+
     private static final Logger logger = Logger.getLogger(FacesConfigProcessor.class.getName(),
         BridgeLogger.LOGGING_BUNDLE);
 
@@ -61,42 +90,56 @@ public final class FacesConfigProcessor implements SystemEventListener {
     static {
         saxFactory.setValidating(false);
         saxFactory.setNamespaceAware(true);
-
-        scanned = false;
-        excludedAttributes = new ArrayList<String>();
-        publicParameterMapping = new HashMap<String, String>();
     }
 
     private static final String FACES_CONFIG_CLASS_PATH = "META-INF/faces-config.xml";
     private static final String FACES_CONFIG_WEB_PATH = "/WEB-INF/faces-config.xml";
+    private static final String TEMP_DIR_ATTRIBUTE = "javax.servlet.context.tempdir";
+    private static final String CACHE_FILE_NAME = "portletbridge-faces-config.cache";
 
-    private static boolean scanned;
-    private static List<String> excludedAttributes;
-    private static Map<String, String> publicParameterMapping;
-    private static String writeBehindRenderResponseWrapper = null;
-    private static String writeBehindResourceResponseWrapper = null;
+    // Bridge elements are only read from within one of these elements
+    private static final byte[][] EXTENSION_ELEMENTS = { "application-extension".getBytes(), "factory-extension".getBytes() };
+
+    private boolean scanned = false;
+    private final List<String> excludedAttributes = new ArrayList<String>();
+    private final Map<String, String> publicParameterMapping = new HashMap<String, String>();
+    private String writeBehindRenderResponseWrapper = null;
+    private String writeBehindResourceResponseWrapper = null;
 
     public FacesConfigProcessor() {
     }
 
-    public static List<String> getExcludedAttributes() {
-        return excludedAttributes;
+    /**
+     * Retrieve the processor that scanned the faces-config.xml files of the application.
+     *
+     * @param portletContext the context of the application.
+     * @return the processor, or null if the scan has not happened.
+     */
+    public static FacesConfigProcessor getInstance(PortletContext portletContext) {
+        return (FacesConfigProcessor) portletContext.getAttribute(ATTRIBUTE_NAME);
     }
 
-    public static Map<String, String> getPublicParameterMappings() {
-        return publicParameterMapping;
+    public synchronized List<String> getExcludedAttributes() {
+        return Collections.unmodifiableList(excludedAttributes);
     }
 
-    public static String getWriteBehindRenderResponseWrapperClassName() {
+    public synchronized Map<String, String> getPublicParameterMappings() {
+        return Collections.unmodifiableMap(publicParameterMapping);
+    }
+
+    public synchronized String getWriteBehindRenderResponseWrapperClassName() {
         return writeBehindRenderResponseWrapper;
     }
 
-    public static String getWriteBehindResourceResponseWrapperClassName() {
+    public synchronized String getWriteBehindResourceResponseWrapperClassName() {
         return writeBehindResourceResponseWrapper;
     }
 
-    public void processEvent(SystemEvent event) throws AbortProcessingException {
+    public synchronized void processEvent(SystemEvent event) throws AbortProcessingException {
         if (!scanned) {
+            ExternalContext externalContext = FacesContext.getCurrentInstance().getExternalContext();
+            StartupReport.Timer timer = StartupReport.getInstance(externalContext).start(StartupReport.APPLICATION,
+                    "faces-config.xml");
             try {
                 parseClasspath();
                 parseDefault();
@@ -105,6 +148,8 @@ public final class FacesConfigProcessor implements SystemEventListener {
             }
 
             scanned = true;
+            externalContext.getApplicationMap().put(ATTRIBUTE_NAME, this);
+            timer.stop();
         }
     }
 
@@ -112,39 +157,99 @@ public final class FacesConfigProcessor implements SystemEventListener {
         return true;
     }
 
-    protected void parseClasspath() throws ParsingException {
+    protected synchronized void parseClasspath() throws ParsingException {
+        ExternalContext externalContext = FacesContext.getCurrentInstance().getExternalContext();
         ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
         if (null == classLoader) {
-            classLoader = FacesContext.getCurrentInstance().getExternalContext().getClass().getClassLoader();
+            classLoader = externalContext.getClass().getClassLoader();
         }
+
+        List<URL> resources;
         try {
-            // Parse all faces-config.xml files in the classpath.
-            Enumeration<URL> resources = classLoader.getResources(FACES_CONFIG_CLASS_PATH);
-            while (resources.hasMoreElements()) {
-                URL resourceURL = (URL) resources.nextElement();
-                try {
-                    URLConnection connection = resourceURL.openConnection();
-                    // To avoid file locking in the Windows environmemt.
-                    connection.setUseCaches(false);
-                    InputStream inputStream = connection.getInputStream();
-                    try {
-                        parse(inputStream, ParsingLocation.CLASSPATH);
-                    } finally {
-                        inputStream.close();
+            resources = Collections.list(classLoader.getResources(FACES_CONFIG_CLASS_PATH));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Can't get META-INF/faces-config.xml resources", e);
+            return;
+        }
+
+        File cacheFile = null;
+        Object tempDir = externalContext.getApplicationMap().get(TEMP_DIR_ATTRIBUTE);
+        if (tempDir instanceof File) {
+            cacheFile = new File((File) tempDir, CACHE_FILE_NAME);
+        }
+        Map<String, ParsedDocument> cache = readCache(cacheFile);
+        Map<String, ParsedDocument> updatedCache = new HashMap<String, ParsedDocument>();
+
+        // Parse all faces-config.xml files in the classpath that changed since they were cached.
+        List<Future<ParsedDocument>> documents = new ArrayList<Future<ParsedDocument>>(resources.size());
+        List<FutureTask<ParsedDocument>> parsers = new ArrayList<FutureTask<ParsedDocument>>();
+        for (URL resourceURL : resources) {
+            long lastModified = getLastModified(resourceURL);
+            ParsedDocument cached = cache.get(resourceURL.toExternalForm());
+            if (null != cached && 0 != lastModified && cached.lastModified == lastModified) {
+                documents.add(new Result(cached));
+            } else {
+                FutureTask<ParsedDocument> parser = new FutureTask<ParsedDocument>(new DocumentParser(resourceURL,
+                    lastModified));
+                parsers.add(parser);
+                documents.add(parser);
+            }
+        }
+
+        ExecutorService executor = null;
+        try {
+            if (parsers.size() > 1) {
+                executor = Executors.newFixedThreadPool(Math.min(parsers.size(), Runtime.getRuntime()
+                    .availableProcessors()), new ScanThreadFactory());
+                for (FutureTask<ParsedDocument> parser : parsers) {
+                    executor.execute(parser);
+                }
+            } else {
+                for (FutureTask<ParsedDocument> parser : parsers) {
+                    parser.run();
+                }
+            }
+
+            for (int i = 0; i < documents.size(); i++) {
+                ParsedDocument document = documents.get(i).get();
+                if (null != document) {
+                    apply(document, ParsingLocation.CLASSPATH);
+                    if (0 != document.lastModified) {
+                        updatedCache.put(resources.get(i).toExternalForm(), document);
                     }
-                } catch (IOException e) {
-                    logger.log(java.util.logging.Level.WARNING, "Can't parse " + resourceURL.toExternalForm(), e);
                 }
             }
-        } catch (IOException e) {
-            logger.log(java.util.logging.Level.WARNING, "Can't get META-INF/faces-config.xml resources", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ParsingException("Interrupted while parsing META-INF/faces-config.xml resources", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ParsingException) {
+                throw (ParsingException) e.getCause();
+            }
+            throw new FacesException("Portlet Bridge error parsing faces-config(s)", e.getCause());
+        } finally {
+            if (null != executor) {
+                executor.shutdownNow();
+            }
+        }
+
+        if (null != cacheFile && !updatedCache.equals(cache)) {
+            writeCache(cacheFile, updatedCache);
         }
     }
 
     protected void parseDefault() throws ParsingException {
+        ExternalContext externalContext = FacesContext.getCurrentInstance().getExternalContext();
+
+        // Use the default faces config read at build time, if the application was indexed.
+        BridgeConfigIndex index = BridgeConfigIndex.getInstance(externalContext);
+        if (null != index && null != index.getFacesConfig()) {
+            apply(index.getFacesConfig(), ParsingLocation.DEFAULT);
+            return;
+        }
+
         // Parse default faces config.
-        InputStream inputStream = FacesContext.getCurrentInstance().getExternalContext()
-            .getResourceAsStream(FACES_CONFIG_WEB_PATH);
+        InputStream inputStream = externalContext.getResourceAsStream(FACES_CONFIG_WEB_PATH);
         if (null != inputStream) {
             try {
                 parse(inputStream, ParsingLocation.DEFAULT);
@@ -152,7 +257,7 @@ public final class FacesConfigProcessor implements SystemEventListener {
                 try {
                     inputStream.close();
                 } catch (IOException e) {
-                    logger.log(java.util.logging.Level.WARNING, "Can't close input stream for web resource "
+                    logger.log(Level.WARNING, "Can't close input stream for web resource "
                         + FACES_CONFIG_WEB_PATH, e);
                 }
             }
@@ -174,7 +279,7 @@ public final class FacesConfigProcessor implements SystemEventListener {
                         try {
                             inputStream.close();
                         } catch (IOException e) {
-                            logger.log(java.util.logging.Level.WARNING, "Can't close input stream for web resource "
+                            logger.log(Level.WARNING, "Can't close input stream for web resource "
                                 + facesConfigPath, e);
                         }
                     }
@@ -184,8 +289,46 @@ public final class FacesConfigProcessor implements SystemEventListener {
     }
 
     protected void parse(InputStream facesConfig, ParsingLocation location) throws ParsingException {
+        ParsedDocument document = parseDocument(new InputSource(facesConfig), 0);
+        if (null != document) {
+            apply(document, location);
+        }
+    }
+
+    synchronized void apply(ParsedDocument document, ParsingLocation location) {
+        excludedAttributes.addAll(document.excludedAttributes);
+        publicParameterMapping.putAll(document.parameterMapping);
+
+        for (Map.Entry<Class<? extends BridgeFactory<?>>, List<String>> entry : document.factoryDefinitions.entrySet()) {
+            for (String factoryImplClassName : entry.getValue()) {
+                BridgeFactoryFinder.addFactoryDefinition(entry.getKey(), factoryImplClassName);
+            }
+        }
+
+        if (location.equals(ParsingLocation.CLASSPATH) || location.equals(ParsingLocation.DEFAULT)) {
+            if (null != document.renderResponseWrapper) {
+                writeBehindRenderResponseWrapper = document.renderResponseWrapper;
+            }
+            if (null != document.resourceResponseWrapper) {
+                writeBehindResourceResponseWrapper = document.resourceResponseWrapper;
+            }
+        } else if (location.equals(ParsingLocation.OPTIONAL)) {
+            if (null == writeBehindRenderResponseWrapper) {
+                writeBehindRenderResponseWrapper = document.renderResponseWrapper;
+            }
+            if (null == writeBehindResourceResponseWrapper) {
+                writeBehindResourceResponseWrapper = document.resourceResponseWrapper;
+            }
+        }
+    }
+
+    static ParsedDocument parseDocument(InputSource facesConfig, long lastModified) throws ParsingException {
         try {
-            SAXParser parser = saxFactory.newSAXParser();
+            SAXParser parser;
+            // The factory isn't guaranteed to be thread safe
+            synchronized (saxFactory) {
+                parser = saxFactory.newSAXParser();
+            }
             XMLReader reader = parser.getXMLReader();
 
             FacesConfigHandler facesConfigHandler = new FacesConfigHandler(reader);
@@ -194,32 +337,283 @@ public final class FacesConfigProcessor implements SystemEventListener {
             reader.setErrorHandler(facesConfigHandler);
             reader.setDTDHandler(facesConfigHandler);
 
-            reader.parse(new InputSource(facesConfig));
+            reader.parse(facesConfig);
 
-            excludedAttributes.addAll(facesConfigHandler.getExcludedAttributes());
-            publicParameterMapping.putAll(facesConfigHandler.getParameterMapping());
+            return new ParsedDocument(facesConfigHandler, lastModified);
+        } catch (ParserConfigurationException e) {
+            throw new ParsingException("SAX Parser configuration error", e);
+        } catch (SAXException e) {
+            logger.log(Level.WARNING, "Exception at faces-config.xml parsing", e);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Exception at faces-config.xml parsing", e);
+        }
+        return null;
+    }
 
-            if (location.equals(ParsingLocation.CLASSPATH) || location.equals(ParsingLocation.DEFAULT)) {
-                writeBehindRenderResponseWrapper = facesConfigHandler.getRenderResponseWrapperClass();
-                writeBehindResourceResponseWrapper = facesConfigHandler.getResourceResponseWrapperClass();
-            } else if (location.equals(ParsingLocation.OPTIONAL)) {
-                if (null == writeBehindRenderResponseWrapper) {
-                    writeBehindRenderResponseWrapper = facesConfigHandler.getRenderResponseWrapperClass();
+    /**
+     * Determine whether a document may contain bridge configuration, without parsing it. Documents that aren't in an
+     * ASCII compatible encoding are always considered to.
+     *
+     * @param content the document content.
+     * @return false if the document doesn't contain any element the bridge reads its configuration from.
+     */
+    static boolean hasExtensionElements(byte[] content) {
+        int prefix = Math.min(content.length, 4);
+        for (int i = 0; i < prefix; i++) {
+            if (content[i] == 0 || content[i] == (byte) 0xFE || content[i] == (byte) 0xFF) {
+                return true;
+            }
+        }
+
+        for (byte[] element : EXTENSION_ELEMENTS) {
+            if (indexOf(content, element) != -1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern) {
+        byte first = pattern[0];
+        int max = content.length - pattern.length;
+        for (int i = 0; i <= max; i++) {
+            if (content[i] == first) {
+                int j = 1;
+                while (j < pattern.length && content[i + j] == pattern[j]) {
+                    j++;
                 }
-                if (null == writeBehindResourceResponseWrapper) {
-                    writeBehindResourceResponseWrapper = facesConfigHandler.getResourceResponseWrapperClass();
+                if (j == pattern.length) {
+                    return i;
                 }
             }
-        } catch (ParserConfigurationException e) {
-            throw new ParsingException("SAX Parser configuration error", e);
-        } catch (SAXException e) {
-            logger.log(java.util.logging.Level.WARNING, "Exception at faces-config.xml parsing", e);
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieve the last modification time of the file holding a classpath resource, or 0 if it can't be cheaply
+     * determined, in which case the resource isn't cached.
+     */
+    static long getLastModified(URL resourceURL) {
+        try {
+            URL fileURL = resourceURL;
+            if ("jar".equals(resourceURL.getProtocol())) {
+                String path = resourceURL.getPath();
+                int separator = path.indexOf("!/");
+                if (separator == -1) {
+                    return 0;
+                }
+                fileURL = new URL(path.substring(0, separator));
+            }
+
+            if ("file".equals(fileURL.getProtocol())) {
+                return new File(fileURL.toURI()).lastModified();
+            } else if (!"jar".equals(resourceURL.getProtocol())) {
+                URLConnection connection = resourceURL.openConnection();
+                connection.setUseCaches(false);
+                return connection.getLastModified();
+            }
         } catch (IOException e) {
-            logger.log(java.util.logging.Level.WARNING, "Exception at faces-config.xml parsing", e);
+            // Not cached
+        } catch (URISyntaxException e) {
+            // Not cached
+        } catch (IllegalArgumentException e) {
+            // Not cached
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, ParsedDocument> readCache(File cacheFile) {
+        if (null != cacheFile && cacheFile.isFile()) {
+            try {
+                ObjectInputStream in = new ObjectInputStream(new FileInputStream(cacheFile));
+                try {
+                    return (Map<String, ParsedDocument>) in.readObject();
+                } finally {
+                    in.close();
+                }
+            } catch (Exception e) {
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.log(Level.FINE, "Ignoring unreadable faces-config.xml cache " + cacheFile, e);
+                }
+            }
+        }
+        return Collections.emptyMap();
+    }
+
+    static void writeCache(File cacheFile, Map<String, ParsedDocument> documents) {
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(cacheFile));
+            try {
+                out.writeObject(documents);
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Can't write faces-config.xml cache " + cacheFile, e);
+            cacheFile.delete();
         }
     }
 
     enum ParsingLocation {
         CLASSPATH, OPTIONAL, DEFAULT;
     }
+
+    /**
+     * Bridge configuration read from a single faces-config.xml document.
+     */
+    static final class ParsedDocument implements Serializable {
+
+        private static final long serialVersionUID = 3470381546870591204L;
+
+        private final long lastModified;
+        private final List<String> excludedAttributes;
+        private final Map<String, String> parameterMapping;
+        private final Map<Class<? extends BridgeFactory<?>>, List<String>> factoryDefinitions;
+        private final String renderResponseWrapper;
+        private final String resourceResponseWrapper;
+
+        ParsedDocument(long lastModified) {
+            this.lastModified = lastModified;
+            this.excludedAttributes = Collections.emptyList();
+            this.parameterMapping = Collections.emptyMap();
+            this.factoryDefinitions = Collections.emptyMap();
+            this.renderResponseWrapper = null;
+            this.resourceResponseWrapper = null;
+        }
+
+        ParsedDocument(List<String> excludedAttributes, Map<String, String> parameterMapping,
+            Map<Class<? extends BridgeFactory<?>>, List<String>> factoryDefinitions, String renderResponseWrapper,
+            String resourceResponseWrapper) {
+            this.lastModified = 0;
+            this.excludedAttributes = excludedAttributes;
+            this.parameterMapping = parameterMapping;
+            this.factoryDefinitions = factoryDefinitions;
+            this.renderResponseWrapper = renderResponseWrapper;
+            this.resourceResponseWrapper = resourceResponseWrapper;
+        }
+
+        ParsedDocument(FacesConfigHandler handler, long lastModified) {
+            this.lastModified = lastModified;
+            this.excludedAttributes = handler.getExcludedAttributes();
+            this.parameterMapping = handler.getParameterMapping();
+            this.factoryDefinitions = handler.getFactoryDefinitions();
+            this.renderResponseWrapper = handler.getRenderResponseWrapperClass();
+            this.resourceResponseWrapper = handler.getResourceResponseWrapperClass();
+        }
+
+        List<String> getExcludedAttributes() {
+            return excludedAttributes;
+        }
+
+        Map<String, String> getParameterMapping() {
+            return parameterMapping;
+        }
+
+        Map<Class<? extends BridgeFactory<?>>, List<String>> getFactoryDefinitions() {
+            return factoryDefinitions;
+        }
+
+        String getRenderResponseWrapper() {
+            return renderResponseWrapper;
+        }
+
+        String getResourceResponseWrapper() {
+            return resourceResponseWrapper;
+        }
+    }
+
+    /**
+     * Reads and parses a classpath faces-config.xml document, unless it has no extension elements.
+     */
+    private static final class DocumentParser implements Callable<ParsedDocument> {
+
+        private final URL resourceURL;
+        private final long lastModified;
+
+        DocumentParser(URL resourceURL, long lastModified) {
+            this.resourceURL = resourceURL;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public ParsedDocument call() throws ParsingException {
+            byte[] content;
+            try {
+                URLConnection connection = resourceURL.openConnection();
+                // To avoid file locking in the Windows environmemt.
+                connection.setUseCaches(false);
+                InputStream inputStream = connection.getInputStream();
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        bytes.write(buffer, 0, read);
+                    }
+                    content = bytes.toByteArray();
+                } finally {
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Can't parse " + resourceURL.toExternalForm(), e);
+                return null;
+            }
+
+            if (!hasExtensionElements(content)) {
+                return new ParsedDocument(lastModified);
+            }
+            InputSource source = new InputSource(new ByteArrayInputStream(content));
+            source.setSystemId(resourceURL.toExternalForm());
+            return parseDocument(source, lastModified);
+        }
+    }
+
+    /**
+     * Document read from the cache, handled the same way as the ones being parsed.
+     */
+    private static final class Result implements Future<ParsedDocument> {
+
+        private final ParsedDocument document;
+
+        Result(ParsedDocument document) {
+            this.document = document;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return true;
+        }
+
+        @Override
+        public ParsedDocument get() {
+            return document;
+        }
+
+        @Override
+        public ParsedDocument get(long timeout, TimeUnit unit) {
+            return document;
+        }
+    }
+
+    private static final class ScanThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "portletbridge-faces-config-scan");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,355 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.context.ExternalContext;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.portlet.PortletContext;
+import javax.servlet.ServletContext;
+
+import org.jboss.portletbridge.bridge.logger.BridgeLogger;
+
+/**
+ * Wall time and allocations of each step of the bridge initialization of a web application. Steps shared by the
+ * portlets of the application are recorded against {@link #APPLICATION}, and those of a single portlet against its
+ * name. A summary of each portlet is logged once it has been initialized, and the whole report is available through
+ * JMX as <code>org.jboss.portletbridge:type=StartupReport,context=&lt;context path&gt;</code>. When the report is
+ * created before the context path is known, the name of the context followed by an identifier of the report is used
+ * instead. The report is unregistered by {@link StartupReportListener} when the application is destroyed.
+ *
+ * Allocations are those of the thread running a step, so work a step hands to other threads only shows in its time.
+ */
+public final class StartupReport implements StartupReportMBean {
+
+    public static final String ATTRIBUTE_NAME = StartupReport.class.getName();
+
+    public static final String APPLICATION = "application";
+
+    private static final Logger logger = Logger.getLogger(StartupReport.class.getName(), BridgeLogger.LOGGING_BUNDLE);
+
+    private static final String HOTSPOT_THREAD_BEAN = "com.sun.management.ThreadMXBean";
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    // Only HotSpot counts the allocations of a thread, so its interface is looked up rather than linked against
+    private static final Method ALLOCATED_BYTES = getAllocatedBytesMethod();
+
+    private final String contextName;
+    private final String contextPath;
+    private final List<Step> steps = new ArrayList<Step>();
+    private ObjectName objectName;
+
+    StartupReport(String contextName, String contextPath) {
+        this.contextName = null != contextName && contextName.length() != 0 ? contextName : "default";
+        this.contextPath = contextPath;
+    }
+
+    /**
+     * Retrieve the report of the application, creating and registering it the first time it is asked for.
+     *
+     * @param portletContext the context of the application.
+     * @return the report.
+     */
+    public static StartupReport getInstance(PortletContext portletContext) {
+        StartupReport report = (StartupReport) portletContext.getAttribute(ATTRIBUTE_NAME);
+        if (null == report) {
+            synchronized (StartupReport.class) {
+                report = (StartupReport) portletContext.getAttribute(ATTRIBUTE_NAME);
+                if (null == report) {
+                    report = new StartupReport(portletContext.getPortletContextName(), null);
+                    report.register();
+                    portletContext.setAttribute(ATTRIBUTE_NAME, report);
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Retrieve the report of the application, creating and registering it the first time it is asked for.
+     *
+     * @param externalContext the context of the application.
+     * @return the report.
+     */
+    public static StartupReport getInstance(ExternalContext externalContext) {
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        StartupReport report = (StartupReport) applicationMap.get(ATTRIBUTE_NAME);
+        if (null == report) {
+            synchronized (StartupReport.class) {
+                report = (StartupReport) applicationMap.get(ATTRIBUTE_NAME);
+                if (null == report) {
+                    Object context = externalContext.getContext();
+                    report = new StartupReport(externalContext.getContextName(),
+                            context instanceof ServletContext ? ((ServletContext) context).getContextPath() : null);
+                    report.register();
+                    applicationMap.put(ATTRIBUTE_NAME, report);
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Retrieve the report of the application, creating and registering it the first time it is asked for.
+     *
+     * @param servletContext the context of the application.
+     * @return the report.
+     */
+    public static StartupReport getInstance(ServletContext servletContext) {
+        StartupReport report = (StartupReport) servletContext.getAttribute(ATTRIBUTE_NAME);
+        if (null == report) {
+            synchronized (StartupReport.class) {
+                report = (StartupReport) servletContext.getAttribute(ATTRIBUTE_NAME);
+                if (null == report) {
+                    report = new StartupReport(servletContext.getServletContextName(), servletContext.getContextPath());
+                    report.register();
+                    servletContext.setAttribute(ATTRIBUTE_NAME, report);
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Start timing a step. The step is recorded when {@link Timer#stop()} is called on the same thread.
+     *
+     * @param scope {@link #APPLICATION} or the name of the portlet.
+     * @param step the name of the step.
+     * @return the running timer.
+     */
+    public Timer start(String scope, String step) {
+        return new Timer(this, scope, step);
+    }
+
+    /**
+     * Log the steps recorded for a portlet, followed by those of the application, as one record.
+     *
+     * @param scope the name of the portlet.
+     */
+    public void logSummary(String scope) {
+        if (logger.isLoggable(Level.INFO)) {
+            StringBuilder summary = new StringBuilder(256);
+            summary.append("Portlet Bridge startup of ").append(contextName).append(": ");
+            appendScope(summary, scope, getSteps(scope));
+            summary.append("; ");
+            appendScope(summary, APPLICATION, getSteps(APPLICATION));
+            logger.info(summary.toString());
+        }
+    }
+
+    @Override
+    public String[] getSteps() {
+        synchronized (steps) {
+            String[] lines = new String[steps.size()];
+            for (int i = 0; i < lines.length; i++) {
+                Step step = steps.get(i);
+                StringBuilder line = new StringBuilder(64).append(step.scope).append('/');
+                lines[i] = appendStep(line, step).toString();
+            }
+            return lines;
+        }
+    }
+
+    @Override
+    public String getSummary() {
+        Map<String, List<Step>> scopes = new LinkedHashMap<String, List<Step>>();
+        scopes.put(APPLICATION, new ArrayList<Step>());
+        synchronized (steps) {
+            for (Step step : steps) {
+                List<Step> scopeSteps = scopes.get(step.scope);
+                if (null == scopeSteps) {
+                    scopeSteps = new ArrayList<Step>();
+                    scopes.put(step.scope, scopeSteps);
+                }
+                scopeSteps.add(step);
+            }
+        }
+
+        StringBuilder summary = new StringBuilder(256);
+        for (Map.Entry<String, List<Step>> scope : scopes.entrySet()) {
+            appendScope(summary, scope.getKey(), scope.getValue());
+            summary.append('\n');
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Remove the report from the platform MBean server.
+     */
+    public synchronized void unregister() {
+        if (null != objectName) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Unable to unregister " + objectName, e);
+            }
+            objectName = null;
+        }
+    }
+
+    synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    private synchronized void register() {
+        try {
+            String key;
+            if (null != contextPath) {
+                key = contextPath.length() != 0 ? contextPath : "/";
+            } else {
+                key = contextName + '@' + Integer.toHexString(System.identityHashCode(this));
+            }
+            ObjectName name = new ObjectName("org.jboss.portletbridge:type=StartupReport,context="
+                    + ObjectName.quote(key));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (null != contextPath && server.isRegistered(name)) {
+                // Only one application is deployed at a context path, so this was left behind by a previous deployment
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Unable to register startup report of " + contextName, e);
+        }
+    }
+
+    private List<Step> getSteps(String scope) {
+        List<Step> scopeSteps = new ArrayList<Step>();
+        synchronized (steps) {
+            for (Step step : steps) {
+                if (step.scope.equals(scope)) {
+                    scopeSteps.add(step);
+                }
+            }
+        }
+        return scopeSteps;
+    }
+
+    private void record(Step step) {
+        synchronized (steps) {
+            steps.add(step);
+        }
+    }
+
+    private static void appendScope(StringBuilder summary, String scope, List<Step> scopeSteps) {
+        summary.append(scope).append(" [");
+        for (int i = 0; i < scopeSteps.size(); i++) {
+            if (i > 0) {
+                summary.append(", ");
+            }
+            appendStep(summary, scopeSteps.get(i));
+        }
+        summary.append(']');
+    }
+
+    private static StringBuilder appendStep(StringBuilder summary, Step step) {
+        summary.append(step.name).append('=').append(String.format(Locale.ENGLISH, "%.1f", step.nanos / 1000000.0))
+                .append("ms");
+        if (step.allocatedBytes >= 0) {
+            summary.append('/').append(step.allocatedBytes / 1024).append("KB");
+        }
+        return summary;
+    }
+
+    private static Method getAllocatedBytesMethod() {
+        try {
+            Class<?> type = Class.forName(HOTSPOT_THREAD_BEAN);
+            if (type.isInstance(THREAD_BEAN)
+                    && Boolean.TRUE.equals(type.getMethod("isThreadAllocatedMemorySupported").invoke(THREAD_BEAN))
+                    && Boolean.TRUE.equals(type.getMethod("isThreadAllocatedMemoryEnabled").invoke(THREAD_BEAN))) {
+                return type.getMethod("getThreadAllocatedBytes", long.class);
+            }
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Thread allocations not available, reporting time only", e);
+        } catch (LinkageError e) {
+            logger.log(Level.FINE, "Thread allocations not available, reporting time only", e);
+        }
+        return null;
+    }
+
+    private static long getAllocatedBytes() {
+        if (null == ALLOCATED_BYTES) {
+            return -1;
+        }
+        try {
+            return (Long) ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A step being timed.
+     */
+    public static final class Timer {
+
+        private final StartupReport report;
+        private final String scope;
+        private final String name;
+        private final long startNanos;
+        private final long startBytes;
+
+        Timer(StartupReport report, String scope, String name) {
+            this.report = report;
+            this.scope = scope;
+            this.name = name;
+            this.startBytes = getAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Record the step with the time and allocations since it was started.
+         */
+        public void stop() {
+            long nanos = System.nanoTime() - startNanos;
+            long allocatedBytes = startBytes >= 0 ? getAllocatedBytes() - startBytes : -1;
+            report.record(new Step(scope, name, nanos, allocatedBytes));
+        }
+    }
+
+    private static final class Step {
+
+        private final String scope;
+        private final String name;
+        private final long nanos;
+        private final long allocatedBytes;
+
+        Step(String scope, String name, long nanos, long allocatedBytes) {
+            this.scope = scope;
+            this.name = name;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
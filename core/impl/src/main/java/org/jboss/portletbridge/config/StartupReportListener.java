@@ -0,0 +1,49 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+
+/**
+ * Listener for {@link javax.faces.event.PreDestroyApplicationEvent} that removes the {@link StartupReport} of the
+ * application from the platform MBean server. It is registered by the faces-config.xml of the bridge, so the report is
+ * removed even when {@link BridgeConfigureListener} isn't installed, such as with a metadata-complete web.xml.
+ */
+public class StartupReportListener implements SystemEventListener {
+
+    @Override
+    public boolean isListenerForSource(Object source) {
+        return true;
+    }
+
+    @Override
+    public void processEvent(SystemEvent event) throws AbortProcessingException {
+        StartupReport report = (StartupReport) FacesContext.getCurrentInstance().getExternalContext().getApplicationMap()
+                .get(StartupReport.ATTRIBUTE_NAME);
+        if (null != report) {
+            report.unregister();
+        }
+    }
+}
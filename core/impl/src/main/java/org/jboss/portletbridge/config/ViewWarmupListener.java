@@ -0,0 +1,192 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.faces.application.Application;
+import javax.faces.application.ResourceHandler;
+import javax.faces.component.UIComponent;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+import javax.faces.event.AbortProcessingException;
+import javax.faces.event.SystemEvent;
+import javax.faces.event.SystemEventListener;
+import javax.faces.view.ViewDeclarationLanguage;
+import javax.faces.view.ViewMetadata;
+import javax.portlet.PortletContext;
+
+import org.jboss.portletbridge.bridge.config.BridgeConfig;
+import org.jboss.portletbridge.bridge.logger.BridgeLogger;
+import org.jboss.portletbridge.context.WarmupFacesContext;
+
+/**
+ * Listener for {@link org.jboss.portletbridge.bridge.event.BridgePostConfigureSystemEvent} that prepares the default
+ * views of a portlet before its first request when
+ * {@link org.jboss.portletbridge.PortletBridgeConstants#VIEW_WARMUP_ENABLED} is set. Each view is compiled, built and
+ * has its head resources resolved on a small pool of threads, and the portlet completes initialization once every view
+ * has been prepared. The pool is shut down afterwards so that none of its threads outlive the portlet initialization.
+ * A view that fails to build is logged as a warning and otherwise ignored, leaving it to fail on its first request as
+ * usual.
+ */
+public class ViewWarmupListener implements SystemEventListener {
+
+    private static final Logger logger = Logger.getLogger(ViewWarmupListener.class.getName(), BridgeLogger.LOGGING_BUNDLE);
+
+    private static final int MAX_THREADS = 4;
+
+    @Override
+    public boolean isListenerForSource(Object source) {
+        return source instanceof BridgeConfig;
+    }
+
+    @Override
+    public void processEvent(SystemEvent event) throws AbortProcessingException {
+        BridgeConfig bridgeConfig = (BridgeConfig) event.getSource();
+
+        if (!bridgeConfig.isViewWarmupEnabled()) {
+            return;
+        }
+
+        Map<String, String> defaultViews = bridgeConfig.getDefaultViewMappings();
+        if (null == defaultViews || defaultViews.isEmpty()) {
+            return;
+        }
+
+        Set<String> viewIds = new LinkedHashSet<String>();
+        for (String viewId : defaultViews.values()) {
+            if (null != viewId) {
+                int queryStart = viewId.indexOf('?');
+                viewIds.add(queryStart >= 0 ? viewId.substring(0, queryStart) : viewId);
+            }
+        }
+        if (viewIds.isEmpty()) {
+            return;
+        }
+
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        Application application = facesContext.getApplication();
+        PortletContext portletContext = bridgeConfig.getPortletConfig().getPortletContext();
+        int threads = Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS), viewIds.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new WarmupThreadFactory());
+        List<String> prepared = new ArrayList<String>(viewIds.size());
+        try {
+            Map<String, Future<Boolean>> results = new LinkedHashMap<String, Future<Boolean>>(viewIds.size());
+            for (String viewId : viewIds) {
+                results.put(viewId, executor.submit(new ViewWarmup(application, portletContext, viewId)));
+            }
+
+            for (Map.Entry<String, Future<Boolean>> result : results.entrySet()) {
+                if (result.getValue().get()) {
+                    prepared.add(result.getKey());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // A view that fails to build is logged by its warm-up, so only virtual machine errors get here
+            throw (Error) e.getCause();
+        } finally {
+            executor.shutdown();
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Prepared views " + prepared + " for portlet " + bridgeConfig.getPortletConfig().getPortletName());
+        }
+    }
+
+    private static final class ViewWarmup implements Callable<Boolean> {
+
+        private final Application application;
+        private final PortletContext portletContext;
+        private final String viewId;
+
+        ViewWarmup(Application application, PortletContext portletContext, String viewId) {
+            this.application = application;
+            this.portletContext = portletContext;
+            this.viewId = viewId;
+        }
+
+        @Override
+        public Boolean call() {
+            FacesContext facesContext = new WarmupFacesContext(application, portletContext);
+            try {
+                ViewDeclarationLanguage vdl = application.getViewHandler().getViewDeclarationLanguage(facesContext, viewId);
+                if (null == vdl) {
+                    return Boolean.FALSE;
+                }
+
+                ViewMetadata metadata = vdl.getViewMetadata(facesContext, viewId);
+                if (null != metadata) {
+                    metadata.createMetadataView(facesContext);
+                }
+
+                UIViewRoot viewRoot = vdl.createView(facesContext, viewId);
+                if (null == viewRoot) {
+                    return Boolean.FALSE;
+                }
+                facesContext.setViewRoot(viewRoot);
+                vdl.buildView(facesContext, viewRoot);
+
+                ResourceHandler resourceHandler = application.getResourceHandler();
+                for (UIComponent resource : viewRoot.getComponentResources(facesContext, "head")) {
+                    Map<String, Object> attributes = resource.getAttributes();
+                    String name = (String) attributes.get("name");
+                    if (null != name) {
+                        resourceHandler.createResource(name, (String) attributes.get("library"));
+                    }
+                }
+                return Boolean.TRUE;
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Unable to prepare view " + viewId + " ahead of its first request", e);
+            } catch (LinkageError e) {
+                logger.log(Level.WARNING, "Unable to prepare view " + viewId + " ahead of its first request", e);
+            } finally {
+                facesContext.release();
+            }
+            return Boolean.FALSE;
+        }
+    }
+
+    private static final class WarmupThreadFactory implements ThreadFactory {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "portletbridge-view-warmup");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.faces.application.ViewHandler;
+import javax.faces.webapp.FacesServlet;
+import javax.portlet.PortletContext;
+import javax.portlet.faces.BridgeException;
+
+import org.jboss.portletbridge.PortletBridgeConstants;
+
+/**
+ * Immutable view of the web application configuration shared by every portlet of a {@link PortletContext}. It holds the
+ * <code>FacesServlet</code> mappings and error views read from <code>/WEB-INF/web.xml</code> along with the context
+ * init parameters the bridge reads during initialization, so they're only processed once per web application instead of
+ * once per portlet.
+ */
+public final class WebXmlModel {
+
+    public static final String ATTRIBUTE_NAME = WebXmlModel.class.getName();
+
+    private final List<String> facesServletMappings;
+    private final Map<Class<? extends Throwable>, String> errorViews;
+    private final String lifecycleId;
+    private final List<String> facesSuffixes;
+    private final Boolean preventSelfClosingScriptTag;
+    private final Boolean viewParamHandlingDisabled;
+    private final Boolean bridgeScopeEnabledOnAjaxRequest;
+    private final Boolean facesMessagesStoredOnAjaxRequest;
+    private final String sessionIdParameterName;
+
+    WebXmlModel(PortletContext portletContext, ServletBean facesServlet, Map<Class<? extends Throwable>, String> errorViews) {
+        // Check if we have what we need to proceed
+        if (null == facesServlet) {
+            throw new BridgeException("No Faces Servlet defined in web.xml");
+        }
+        if (null == facesServlet.getMappings()) {
+            throw new BridgeException("No Faces Servlet Mapping defined in web.xml");
+        }
+
+        this.facesServletMappings = Collections.unmodifiableList(new ArrayList<String>(facesServlet.getMappings()));
+        this.errorViews = Collections.unmodifiableMap(null != errorViews
+                ? new LinkedHashMap<Class<? extends Throwable>, String>(errorViews)
+                : new LinkedHashMap<Class<? extends Throwable>, String>());
+
+        String lifecycle = portletContext.getInitParameter(FacesServlet.LIFECYCLE_ID_ATTR);
+        this.lifecycleId = null != lifecycle && lifecycle.trim().length() != 0 ? lifecycle : null;
+
+        // Faces Suffixes. JSF 2.0 allows multiple
+        String suffixString = portletContext.getInitParameter(ViewHandler.DEFAULT_SUFFIX_PARAM_NAME);
+        if (null == suffixString) {
+            suffixString = ViewHandler.DEFAULT_SUFFIX;
+        }
+        this.facesSuffixes = Collections.unmodifiableList(Arrays.asList(suffixString.split(" ")));
+
+        this.preventSelfClosingScriptTag = getBoolean(portletContext,
+                PortletBridgeConstants.PREVENT_SELF_CLOSING_SCRIPT_TAG_PARAM);
+        this.viewParamHandlingDisabled = getBoolean(portletContext, PortletBridgeConstants.VIEW_PARAM_DISABLED);
+        this.bridgeScopeEnabledOnAjaxRequest = getBoolean(portletContext, PortletBridgeConstants.SCOPE_ENABLED_ON_AJAX);
+        this.facesMessagesStoredOnAjaxRequest = getBoolean(portletContext,
+                PortletBridgeConstants.FACES_MESSAGES_STORED_ON_AJAX);
+
+        String sessionIdParameter = portletContext.getInitParameter(PortletBridgeConstants.SESSION_ID_PARAMETER_NAME);
+        this.sessionIdParameterName = null != sessionIdParameter && sessionIdParameter.trim().length() > 0
+                ? sessionIdParameter : null;
+    }
+
+    /**
+     * Retrieve the model for the given {@link PortletContext}, processing <code>web.xml</code> if this is the first
+     * portlet of the web application to ask for it.
+     *
+     * @param portletContext the context of the web application.
+     * @return the shared model.
+     * @throws BridgeException if no <code>FacesServlet</code> is defined for the web application.
+     */
+    public static WebXmlModel getInstance(PortletContext portletContext) throws BridgeException {
+        WebXmlModel model = (WebXmlModel) portletContext.getAttribute(ATTRIBUTE_NAME);
+        if (null == model) {
+            synchronized (WebXmlModel.class) {
+                model = (WebXmlModel) portletContext.getAttribute(ATTRIBUTE_NAME);
+                if (null == model) {
+                    StartupReport.Timer timer = StartupReport.getInstance(portletContext).start(StartupReport.APPLICATION,
+                            "web.xml");
+                    BridgeConfigIndex index = BridgeConfigIndex.getInstance(portletContext);
+                    if (null != index && null != index.getFacesServletMappings()) {
+                        // Mappings and error pages read from web.xml at build time
+                        ServletBean facesServlet = new ServletBean();
+                        facesServlet.getMappings().addAll(index.getFacesServletMappings());
+                        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+                        if (null == classLoader) {
+                            classLoader = WebXmlModel.class.getClassLoader();
+                        }
+                        model = new WebXmlModel(portletContext, facesServlet, WebXmlProcessor.createErrorViews(
+                                index.getErrorPages(), index.getFacesServletMappings(), classLoader));
+                    } else {
+                        WebXmlProcessor webXmlProc = new WebXmlProcessor(portletContext);
+                        model = new WebXmlModel(portletContext, webXmlProc.getFacesServlet(), webXmlProc.getErrorViews());
+                    }
+                    portletContext.setAttribute(ATTRIBUTE_NAME, model);
+                    timer.stop();
+                }
+            }
+        }
+        return model;
+    }
+
+    private static Boolean getBoolean(PortletContext portletContext, String name) {
+        String value = portletContext.getInitParameter(name);
+        return null != value ? Boolean.valueOf(value) : null;
+    }
+
+    /**
+     * @return the unmodifiable <code>FacesServlet</code> URL mappings.
+     */
+    public List<String> getFacesServletMappings() {
+        return facesServletMappings;
+    }
+
+    /**
+     * @return the unmodifiable map between error class and corresponding JSF view id.
+     */
+    public Map<Class<? extends Throwable>, String> getErrorViews() {
+        return errorViews;
+    }
+
+    /**
+     * @return the lifecycle id set in <code>web.xml</code>, or null if not set.
+     */
+    public String getLifecycleId() {
+        return lifecycleId;
+    }
+
+    /**
+     * @return the unmodifiable Faces suffixes.
+     */
+    public List<String> getFacesSuffixes() {
+        return facesSuffixes;
+    }
+
+    /**
+     * @return the value of {@link PortletBridgeConstants#PREVENT_SELF_CLOSING_SCRIPT_TAG_PARAM}, or null if not set.
+     */
+    public Boolean getPreventSelfClosingScriptTag() {
+        return preventSelfClosingScriptTag;
+    }
+
+    /**
+     * @return the value of {@link PortletBridgeConstants#VIEW_PARAM_DISABLED}, or null if not set.
+     */
+    public Boolean getViewParamHandlingDisabled() {
+        return viewParamHandlingDisabled;
+    }
+
+    /**
+     * @return the value of {@link PortletBridgeConstants#SCOPE_ENABLED_ON_AJAX}, or null if not set.
+     */
+    public Boolean getBridgeScopeEnabledOnAjaxRequest() {
+        return bridgeScopeEnabledOnAjaxRequest;
+    }
+
+    /**
+     * @return the value of {@link PortletBridgeConstants#FACES_MESSAGES_STORED_ON_AJAX}, or null if not set.
+     */
+    public Boolean getFacesMessagesStoredOnAjaxRequest() {
+        return facesMessagesStoredOnAjaxRequest;
+    }
+
+    /**
+     * @return the value of {@link PortletBridgeConstants#SESSION_ID_PARAMETER_NAME}, or null if not set.
+     */
+    public String getSessionIdParameterName() {
+        return sessionIdParameterName;
+    }
+}
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -120,6 +121,11 @@ public final class WebXmlProcessor {
     }
 
     public void parse(InputStream webXml) {
+        parseDocument(webXml);
+        createErrorViews();
+    }
+
+    private void parseDocument(InputStream webXml) {
         try {
             SAXParser parser = saxFactory.newSAXParser();
             XMLReader reader = parser.getXMLReader();
@@ -132,36 +138,85 @@ public final class WebXmlProcessor {
             reader.setDTDHandler(webXmlHandler);
 
             reader.parse(new InputSource(webXml));
-
-            createErrorViews();
         } catch (Exception e) {
             throw new FacesException("XML parsing error", e);
         }
     }
 
+    /**
+     * Read the <code>FacesServlet</code> and error pages of a web.xml outside of a running application, leaving the
+     * state read from the application's web.xml untouched.
+     *
+     * @param webXml
+     *            the web.xml content
+     * @param pages
+     *            receives the error page locations keyed by exception class name
+     * @return the <code>FacesServlet</code>, or null if none is defined
+     */
+    static synchronized ServletBean parseDetached(InputStream webXml, Map<String, String> pages) {
+        List<ServletBean> appServlets = servlets;
+        Map<String, ArrayList<String>> appUrlMappings = urlMappings;
+        Map<String, String> appErrorPages = errorPages;
+        ServletBean appFacesServlet = facesServlet;
+        try {
+            servlets = new ArrayList<ServletBean>();
+            urlMappings = new HashMap<String, ArrayList<String>>();
+            errorPages = new LinkedHashMap<String, String>();
+            facesServlet = null;
+
+            new WebXmlProcessor(null).parseDocument(webXml);
+            pages.putAll(errorPages);
+            return facesServlet;
+        } finally {
+            servlets = appServlets;
+            urlMappings = appUrlMappings;
+            errorPages = appErrorPages;
+            facesServlet = appFacesServlet;
+        }
+    }
+
     /**
      * Create map between error class and corresponding JSF view id. Map created from the {@link #errorPages}
      * string-based map.
      */
     protected void createErrorViews() {
-        errorViews = new LinkedHashMap<Class<? extends Throwable>, String>();
         ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 
         if (null == classLoader) {
             classLoader = this.getClass().getClassLoader();
         }
 
-        for (Entry<String, String> entry : errorPages.entrySet()) {
+        List<String> mappings = null != facesServlet ? facesServlet.getMappings() : Collections.<String>emptyList();
+        errorViews = createErrorViews(errorPages, mappings, classLoader);
+    }
+
+    /**
+     * Create map between error class and corresponding JSF view id.
+     *
+     * @param pages
+     *            error page locations keyed by exception class name
+     * @param mappings
+     *            the {@link FacesServlet} mappings
+     * @param classLoader
+     *            used to load the exception classes
+     * @return the error views, ignoring exception classes that can't be loaded
+     */
+    static Map<Class<? extends Throwable>, String> createErrorViews(Map<String, String> pages, List<String> mappings,
+            ClassLoader classLoader) {
+        Map<Class<? extends Throwable>, String> views = new LinkedHashMap<Class<? extends Throwable>, String>();
+
+        for (Entry<String, String> entry : pages.entrySet()) {
             try {
                 Class<? extends Throwable> clazz = classLoader.loadClass(entry.getKey()).asSubclass(Throwable.class);
-                String viewId = getViewIdFromLocation(entry.getValue());
+                String viewId = getViewIdFromLocation(mappings, entry.getValue());
                 if (null != viewId) {
-                    errorViews.put(clazz, viewId);
+                    views.put(clazz, viewId);
                 }
             } catch (ClassNotFoundException e) {
                 // Configuration error, just ignore.
             }
         }
+        return views;
     }
 
     /**
@@ -172,8 +227,12 @@ public final class WebXmlProcessor {
      * @return view id if this location is mapped to the {@link FacesServlet} othervise null.
      */
     protected String getViewIdFromLocation(String location) {
+        return getViewIdFromLocation(facesServlet.getMappings(), location);
+    }
+
+    static String getViewIdFromLocation(List<String> mappings, String location) {
         String viewId = null;
-        for (String mapping : facesServlet.getMappings()) {
+        for (String mapping : mappings) {
             if (mapping.startsWith("*")) {
                 // Suffix mapping.
                 String suffix = mapping.substring(1);
@@ -60,13 +60,13 @@ import java.util.Map;
 
 import javax.faces.FactoryFinder;
 import javax.faces.context.ExternalContext;
+import javax.faces.context.FacesContext;
 import javax.faces.context.Flash;
 import javax.faces.context.FlashFactory;
 import javax.portlet.PortletResponse;
 import javax.servlet.http.Cookie;
 
 import org.jboss.portletbridge.bridge.context.BridgeContext;
-import org.jboss.portletbridge.context.flash.FlashHttpServletAdapter;
 import org.jboss.portletbridge.context.flash.PortletFlash;
 import org.jboss.portletbridge.context.map.ContextAttributesMap;
 import org.jboss.portletbridge.context.map.EnumerationIterator;
@@ -113,8 +113,6 @@ public abstract class AbstractExternalContext extends ExternalContext {
 
     private Object context;
 
-    protected boolean overrideHttpResponseForFlash = false;
-
     private Flash flash = null;
 
     public static final String CONVERSATION_ID_PARAMETER = "conversationId";
@@ -206,7 +204,7 @@ public abstract class AbstractExternalContext extends ExternalContext {
     @Override
     public Map<String, String> getInitParameterMap() {
         if (this.initParameterMap == null) {
-            this.initParameterMap = new ContextAttributesMap<String>() {
+            this.initParameterMap = new ContextAttributesMap<String>(true) {
 
                 protected String getAttribute(String name) {
                     return getInitParameter(name);
@@ -248,12 +246,13 @@ public abstract class AbstractExternalContext extends ExternalContext {
         this.requestParameterMap = null;
         this.requestParameterValuesMap = null;
         this.sessionMap = null;
+        this.cookieMap = null;
         this.request = request;
     }
 
     public Map<String, Object> getRequestCookieMap() {
         if (null == this.cookieMap) {
-            this.cookieMap = new ContextAttributesMap<Object>() {
+            this.cookieMap = new ContextAttributesMap<Object>(true) {
 
                 @Override
                 protected Object getAttribute(String name) {
@@ -283,7 +282,7 @@ public abstract class AbstractExternalContext extends ExternalContext {
      */
     public Map<String, String> getRequestHeaderMap() {
         if (this.requestHeaderMap == null) {
-            this.requestHeaderMap = new ContextAttributesMap<String>() {
+            this.requestHeaderMap = new ContextAttributesMap<String>(true) {
 
                 protected Enumeration<String> getEnumeration() {
                     return getRequestHeaderNames();
@@ -308,7 +307,7 @@ public abstract class AbstractExternalContext extends ExternalContext {
     public Map<String, String[]> getRequestHeaderValuesMap() {
         //
         if (this.requestHeaderValues == null) {
-            this.requestHeaderValues = new ContextAttributesMap<String[]>() {
+            this.requestHeaderValues = new ContextAttributesMap<String[]>(true) {
 
                 protected Enumeration<String> getEnumeration() {
                     return getRequestHeaderNames();
@@ -363,7 +362,7 @@ public abstract class AbstractExternalContext extends ExternalContext {
     public Map<String, String> getRequestParameterMap() {
         //
         if (this.requestParameterMap == null) {
-            this.requestParameterMap = new ContextAttributesMap<String>() {
+            this.requestParameterMap = new ContextAttributesMap<String>(true) {
 
                 protected Enumeration<String> getEnumeration() {
                     return enumerateRequestParameterNames();
@@ -383,6 +382,18 @@ public abstract class AbstractExternalContext extends ExternalContext {
 
     protected abstract String getRequestParameter(String name);
 
+    /**
+     * Discard the request parameter names kept by the parameter maps, after parameters were added to the request.
+     */
+    protected void invalidateRequestParameterNames() {
+        if (this.requestParameterMap instanceof ContextAttributesMap) {
+            ((ContextAttributesMap<String>) this.requestParameterMap).invalidateIndex();
+        }
+        if (this.requestParameterValuesMap instanceof ContextAttributesMap) {
+            ((ContextAttributesMap<String[]>) this.requestParameterValuesMap).invalidateIndex();
+        }
+    }
+
     protected abstract Enumeration<String> enumerateRequestParameterNames();
 
     /**
@@ -397,7 +408,7 @@ public abstract class AbstractExternalContext extends ExternalContext {
      */
     public Map<String, String[]> getRequestParameterValuesMap() {
         if (this.requestParameterValuesMap == null) {
-            this.requestParameterValuesMap = new ContextAttributesMap<String[]>() {
+            this.requestParameterValuesMap = new ContextAttributesMap<String[]>(true) {
 
                 protected Enumeration<String> getEnumeration() {
                     return enumerateRequestParameterNames();
@@ -426,17 +437,9 @@ public abstract class AbstractExternalContext extends ExternalContext {
     }
 
     public Object getResponse() {
-        if (isServletResponseRequiredForFlash()) {
-            return new FlashHttpServletAdapter((PortletResponse) response);
-        }
-
         return this.response;
     }
 
-    protected boolean isServletResponseRequiredForFlash() {
-        return (!BridgeContext.getCurrentInstance().getBridgeConfig().isJsf22Runtime() && !overrideHttpResponseForFlash && PortletFlash.needHttpResponse.get());
-    }
-
     /**
      * @see javax.faces.context.ExternalContext#getSessionMap()
      */
@@ -513,21 +516,15 @@ public abstract class AbstractExternalContext extends ExternalContext {
                 FlashFactory ff = (FlashFactory) FactoryFinder.getFactory(FactoryFinder.FLASH_FACTORY);
                 flash = ff.getFlash(true);
             } else {
-                flash = PortletFlash.getFlash(this, true, null);
+                flash = PortletFlash.getFlash(FacesContext.getCurrentInstance());
             }
         }
         return flash;
     }
 
     protected PortletFlash getPortletFlash() {
-        if (null == flash) {
-            getFlash();
-        }
-
-        if (flash instanceof PortletFlash) {
-            return (PortletFlash) flash;
-        }
-        return null;
+        // Also when the flash factory is decorated, the flash it wraps is the one of the FacesContext
+        return PortletFlash.getFlash(FacesContext.getCurrentInstance());
     }
 
     public String getFallbackMimeType(String file) {
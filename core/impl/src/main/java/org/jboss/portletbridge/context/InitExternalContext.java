@@ -306,6 +306,14 @@ public class InitExternalContext extends AbstractExternalContext {
         throw new UnsupportedOperationException("this method is not supported at initialization phase");
     }
 
+    /* (non-Javadoc)
+     * @see javax.faces.context.ExternalContext#getMimeType(java.lang.String)
+     */
+    @Override
+    public String getMimeType(String file) {
+        return getContext().getMimeType(file);
+    }
+
     /* (non-Javadoc)
      * @see javax.faces.context.ExternalContext#getResource(java.lang.String)
      */
@@ -73,6 +73,19 @@ public class InitFacesContext extends FacesContext {
         viewRoot.setLocale(Locale.getDefault());
     }
 
+    /**
+     * @param application
+     * @param externalContext
+     */
+    protected InitFacesContext(Application application, ExternalContext externalContext) {
+        originalContext = FacesContext.getCurrentInstance();
+        setCurrentInstance(this);
+        this.application = application;
+        this.externalContext = externalContext;
+        viewRoot = new UIViewRoot();
+        viewRoot.setLocale(Locale.getDefault());
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -24,6 +24,7 @@ package org.jboss.portletbridge.context;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,6 +43,7 @@ import javax.portlet.WindowStateException;
 import javax.portlet.faces.Bridge;
 
 import org.jboss.portletbridge.PortletBridgeConstants;
+import org.jboss.portletbridge.bridge.logger.BridgeLogger;
 
 /**
  * @author asmirnov
@@ -50,6 +52,10 @@ public abstract class MimeExternalContextImpl extends PortletExternalContextImpl
 
     private static final String[] STRINGS = new String[] {};
 
+    private static final String TEMPLATE_PROBE_VALUE = "probe /?&=%";
+
+    private Map<String, ResourceUrlTemplate> resourceUrlTemplates;
+
     /**
      * @param context
      * @param request
@@ -101,6 +107,68 @@ public abstract class MimeExternalContextImpl extends PortletExternalContextImpl
         return encodePortletUrl(resourceURL, escape);
     }
 
+    @Override
+    protected String createJsfResourceUrl(PortalActionURL portalUrl, boolean escape) {
+        if (!bridgeContext.getBridgeConfig().isJsfResourceUrlTemplateEnabled()) {
+            return createResourceUrl(portalUrl, escape);
+        }
+
+        portalUrl.removeParameter(Bridge.PORTLET_MODE_PARAMETER);
+        portalUrl.removeParameter(Bridge.PORTLET_WINDOWSTATE_PARAMETER);
+        String path = portalUrl.getPath();
+        Map<String, String[]> parameters = portalUrl.getParameters();
+        String key = null;
+        if ((null == path || path.length() == 0) && !parameters.containsKey(Bridge.PORTLET_SECURE_PARAMETER)) {
+            key = ResourceUrlTemplate.getKey(parameters, escape);
+        }
+        if (null == key) {
+            return createResourceUrl(portalUrl, escape);
+        }
+
+        if (null == resourceUrlTemplates) {
+            resourceUrlTemplates = new HashMap<String, ResourceUrlTemplate>();
+        }
+        ResourceUrlTemplate template = resourceUrlTemplates.get(key);
+        if (null == template && !resourceUrlTemplates.containsKey(key)) {
+            template = compileResourceUrlTemplate(parameters.keySet().toArray(STRINGS), escape);
+            // A null entry records that the container URL can't be templated
+            resourceUrlTemplates.put(key, template);
+        }
+
+        if (null == template) {
+            return createResourceUrl(portalUrl, escape);
+        }
+        return template.expand(parameters);
+    }
+
+    /**
+     * Creates a single container <code>ResourceURL</code> with placeholder values for the given parameters and compiles it
+     * into a template. The template is only returned if it produces the same URL as the container for a probe value that
+     * requires encoding, to guard against portals that don't encode parameters in the query string.
+     */
+    protected ResourceUrlTemplate compileResourceUrlTemplate(String[] parameterNames, boolean escape) {
+        ResourceURL resourceURL = getMimeResponse().createResourceURL();
+        for (int i = 0; i < parameterNames.length; i++) {
+            resourceURL.setParameter(parameterNames[i], ResourceUrlTemplate.getPlaceholder(i));
+        }
+        ResourceUrlTemplate template = ResourceUrlTemplate.compile(parameterNames, encodePortletUrl(resourceURL, escape));
+
+        if (null != template) {
+            Map<String, String[]> probe = new HashMap<String, String[]>();
+            ResourceURL probeURL = getMimeResponse().createResourceURL();
+            for (String name : parameterNames) {
+                probe.put(name, new String[] { TEMPLATE_PROBE_VALUE });
+                probeURL.setParameter(name, TEMPLATE_PROBE_VALUE);
+            }
+            if (!template.expand(probe).equals(encodePortletUrl(probeURL, escape))) {
+                getLogger().log(BridgeLogger.Level.INFO,
+                        "Portal ResourceURL encoding doesn't support JSF resource URL templates, disabled for this request");
+                template = null;
+            }
+        }
+        return template;
+    }
+
     @Override
     protected String createRenderUrl(PortalActionURL portalUrl, boolean escape, Map<String, List<String>> parameters) {
         MimeResponse renderResponse = getMimeResponse();
@@ -210,18 +278,7 @@ public abstract class MimeExternalContextImpl extends PortletExternalContextImpl
 
     @Override
     public boolean isResponseCommitted() {
-        boolean committed;
-
-        // Override ServletResponse for Flash to ensure getMimeResponse() does throw ClassCastException
-        if (isServletResponseRequiredForFlash()) {
-            overrideHttpResponseForFlash = true;
-            committed = getMimeResponse().isCommitted();
-            overrideHttpResponseForFlash = false;
-        } else {
-            committed = getMimeResponse().isCommitted();
-        }
-
-        return committed;
+        return getMimeResponse().isCommitted();
     }
 
     @Override
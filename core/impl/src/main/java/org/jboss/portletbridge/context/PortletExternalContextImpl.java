@@ -61,6 +61,7 @@ import javax.portlet.faces.Bridge;
 import javax.portlet.faces.BridgeDefaultViewNotSpecifiedException;
 import javax.servlet.http.Cookie;
 
+import org.jboss.portletbridge.bridge.config.FacesServletMappingMatcher;
 import org.jboss.portletbridge.bridge.context.BridgeContext;
 import org.jboss.portletbridge.bridge.controller.BridgeController;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger;
@@ -480,7 +481,8 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
     }
 
     protected Object getSessionAttribute(String name, int scope) {
-        return getPortletRequest().getPortletSession(true).getAttribute(name, scope);
+        PortletSession session = getPortletRequest().getPortletSession(false);
+        return null != session ? session.getAttribute(name, scope) : null;
     }
 
     protected Enumeration<String> getSessionAttributeNames() {
@@ -519,7 +521,11 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
     }
 
     protected Enumeration<String> getSessionAttributeNames(int scope) {
-        return getPortletRequest().getPortletSession(true).getAttributeNames(scope);
+        PortletSession session = getPortletRequest().getPortletSession(false);
+        if (null == session) {
+            return Collections.enumeration(Collections.<String>emptyList());
+        }
+        return session.getAttributeNames(scope);
     }
 
     protected void removeContextAttribute(String name) {
@@ -535,7 +541,10 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
     }
 
     protected void removeSessionAttribute(String name, int scope) {
-        getPortletRequest().getPortletSession(true).removeAttribute(name, scope);
+        PortletSession session = getPortletRequest().getPortletSession(false);
+        if (null != session) {
+            session.removeAttribute(name, scope);
+        }
     }
 
     protected void setContextAttribute(String name, Object value) {
@@ -551,7 +560,11 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
     }
 
     protected void setSessionAttribute(String name, Object value, int scope) {
-        getPortletRequest().getPortletSession(true).setAttribute(name, value, scope);
+        if (null == value) {
+            removeSessionAttribute(name, scope);
+        } else {
+            getPortletRequest().getPortletSession(true).setAttribute(name, value, scope);
+        }
     }
 
     /**
@@ -650,7 +663,7 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
 
         viewId = newViewId;
 
-        calculateServletPath(viewId, bridgeContext.getBridgeConfig().getFacesServletMappings());
+        calculateServletPath(viewId, getMappingMatcher());
     }
 
     protected String processViewParameters(String newViewId) {
@@ -661,6 +674,7 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
                 for (Entry<String, String[]> entry : params.entrySet()) {
                     extraRequestParameters.put(entry.getKey(), entry.getValue());
                 }
+                invalidateRequestParameterNames();
             }
         } catch (MalformedURLException e) {
             // TODO Auto-generated catch block
@@ -668,31 +682,21 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
         return newViewId;
     }
 
-    protected void calculateServletPath(String viewId, List<String> servletMappings) {
-        if (null != servletMappings && servletMappings.size() > 0) {
-            String mapping = servletMappings.get(0);
-            if (mapping.startsWith("*")) {
-                // Suffix Mapping
-                servletMappingSuffix = mapping.substring(mapping.indexOf('.'));
-                viewId = viewId.substring(0, viewId.lastIndexOf('.')) + servletMappingSuffix;
-                servletPath = viewId;
-                pathInfo = null;
-
-                getPortletRequest().setAttribute(SERVLET_PATH_ATTRIBUTE, servletPath);
-                getPortletRequest().setAttribute("com.sun.faces.INVOCATION_PATH", servletMappingSuffix);
-            } else if (mapping.endsWith("*")) {
-                // Prefix Mapping
-                mapping = mapping.substring(0, mapping.length() - 1);
-                if (mapping.endsWith("/")) {
-                    mapping = mapping.substring(0, mapping.length() - 1);
-                }
-                servletMappingPrefix = servletPath = mapping;
-                pathInfo = viewId;
-                getPortletRequest().setAttribute("com.sun.faces.INVOCATION_PATH", servletMappingSuffix);
-            } else {
-                servletPath = null;
-                pathInfo = viewId;
-            }
+    protected void calculateServletPath(String viewId, FacesServletMappingMatcher mappingMatcher) {
+        if (null != mappingMatcher.getDefaultExtension()) {
+            // Suffix Mapping
+            servletMappingSuffix = mappingMatcher.getDefaultExtension();
+            viewId = viewId.substring(0, viewId.lastIndexOf('.')) + servletMappingSuffix;
+            servletPath = viewId;
+            pathInfo = null;
+
+            getPortletRequest().setAttribute(SERVLET_PATH_ATTRIBUTE, servletPath);
+            getPortletRequest().setAttribute("com.sun.faces.INVOCATION_PATH", servletMappingSuffix);
+        } else if (null != mappingMatcher.getDefaultPrefix()) {
+            // Prefix Mapping
+            servletMappingPrefix = servletPath = mappingMatcher.getDefaultPrefix();
+            pathInfo = viewId;
+            getPortletRequest().setAttribute("com.sun.faces.INVOCATION_PATH", servletMappingSuffix);
         } else {
             servletPath = null;
             pathInfo = viewId;
@@ -1054,7 +1058,7 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
                         portalUrl.setPath('/' + path);
                     }
                 }
-                portalUrl.setPath(URI.create(portalUrl.getPath()).normalize().getPath());
+                portalUrl.setPath(normalizePath(portalUrl.getPath()));
 
                 String facesViewId = getViewIdFromUrl(portalUrl);
                 if (null != portalUrl.getParameter(Bridge.IN_PROTOCOL_RESOURCE_LINK)) {
@@ -1063,7 +1067,7 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
                 } else if (portalUrl.getPath().contains(ResourceHandler.RESOURCE_IDENTIFIER)) {
                     // It's a JSF Resource
                     setupJSFResourceParameters(portalUrl);
-                    url = createResourceUrl(portalUrl, escapedUrl);
+                    url = createJsfResourceUrl(portalUrl, escapedUrl);
                 } else if (null != facesViewId) {
                     portalUrl.setParameter(Bridge.FACES_VIEW_ID_PARAMETER, facesViewId);
                     url = createResourceUrl(portalUrl, escapedUrl);
@@ -1088,17 +1092,7 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
                 resourceName = resourceName.substring(slash + 1);
             }
 
-            List<String> servletMappings = BridgeContext.getCurrentInstance().getBridgeConfig().getFacesServletMappings();
-            //TODO Handle this nicer? Maybe cache extension mappings on startup
-            for (String mapping : servletMappings) {
-                if (mapping.startsWith("*.")) {
-                    mapping = mapping.substring(1);
-                    if (resourceName.endsWith(mapping)) {
-                        resourceName = resourceName.substring(0, resourceName.indexOf(mapping));
-                        break;
-                    }
-                }
-            }
+            resourceName = getMappingMatcher().removeExtension(resourceName);
 
             portalUrl.setPath(null);
             portalUrl.addParameter(ResourceHandler.RESOURCE_IDENTIFIER.substring(1), resourceName);
@@ -1222,44 +1216,15 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
     }
 
     protected boolean isFacesPath(String pathInContext) {
-        List<String> mappings = bridgeContext.getBridgeConfig().getFacesServletMappings();
+        FacesServletMappingMatcher mappingMatcher = getMappingMatcher();
 
         if (null != getServletMappingPrefix()) {
-            boolean isPrefixMapped = pathInContext.startsWith(getServletMappingPrefix());
-
-            if (!isPrefixMapped) {
-                for(String mapping : mappings) {
-                    if (mapping.startsWith("*.")) {
-                        // Check for Suffix Mapping
-                        isPrefixMapped = pathInContext.endsWith(mapping.substring(2));
-                        if (isPrefixMapped) {
-                            return isPrefixMapped;
-                        }
-                    }
-                }
-            }
-
-            return isPrefixMapped;
+            // Check for Suffix Mapping when not Prefix Mapped
+            return pathInContext.startsWith(getServletMappingPrefix())
+                    || null != mappingMatcher.getMatchingExtension(pathInContext);
         } else if (null != getServletMappingSuffix()) {
-            boolean isSuffixMapped = pathInContext.endsWith(getServletMappingSuffix());
-
-            if (!isSuffixMapped) {
-                for(String mapping : mappings) {
-                    if (mapping.endsWith("*")) {
-                        // Check for Prefix Mapping
-                        mapping = mapping.substring(0, mapping.length() - 1);
-                        if (mapping.endsWith("/")) {
-                            mapping = mapping.substring(0, mapping.length() - 1);
-                        }
-                        isSuffixMapped = pathInContext.startsWith(mapping);
-                        if (isSuffixMapped) {
-                            return isSuffixMapped;
-                        }
-                    }
-                }
-            }
-
-            return isSuffixMapped;
+            // Check for Prefix Mapping when not Suffix Mapped
+            return pathInContext.endsWith(getServletMappingSuffix()) || null != mappingMatcher.getPrefix(pathInContext);
         }
 
         return true;
@@ -1300,8 +1265,46 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
                 inContextPath = '/' + path;
             }
         }
-        inContextPath = URI.create(inContextPath).normalize().getPath();
-        return inContextPath;
+        return normalizePath(inContextPath);
+    }
+
+    /**
+     * Normalizes the path, decoding any escaped characters. Paths that only contain unreserved characters and have no
+     * "." or ".." segments are already normalized, so they are returned without being parsed as a {@link URI}.
+     */
+    protected String normalizePath(String path) {
+        int length = path.length();
+        boolean segmentStart = true;
+        for (int i = 0; i < length; i++) {
+            char c = path.charAt(i);
+            if (c == '/') {
+                if (segmentStart && i > 0) {
+                    // Empty segment
+                    return URI.create(path).normalize().getPath();
+                }
+                segmentStart = true;
+                continue;
+            }
+            if (c == '.' && segmentStart) {
+                int next = i + 1;
+                if (next < length && path.charAt(next) == '.') {
+                    next++;
+                }
+                if (next == length || path.charAt(next) == '/') {
+                    // "." or ".." segment
+                    return URI.create(path).normalize().getPath();
+                }
+            } else if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '-'
+                    && c != '_' && c != '.' && c != '~') {
+                return URI.create(path).normalize().getPath();
+            }
+            segmentStart = false;
+        }
+        return path;
+    }
+
+    protected FacesServletMappingMatcher getMappingMatcher() {
+        return FacesServletMappingMatcher.getInstance(bridgeContext.getBridgeConfig());
     }
 
     protected String createPortletUrl(Scheme protocol, PortalActionURL portalUrl, boolean escape) {
@@ -1377,6 +1380,14 @@ public abstract class PortletExternalContextImpl extends AbstractExternalContext
         }
     }
 
+    /**
+     * Creates the URL for a JSF resource, once its parameters have been setup by
+     * {@link #setupJSFResourceParameters(PortalActionURL)}.
+     */
+    protected String createJsfResourceUrl(PortalActionURL portalUrl, boolean escape) {
+        return createResourceUrl(portalUrl, escape);
+    }
+
     protected BridgeLogger getLogger() {
         return bridgeContext.getBridgeConfig().getLogger();
     }
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.context;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Precompiled form of an encoded portlet <code>ResourceURL</code> whose parameter values are substituted at runtime. A
+ * template is compiled from a container URL that was created with placeholder values for each parameter, so producing a
+ * further URL with the same set of parameter names only requires a string concatenation instead of a container round trip.
+ */
+public class ResourceUrlTemplate {
+
+    private static final String PLACEHOLDER_PREFIX = "pbrTpl";
+    private static final String PLACEHOLDER_SUFFIX = "X";
+
+    private final String[] segments;
+    private final String[] parameters;
+    private final int length;
+
+    private ResourceUrlTemplate(String[] segments, String[] parameters) {
+        this.segments = segments;
+        this.parameters = parameters;
+        int len = 0;
+        for (String segment : segments) {
+            len += segment.length();
+        }
+        this.length = len;
+    }
+
+    /**
+     * Returns the key under which a template for the given parameters is cached. Templates can only be used for parameters
+     * with exactly one value, so <code>null</code> is returned for any other parameter map.
+     *
+     * @param parameters URL parameters.
+     * @param escape whether the URL is XML escaped.
+     * @return the template key, or <code>null</code> if the parameters cannot be templated.
+     */
+    public static String getKey(Map<String, String[]> parameters, boolean escape) {
+        String[] names = parameters.keySet().toArray(new String[parameters.size()]);
+        Arrays.sort(names);
+        StringBuilder key = new StringBuilder(64);
+        key.append(escape);
+        for (String name : names) {
+            String[] values = parameters.get(name);
+            if (null == values || values.length != 1 || null == values[0]) {
+                return null;
+            }
+            key.append('&').append(name);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the placeholder value that must be set for the parameter at the given index before the container URL is
+     * passed to {@link #compile(String[], String)}.
+     */
+    public static String getPlaceholder(int index) {
+        return PLACEHOLDER_PREFIX + index + PLACEHOLDER_SUFFIX;
+    }
+
+    /**
+     * Compiles an encoded container URL into a template.
+     *
+     * @param parameterNames names of the parameters, in the order their placeholders were assigned.
+     * @param encodedUrl container URL with placeholder values set.
+     * @return the template, or <code>null</code> if a placeholder is missing or not unique in the encoded URL.
+     */
+    public static ResourceUrlTemplate compile(String[] parameterNames, String encodedUrl) {
+        int count = parameterNames.length;
+        int[] positions = new int[count];
+        for (int i = 0; i < count; i++) {
+            String placeholder = getPlaceholder(i);
+            int pos = encodedUrl.indexOf(placeholder);
+            if (pos < 0 || encodedUrl.indexOf(placeholder, pos + placeholder.length()) >= 0) {
+                return null;
+            }
+            positions[i] = pos;
+        }
+
+        // Order the parameters by where the container wrote them
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        final int[] sortPositions = positions;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer o1, Integer o2) {
+                return sortPositions[o1] - sortPositions[o2];
+            }
+        });
+
+        String[] segments = new String[count + 1];
+        String[] parameters = new String[count];
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int index = order[i];
+            segments[i] = encodedUrl.substring(start, positions[index]);
+            parameters[i] = parameterNames[index];
+            start = positions[index] + getPlaceholder(index).length();
+        }
+        segments[count] = encodedUrl.substring(start);
+        return new ResourceUrlTemplate(segments, parameters);
+    }
+
+    /**
+     * Produces an encoded URL by substituting the URL encoded parameter values into the template.
+     *
+     * @param parameterValues values for all parameters the template was compiled with.
+     * @return the encoded URL.
+     */
+    public String expand(Map<String, String[]> parameterValues) {
+        StringBuilder url = new StringBuilder(length + 16 * parameters.length);
+        for (int i = 0; i < parameters.length; i++) {
+            url.append(segments[i]);
+            url.append(encode(parameterValues.get(parameters[i])[0]));
+        }
+        url.append(segments[parameters.length]);
+        return url.toString();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return URLEncoder.encode(value);
+        }
+    }
+}
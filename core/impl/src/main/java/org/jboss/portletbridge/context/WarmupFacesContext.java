@@ -0,0 +1,184 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.context;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.faces.application.Application;
+import javax.faces.event.PhaseId;
+import javax.portlet.PortletContext;
+
+/**
+ * {@link InitFacesContext} used to prepare views outside of a request. Request attributes and Faces context attributes
+ * are held in memory, and the request has no parameters, so views can be compiled and built the way they are for an
+ * initial render.
+ */
+public class WarmupFacesContext extends InitFacesContext {
+
+    private final Map<Object, Object> attributes = new HashMap<Object, Object>();
+
+    private PhaseId currentPhaseId = PhaseId.RENDER_RESPONSE;
+
+    public WarmupFacesContext(Application application, PortletContext portletContext) {
+        super(application, new WarmupExternalContext(portletContext));
+    }
+
+    @Override
+    public Map<Object, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public PhaseId getCurrentPhaseId() {
+        return currentPhaseId;
+    }
+
+    @Override
+    public void setCurrentPhaseId(PhaseId currentPhaseId) {
+        this.currentPhaseId = currentPhaseId;
+    }
+
+    @Override
+    public boolean isPostback() {
+        return false;
+    }
+
+    @Override
+    public void release() {
+        attributes.clear();
+        super.release();
+    }
+
+    private static final class WarmupExternalContext extends InitExternalContext {
+
+        private final Map<String, Object> requestAttributes = new HashMap<String, Object>();
+
+        WarmupExternalContext(PortletContext context) {
+            super(context);
+        }
+
+        @Override
+        protected Object getRequestAttribute(String name) {
+            return requestAttributes.get(name);
+        }
+
+        @Override
+        protected Enumeration<String> getRequestAttributeNames() {
+            return Collections.enumeration(requestAttributes.keySet());
+        }
+
+        @Override
+        protected void setRequestAttribute(String name, Object value) {
+            requestAttributes.put(name, value);
+        }
+
+        @Override
+        protected void removeRequestAttribute(String name) {
+            requestAttributes.remove(name);
+        }
+
+        @Override
+        protected String getRequestParameter(String name) {
+            return null;
+        }
+
+        @Override
+        protected String[] getRequestParameterValues(String name) {
+            return null;
+        }
+
+        @Override
+        protected Enumeration<String> enumerateRequestParameterNames() {
+            return Collections.enumeration(Collections.<String>emptyList());
+        }
+
+        @Override
+        protected String getRequestHeader(String name) {
+            return null;
+        }
+
+        @Override
+        protected Enumeration<String> getRequestHeaderNames() {
+            return Collections.enumeration(Collections.<String>emptyList());
+        }
+
+        @Override
+        protected String[] getRequestHeaderValues(String name) {
+            return null;
+        }
+
+        @Override
+        public String getRequestContextPath() {
+            return "";
+        }
+
+        @Override
+        public String getRequestPathInfo() {
+            return null;
+        }
+
+        @Override
+        public String getRequestServletPath() {
+            return null;
+        }
+
+        @Override
+        public Locale getRequestLocale() {
+            return Locale.getDefault();
+        }
+
+        @Override
+        public Iterator<Locale> getRequestLocales() {
+            return Collections.singletonList(Locale.getDefault()).iterator();
+        }
+
+        @Override
+        public String getRequestCharacterEncoding() {
+            return null;
+        }
+
+        @Override
+        public String getRequestContentType() {
+            return null;
+        }
+
+        @Override
+        public String getResponseCharacterEncoding() {
+            return null;
+        }
+
+        @Override
+        public String getResponseContentType() {
+            return null;
+        }
+
+        @Override
+        public Object getSession(boolean create) {
+            return null;
+        }
+    }
+}
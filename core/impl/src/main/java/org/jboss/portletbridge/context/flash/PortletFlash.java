@@ -21,106 +21,337 @@
  */
 package org.jboss.portletbridge.context.flash;
 
-import com.sun.faces.context.flash.ELFlash;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import javax.faces.context.ExternalContext;
+import javax.faces.application.FacesMessage;
 import javax.faces.context.FacesContext;
 import javax.faces.context.Flash;
-import javax.faces.event.PhaseId;
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletSession;
 import javax.portlet.faces.Bridge;
-import javax.portlet.faces.BridgeUtil;
-import java.lang.reflect.Method;
-import java.util.Map;
 
 /**
+ * {@link Flash} kept in the portlet session of the window instead of a cookie. There is one instance per
+ * {@link FacesContext}, and it reads the session only when the flash is used.
+ * <p>
+ * Values put during an action or event are available to the requests that follow it, up to and including the next
+ * render or resource request, which consumes them. Nothing is written to the session unless a value is put, kept or a
+ * message is kept.
+ * </p>
+ *
  * @author asmirnov, <a href="http://community.jboss.org/people/kenfinni">Ken Finnigan</a>
  */
-public class PortletFlash extends PortletFlashWrapper {
+public class PortletFlash extends Flash {
 
     static final String FLASH_ATTRIBUTE_NAME = "pbrf";
 
-    public static ThreadLocal<Boolean> needHttpResponse = new ThreadLocal<Boolean>() {
-        @Override
-        protected Boolean initialValue() {
-            return Boolean.FALSE;
+    private static final String SESSION_ATTRIBUTE_NAME = "org.jboss.portletbridge.flash";
+
+    private static final Object KEEP_FLAG = getKeepFlag();
+
+    private final PortletRequest request;
+    private final boolean consuming;
+    private FlashState previous;
+    private Map<String, Object> current;
+    private boolean currentCopied;
+    private Map<String, Object> next;
+    private boolean keepMessages;
+    private boolean redirect;
+    private boolean messagesRestored;
+    private boolean saved;
+
+    PortletFlash(PortletRequest request, Bridge.PortletPhase phase) {
+        this.request = request;
+        this.consuming = Bridge.PortletPhase.RENDER_PHASE == phase || Bridge.PortletPhase.RESOURCE_PHASE == phase;
+    }
+
+    /**
+     * Returns the flash of the current request, creating it if needed. The flash is always returned, even for
+     * <code>create</code> of <code>false</code>, as it holds no state until it is used.
+     */
+    public static PortletFlash getFlash(FacesContext facesContext) {
+        Map<Object, Object> attributes = facesContext.getAttributes();
+        PortletFlash flash = (PortletFlash) attributes.get(FLASH_ATTRIBUTE_NAME);
+        if (null == flash) {
+            PortletRequest portletRequest = (PortletRequest) facesContext.getExternalContext().getRequest();
+            flash = new PortletFlash(portletRequest,
+                    (Bridge.PortletPhase) portletRequest.getAttribute(Bridge.PORTLET_LIFECYCLE_PHASE));
+            attributes.put(FLASH_ATTRIBUTE_NAME, flash);
+        }
+        return flash;
+    }
+
+    /**
+     * Saves the flash of the current request, if it was used, before the {@link FacesContext} is released.
+     */
+    public static void release(FacesContext facesContext) {
+        PortletFlash flash = (PortletFlash) facesContext.getAttributes().get(FLASH_ATTRIBUTE_NAME);
+        if (null != flash) {
+            flash.doLastPhaseActions(facesContext, false);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object getKeepFlag() {
+        // Mojarra's FlashELResolver marks #{flash.keep.name} with this FacesContext attribute before reading name
+        try {
+            Class constants = Class.forName("com.sun.faces.context.flash.ELFlash$CONSTANTS", false,
+                    Flash.class.getClassLoader());
+            return Enum.valueOf(constants, "KeepFlagAttributeName");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private Map<String, Object> getCurrent() {
+        if (null == current) {
+            PortletSession session = request.getPortletSession(false);
+            if (null != session) {
+                previous = (FlashState) session.getAttribute(SESSION_ATTRIBUTE_NAME);
+            }
+            current = null != previous ? previous.values : Collections.<String, Object> emptyMap();
+        }
+        return current;
+    }
+
+    private Map<String, Object> getMutableCurrent() {
+        if (!currentCopied) {
+            current = new HashMap<String, Object>(getCurrent());
+            currentCopied = true;
+        }
+        return current;
+    }
+
+    private Map<String, Object> getValues() {
+        Map<String, Object> values = getCurrent();
+        if (null != next && !next.isEmpty()) {
+            values = new HashMap<String, Object>(values);
+            values.putAll(next);
         }
-    };
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public boolean isKeepMessages() {
+        return keepMessages;
+    }
+
+    @Override
+    public void setKeepMessages(boolean newValue) {
+        keepMessages = newValue;
+    }
+
+    @Override
+    public boolean isRedirect() {
+        return redirect;
+    }
+
+    @Override
+    public void setRedirect(boolean newValue) {
+        redirect = newValue;
+    }
 
-    private ELFlash wrappedFlash = null;
+    @Override
+    public void putNow(String key, Object value) {
+        FacesContext.getCurrentInstance().getExternalContext().getRequestMap().put(key, value);
+    }
 
-    private PortletFlash(ELFlash mojarraFlash) {
-        wrappedFlash = mojarraFlash;
+    @Override
+    public void keep(String key) {
+        Map<String, Object> values = getCurrent();
+        if (values.containsKey(key)) {
+            put(key, values.get(key));
+        }
     }
 
-    private static PortletFlash createFlash(ExternalContext externalContext, boolean create, ELFlash mojarraFlash) {
-        Map<String, Object> appMap = externalContext.getApplicationMap();
-        PortletFlash flash = (PortletFlash) appMap.get(FLASH_ATTRIBUTE_NAME);
-        if (null == flash && create) {
-            synchronized (externalContext.getContext()) {
-                if (null == (flash = (PortletFlash) appMap.get(FLASH_ATTRIBUTE_NAME))) {
-                    flash = new PortletFlash(mojarraFlash);
-                    appMap.put(FLASH_ATTRIBUTE_NAME, flash);
+    @Override
+    public void doPrePhaseActions(FacesContext ctx) {
+        if (consuming && !messagesRestored) {
+            messagesRestored = true;
+            getCurrent();
+            if (null != previous && null != previous.messages) {
+                for (int i = 0; i < previous.messages.size(); i++) {
+                    ctx.addMessage(previous.clientIds.get(i), previous.messages.get(i));
                 }
             }
         }
-        return flash;
     }
 
-    public static PortletFlash getFlash(ExternalContext externalContext, boolean create, ELFlash mojarraFlash) {
-        if (null == mojarraFlash) {
-            try {
-                Method getFlashMethod = ELFlash.class.getMethod("getFlash", ExternalContext.class, Boolean.TYPE);
-                Object obj = getFlashMethod.invoke(null, externalContext, create);
-                if (obj instanceof ELFlash) {
-                    mojarraFlash = (ELFlash) obj;
+    @Override
+    public void doPostPhaseActions(FacesContext ctx) {
+        // The flash is saved once, when the request completes
+    }
+
+    /**
+     * Saves the values and kept messages of this request to the session, or removes the entry that a render or
+     * resource request consumed. Only the first call for a request has any effect.
+     */
+    public void doLastPhaseActions(FacesContext context, boolean isRedirect) {
+        if (saved) {
+            return;
+        }
+        saved = true;
+
+        boolean changed = consuming || currentCopied;
+        Map<String, Object> values = null;
+        if (!consuming) {
+            // Actions and events hand the flash they received on to the requests that follow them
+            Map<String, Object> carried = getCurrent();
+            if (!carried.isEmpty()) {
+                values = new HashMap<String, Object>(carried);
+            }
+        }
+        if (null != next && !next.isEmpty()) {
+            changed = true;
+            if (null == values) {
+                values = next;
+            } else {
+                values.putAll(next);
+            }
+        }
+
+        List<String> clientIds = null;
+        List<FacesMessage> messages = null;
+        if (keepMessages) {
+            Iterator<String> ids = context.getClientIdsWithMessages();
+            while (ids.hasNext()) {
+                String clientId = ids.next();
+                Iterator<FacesMessage> clientMessages = context.getMessages(clientId);
+                while (clientMessages.hasNext()) {
+                    if (null == messages) {
+                        clientIds = new ArrayList<String>();
+                        messages = new ArrayList<FacesMessage>();
+                    }
+                    clientIds.add(clientId);
+                    messages.add(clientMessages.next());
                 }
             }
-            catch (Exception e) {
-                //TODO
+            changed |= null != messages;
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        PortletSession session = request.getPortletSession(false);
+        if (null == values && null == messages) {
+            if (null != session && null != session.getAttribute(SESSION_ATTRIBUTE_NAME)) {
+                session.removeAttribute(SESSION_ATTRIBUTE_NAME);
+            }
+        } else {
+            if (null == session) {
+                session = request.getPortletSession(true);
             }
+            session.setAttribute(SESSION_ATTRIBUTE_NAME, new FlashState(values, clientIds, messages));
         }
+    }
 
-        return createFlash(externalContext, create, mojarraFlash);
+    @Override
+    public void clear() {
+        next = null;
+        current = new HashMap<String, Object>();
+        currentCopied = true;
     }
 
     @Override
-    public void doPrePhaseActions(FacesContext ctx) {
-        PhaseId currentPhase = ctx.getCurrentPhaseId();
-        boolean resetPhase = false;
+    public boolean containsKey(Object key) {
+        return (null != next && next.containsKey(key)) || getCurrent().containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return getValues().containsValue(value);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return getValues().entrySet();
+    }
 
-        if (Bridge.PortletPhase.RENDER_PHASE == BridgeUtil.getPortletRequestPhase()
-                && currentPhase.equals(PhaseId.RENDER_RESPONSE)) {
-            // Need to trick ELFlash into thinking it's in the Restore View Phase otherwise the Previous Flash Manager
-            // will not be retrieved from the Cookie
-            ctx.setCurrentPhaseId(PhaseId.RESTORE_VIEW);
-            resetPhase = true;
+    @Override
+    public Object get(Object key) {
+        if (null != KEEP_FLAG) {
+            FacesContext facesContext = FacesContext.getCurrentInstance();
+            if (null != facesContext && null != facesContext.getAttributes().remove(KEEP_FLAG)) {
+                keep((String) key);
+            }
+        }
+        if (null != next && next.containsKey(key)) {
+            return next.get(key);
         }
+        return getCurrent().get(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (null == next || next.isEmpty()) && getCurrent().isEmpty();
+    }
 
-        wrappedFlash.doPrePhaseActions(ctx);
+    @Override
+    public Set<String> keySet() {
+        return getValues().keySet();
+    }
 
-        if (resetPhase) {
-            ctx.setCurrentPhaseId(PhaseId.RENDER_RESPONSE);
+    @Override
+    public Object put(String key, Object value) {
+        if (null == next) {
+            next = new HashMap<String, Object>();
         }
+        return next.put(key, value);
     }
 
     @Override
-    public Flash getWrapped() {
-        return wrappedFlash;
+    public void putAll(Map<? extends String, ? extends Object> m) {
+        for (Map.Entry<? extends String, ? extends Object> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
     }
 
     @Override
-    public void doPostPhaseActions(FacesContext ctx) {
-        if (Bridge.PortletPhase.RENDER_PHASE == BridgeUtil.getPortletRequestPhase()) {
-            needHttpResponse.set(Boolean.TRUE);
-            wrappedFlash.doLastPhaseActions(ctx, false);
-            needHttpResponse.set(Boolean.FALSE);
+    public Object remove(Object key) {
+        Object removed = null != next ? next.remove(key) : null;
+        if (getCurrent().containsKey(key)) {
+            Object carried = getMutableCurrent().remove(key);
+            if (null == removed) {
+                removed = carried;
+            }
         }
+        return removed;
     }
 
-    public void doLastPhaseActions(FacesContext context, boolean isRedirect) {
-        needHttpResponse.set(Boolean.TRUE);
-        wrappedFlash.doLastPhaseActions(context, isRedirect);
-        needHttpResponse.set(Boolean.FALSE);
+    @Override
+    public int size() {
+        return getValues().size();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return getValues().values();
     }
 
+    /**
+     * Session entry of a portlet window's flash, with kept messages as parallel lists of client id and message.
+     */
+    private static final class FlashState implements Serializable {
+
+        private static final long serialVersionUID = -3407291815387650187L;
+
+        private final Map<String, Object> values;
+        private final List<String> clientIds;
+        private final List<FacesMessage> messages;
+
+        FlashState(Map<String, Object> values, List<String> clientIds, List<FacesMessage> messages) {
+            this.values = null != values ? values : Collections.<String, Object> emptyMap();
+            this.clientIds = clientIds;
+            this.messages = messages;
+        }
+    }
 }
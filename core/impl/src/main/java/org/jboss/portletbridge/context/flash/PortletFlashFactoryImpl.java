@@ -21,10 +21,6 @@
  */
 package org.jboss.portletbridge.context.flash;
 
-import com.sun.faces.context.flash.ELFlash;
-import com.sun.faces.context.flash.FlashFactoryImpl;
-
-import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
 import javax.faces.context.Flash;
 import javax.faces.context.FlashFactory;
@@ -35,12 +31,6 @@ import javax.faces.context.FlashFactory;
 public class PortletFlashFactoryImpl extends FlashFactory {
     @Override
     public Flash getFlash(boolean create) {
-        ExternalContext context = FacesContext.getCurrentInstance().getExternalContext();
-
-        FlashFactory factory = new FlashFactoryImpl();
-
-        Flash result = PortletFlash.getFlash(context, create, (ELFlash) factory.getFlash(create));
-
-        return result;
+        return PortletFlash.getFlash(FacesContext.getCurrentInstance());
     }
 }
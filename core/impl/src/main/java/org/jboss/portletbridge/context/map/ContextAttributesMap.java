@@ -29,6 +29,16 @@ package org.jboss.portletbridge.context.map;
  */
 public abstract class ContextAttributesMap<V> extends ContextMap<String, V> {
 
+    public ContextAttributesMap() {
+    }
+
+    /**
+     * @param indexed whether the attribute names only change through this map, so they can be kept between calls.
+     */
+    public ContextAttributesMap(boolean indexed) {
+        super(indexed);
+    }
+
     @Override
     public V get(Object key) {
         if (null == key) {
@@ -52,6 +62,9 @@ public abstract class ContextAttributesMap<V> extends ContextMap<String, V> {
         }
         V oldValue = getAttribute(key);
         setAttribute(key, value);
+        if (null == oldValue || null == value) {
+            invalidateIndex();
+        }
         return oldValue;
     }
 
@@ -63,6 +76,9 @@ public abstract class ContextAttributesMap<V> extends ContextMap<String, V> {
         String stringKey = key.toString();
         V oldValue = getAttribute(stringKey);
         removeAttribute(stringKey);
+        if (null != oldValue) {
+            invalidateIndex();
+        }
         return oldValue;
     }
 
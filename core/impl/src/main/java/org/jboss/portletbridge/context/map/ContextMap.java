@@ -22,13 +22,19 @@ package org.jboss.portletbridge.context.map;
 
 import java.util.AbstractMap;
 import java.util.AbstractSet;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * Base of the maps backed by names enumerated from the portlet container. Maps whose names only change through the
+ * bridge can keep an index of them, so size and iteration don't enumerate them again, while the others enumerate them
+ * for every call as the container may change them at any time.
+ *
  * @author shura
  */
 abstract class ContextMap<K, V> extends AbstractMap<K, V> {
@@ -37,6 +43,22 @@ abstract class ContextMap<K, V> extends AbstractMap<K, V> {
 
     private transient volatile Set<Entry<K, V>> entrySet;
 
+    private final boolean indexed;
+
+    private transient volatile List<K> index;
+
+    ContextMap() {
+        this(false);
+    }
+
+    /**
+     * @param indexed whether the names of the map only change through the map itself or {@link #invalidateIndex()},
+     *        so they can be enumerated once and kept.
+     */
+    ContextMap(boolean indexed) {
+        this.indexed = indexed;
+    }
+
     /**
      * @see java.util.Map#entrySet()
      */
@@ -48,14 +70,14 @@ abstract class ContextMap<K, V> extends AbstractMap<K, V> {
                 public Iterator<Entry<K, V>> iterator() {
                     return new Iterator<Entry<K, V>>() {
 
-                        private Enumeration<K> enumeration = getEnumeration();
+                        private Iterator<K> names = nameIterator();
 
                         public boolean hasNext() {
-                            return enumeration.hasMoreElements();
+                            return names.hasNext();
                         }
 
                         public Entry<K, V> next() {
-                            K key = enumeration.nextElement();
+                            K key = names.next();
                             return new ContextEntry<K, V>(key, get(key));
                         }
 
@@ -71,6 +93,11 @@ abstract class ContextMap<K, V> extends AbstractMap<K, V> {
                     return ContextMap.this.size();
                 }
 
+                @Override
+                public boolean isEmpty() {
+                    return ContextMap.this.isEmpty();
+                }
+
             };
         }
 
@@ -85,12 +112,22 @@ abstract class ContextMap<K, V> extends AbstractMap<K, V> {
         if (this.keySet == null) {
             this.keySet = new AbstractSet<K>() {
                 public Iterator<K> iterator() {
-                    return new EnumerationIterator<K>(getEnumeration());
+                    return nameIterator();
                 }
 
                 public int size() {
                     return ContextMap.this.size();
                 }
+
+                @Override
+                public boolean isEmpty() {
+                    return ContextMap.this.isEmpty();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
             };
         }
         return this.keySet;
@@ -117,6 +154,9 @@ abstract class ContextMap<K, V> extends AbstractMap<K, V> {
      * @return
      */
     public int size() {
+        if (indexed) {
+            return getIndex().size();
+        }
         Enumeration<?> enumeration = getEnumeration();
         int size = 0;
         while (enumeration.hasMoreElements()) {
@@ -126,6 +166,52 @@ abstract class ContextMap<K, V> extends AbstractMap<K, V> {
         return size;
     }
 
+    @Override
+    public boolean isEmpty() {
+        if (indexed) {
+            return getIndex().isEmpty();
+        }
+        return !getEnumeration().hasMoreElements();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Iterator<K> names = nameIterator(); names.hasNext();) {
+            V current = get(names.next());
+            if (null == value ? null == current : value.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Discard the names kept by an indexed map, after they were changed other than through the map.
+     */
+    public void invalidateIndex() {
+        index = null;
+    }
+
+    private Iterator<K> nameIterator() {
+        if (indexed) {
+            return getIndex().iterator();
+        }
+        return new EnumerationIterator<K>(getEnumeration());
+    }
+
+    private List<K> getIndex() {
+        List<K> names = index;
+        if (null == names) {
+            names = new ArrayList<K>();
+            for (Enumeration<K> enumeration = getEnumeration(); enumeration.hasMoreElements();) {
+                names.add(enumeration.nextElement());
+            }
+            names = Collections.unmodifiableList(names);
+            index = names;
+        }
+        return names;
+    }
+
     static class ContextEntry<K, V> implements Map.Entry<K, V> {
         // immutable Entry
         private final K key;
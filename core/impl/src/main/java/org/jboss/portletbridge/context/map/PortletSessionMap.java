@@ -49,7 +49,10 @@ public class PortletSessionMap extends ContextAttributesMap<Object> {
     protected Object getAttribute(String name) {
         Object retVal = null;
         try {
-            retVal = portletRequest.getPortletSession(true).getAttribute(name, scope);
+            PortletSession session = portletRequest.getPortletSession(false);
+            if (null != session) {
+                retVal = session.getAttribute(name, scope);
+            }
         } catch (IllegalStateException e) {
             // todo - Handle invalidated session state
         }
@@ -58,7 +61,11 @@ public class PortletSessionMap extends ContextAttributesMap<Object> {
 
     @Override
     protected void setAttribute(String name, Object value) {
-        portletRequest.getPortletSession(true).setAttribute(name, value, scope);
+        if (null == value) {
+            removeAttribute(name);
+        } else {
+            portletRequest.getPortletSession(true).setAttribute(name, value, scope);
+        }
     }
 
     @Override
@@ -47,6 +47,7 @@ public class ELContextImpl extends ELContext {
     private PortletConfig portletConfig;
     private Map<String, Object> httpSessionMap;
     private Map<String, Preference> mutablePortletPreferencesMap;
+    private Map<String, String> preferencesValueMap;
     private boolean facesResolved = false;
 
     public ELContextImpl(ELResolver resolver) {
@@ -111,6 +112,14 @@ public class ELContextImpl extends ELContext {
         this.mutablePortletPreferencesMap = mutablePortletPreferencesMap;
     }
 
+    public Map<String, String> getPreferencesValueMap() {
+        return preferencesValueMap;
+    }
+
+    public void setPreferencesValueMap(Map<String, String> preferencesValueMap) {
+        this.preferencesValueMap = preferencesValueMap;
+    }
+
     public boolean isFacesResolved() {
         return facesResolved;
     }
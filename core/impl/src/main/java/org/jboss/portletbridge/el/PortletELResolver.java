@@ -82,7 +82,16 @@ public class PortletELResolver extends ELResolver {
     // vendor specific
     public static final String AJAX_CONTEXT = "ajaxContext";
 
-    private Map<String, Object> appScopeSessionMap = null;
+    private static final Map<String, ImplicitObject> IMPLICIT_OBJECTS;
+
+    static {
+        ImplicitObject[] values = ImplicitObject.values();
+        Map<String, ImplicitObject> implicitObjects = new HashMap<String, ImplicitObject>(values.length * 2);
+        for (ImplicitObject implicitObject : values) {
+            implicitObjects.put(implicitObject.name, implicitObject);
+        }
+        IMPLICIT_OBJECTS = implicitObjects;
+    }
 
     public PortletELResolver() {
     }
@@ -91,12 +100,21 @@ public class PortletELResolver extends ELResolver {
     public Object getValue(ELContext context, Object base, Object property) throws ELException {
         // variable resolution is a special case of property resolution
         // where the base is null.
-        if (!BridgeUtil.isPortletRequest() || null != base) {
+        if (null != base) {
             return null;
         }
 
         if (null == property) {
-            throw new PropertyNotFoundException("Null property");
+            if (BridgeUtil.isPortletRequest()) {
+                throw new PropertyNotFoundException("Null property");
+            }
+            return null;
+        }
+
+        // Most identifiers aren't portlet implicit objects, so rule them out with a single lookup
+        ImplicitObject implicitObject = IMPLICIT_OBJECTS.get(property);
+        if (null == implicitObject || !BridgeUtil.isPortletRequest()) {
+            return null;
         }
 
         if (null == context) {
@@ -110,119 +128,104 @@ public class PortletELResolver extends ELResolver {
         }
 
         if (portletELContext.isFacesResolved()) {
-            return getValueWithFacesResolution(context, portletELContext, base, property);
+            return getValueWithFacesResolution(context, portletELContext, implicitObject);
         } else {
-            return getValueWithJSPResolution(context, portletELContext, base, property);
+            return getValueWithJSPResolution(context, portletELContext, implicitObject);
         }
     }
 
-    private Object getValueWithJSPResolution(ELContext context, ELContextImpl portletELContext, Object base, Object property) {
-        if (property instanceof String) {
-            FacesContext facesContext = (FacesContext) context.getContext(FacesContext.class);
-            ExternalContext externalContext = facesContext.getExternalContext();
+    private Object getValueWithJSPResolution(ELContext context, ELContextImpl portletELContext, ImplicitObject implicitObject) {
+        FacesContext facesContext = (FacesContext) context.getContext(FacesContext.class);
+        ExternalContext externalContext = facesContext.getExternalContext();
 
-            try {
-                if (HTTP_SESSION_SCOPE.equals(property)) {
+        try {
+            switch (implicitObject) {
+                case HTTP_SESSION_SCOPE:
                     context.setPropertyResolved(true);
                     return getHttpSessionMap(externalContext, portletELContext);
-                } else if (MUTABLE_PORTLET_PREFERENCES_VALUES.equals(property)) {
+                case MUTABLE_PORTLET_PREFERENCES_VALUES:
                     context.setPropertyResolved(true);
                     return getMutablePortletPreferencesValues(externalContext, portletELContext);
-                } else {
-                    return null;
-                }
-            } catch (IllegalArgumentException e) {
-                // Faces defers to the implicit object resolver when evaluating
-                // in a JSP context. Alas, this means that Faces doesn't resolve
-                // session scoped ManagedBeans in a JSP context if the managed bean
-                // is already created rather it defers to the JSP Implicit resolver
-                // which accesses the http session not the protlet session. I.e.
-                // though the managed bean resolver sees that the session scoped bean
-                // exists it can't be retrieved because its in the portlet session
-                // not the http session.
-                // So its up to us to see if the bean is in the session
-                if (externalContext.getSessionMap().containsKey(property)) {
-                    context.setPropertyResolved(true);
-                    return externalContext.getSessionMap().get(property);
-                } else {
+                default:
                     return null;
-                }
             }
-        } else {
-            return null;
+        } catch (IllegalArgumentException e) {
+            // Faces defers to the implicit object resolver when evaluating
+            // in a JSP context. Alas, this means that Faces doesn't resolve
+            // session scoped ManagedBeans in a JSP context if the managed bean
+            // is already created rather it defers to the JSP Implicit resolver
+            // which accesses the http session not the protlet session. I.e.
+            // though the managed bean resolver sees that the session scoped bean
+            // exists it can't be retrieved because its in the portlet session
+            // not the http session.
+            // So its up to us to see if the bean is in the session
+            if (externalContext.getSessionMap().containsKey(implicitObject.name)) {
+                context.setPropertyResolved(true);
+                return externalContext.getSessionMap().get(implicitObject.name);
+            } else {
+                return null;
+            }
         }
     }
 
-    private Object getValueWithFacesResolution(ELContext context, ELContextImpl portletELContext, Object base, Object property) {
+    private Object getValueWithFacesResolution(ELContext context, ELContextImpl portletELContext,
+            ImplicitObject implicitObject) {
         FacesContext facesContext = (FacesContext) context.getContext(FacesContext.class);
         ExternalContext externalContext = facesContext.getExternalContext();
 
-        if (PORTLET_CONFIG.equals(property)) {
-            PortletConfig config = portletELContext.getPortletConfig();
-            if (null != config) {
+        switch (implicitObject) {
+            case PORTLET_CONFIG:
+                PortletConfig config = portletELContext.getPortletConfig();
+                if (null != config) {
+                    context.setPropertyResolved(true);
+                    return config;
+                } else {
+                    throw new ELException(
+                            "EL Resolve failed: can't resolve portletConfig because its not set on this Faces EL Resolver.");
+                }
+            case ACTION_REQUEST:
+            case EVENT_REQUEST:
+            case RENDER_REQUEST:
+            case RESOURCE_REQUEST:
+                if (BridgeUtil.getPortletRequestPhase() != implicitObject.phase) {
+                    return null;
+                }
                 context.setPropertyResolved(true);
-                return config;
-            } else {
-                throw new ELException(
-                        "EL Resolve failed: can't resolve portletConfig because its not set on this Faces EL Resolver.");
-            }
-        } else if (ACTION_REQUEST.equals(property) && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.ACTION_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getRequest();
-        } else if (ACTION_RESPONSE.equals(property)
-                && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.ACTION_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getResponse();
-        } else if (RENDER_REQUEST.equals(property) && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.RENDER_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getRequest();
-        } else if (RENDER_RESPONSE.equals(property)
-                && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.RENDER_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getResponse();
-        } else if (EVENT_REQUEST.equals(property) && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.EVENT_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getRequest();
-        } else if (EVENT_RESPONSE.equals(property) && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.EVENT_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getResponse();
-        } else if (RESOURCE_REQUEST.equals(property)
-                && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.RESOURCE_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getRequest();
-        } else if (RESOURCE_RESPONSE.equals(property)
-                && (BridgeUtil.getPortletRequestPhase() == Bridge.PortletPhase.RESOURCE_PHASE)) {
-            context.setPropertyResolved(true);
-            return externalContext.getResponse();
-        } else if (SESSION_APPLICATION_SCOPE.equals(property) || HTTP_SESSION_SCOPE.equals(property)) {
-            context.setPropertyResolved(true);
-            if (null == appScopeSessionMap) {
-                Object request = externalContext.getRequest();
-                if (BridgeUtil.isPortletRequest()) {
-                    appScopeSessionMap = new PortletApplicationScopeSessionMap((PortletRequest) request);
+                return externalContext.getRequest();
+            case ACTION_RESPONSE:
+            case EVENT_RESPONSE:
+            case RENDER_RESPONSE:
+            case RESOURCE_RESPONSE:
+                if (BridgeUtil.getPortletRequestPhase() != implicitObject.phase) {
+                    return null;
                 }
-            }
-            return appScopeSessionMap;
-        } else if (SESSION_PORTLET_SCOPE.equals(property) || PORTLET_SESSION_SCOPE.equals(property)) {
-            context.setPropertyResolved(true);
-            return externalContext.getSessionMap();
-        } else if (PORTLET_SESSION.equals(property)) {
-            context.setPropertyResolved(true);
-            return externalContext.getSession(false);
-        } else if (PORTLET_PREFERENCE_VALUE.equals(property)) {
-            context.setPropertyResolved(true);
-            return getPreferencesValueMap(facesContext);
-        } else if (PORTLET_PREFERENCES.equals(property)) {
-            context.setPropertyResolved(true);
-            return ((PortletRequest) externalContext.getRequest()).getPreferences();
-        } else if (MUTABLE_PORTLET_PREFERENCES_VALUES.equals(property)) {
-            context.setPropertyResolved(true);
-            return getPreferenceMap(((PortletRequest) externalContext.getRequest()).getPreferences());
-        } else if (PORTLET_PREFERENCES_VALUES.equals(property)) {
-            context.setPropertyResolved(true);
-            return ((PortletRequest) externalContext.getRequest()).getPreferences().getMap();
-        } else {
-            return null;
+                context.setPropertyResolved(true);
+                return externalContext.getResponse();
+            case SESSION_APPLICATION_SCOPE:
+            case HTTP_SESSION_SCOPE:
+                context.setPropertyResolved(true);
+                return getHttpSessionMap(externalContext, portletELContext);
+            case SESSION_PORTLET_SCOPE:
+            case PORTLET_SESSION_SCOPE:
+                context.setPropertyResolved(true);
+                return externalContext.getSessionMap();
+            case PORTLET_SESSION:
+                context.setPropertyResolved(true);
+                return externalContext.getSession(false);
+            case PORTLET_PREFERENCE_VALUE:
+                context.setPropertyResolved(true);
+                return getPreferencesValueMap(externalContext, portletELContext);
+            case PORTLET_PREFERENCES:
+                context.setPropertyResolved(true);
+                return ((PortletRequest) externalContext.getRequest()).getPreferences();
+            case MUTABLE_PORTLET_PREFERENCES_VALUES:
+                context.setPropertyResolved(true);
+                return getMutablePortletPreferencesValues(externalContext, portletELContext);
+            case PORTLET_PREFERENCES_VALUES:
+                context.setPropertyResolved(true);
+                return ((PortletRequest) externalContext.getRequest()).getPreferences().getMap();
+            default:
+                return null;
         }
     }
 
@@ -336,21 +339,26 @@ public class PortletELResolver extends ELResolver {
         return fd;
     }
 
-    private Map<String, String> getPreferencesValueMap(FacesContext context) {
-        Map<String, String> m = new HashMap<String, String>();
-        Map<String, String[]> preferencesValuesMap = ((PortletRequest) context.getExternalContext().getRequest())
-                .getPreferences().getMap();
-        for (Iterator<Entry<String, String[]>> entryIterator = preferencesValuesMap.entrySet().iterator(); entryIterator
-                .hasNext();) {
-            Map.Entry<String, String[]> entry = (Map.Entry<String, String[]>) entryIterator.next();
-            String[] preferenceValues = (String[]) entry.getValue();
-            if (null != preferenceValues && preferenceValues.length > 0) {
-                m.put((String) entry.getKey(), preferenceValues[0]);
-            }
+    private Map<String, String> getPreferencesValueMap(ExternalContext externalContext, ELContextImpl portletELContext) {
+        Map<String, String> preferencesValueMap = portletELContext.getPreferencesValueMap();
+        if (null == preferencesValueMap) {
+            Map<String, String> m = new HashMap<String, String>();
+            Map<String, String[]> preferencesValuesMap = ((PortletRequest) externalContext.getRequest()).getPreferences()
+                    .getMap();
+            for (Iterator<Entry<String, String[]>> entryIterator = preferencesValuesMap.entrySet().iterator(); entryIterator
+                    .hasNext();) {
+                Map.Entry<String, String[]> entry = (Map.Entry<String, String[]>) entryIterator.next();
+                String[] preferenceValues = (String[]) entry.getValue();
+                if (null != preferenceValues && preferenceValues.length > 0) {
+                    m.put((String) entry.getKey(), preferenceValues[0]);
+                }
 
+            }
+            preferencesValueMap = Collections.unmodifiableMap(m);
+            portletELContext.setPreferencesValueMap(preferencesValueMap);
         }
 
-        return Collections.unmodifiableMap(m);
+        return preferencesValueMap;
     }
 
     private Map<String, Preference> getPreferenceMap(PortletPreferences prefs) {
@@ -390,4 +398,36 @@ public class PortletELResolver extends ELResolver {
         return preferencesValuesMap;
     }
 
+
+    /**
+     * The implicit objects resolved by name, along with the portlet phase they're limited to.
+     */
+    private enum ImplicitObject {
+        PORTLET_CONFIG(PortletELResolver.PORTLET_CONFIG, null),
+        ACTION_REQUEST(PortletELResolver.ACTION_REQUEST, Bridge.PortletPhase.ACTION_PHASE),
+        ACTION_RESPONSE(PortletELResolver.ACTION_RESPONSE, Bridge.PortletPhase.ACTION_PHASE),
+        EVENT_REQUEST(PortletELResolver.EVENT_REQUEST, Bridge.PortletPhase.EVENT_PHASE),
+        EVENT_RESPONSE(PortletELResolver.EVENT_RESPONSE, Bridge.PortletPhase.EVENT_PHASE),
+        RENDER_REQUEST(PortletELResolver.RENDER_REQUEST, Bridge.PortletPhase.RENDER_PHASE),
+        RENDER_RESPONSE(PortletELResolver.RENDER_RESPONSE, Bridge.PortletPhase.RENDER_PHASE),
+        RESOURCE_REQUEST(PortletELResolver.RESOURCE_REQUEST, Bridge.PortletPhase.RESOURCE_PHASE),
+        RESOURCE_RESPONSE(PortletELResolver.RESOURCE_RESPONSE, Bridge.PortletPhase.RESOURCE_PHASE),
+        PORTLET_SESSION(PortletELResolver.PORTLET_SESSION, null),
+        PORTLET_SESSION_SCOPE(PortletELResolver.PORTLET_SESSION_SCOPE, null),
+        HTTP_SESSION_SCOPE(PortletELResolver.HTTP_SESSION_SCOPE, null),
+        PORTLET_PREFERENCES(PortletELResolver.PORTLET_PREFERENCES, null),
+        PORTLET_PREFERENCES_VALUES(PortletELResolver.PORTLET_PREFERENCES_VALUES, null),
+        MUTABLE_PORTLET_PREFERENCES_VALUES(PortletELResolver.MUTABLE_PORTLET_PREFERENCES_VALUES, null),
+        SESSION_APPLICATION_SCOPE(PortletELResolver.SESSION_APPLICATION_SCOPE, null),
+        SESSION_PORTLET_SCOPE(PortletELResolver.SESSION_PORTLET_SCOPE, null),
+        PORTLET_PREFERENCE_VALUE(PortletELResolver.PORTLET_PREFERENCE_VALUE, null);
+
+        private final String name;
+        private final Bridge.PortletPhase phase;
+
+        ImplicitObject(String name, Bridge.PortletPhase phase) {
+            this.name = name;
+            this.phase = phase;
+        }
+    }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@
 package org.jboss.portletbridge.io;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 
 /**
@@ -33,6 +34,11 @@ public class ByteBuffer {
     private ByteBuffer prev;
     private ByteBuffer next;
 
+    /**
+     * Pool the array was borrowed from, or null if it is owned by this link.
+     */
+    private SegmentPool pool;
+
     /**
      * Stored bytes
      */
@@ -42,6 +48,7 @@ public class ByteBuffer {
      * Length of byte array.
      */
     private int cacheSize;
+    private static final int MIN_CACHE_SIZE = 64;
 
     /**
      * Number of bytes stored in the array.
@@ -59,6 +66,20 @@ public class ByteBuffer {
         usedSize = 0;
     }
 
+    /**
+     * Creates instance of ByteBuffer with a fixed size byte array borrowed from the pool. Links appended to it borrow from the
+     * same pool, and {@link #release()} returns them all.
+     *
+     * @param pool
+     * @since 3.3.5
+     */
+    public ByteBuffer(SegmentPool pool) {
+        this.pool = pool;
+        bytes = pool.borrowBytes();
+        cacheSize = bytes.length;
+        usedSize = 0;
+    }
+
     /**
      * Creates instance of ByteBuffer already filled by bytes.
      *
@@ -70,6 +91,15 @@ public class ByteBuffer {
         cacheSize = usedSize;
     }
 
+    /**
+     * Creates instance of ByteBuffer that takes over bytes, of which the first usedSize are filled.
+     */
+    ByteBuffer(byte[] bytes, int usedSize) {
+        this.bytes = bytes;
+        this.usedSize = usedSize;
+        cacheSize = bytes.length;
+    }
+
     /**
      * Appends byte to array if there are unfilled positions in it. Otherwize creates next link in the chain, and appends the
      * byte to it.
@@ -86,7 +116,7 @@ public class ByteBuffer {
             usedSize++;
             return this;
         } else {
-            next = new ByteBuffer(cacheSize * 2);
+            next = newLink();
             next.prev = this;
             return next.append(c);
         }
@@ -115,7 +145,7 @@ public class ByteBuffer {
             off += av;
             len -= av;
         }
-        next = new ByteBuffer(cacheSize * 2);
+        next = newLink();
         next.prev = this;
         return next.append(bs, off, len);
     }
@@ -204,13 +234,7 @@ public class ByteBuffer {
      * @throws UnsupportedEncodingException
      */
     public org.jboss.portletbridge.io.CharBuffer toCharBuffer(String encoding) throws UnsupportedEncodingException {
-        String s;
-        if (null != encoding) {
-            s = new String(bytes, 0, usedSize, encoding);
-        } else {
-            s = new String(bytes, 0, usedSize, Charset.defaultCharset());
-        }
-        return new CharBuffer(s.toCharArray());
+        return toCharBuffer(SegmentCoder.forName(encoding));
     }
 
     /**
@@ -219,8 +243,43 @@ public class ByteBuffer {
      * @return link of chain of char arrays
      */
     public CharBuffer toCharBuffer() {
-        String s = new String(bytes, 0, usedSize, Charset.defaultCharset());
-        return new CharBuffer(s.toCharArray());
+        return toCharBuffer(Charset.defaultCharset());
+    }
+
+    private CharBuffer toCharBuffer(Charset charset) {
+        java.nio.CharBuffer cs;
+        try {
+            cs = SegmentCoder.newDecoder(charset).decode(java.nio.ByteBuffer.wrap(bytes, 0, usedSize));
+        } catch (CharacterCodingException e) {
+            // Replacement is on
+            throw new IllegalStateException(e);
+        }
+        return new CharBuffer(cs.array(), cs.limit());
+    }
+
+    private ByteBuffer newLink() {
+        return null != pool ? new ByteBuffer(pool) : new ByteBuffer(Math.max(cacheSize * 2, MIN_CACHE_SIZE));
+    }
+
+    /**
+     * Returns the byte arrays of this link and of the following ones to the pool they were borrowed from. The chain must not
+     * be used afterwards.
+     *
+     * @since 3.3.5
+     */
+    public void release() {
+        ByteBuffer b = this;
+        while (b != null) {
+            ByteBuffer n = b.next;
+            if (null != b.pool) {
+                b.pool.release(b.bytes);
+            }
+            b.bytes = null;
+            b.usedSize = 0;
+            b.next = null;
+            b.prev = null;
+            b = n;
+        }
     }
 
     /**
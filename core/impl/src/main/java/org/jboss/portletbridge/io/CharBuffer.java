@@ -22,6 +22,7 @@
 package org.jboss.portletbridge.io;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 
 /**
@@ -33,6 +34,11 @@ public class CharBuffer {
     private CharBuffer prev;
     private CharBuffer next;
 
+    /**
+     * Pool the array was borrowed from, or null if it is owned by this link.
+     */
+    private SegmentPool pool;
+
     /**
      * Stored characters
      */
@@ -64,6 +70,20 @@ public class CharBuffer {
         usedSize = 0;
     }
 
+    /**
+     * Creates instance of CharBuffer with a fixed size char array borrowed from the pool. Links appended to it borrow from the
+     * same pool, and {@link #release()} returns them all.
+     *
+     * @param pool
+     * @since 3.3.5
+     */
+    public CharBuffer(SegmentPool pool) {
+        this.pool = pool;
+        chars = pool.borrowChars();
+        cacheSize = chars.length;
+        usedSize = 0;
+    }
+
     /**
      * Creates instance of CharBuffer already filled by chars.
      *
@@ -79,6 +99,15 @@ public class CharBuffer {
         }
     }
 
+    /**
+     * Creates instance of CharBuffer that takes over chars, of which the first usedSize are filled.
+     */
+    CharBuffer(char[] chars, int usedSize) {
+        this.chars = chars;
+        this.usedSize = usedSize;
+        cacheSize = chars.length;
+    }
+
     /**
      * Appends character to array chars if there are unfilled positions in it. Otherwise creates next link in the chain, and
      * appends the character to it.
@@ -95,7 +124,7 @@ public class CharBuffer {
             usedSize++;
             return this;
         } else {
-            next = new CharBuffer(cacheSize * 2);
+            next = newLink();
             next.prev = this;
             return next.append(c);
         }
@@ -124,7 +153,7 @@ public class CharBuffer {
             off += av;
             len -= av;
         }
-        next = new CharBuffer(cacheSize * 2);
+        next = newLink();
         next.prev = this;
         return next.append(cs, off, len);
     }
@@ -213,8 +242,7 @@ public class CharBuffer {
      * @throws UnsupportedEncodingException
      */
     public org.jboss.portletbridge.io.ByteBuffer toByteBuffer(String encoding) throws UnsupportedEncodingException {
-        byte[] bs = new String(chars, 0, usedSize).getBytes(encoding);
-        return new ByteBuffer(bs);
+        return toByteBuffer(SegmentCoder.forName(encoding));
     }
 
     /**
@@ -223,8 +251,43 @@ public class CharBuffer {
      * @return link of chain of byte arrays
      */
     public ByteBuffer toByteBuffer() {
-        byte[] bs = new String(chars, 0, usedSize).getBytes(Charset.defaultCharset());
-        return new ByteBuffer(bs);
+        return toByteBuffer(Charset.defaultCharset());
+    }
+
+    private ByteBuffer toByteBuffer(Charset charset) {
+        java.nio.ByteBuffer bs;
+        try {
+            bs = SegmentCoder.newEncoder(charset).encode(java.nio.CharBuffer.wrap(chars, 0, usedSize));
+        } catch (CharacterCodingException e) {
+            // Replacement is on
+            throw new IllegalStateException(e);
+        }
+        return new ByteBuffer(bs.array(), bs.limit());
+    }
+
+    private CharBuffer newLink() {
+        return null != pool ? new CharBuffer(pool) : new CharBuffer(Math.max(cacheSize * 2, MIN_CACHE_SIZE));
+    }
+
+    /**
+     * Returns the char arrays of this link and of the following ones to the pool they were borrowed from. The chain must not
+     * be used afterwards.
+     *
+     * @since 3.3.5
+     */
+    public void release() {
+        CharBuffer b = this;
+        while (b != null) {
+            CharBuffer n = b.next;
+            if (null != b.pool) {
+                b.pool.release(b.chars);
+            }
+            b.chars = null;
+            b.usedSize = 0;
+            b.next = null;
+            b.prev = null;
+            b = n;
+        }
     }
 
     /**
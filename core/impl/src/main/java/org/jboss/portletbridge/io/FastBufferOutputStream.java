@@ -49,10 +49,28 @@ public class FastBufferOutputStream extends OutputStream {
     int length;
 
     /**
-     * Creates instance of default initial capacity.
+     * Pool the links of the chain are borrowed from, or null if the chain grows on its own.
+     */
+    private final SegmentPool pool;
+
+    private SegmentPool.LeakTracker leakTracker;
+
+    /**
+     * Creates instance that borrows its links from the shared {@link SegmentPool}.
      */
     public FastBufferOutputStream() {
-        this(256);
+        this(SegmentPool.getInstance());
+    }
+
+    /**
+     * Creates instance that borrows fixed size links from the pool as it is written to, and returns them on
+     * {@link #reset()}.
+     *
+     * @param pool
+     * @since 3.3.5
+     */
+    public FastBufferOutputStream(SegmentPool pool) {
+        this.pool = pool;
     }
 
     /**
@@ -70,6 +88,7 @@ public class FastBufferOutputStream extends OutputStream {
      * @param firstBuffer
      */
     public FastBufferOutputStream(ByteBuffer firstBuffer) {
+        this.pool = null;
         this.firstBuffer = firstBuffer;
         this.lastBuffer = firstBuffer;
     }
@@ -78,6 +97,9 @@ public class FastBufferOutputStream extends OutputStream {
      * @see java.io.OutputStream.write(int c)
      */
     public void write(int c) throws IOException {
+        if (null == lastBuffer) {
+            borrowFirstBuffer();
+        }
         lastBuffer = lastBuffer.append((byte) c);
         length++;
     }
@@ -91,6 +113,9 @@ public class FastBufferOutputStream extends OutputStream {
         }
         int limit = b.length;
         length += limit;
+        if (null == lastBuffer) {
+            borrowFirstBuffer();
+        }
         lastBuffer = lastBuffer.append(b, 0, limit);
     }
 
@@ -105,6 +130,9 @@ public class FastBufferOutputStream extends OutputStream {
         } else if (len == 0) {
             return;
         }
+        if (null == lastBuffer) {
+            borrowFirstBuffer();
+        }
         lastBuffer = lastBuffer.append(b, off, len);
         length += len;
     }
@@ -172,12 +200,7 @@ public class FastBufferOutputStream extends OutputStream {
      * @throws IOException
      */
     public void writeTo(Writer out, String encoding) throws IOException {
-        ByteBuffer b = getFirstBuffer();
-        while (b != null) {
-            CharBuffer c = b.toCharBuffer(encoding);
-            out.write(c.getChars(), 0, c.getUsedSize());
-            b = b.getNext();
-        }
+        SegmentCoder.decode(firstBuffer, SegmentCoder.forName(encoding), out);
     }
 
     /**
@@ -188,19 +211,7 @@ public class FastBufferOutputStream extends OutputStream {
      * @throws UnsupportedEncodingException
      */
     public org.jboss.portletbridge.io.FastBufferWriter convertToWriter(String encoding) throws UnsupportedEncodingException {
-        ByteBuffer c = firstBuffer;
-        CharBuffer first = c.toCharBuffer(encoding);
-        CharBuffer b = first;
-        while (c != null) {
-            c = c.getNext();
-            if (c == null) {
-                break;
-            }
-            CharBuffer n = c.toCharBuffer(encoding);
-            b.setNext(n);
-            b = n;
-        }
-        return new FastBufferWriter(first);
+        return convertToWriter(SegmentCoder.forName(encoding));
     }
 
     /**
@@ -209,30 +220,47 @@ public class FastBufferOutputStream extends OutputStream {
      * @return
      */
     public FastBufferWriter convertToWriter() {
-        ByteBuffer c = firstBuffer;
-        CharBuffer first = c.toCharBuffer();
-        CharBuffer b = first;
-        while (c != null) {
-            c = c.getNext();
-            if (c == null) {
-                break;
-            }
-            CharBuffer n = c.toCharBuffer();
-            b.setNext(n);
-            b = n;
+        return convertToWriter(Charset.defaultCharset());
+    }
+
+    private FastBufferWriter convertToWriter(Charset charset) {
+        FastBufferWriter result = new FastBufferWriter(256);
+        try {
+            SegmentCoder.decode(firstBuffer, charset, result);
+        } catch (IOException e) {
+            // Replacement is on and the target is in memory
+            throw new IllegalStateException(e);
         }
-        return new FastBufferWriter(first);
+        return result;
     }
 
     /**
-     * Resets stream to empty state
+     * Resets stream to empty state. A pooled stream returns its links to the pool.
      *
      * @since 3.3.0
      */
     public void reset() {
-        this.firstBuffer.reset();
-        this.lastBuffer = this.firstBuffer;
+        if (null != pool) {
+            if (null != firstBuffer) {
+                firstBuffer.release();
+                firstBuffer = null;
+                lastBuffer = null;
+            }
+            if (null != leakTracker) {
+                leakTracker.close();
+                leakTracker = null;
+            }
+        } else {
+            this.firstBuffer.reset();
+            this.lastBuffer = this.firstBuffer;
+        }
 
         this.length = 0;
     }
+
+    private void borrowFirstBuffer() {
+        firstBuffer = new ByteBuffer(pool);
+        lastBuffer = firstBuffer;
+        leakTracker = pool.track(this);
+    }
 }
@@ -22,8 +22,10 @@
 package org.jboss.portletbridge.io;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.charset.Charset;
 
 import javax.servlet.ServletOutputStream;
 
@@ -49,10 +51,28 @@ public class FastBufferWriter extends Writer {
     int length;
 
     /**
-     * Creates instance of default initial capacity.
+     * Pool the links of the chain are borrowed from, or null if the chain grows on its own.
+     */
+    private final SegmentPool pool;
+
+    private SegmentPool.LeakTracker leakTracker;
+
+    /**
+     * Creates instance that borrows its links from the shared {@link SegmentPool}.
      */
     public FastBufferWriter() {
-        this(256);
+        this(SegmentPool.getInstance());
+    }
+
+    /**
+     * Creates instance that borrows fixed size links from the pool as it is written to, and returns them on
+     * {@link #reset()}.
+     *
+     * @param pool
+     * @since 3.3.5
+     */
+    public FastBufferWriter(SegmentPool pool) {
+        this.pool = pool;
     }
 
     /**
@@ -70,6 +90,7 @@ public class FastBufferWriter extends Writer {
      * @param firstBuffer
      */
     public FastBufferWriter(CharBuffer firstBuffer) {
+        this.pool = null;
         this.firstBuffer = firstBuffer;
         lastBuffer = firstBuffer;
     }
@@ -78,6 +99,9 @@ public class FastBufferWriter extends Writer {
      * @see java.io.Writer.write(int c)
      */
     public void write(int c) throws IOException {
+        if (null == lastBuffer) {
+            borrowFirstBuffer();
+        }
         lastBuffer = lastBuffer.append((char) c);
         length++;
     }
@@ -90,6 +114,9 @@ public class FastBufferWriter extends Writer {
             throw new IllegalArgumentException();
         }
 
+        if (null == lastBuffer) {
+            borrowFirstBuffer();
+        }
         lastBuffer = lastBuffer.append(cbuf, 0, cbuf.length);
         length += cbuf.length;
 
@@ -107,6 +134,9 @@ public class FastBufferWriter extends Writer {
         } else if (len == 0) {
             return;
         }
+        if (null == lastBuffer) {
+            borrowFirstBuffer();
+        }
         lastBuffer = lastBuffer.append(cbuf, off, len);
         length += len;
 
@@ -184,7 +214,7 @@ public class FastBufferWriter extends Writer {
     public void printTo(ServletOutputStream outputStream) throws IOException {
         CharBuffer b = firstBuffer;
         while (b != null) {
-            outputStream.print(new String(b.getChars()));
+            outputStream.print(new String(b.getChars(), 0, b.getUsedSize()));
             b = b.getNext();
         }
     }
@@ -198,19 +228,7 @@ public class FastBufferWriter extends Writer {
      */
     public org.jboss.portletbridge.io.FastBufferOutputStream convertToOutputStream(String encoding)
             throws UnsupportedEncodingException {
-        CharBuffer c = firstBuffer;
-        ByteBuffer first = c.toByteBuffer(encoding);
-        ByteBuffer b = first;
-        while (c != null) {
-            c = c.getNext();
-            if (c == null) {
-                break;
-            }
-            ByteBuffer n = c.toByteBuffer(encoding);
-            b.setNext(n);
-            b = n;
-        }
-        return new FastBufferOutputStream(first);
+        return convertToOutputStream(SegmentCoder.forName(encoding));
     }
 
     /**
@@ -219,30 +237,59 @@ public class FastBufferWriter extends Writer {
      * @return
      */
     public FastBufferOutputStream convertToOutputStream() {
-        CharBuffer c = firstBuffer;
-        ByteBuffer first = c.toByteBuffer();
-        ByteBuffer b = first;
-        while (c != null) {
-            c = c.getNext();
-            if (c == null) {
-                break;
-            }
-            ByteBuffer n = c.toByteBuffer();
-            b.setNext(n);
-            b = n;
+        return convertToOutputStream(Charset.defaultCharset());
+    }
+
+    /**
+     * Encodes all data written up to the moment to out, without building an intermediate copy of it.
+     *
+     * @param out
+     * @param encoding name, or <code>null</code> for the default charset
+     * @throws IOException
+     * @since 3.3.5
+     */
+    public void writeTo(OutputStream out, String encoding) throws IOException {
+        SegmentCoder.encode(firstBuffer, SegmentCoder.forName(encoding), out);
+    }
+
+    private FastBufferOutputStream convertToOutputStream(Charset charset) {
+        FastBufferOutputStream result = new FastBufferOutputStream(256);
+        try {
+            SegmentCoder.encode(firstBuffer, charset, result);
+        } catch (IOException e) {
+            // Replacement is on and the target is in memory
+            throw new IllegalStateException(e);
         }
-        return new FastBufferOutputStream(first);
+        return result;
     }
 
     /**
-     * Resets writer to empty state
+     * Resets writer to empty state. A pooled writer returns its links to the pool.
      *
      * @since 3.3.0
      */
     public void reset() {
-        this.firstBuffer.reset();
-        this.lastBuffer = this.firstBuffer;
+        if (null != pool) {
+            if (null != firstBuffer) {
+                firstBuffer.release();
+                firstBuffer = null;
+                lastBuffer = null;
+            }
+            if (null != leakTracker) {
+                leakTracker.close();
+                leakTracker = null;
+            }
+        } else {
+            this.firstBuffer.reset();
+            this.lastBuffer = this.firstBuffer;
+        }
 
         this.length = 0;
     }
+
+    private void borrowFirstBuffer() {
+        firstBuffer = new CharBuffer(pool);
+        lastBuffer = firstBuffer;
+        leakTracker = pool.track(this);
+    }
 }
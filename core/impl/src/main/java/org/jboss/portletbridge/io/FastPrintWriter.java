@@ -52,6 +52,14 @@ public class FastPrintWriter extends PrintWriter {
         fastBufferWriter.writeTo(writer);
     }
 
+    /**
+     * @return number of chars buffered since the last reset
+     * @since 3.3.5
+     */
+    public int getLength() {
+        return fastBufferWriter.getLength();
+    }
+
     public char[] toCharArray() {
         return fastBufferWriter.toCharArray();
     }
@@ -0,0 +1,179 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * Converts {@link CharBuffer} and {@link ByteBuffer} chains between chars and bytes with a single
+ * {@link CharsetEncoder} or {@link CharsetDecoder} per conversion, without intermediate {@link String}s. The coder
+ * state is carried from one link to the next, so a surrogate pair or a multi-byte sequence split by a link boundary
+ * is converted as a whole. Malformed and unmappable input is replaced, as {@link String#getBytes(String)} does.
+ */
+final class SegmentCoder {
+
+    /**
+     * Room for what a coder may leave unconsumed at the end of a link, at most a few chars or bytes.
+     */
+    private static final int CARRY_SIZE = 16;
+
+    private SegmentCoder() {
+    }
+
+    /**
+     * @param encoding name, or <code>null</code> for the default charset.
+     */
+    static Charset forName(String encoding) throws UnsupportedEncodingException {
+        if (null == encoding) {
+            return Charset.defaultCharset();
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (UnsupportedCharsetException e) {
+            throw new UnsupportedEncodingException(encoding);
+        } catch (IllegalCharsetNameException e) {
+            throw new UnsupportedEncodingException(encoding);
+        }
+    }
+
+    static CharsetEncoder newEncoder(Charset charset) {
+        return charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Encodes the chars of a chain, starting at first, to out.
+     */
+    static void encode(CharBuffer first, Charset charset, OutputStream out) throws IOException {
+        CharsetEncoder encoder = newEncoder(charset);
+        SegmentPool pool = SegmentPool.getInstance();
+        byte[] segment = pool.borrowBytes();
+        try {
+            java.nio.ByteBuffer bytes = java.nio.ByteBuffer.wrap(segment);
+            java.nio.CharBuffer carry = java.nio.CharBuffer.allocate(CARRY_SIZE);
+
+            for (CharBuffer link = first; null != link; link = link.getNext()) {
+                java.nio.CharBuffer in = java.nio.CharBuffer.wrap(link.getChars(), 0, link.getUsedSize());
+                // Complete what the previous link left over one char at a time, it is a single high surrogate at most
+                while (carry.position() > 0 && in.hasRemaining()) {
+                    carry.put(in.get());
+                    carry.flip();
+                    encode(encoder, carry, bytes, out, false);
+                    carry.compact();
+                }
+                encode(encoder, in, bytes, out, false);
+                carry.put(in);
+            }
+
+            carry.flip();
+            encode(encoder, carry, bytes, out, true);
+            while (encoder.flush(bytes).isOverflow()) {
+                drain(bytes, out);
+            }
+            drain(bytes, out);
+        } finally {
+            pool.release(segment);
+        }
+    }
+
+    /**
+     * Decodes the bytes of a chain, starting at first, to out.
+     */
+    static void decode(ByteBuffer first, Charset charset, Writer out) throws IOException {
+        CharsetDecoder decoder = newDecoder(charset);
+        SegmentPool pool = SegmentPool.getInstance();
+        char[] segment = pool.borrowChars();
+        try {
+            java.nio.CharBuffer chars = java.nio.CharBuffer.wrap(segment);
+            java.nio.ByteBuffer carry = java.nio.ByteBuffer.allocate(CARRY_SIZE);
+
+            for (ByteBuffer link = first; null != link; link = link.getNext()) {
+                java.nio.ByteBuffer in = java.nio.ByteBuffer.wrap(link.getBytes(), 0, link.getUsedSize());
+                // Complete the multi-byte sequence that the previous link ended with
+                while (carry.position() > 0 && in.hasRemaining()) {
+                    carry.put(in.get());
+                    carry.flip();
+                    decode(decoder, carry, chars, out, false);
+                    carry.compact();
+                }
+                decode(decoder, in, chars, out, false);
+                carry.put(in);
+            }
+
+            carry.flip();
+            decode(decoder, carry, chars, out, true);
+            while (decoder.flush(chars).isOverflow()) {
+                drain(chars, out);
+            }
+            drain(chars, out);
+        } finally {
+            pool.release(segment);
+        }
+    }
+
+    private static void encode(CharsetEncoder encoder, java.nio.CharBuffer in, java.nio.ByteBuffer bytes,
+            OutputStream out, boolean endOfInput) throws IOException {
+        CoderResult result;
+        while ((result = encoder.encode(in, bytes, endOfInput)).isOverflow()) {
+            drain(bytes, out);
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+
+    private static void decode(CharsetDecoder decoder, java.nio.ByteBuffer in, java.nio.CharBuffer chars, Writer out,
+            boolean endOfInput) throws IOException {
+        CoderResult result;
+        while ((result = decoder.decode(in, chars, endOfInput)).isOverflow()) {
+            drain(chars, out);
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+
+    private static void drain(java.nio.ByteBuffer bytes, OutputStream out) throws IOException {
+        out.write(bytes.array(), 0, bytes.position());
+        bytes.clear();
+    }
+
+    private static void drain(java.nio.CharBuffer chars, Writer out) throws IOException {
+        out.write(chars.array(), 0, chars.position());
+        chars.clear();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.io;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of the fixed size char and byte arrays that back the {@link CharBuffer} and {@link ByteBuffer} chains of
+ * {@link FastBufferWriter} and {@link FastBufferOutputStream}. Segments are not bound to a thread, so a buffer may be
+ * filled and released by different threads, and borrowing never blocks: when the pool is empty a new segment is
+ * allocated, and when it is full a returned segment is left to the garbage collector.
+ *
+ * <p>
+ * When this class logs at <code>FINE</code>, every buffer that borrows segments is tracked, and a buffer that is
+ * garbage collected without having returned them is reported with the stack trace of its first borrow.
+ * </p>
+ */
+public class SegmentPool {
+
+    /**
+     * Number of chars or bytes in a segment.
+     */
+    public static final int SEGMENT_SIZE = 4096;
+
+    /**
+     * Maximum number of segments of each kind kept by the shared pool.
+     */
+    public static final int DEFAULT_MAX_SEGMENTS = 256;
+
+    private static final Logger LOG = Logger.getLogger(SegmentPool.class.getName());
+
+    private static final SegmentPool INSTANCE = new SegmentPool(SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Queue<char[]> chars = new ConcurrentLinkedQueue<char[]>();
+    private final AtomicInteger charCount = new AtomicInteger();
+    private final Queue<byte[]> bytes = new ConcurrentLinkedQueue<byte[]>();
+    private final AtomicInteger byteCount = new AtomicInteger();
+
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+    private final Set<LeakTracker> trackers = Collections.newSetFromMap(new ConcurrentHashMap<LeakTracker, Boolean>());
+    private final AtomicInteger leaks = new AtomicInteger();
+
+    public SegmentPool(int segmentSize, int maxSegments) {
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * @return the pool shared by all buffers of the web application.
+     */
+    public static SegmentPool getInstance() {
+        return INSTANCE;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public char[] borrowChars() {
+        char[] segment = chars.poll();
+        if (null == segment) {
+            return new char[segmentSize];
+        }
+        charCount.decrementAndGet();
+        return segment;
+    }
+
+    public void release(char[] segment) {
+        if (segment.length == segmentSize && charCount.incrementAndGet() <= maxSegments) {
+            chars.offer(segment);
+        } else {
+            charCount.decrementAndGet();
+        }
+    }
+
+    public byte[] borrowBytes() {
+        byte[] segment = bytes.poll();
+        if (null == segment) {
+            return new byte[segmentSize];
+        }
+        byteCount.decrementAndGet();
+        return segment;
+    }
+
+    public void release(byte[] segment) {
+        if (segment.length == segmentSize && byteCount.incrementAndGet() <= maxSegments) {
+            bytes.offer(segment);
+        } else {
+            byteCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return the number of char segments waiting to be borrowed.
+     */
+    public int getPooledChars() {
+        return charCount.get();
+    }
+
+    /**
+     * @return the number of byte segments waiting to be borrowed.
+     */
+    public int getPooledBytes() {
+        return byteCount.get();
+    }
+
+    /**
+     * Starts tracking a buffer that has borrowed segments, if leak detection is enabled.
+     *
+     * @param buffer that must release its segments before it is garbage collected.
+     * @return the tracker to close once the segments are released, or <code>null</code> if leaks are not tracked.
+     */
+    public LeakTracker track(Object buffer) {
+        if (!LOG.isLoggable(Level.FINE)) {
+            return null;
+        }
+        reportLeaks();
+        LeakTracker tracker = new LeakTracker(buffer, this);
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * @return the number of buffers found to have been garbage collected without releasing their segments.
+     */
+    public int getLeakCount() {
+        reportLeaks();
+        return leaks.get();
+    }
+
+    private void reportLeaks() {
+        LeakTracker tracker;
+        while (null != (tracker = (LeakTracker) collected.poll())) {
+            if (trackers.remove(tracker)) {
+                leaks.incrementAndGet();
+                LOG.log(Level.WARNING, "Buffer was garbage collected without releasing its segments to the pool",
+                        tracker.origin);
+            }
+        }
+    }
+
+    /**
+     * Records where a buffer first borrowed segments, to report it if the buffer is lost before releasing them.
+     */
+    public static final class LeakTracker extends WeakReference<Object> {
+
+        private final SegmentPool pool;
+        private final Throwable origin = new Throwable("Segments borrowed here");
+
+        private LeakTracker(Object buffer, SegmentPool pool) {
+            super(buffer, pool.collected);
+            this.pool = pool;
+        }
+
+        public void close() {
+            pool.trackers.remove(this);
+            clear();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.renderkit.portlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.faces.context.ExternalContext;
+import javax.portlet.MimeResponse;
+import javax.portlet.PortletResponse;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Application scoped cache of the head elements a view renders, by view id, portlet mode, window state, portlet
+ * namespace, locale and public render parameters. Most views render the same head resources on every request, so their
+ * <code>MARKUP_HEAD_ELEMENT</code> fragments are recorded once and then recreated for each response, instead of
+ * encoding the resources again. Private render parameters are left out of the key, as they include the bridge request
+ * scope id of every action, and the least recently used views are evicted past {@link #MAX_ENTRIES}.
+ * <p>
+ * An entry is only used while the view asks for the same resources, in the same order. A view that asks for different
+ * resources on another render adds resources conditionally, and is always rendered dynamically from then on.
+ * </p>
+ */
+public class HeadResourceRegistry {
+
+    private static final String ATTRIBUTE = HeadResourceRegistry.class.getName();
+
+    /**
+     * Upper bound on cached views, past which the least recently used one is evicted.
+     */
+    static final int MAX_ENTRIES = 1024;
+
+    private static final String BRIDGE_PARAMETER_PREFIX = "__pbr";
+
+    private static final Entry DYNAMIC = new Entry(null, null, null);
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * @return registry of the web application, created on first use
+     */
+    public static HeadResourceRegistry getInstance(ExternalContext externalContext) {
+        Map<String, Object> applicationMap = externalContext.getApplicationMap();
+        HeadResourceRegistry registry = (HeadResourceRegistry) applicationMap.get(ATTRIBUTE);
+        if (null == registry) {
+            synchronized (HeadResourceRegistry.class) {
+                registry = (HeadResourceRegistry) applicationMap.get(ATTRIBUTE);
+                if (null == registry) {
+                    registry = new HeadResourceRegistry();
+                    applicationMap.put(ATTRIBUTE, registry);
+                }
+            }
+        }
+        return registry;
+    }
+
+    public static String getKey(String viewId, Object portletMode, Object windowState, String namespace, Locale locale,
+            Map<String, String[]> publicRenderParameters) {
+        StringBuilder key = new StringBuilder(viewId.length() + 64);
+        key.append(viewId).append('|').append(portletMode).append('|').append(windowState).append('|').append(namespace)
+                .append('|').append(locale);
+        if (null != publicRenderParameters && !publicRenderParameters.isEmpty()) {
+            String[] names = publicRenderParameters.keySet().toArray(new String[publicRenderParameters.size()]);
+            Arrays.sort(names);
+            for (String name : names) {
+                if (name.startsWith(BRIDGE_PARAMETER_PREFIX)) {
+                    continue;
+                }
+                // Lengths keep names and values containing the separators apart
+                key.append('|').append(name.length()).append(':').append(name);
+                String[] values = publicRenderParameters.get(name);
+                if (null != values) {
+                    for (String value : values) {
+                        key.append(',');
+                        if (null != value) {
+                            key.append(value.length()).append(':').append(value);
+                        }
+                    }
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * @param key from {@link #getKey(String, Object, Object, String, Locale, Map)}
+     * @param resourceIds ordered ids of the head resources the view asks for
+     * @return the cached entry, or <code>null</code> if the view has to be rendered
+     */
+    public synchronized Entry get(String key, List<String> resourceIds) {
+        Entry entry = entries.get(key);
+        if (null != entry && DYNAMIC != entry && entry.resourceIds.equals(resourceIds)) {
+            return entry;
+        }
+        return null;
+    }
+
+    /**
+     * @return whether a view has been found to add head resources conditionally
+     */
+    public synchronized boolean isDynamic(String key) {
+        return DYNAMIC == entries.get(key);
+    }
+
+    /**
+     * Renders the view dynamically from now on, as its head resources set request specific state.
+     */
+    public synchronized void setDynamic(String key) {
+        entries.put(key, DYNAMIC);
+    }
+
+    /**
+     * Records the head elements rendered for resourceIds, and the Faces context attributes that rendering them set.
+     */
+    public synchronized void put(String key, List<String> resourceIds, List<Element> elements,
+            Map<Object, Object> attributes) {
+        Entry existing = entries.get(key);
+        if (null != existing) {
+            if (DYNAMIC != existing && !existing.resourceIds.equals(resourceIds)) {
+                entries.put(key, DYNAMIC);
+            }
+        } else {
+            List<HeadElement> templates = new ArrayList<HeadElement>(elements.size());
+            for (Element element : elements) {
+                templates.add(new HeadElement(element));
+            }
+            entries.put(key, new Entry(new ArrayList<String>(resourceIds), templates, attributes));
+        }
+    }
+
+    /**
+     * @return number of views cached, including those rendered dynamically
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Cached head elements of a view.
+     */
+    public static final class Entry {
+
+        private final List<String> resourceIds;
+        private final List<HeadElement> elements;
+        private final Map<Object, Object> attributes;
+
+        Entry(List<String> resourceIds, List<HeadElement> elements, Map<Object, Object> attributes) {
+            this.resourceIds = resourceIds;
+            this.elements = elements;
+            this.attributes = null != attributes ? new HashMap<Object, Object>(attributes) : null;
+        }
+
+        /**
+         * Adds the cached head elements to response.
+         */
+        public void addTo(PortletResponse response) {
+            for (HeadElement element : elements) {
+                response.addProperty(MimeResponse.MARKUP_HEAD_ELEMENT, element.create(response));
+            }
+        }
+
+        /**
+         * Sets the Faces context attributes that encoding the resources set, so that renderers still see them as
+         * rendered.
+         */
+        public void restoreAttributes(Map<Object, Object> facesContextAttributes) {
+            facesContextAttributes.putAll(attributes);
+        }
+    }
+
+    /**
+     * Immutable copy of a head element that creates an equal element for another response.
+     */
+    static final class HeadElement {
+
+        private final String name;
+        private final String[] attributes;
+        private final short[] childTypes;
+        private final Object[] children;
+
+        HeadElement(Element element) {
+            name = element.getTagName();
+
+            NamedNodeMap attributeNodes = element.getAttributes();
+            attributes = new String[attributeNodes.getLength() * 2];
+            for (int i = 0; i < attributeNodes.getLength(); i++) {
+                Node attribute = attributeNodes.item(i);
+                attributes[i * 2] = attribute.getNodeName();
+                attributes[i * 2 + 1] = attribute.getNodeValue();
+            }
+
+            List<Short> types = new ArrayList<Short>();
+            List<Object> values = new ArrayList<Object>();
+            for (Node child = element.getFirstChild(); null != child; child = child.getNextSibling()) {
+                switch (child.getNodeType()) {
+                    case Node.ELEMENT_NODE:
+                        values.add(new HeadElement((Element) child));
+                        break;
+                    case Node.TEXT_NODE:
+                    case Node.CDATA_SECTION_NODE:
+                    case Node.COMMENT_NODE:
+                        values.add(child.getNodeValue());
+                        break;
+                    default:
+                        continue;
+                }
+                types.add(child.getNodeType());
+            }
+            childTypes = new short[types.size()];
+            for (int i = 0; i < childTypes.length; i++) {
+                childTypes[i] = types.get(i);
+            }
+            children = values.toArray();
+        }
+
+        Element create(PortletResponse response) {
+            Element element = response.createElement(name);
+            for (int i = 0; i < attributes.length; i += 2) {
+                element.setAttribute(attributes[i], attributes[i + 1]);
+            }
+            for (int i = 0; i < children.length; i++) {
+                switch (childTypes[i]) {
+                    case Node.ELEMENT_NODE:
+                        element.appendChild(((HeadElement) children[i]).create(response));
+                        break;
+                    case Node.TEXT_NODE:
+                        element.appendChild(element.getOwnerDocument().createTextNode((String) children[i]));
+                        break;
+                    case Node.CDATA_SECTION_NODE:
+                        element.appendChild(element.getOwnerDocument().createCDATASection((String) children[i]));
+                        break;
+                    default:
+                        element.appendChild(element.getOwnerDocument().createComment((String) children[i]));
+                        break;
+                }
+            }
+            return element;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import java.util.Set;
 
 import javax.faces.bean.ManagedBean;
 import javax.faces.bean.ViewScoped;
+import javax.faces.component.UIViewRoot;
 import javax.faces.context.FacesContext;
 
 /**
@@ -38,6 +39,8 @@ public class HeadResources implements Serializable {
 
     private static final long serialVersionUID = -1331702651238859745L;
 
+    private static final String BEAN_NAME = "headResources";
+
     private Set<String> ids = new HashSet<String>();
 
     public Set<String> getIds() {
@@ -46,6 +49,14 @@ public class HeadResources implements Serializable {
 
     public static HeadResources instance() {
         FacesContext context = FacesContext.getCurrentInstance();
-        return context.getApplication().evaluateExpressionGet(context, "#{headResources}", HeadResources.class);
+        // Look in the view map first, as creating the bean is the only thing that needs EL
+        UIViewRoot viewRoot = context.getViewRoot();
+        if (null != viewRoot) {
+            Object bean = viewRoot.getViewMap().get(BEAN_NAME);
+            if (bean instanceof HeadResources) {
+                return (HeadResources) bean;
+            }
+        }
+        return context.getApplication().evaluateExpressionGet(context, "#{" + BEAN_NAME + "}", HeadResources.class);
     }
 }
@@ -23,6 +23,7 @@ package org.jboss.portletbridge.renderkit.portlet;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -36,12 +37,14 @@ import javax.faces.context.FacesContext;
 import javax.faces.context.ResponseWriter;
 import javax.faces.render.Renderer;
 import javax.portlet.PortletRequest;
+import javax.portlet.PortletResponse;
 
 import org.jboss.portletbridge.bridge.context.BridgeContext;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger;
 import org.jboss.portletbridge.bridge.logger.BridgeLogger.Level;
 import org.jboss.portletbridge.bridge.logger.JULLoggerImpl;
 import org.jboss.portletbridge.util.RequestHelper;
+import org.w3c.dom.Element;
 
 /**
  * This class is a JSF renderer that is designed for use with the h:head component tag. Portlets are forbidden from rendering
@@ -70,7 +73,7 @@ public class PortletHeadRenderer extends Renderer {
      */
     @Override
     public void encodeBegin(FacesContext facesContext, UIComponent uiComponent) throws IOException {
-        logger.log(Level.INFO, "PortletHeadRenderer encodeBegin()");
+        logger.log(Level.DEBUG, "PortletHeadRenderer encodeBegin()");
 
         List<UIComponent> sortedHeadComponents = buildComponentAddSequence(uiComponent, facesContext);
 
@@ -79,9 +82,39 @@ public class PortletHeadRenderer extends Renderer {
 
         ExternalContext externalContext = facesContext.getExternalContext();
         PortletRequest portletRequest = (PortletRequest) externalContext.getRequest();
+        BridgeContext bridgeContext = BridgeContext.getCurrentInstance();
 
         boolean canMarkupHead = RequestHelper.canMarkupHead(portletRequest);
 
+        HeadResourceRegistry registry = null;
+        String registryKey = null;
+        List<String> cacheableIds = null;
+        if (canMarkupHead && bridgeContext.getBridgeConfig().isHeadResourceCacheEnabled()
+                && !facesContext.getPartialViewContext().isAjaxRequest()) {
+            cacheableIds = getCacheableResourceIds(sortedHeadComponents);
+            if (null != cacheableIds) {
+                registry = HeadResourceRegistry.getInstance(externalContext);
+                PortletResponse portletResponse = bridgeContext.getPortletResponse();
+                registryKey = HeadResourceRegistry.getKey(facesContext.getViewRoot().getViewId(),
+                        portletRequest.getPortletMode(), portletRequest.getWindowState(), portletResponse.getNamespace(),
+                        facesContext.getViewRoot().getLocale(), portletRequest.getPublicParameterMap());
+                HeadResourceRegistry.Entry cached = registry.get(registryKey, cacheableIds);
+                if (null != cached) {
+                    // Every resource goes to the head when it can be marked up and the request isn't Ajax
+                    cached.addTo(portletResponse);
+                    cached.restoreAttributes(facesContext.getAttributes());
+                    HeadResources headBean = HeadResources.instance();
+                    if (null != headBean) {
+                        headBean.getIds().addAll(cacheableIds);
+                    }
+                    return;
+                }
+                if (registry.isDynamic(registryKey)) {
+                    registry = null;
+                }
+            }
+        }
+
         HeadResources headBean = HeadResources.instance();
         Set<String> resourceIds = null != headBean ? headBean.getIds() : new HashSet<String>();
 
@@ -92,16 +125,34 @@ public class PortletHeadRenderer extends Renderer {
 
             ResponseWriter headWriter = (ResponseWriter) portletRequest.getAttribute("headWriter");
             if (null == headWriter) {
-                headWriter = new PortletHeadResponseWriter(existingWriter, BridgeContext.getCurrentInstance().getPortletResponse());
+                headWriter = new PortletHeadResponseWriter(existingWriter, bridgeContext.getPortletResponse());
             }
             portletRequest.setAttribute("headWriter", headWriter);
             facesContext.setResponseWriter(headWriter);
 
+            PortletHeadResponseWriter recordingWriter = null;
+            Map<Object, Object> attributesBefore = null;
+            if (null != registry && headWriter instanceof PortletHeadResponseWriter) {
+                recordingWriter = (PortletHeadResponseWriter) headWriter;
+                recordingWriter.startRecording();
+                attributesBefore = new HashMap<Object, Object>(facesContext.getAttributes());
+            }
+
             for (UIComponent headResource : addToHead) {
                 headResource.encodeAll(facesContext);
                 resourceIds.add(generateComponentId(headResource));
             }
 
+            if (null != recordingWriter) {
+                List<Element> elements = recordingWriter.stopRecording();
+                Map<Object, Object> attributesSet = getAttributesSet(attributesBefore, facesContext.getAttributes());
+                if (null != attributesSet) {
+                    registry.put(registryKey, cacheableIds, elements, attributesSet);
+                } else {
+                    registry.setDynamic(registryKey);
+                }
+            }
+
             facesContext.setResponseWriter(existingWriter);
         }
 
@@ -134,6 +185,40 @@ public class PortletHeadRenderer extends Renderer {
         }
     }
 
+    /**
+     * Returns the ids of components, if each of them renders a named resource whose markup doesn't depend on the
+     * request, otherwise <code>null</code>.
+     */
+    protected List<String> getCacheableResourceIds(List<UIComponent> components) {
+        List<String> ids = new ArrayList<String>(components.size());
+        for (UIComponent component : components) {
+            if (null == component.getAttributes().get("name") || component.getChildCount() > 0) {
+                return null;
+            }
+            ids.add(generateComponentId(component));
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the Faces context attributes that were added or changed to an immutable value, or <code>null</code> if
+     * any other value was set, as it could not be reused for another request.
+     */
+    private Map<Object, Object> getAttributesSet(Map<Object, Object> before, Map<Object, Object> after) {
+        Map<Object, Object> set = new HashMap<Object, Object>();
+        for (Map.Entry<Object, Object> attribute : after.entrySet()) {
+            Object value = attribute.getValue();
+            if (before.containsKey(attribute.getKey()) && before.get(attribute.getKey()) == value) {
+                continue;
+            }
+            if (!(value instanceof Boolean || value instanceof String || value instanceof Number)) {
+                return null;
+            }
+            set.put(attribute.getKey(), value);
+        }
+        return set;
+    }
+
     protected String generateComponentId(UIComponent component) {
         StringBuilder id = new StringBuilder();
         Map<String, Object> attributes = component.getAttributes();
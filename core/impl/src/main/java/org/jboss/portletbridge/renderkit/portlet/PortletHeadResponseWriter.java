@@ -33,8 +33,9 @@ import javax.faces.context.ResponseWriterWrapper;
 import javax.portlet.MimeResponse;
 import javax.portlet.PortletResponse;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 /**
@@ -46,12 +47,23 @@ public class PortletHeadResponseWriter extends ResponseWriterWrapper {
     PortletResponse response;
 
     private Stack<Element> elements;
+
+    /**
+     * Text written to each open element since its last child, by depth. Builders are reused for later elements.
+     */
+    private List<StringBuilder> texts;
     private boolean preventSelfClosing = false;
 
+    /**
+     * Head elements added to the response while recording, otherwise null.
+     */
+    private List<Element> recorded;
+
     public PortletHeadResponseWriter(ResponseWriter parent, PortletResponse portletResponse) {
         this.wrapped = parent;
         this.response = portletResponse;
         this.elements = new Stack<Element>();
+        this.texts = new ArrayList<StringBuilder>();
         this.preventSelfClosing = BridgeContext.getCurrentInstance().getBridgeConfig().doPreventSelfClosingScriptTag();
     }
 
@@ -65,11 +77,18 @@ public class PortletHeadResponseWriter extends ResponseWriterWrapper {
 
     @Override
     public void startElement(String name, UIComponent component) throws IOException {
+        if (!elements.isEmpty()) {
+            materializeText();
+        }
         elements.push(response.createElement(name));
+        if (texts.size() < elements.size()) {
+            texts.add(new StringBuilder());
+        }
     }
 
     @Override
     public void endElement(String name) throws IOException {
+        materializeText();
         if (elements.size() > 1) {
             Element child = elements.pop();
             elements.peek().appendChild(child);
@@ -104,12 +123,55 @@ public class PortletHeadResponseWriter extends ResponseWriterWrapper {
                 }
             }
             response.addProperty(MimeResponse.MARKUP_HEAD_ELEMENT, elem);
+            if (null != recorded) {
+                recorded.add(elem);
+            }
+        }
+    }
+
+    /**
+     * Starts keeping the head elements that are added to the response.
+     *
+     * @since 3.3.5
+     */
+    public void startRecording() {
+        recorded = new ArrayList<Element>();
+    }
+
+    /**
+     * @return head elements added to the response since {@link #startRecording()}
+     * @since 3.3.5
+     */
+    public List<Element> stopRecording() {
+        List<Element> result = recorded;
+        recorded = null;
+        return result;
+    }
+
+    /**
+     * Returns the builder for text of the current element.
+     */
+    private StringBuilder text() {
+        if (elements.isEmpty()) {
+            throw new IllegalStateException("No element is open");
+        }
+        return texts.get(elements.size() - 1);
+    }
+
+    /**
+     * Adds the text written to the current element since its last child as a text node.
+     */
+    private void materializeText() {
+        StringBuilder text = text();
+        if (text.length() > 0) {
+            Element elem = elements.peek();
+            elem.appendChild(elem.getOwnerDocument().createTextNode(text.toString()));
+            text.setLength(0);
         }
     }
 
     private void append(String content) {
-        Element elem = elements.peek();
-        elem.setTextContent(elem.getTextContent() + content);
+        text().append(content);
     }
 
     @Override
@@ -154,40 +216,30 @@ public class PortletHeadResponseWriter extends ResponseWriterWrapper {
 
     @Override
     public Writer append(char c) throws IOException {
-        StringWriter writer = new StringWriter();
-        writer.write(c);
-        append(writer.getBuffer().toString());
+        text().append(c);
         return this;
     }
 
     @Override
     public Writer append(CharSequence csq, int start, int end) throws IOException {
-        StringWriter writer = new StringWriter();
-        writer.append(csq, start, end);
-        append(writer.getBuffer().toString());
+        text().append(null == csq ? "null" : csq, start, end);
         return this;
     }
 
     @Override
     public Writer append(CharSequence csq) throws IOException {
-        StringWriter writer = new StringWriter();
-        writer.append(csq);
-        append(writer.getBuffer().toString());
+        text().append(csq);
         return this;
     }
 
     @Override
     public void write(int c) throws IOException {
-        StringWriter writer = new StringWriter();
-        writer.write(c);
-        append(writer.getBuffer().toString());
+        text().append((char) c);
     }
 
     @Override
     public void write(char[] cbuf) throws IOException {
-        StringWriter writer = new StringWriter();
-        writer.write(cbuf);
-        append(writer.getBuffer().toString());
+        text().append(cbuf);
     }
 
     @Override
@@ -199,16 +251,12 @@ public class PortletHeadResponseWriter extends ResponseWriterWrapper {
 
     @Override
     public void write(String str, int off, int len) throws IOException {
-        StringWriter writer = new StringWriter();
-        writer.write(str, off, len);
-        append(writer.getBuffer().toString());
+        text().append(str, off, off + len);
     }
 
     @Override
     public void write(char[] cbuf, int off, int len) throws IOException {
-        StringWriter writer = new StringWriter();
-        writer.write(cbuf, off, len);
-        append(writer.getBuffer().toString());
+        text().append(cbuf, off, len);
     }
 
 }
@@ -27,12 +27,16 @@ import javax.faces.component.UIComponent;
 import javax.faces.context.ResponseWriter;
 import javax.faces.context.ResponseWriterWrapper;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.Writer;
 
 /**
  * Portlet specific writer to be able to convert <code>&amp;</code>
  * to <code>&</code> within the generated url, as <code>&amp;</code> is unable to be interpreted
  * in a partial response and the script fails to load.
+ * <p>
+ * Markup is written to the wrapped writer piece by piece, and encoded urls are unescaped as they are written, so no
+ * intermediate strings are built.
+ * </p>
  *
  * @author <a href="http://community.jboss.org/people/kenfinni">Ken Finnigan</a>
  */
@@ -40,6 +44,8 @@ public class PortletPartialResponseWriter extends ResponseWriterWrapper {
 
     private ResponseWriter wrappedResponseWriter;
 
+    private char[] urlBuffer;
+
     public PortletPartialResponseWriter(ResponseWriter writer) {
         this.wrappedResponseWriter = writer;
     }
@@ -51,37 +57,125 @@ public class PortletPartialResponseWriter extends ResponseWriterWrapper {
 
     @Override
     public void endElement(String name) throws IOException {
-        super.write("></" + name + ">");
+        super.write("></");
+        super.write(name);
+        super.write('>');
     }
 
     @Override
     public void startElement(String name, UIComponent component) throws IOException {
-        super.write("<" + name);
+        super.write('<');
+        super.write(name);
     }
 
     @Override
     public void writeAttribute(String name, Object value, String property) throws IOException {
-        super.write(" " + name + "=\"" + value + "\"");
+        super.write(' ');
+        super.write(name);
+        super.write("=\"");
+        super.write(String.valueOf(value));
+        super.write('"');
     }
 
     @Override
     public void writeURIAttribute(String name, Object value, String property) throws IOException {
         if (value != null && (value instanceof String)) {
-            StringWriter writer = new StringWriter();
             String url = (String) value;
-            char[] buff = new char[url.length() * 2];
+            if (null == urlBuffer || urlBuffer.length < url.length()) {
+                urlBuffer = new char[url.length() * 2];
+            }
+
+            super.write(' ');
+            super.write(name);
+            super.write("=\"");
+            Writer unescaping = new AmpersandUnescapingWriter(wrappedResponseWriter);
+            HtmlUtils.writeURL(unescaping, url, urlBuffer, wrappedResponseWriter.getCharacterEncoding());
+            unescaping.flush();
+            super.write('"');
+        } else {
+            super.writeURIAttribute(name, value, property);
+        }
+    }
 
-            HtmlUtils.writeURL(writer, url, buff , wrappedResponseWriter.getCharacterEncoding());
+    /**
+     * Writes <code>&amp;amp;</code> through as <code>&amp;</code>, holding back a partial match between writes.
+     */
+    static final class AmpersandUnescapingWriter extends Writer {
 
-            writer.flush();
+        private static final char[] ESCAPED = "&amp;".toCharArray();
 
-            String encodedUrl = writer.toString();
-            if (encodedUrl != null) {
-                encodedUrl = encodedUrl.replaceAll("[&]amp;", "&");
-                writeAttribute(name, encodedUrl, property);
+        private final Writer target;
+
+        private int matched;
+
+        AmpersandUnescapingWriter(Writer target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            int end = off + len;
+            int start = off;
+            for (int i = off; i < end; i++) {
+                char c = cbuf[i];
+                if (c == ESCAPED[matched]) {
+                    if (0 == matched && i > start) {
+                        target.write(cbuf, start, i - start);
+                    }
+                    start = i + 1;
+                    if (++matched == ESCAPED.length) {
+                        target.write('&');
+                        matched = 0;
+                    }
+                } else if (matched > 0) {
+                    // '&' does not occur again in the escape, so the partial match is released as a whole
+                    target.write(ESCAPED, 0, matched);
+                    matched = 0;
+                    start = i;
+                    i--;
+                }
             }
-        } else {
-            super.writeURIAttribute(name, value, property);
+            if (end > start) {
+                target.write(cbuf, start, end - start);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                write(str.charAt(i));
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (c == ESCAPED[matched]) {
+                if (++matched == ESCAPED.length) {
+                    target.write('&');
+                    matched = 0;
+                }
+            } else {
+                if (matched > 0) {
+                    target.write(ESCAPED, 0, matched);
+                    matched = 0;
+                    write(c);
+                    return;
+                }
+                target.write(c);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (matched > 0) {
+                target.write(ESCAPED, 0, matched);
+                matched = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
         }
     }
 }
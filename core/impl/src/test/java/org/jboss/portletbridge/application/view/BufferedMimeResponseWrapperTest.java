@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.application.view;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.portlet.RenderResponse;
+
+import junit.framework.TestCase;
+
+public class BufferedMimeResponseWrapperTest extends TestCase {
+
+    private StringWriter content;
+    private BufferedRenderResponseWrapper wrapper;
+
+    @Override
+    protected void setUp() throws Exception {
+        content = new StringWriter();
+        final PrintWriter writer = new PrintWriter(content);
+        RenderResponse response = (RenderResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { RenderResponse.class }, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getWriter".equals(method.getName())) {
+                            return writer;
+                        }
+                        return null;
+                    }
+                });
+        wrapper = new BufferedRenderResponseWrapper(response);
+        wrapper.setBufferLimit(16);
+    }
+
+    public void testContentIsStreamedPastLimit() throws Exception {
+        PrintWriter writer = wrapper.getWriter();
+        writer.write("0123456789");
+        assertEquals("", content.toString());
+
+        writer.write("abcdefghij");
+        writer.flush();
+        assertEquals("0123456789abcdefghij", content.toString());
+
+        writer.write("klm");
+        wrapper.flushMarkupToWrappedResponse();
+        assertEquals("0123456789abcdefghijklm", content.toString());
+    }
+
+    public void testWriteBehindMarkupIsSpilledPastLimit() throws Exception {
+        PrintWriter writer = wrapper.getWriter();
+        writer.write("before");
+        wrapper.flushContentToWrappedResponse();
+        assertEquals("before", content.toString());
+
+        writer.write("after the view, past the limit");
+        writer.println();
+        assertEquals("before", content.toString());
+        assertEquals("after the view, past the limit" + System.getProperty("line.separator"),
+                new String(wrapper.getChars()));
+
+        wrapper.resetBuffers();
+        writer.write("again");
+        assertEquals("again", new String(wrapper.getChars()));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.application.view;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+public class StateMarkerWriterTest extends TestCase {
+
+    private static final String MARKER = "~marker~";
+
+    private StringWriter target;
+    private StateMarkerWriter writer;
+
+    @Override
+    protected void setUp() throws Exception {
+        target = new StringWriter();
+        writer = new StateMarkerWriter(target, MARKER) {
+            @Override
+            protected void writeState() throws IOException {
+                target.write("STATE");
+            }
+        };
+    }
+
+    public void testContentWithoutMarkerIsForwarded() throws Exception {
+        writer.write("<html>~mark");
+        assertEquals("<html>", target.toString());
+        writer.write("<body/></html>");
+        assertEquals("<html>~mark<body/></html>", target.toString());
+
+        writer.finish();
+        assertEquals("<html>~mark<body/></html>", target.toString());
+    }
+
+    public void testContentAfterMarkerIsDeferred() throws Exception {
+        writer.write("<form>~mar");
+        writer.write("ker~</form><form>".toCharArray());
+        assertEquals("<form>", target.toString());
+        writer.write(MARKER + "</form>");
+
+        writer.finish();
+        assertEquals("<form>STATE</form><form>STATE</form>", target.toString());
+    }
+
+    public void testOverlappingPartialMatch() throws Exception {
+        writer.write("a~~m");
+        writer.write("~marker~b~");
+
+        writer.finish();
+        assertEquals("a~~mSTATEb~", target.toString());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.bridge.config;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class FacesServletMappingMatcherTest extends TestCase {
+
+    public void testSuffixMappingFirst() throws Exception {
+        FacesServletMappingMatcher matcher = new FacesServletMappingMatcher(Arrays.asList("*.jsf", "/faces/*"),
+                Arrays.asList(".xhtml"), 0);
+
+        assertEquals(".jsf", matcher.getDefaultExtension());
+        assertNull(matcher.getDefaultPrefix());
+        assertEquals("/faces", matcher.getPrefix("/faces/home.xhtml"));
+        assertNull(matcher.getPrefix("/home.jsf"));
+    }
+
+    public void testPrefixMappingFirst() throws Exception {
+        FacesServletMappingMatcher matcher = new FacesServletMappingMatcher(Arrays.asList("/faces/*", "*.jsf"),
+                Arrays.asList(".xhtml"), 0);
+
+        assertEquals("/faces", matcher.getDefaultPrefix());
+        assertNull(matcher.getDefaultExtension());
+    }
+
+    public void testExtensionMapped() throws Exception {
+        FacesServletMappingMatcher matcher = new FacesServletMappingMatcher(Arrays.asList("*.jsf", "*.faces"),
+                Arrays.asList(".xhtml"), 0);
+
+        assertTrue(matcher.isExtensionMapped("/home.jsf"));
+        assertTrue(matcher.isExtensionMapped("/home.faces?a=b.c"));
+        assertFalse(matcher.isExtensionMapped("/home.xhtml"));
+        assertFalse(matcher.isExtensionMapped("/dir.jsf/home"));
+        assertEquals(".faces", matcher.getMatchingExtension("/home.faces"));
+        assertEquals("jsf.js", matcher.removeExtension("jsf.js.jsf"));
+        assertEquals("jsf.js", matcher.removeExtension("jsf.js"));
+    }
+}
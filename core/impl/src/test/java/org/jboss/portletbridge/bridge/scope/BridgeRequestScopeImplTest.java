@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.bridge.scope;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.faces.FactoryFinder;
+import javax.portlet.PortletConfig;
+import javax.portlet.PortletContext;
+import javax.portlet.faces.annotation.BridgePreDestroy;
+
+import junit.framework.TestCase;
+
+import org.jboss.portletbridge.bridge.config.BridgeConfig;
+import org.jboss.portletbridge.bridge.config.BridgeConfigImpl;
+import org.jboss.portletbridge.bridge.context.BridgeContextImpl;
+import org.jboss.portletbridge.bridge.factory.BridgeFactoryFinder;
+import org.jboss.portletbridge.bridge.factory.BridgeLoggerFactory;
+import org.jboss.portletbridge.bridge.factory.BridgeLoggerFactoryImpl;
+import org.jboss.portletbridge.config.BridgeConfigIndex;
+import org.jboss.portletbridge.context.BridgeContextTest;
+
+public class BridgeRequestScopeImplTest extends TestCase {
+
+    private final List<String> calls = new ArrayList<String>();
+
+    private BridgeRequestScopeImpl scope;
+
+    @Override
+    protected void setUp() throws Exception {
+        BridgeFactoryFinder.addFactoryInstance(BridgeLoggerFactory.class, new BridgeLoggerFactoryImpl());
+        scope = new BridgeRequestScopeImpl("portlet", "session", "/view.xhtml", "view");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        TestBridgeContext.clear();
+        FactoryFinder.releaseFactories();
+    }
+
+    public void testPreDestroyOnRemove() throws Exception {
+        scope.put("bean", new Bean());
+        assertTrue(calls.isEmpty());
+
+        scope.remove("bean");
+
+        assertEquals(1, calls.size());
+        assertEquals("destroy", calls.get(0));
+    }
+
+    public void testPreDestroyOnReplace() throws Exception {
+        scope.put("bean", new Bean());
+        scope.put("bean", new Bean());
+        assertEquals(1, calls.size());
+
+        scope.replace("bean", new Bean());
+        assertEquals(2, calls.size());
+    }
+
+    public void testPreDestroyOnClear() throws Exception {
+        scope.put("first", new Bean());
+        scope.put("second", new Bean());
+        scope.put("other", "value");
+
+        scope.clear();
+
+        assertEquals(2, calls.size());
+        assertTrue(scope.isEmpty());
+    }
+
+    public void testPreDestroyFromIndex() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("classes", Bean.class.getName());
+        properties.setProperty("bridge-pre-destroy." + Bean.class.getName(), "notAnnotated");
+        setIndex(properties);
+
+        scope.put("bean", new Bean());
+        scope.remove("bean");
+
+        // The index decides, without looking at the annotations again
+        assertEquals(1, calls.size());
+        assertEquals("notAnnotated", calls.get(0));
+    }
+
+    public void testUnindexedClassReflected() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("classes", String.class.getName());
+        setIndex(properties);
+
+        scope.put("bean", new Bean());
+        scope.remove("bean");
+
+        assertEquals(1, calls.size());
+        assertEquals("destroy", calls.get(0));
+    }
+
+    private void setIndex(Properties properties) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        properties.store(bytes, null);
+        final byte[] content = bytes.toByteArray();
+        PortletContext portletContext = (PortletContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { PortletContext.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if ("getResourceAsStream".equals(method.getName())
+                        && ((String) args[0]).endsWith(BridgeConfigIndex.CLASSPATH_RESOURCE)) {
+                        return new ByteArrayInputStream(content);
+                    }
+                    return null;
+                }
+            });
+
+        BridgeConfig bridgeConfig = new BridgeConfigImpl();
+        bridgeConfig.setPortletConfig((PortletConfig) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { PortletConfig.class }, new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    return null;
+                }
+            }));
+        bridgeConfig.getAttributes().put(BridgeConfigIndex.ATTRIBUTE_NAME, BridgeConfigIndex.getInstance(portletContext));
+        FactoryFinder.setFactory(FactoryFinder.APPLICATION_FACTORY, BridgeContextTest.TestAppFactory.class.getName());
+        new TestBridgeContext(bridgeConfig);
+    }
+
+    public class Bean {
+        @BridgePreDestroy
+        public void destroy() {
+            calls.add("destroy");
+        }
+
+        @BridgePreDestroy
+        public String notVoid() {
+            calls.add("notVoid");
+            return null;
+        }
+
+        @BridgePreDestroy
+        public void withArgument(String value) {
+            calls.add("withArgument");
+        }
+
+        public void notAnnotated() {
+            calls.add("notAnnotated");
+        }
+    }
+
+    static class TestBridgeContext extends BridgeContextImpl {
+        TestBridgeContext(BridgeConfig bridgeConfig) {
+            super(bridgeConfig);
+        }
+
+        static void clear() {
+            setCurrentInstance(null);
+        }
+    }
+}
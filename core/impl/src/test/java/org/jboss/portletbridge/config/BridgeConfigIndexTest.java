@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+import org.jboss.portletbridge.bridge.factory.BridgeConfigFactory;
+
+public class BridgeConfigIndexTest extends TestCase {
+
+    public void testWebXml() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(BridgeConfigIndex.FACES_SERVLET_MAPPINGS, "/faces/*,*.jsf");
+        properties.setProperty(BridgeConfigIndex.ERROR_PAGE_PREFIX + "java.io.IOException", "/faces/error.xhtml");
+
+        BridgeConfigIndex index = new BridgeConfigIndex(properties);
+
+        assertEquals(Arrays.asList("/faces/*", "*.jsf"), index.getFacesServletMappings());
+        assertEquals("/faces/error.xhtml", index.getErrorPages().get("java.io.IOException"));
+        assertNull(index.getFacesConfig());
+    }
+
+    public void testFacesConfig() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(BridgeConfigIndex.FACES_CONFIG_PRESENT, "true");
+        properties.setProperty(BridgeConfigIndex.EXCLUDED_ATTRIBUTES, "foo.bar,foo.baz.*");
+        properties.setProperty(BridgeConfigIndex.PUBLIC_PARAMETER_PREFIX + "AnotherPortlet:name", "AnotherUser.name");
+        properties.setProperty(BridgeConfigIndex.FACTORY_PREFIX + BridgeConfigFactory.class.getName(), "foo.ConfigFactory");
+
+        FacesConfigProcessor.ParsedDocument document = new BridgeConfigIndex(properties).getFacesConfig();
+
+        assertNull(new BridgeConfigIndex(new Properties()).getFacesServletMappings());
+        assertEquals(Arrays.asList("foo.bar", "foo.baz.*"), document.getExcludedAttributes());
+        assertEquals("AnotherUser.name", document.getParameterMapping().get("AnotherPortlet:name"));
+        assertEquals(Arrays.asList("foo.ConfigFactory"), document.getFactoryDefinitions().get(BridgeConfigFactory.class));
+        assertNull(document.getRenderResponseWrapper());
+    }
+
+    public void testPreDestroyMethods() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(BridgeConfigIndex.CLASSES, String.class.getName() + "," + Integer.class.getName());
+        properties.setProperty(BridgeConfigIndex.PRE_DESTROY_PREFIX + Integer.class.getName(), "destroy");
+
+        BridgeConfigIndex index = new BridgeConfigIndex(properties);
+
+        assertTrue(index.isIndexed(String.class));
+        assertFalse(index.isIndexed(Long.class));
+        assertTrue(index.getPreDestroyMethods(String.class).isEmpty());
+        assertEquals(Arrays.asList("destroy"), index.getPreDestroyMethods(Integer.class));
+    }
+}
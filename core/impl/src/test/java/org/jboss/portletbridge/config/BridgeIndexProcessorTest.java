@@ -0,0 +1,281 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import javax.portlet.faces.annotation.BridgePreDestroy;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import junit.framework.TestCase;
+
+public class BridgeIndexProcessorTest extends TestCase {
+
+    private static final String SAMPLE_SOURCE = "package sample;\n"
+        + "import javax.portlet.faces.annotation.BridgePreDestroy;\n"
+        + "public class Bean {\n"
+        + "    @BridgePreDestroy public void destroy() {}\n"
+        + "    @BridgePreDestroy public String notVoid() { return null; }\n"
+        + "    @BridgePreDestroy public void withArgument(String value) {}\n"
+        + "    @BridgePreDestroy void notPublic() {}\n"
+        + "    public void notAnnotated() {}\n"
+        + "    public static class Nested {\n"
+        + "        @BridgePreDestroy public void release() {}\n"
+        + "    }\n"
+        + "}\n";
+
+    private File directory;
+    private File webapp;
+    private File classes;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = File.createTempFile("bridge-index", "");
+        directory.delete();
+        webapp = new File(directory, "webapp");
+        classes = new File(directory, "classes");
+        new File(webapp, "WEB-INF").mkdirs();
+        classes.mkdirs();
+
+        copy("/test-web.xml", new File(webapp, "WEB-INF/web.xml"));
+        copy("/test/WEB-INF/faces-config-params.xml", new File(webapp, "WEB-INF/faces-config.xml"));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(directory);
+    }
+
+    public void testIndex() throws Exception {
+        Properties index = compile();
+        if (null == index) {
+            return;
+        }
+
+        assertEquals("sample.Bean,sample.Bean$Nested", index.getProperty(BridgeConfigIndex.CLASSES));
+        assertEquals("destroy", index.getProperty(BridgeConfigIndex.PRE_DESTROY_PREFIX + "sample.Bean"));
+        assertEquals("release", index.getProperty(BridgeConfigIndex.PRE_DESTROY_PREFIX + "sample.Bean$Nested"));
+
+        assertEquals("/faces/*,*.jsf", index.getProperty(BridgeConfigIndex.FACES_SERVLET_MAPPINGS));
+        assertEquals("/faces/error.xhtml",
+            index.getProperty(BridgeConfigIndex.ERROR_PAGE_PREFIX + "javax.servlet.ServletException"));
+        assertEquals(Long.toString(new File(webapp, "WEB-INF/web.xml").length()),
+            index.getProperty(BridgeConfigIndex.WEB_XML_FINGERPRINT + BridgeConfigIndex.SIZE_SUFFIX));
+        assertEquals(40, index.getProperty(BridgeConfigIndex.WEB_XML_FINGERPRINT + BridgeConfigIndex.HASH_SUFFIX)
+            .length());
+
+        assertEquals("true", index.getProperty(BridgeConfigIndex.FACES_CONFIG_PRESENT));
+        assertEquals("AnotherUser.name",
+            index.getProperty(BridgeConfigIndex.PUBLIC_PARAMETER_PREFIX + "AnotherPortlet:name"));
+        assertNotNull(index.getProperty(BridgeConfigIndex.FACES_CONFIG_FINGERPRINT + BridgeConfigIndex.HASH_SUFFIX));
+    }
+
+    public void testCurrentDescriptorsRead() throws Exception {
+        Properties index = compile();
+        if (null == index) {
+            return;
+        }
+
+        BridgeConfigIndex.removeStale(index, new WebappResources());
+        BridgeConfigIndex configIndex = new BridgeConfigIndex(index);
+
+        assertEquals(Arrays.asList("/faces/*", "*.jsf"), configIndex.getFacesServletMappings());
+        assertEquals(2, configIndex.getErrorPages().size());
+        assertEquals(3, configIndex.getFacesConfig().getParameterMapping().size());
+    }
+
+    public void testChangedDescriptorsParsed() throws Exception {
+        Properties index = compile();
+        if (null == index) {
+            return;
+        }
+
+        // Same size, other content
+        File webXml = new File(webapp, "WEB-INF/web.xml");
+        String content = read(webXml).replace("*.jsf", "*.jsp");
+        write(content, webXml);
+        File facesConfig = new File(webapp, "WEB-INF/faces-config.xml");
+        write(read(facesConfig) + "\n", facesConfig);
+
+        BridgeConfigIndex.removeStale(index, new WebappResources());
+        BridgeConfigIndex configIndex = new BridgeConfigIndex(index);
+
+        assertNull(configIndex.getFacesServletMappings());
+        assertTrue(configIndex.getErrorPages().isEmpty());
+        assertNull(configIndex.getFacesConfig());
+        assertEquals("destroy", index.getProperty(BridgeConfigIndex.PRE_DESTROY_PREFIX + "sample.Bean"));
+    }
+
+    public void testAddedFacesConfigParsed() throws Exception {
+        File facesConfig = new File(webapp, "WEB-INF/faces-config.xml");
+        String content = read(facesConfig);
+        facesConfig.delete();
+        Properties index = compile();
+        if (null == index) {
+            return;
+        }
+        assertEquals("false", index.getProperty(BridgeConfigIndex.FACES_CONFIG_PRESENT));
+
+        Properties unchanged = new Properties();
+        unchanged.putAll(index);
+        BridgeConfigIndex.removeStale(unchanged, new WebappResources());
+        assertNotNull(new BridgeConfigIndex(unchanged).getFacesConfig());
+
+        write(content, facesConfig);
+        BridgeConfigIndex.removeStale(index, new WebappResources());
+        assertNull(new BridgeConfigIndex(index).getFacesConfig());
+    }
+
+    public void testIndexWithoutFingerprintsParsed() throws Exception {
+        Properties index = new Properties();
+        index.setProperty(BridgeConfigIndex.FACES_SERVLET_MAPPINGS, "/faces/*");
+        index.setProperty(BridgeConfigIndex.FACES_CONFIG_PRESENT, "true");
+
+        BridgeConfigIndex.removeStale(index, new WebappResources());
+
+        assertTrue(index.isEmpty());
+    }
+
+    /**
+     * Runs the processor over {@link #SAMPLE_SOURCE} and the descriptors of the web application.
+     *
+     * @return the index written, or null if no compiler is available.
+     */
+    private Properties compile() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (null == compiler) {
+            return null;
+        }
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            String classpath = new File(BridgePreDestroy.class.getProtectionDomain().getCodeSource().getLocation()
+                .toURI()).getPath();
+            List<String> options = Arrays.asList("-classpath", classpath, "-d", classes.getPath(), "-proc:only",
+                "-A" + BridgeIndexProcessor.WEBAPP_OPTION + "=" + webapp.getPath());
+            JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///sample/Bean.java"),
+                JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return SAMPLE_SOURCE;
+                }
+            };
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+            JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, diagnostics, options,
+                null, Collections.singletonList(source));
+            task.setProcessors(Collections.singletonList(new BridgeIndexProcessor()));
+            assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                assertFalse(diagnostic.toString(), Diagnostic.Kind.WARNING == diagnostic.getKind());
+            }
+        } finally {
+            fileManager.close();
+        }
+
+        Properties index = new Properties();
+        InputStream inputStream = new FileInputStream(new File(classes, BridgeConfigIndex.CLASSPATH_RESOURCE));
+        try {
+            index.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        return index;
+    }
+
+    private class WebappResources implements BridgeConfigIndex.Resources {
+        public InputStream getResourceAsStream(String path) {
+            try {
+                return new FileInputStream(new File(webapp, path));
+            } catch (FileNotFoundException e) {
+                return null;
+            }
+        }
+    }
+
+    private void copy(String resource, File file) throws IOException {
+        InputStream inputStream = getClass().getResourceAsStream(resource);
+        try {
+            OutputStream outputStream = new FileOutputStream(file);
+            try {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            byte[] content = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < content.length) {
+                offset += inputStream.read(content, offset, content.length - offset);
+            }
+            return new String(content, "UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static void write(String content, File file) throws IOException {
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (null != children) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
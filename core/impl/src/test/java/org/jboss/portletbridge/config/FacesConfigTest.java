@@ -21,11 +21,19 @@
  */
 package org.jboss.portletbridge.config;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
 
 import junit.framework.TestCase;
 
+import org.jboss.portletbridge.config.FacesConfigProcessor.ParsedDocument;
+import org.jboss.portletbridge.config.FacesConfigProcessor.ParsingLocation;
+import org.xml.sax.InputSource;
+
 /**
  * @author asmirnov
  *
@@ -41,9 +49,9 @@ public class FacesConfigTest extends TestCase {
         InputStream facesConfigResource = this.getClass().getResourceAsStream("/test/WEB-INF/faces-config.xml");
         FacesConfigProcessor config = new FacesConfigProcessor();
         config.parse(facesConfigResource, FacesConfigProcessor.ParsingLocation.DEFAULT);
-        assertEquals(2, FacesConfigProcessor.getExcludedAttributes().size());
-        assertTrue(FacesConfigProcessor.getExcludedAttributes().contains("foo.bar"));
-        assertTrue(FacesConfigProcessor.getExcludedAttributes().contains("foo.baz.*"));
+        assertEquals(2, config.getExcludedAttributes().size());
+        assertTrue(config.getExcludedAttributes().contains("foo.bar"));
+        assertTrue(config.getExcludedAttributes().contains("foo.baz.*"));
     }
 
     /**
@@ -55,10 +63,51 @@ public class FacesConfigTest extends TestCase {
         InputStream facesConfigResource = this.getClass().getResourceAsStream("/test/WEB-INF/faces-config-params.xml");
         FacesConfigProcessor config = new FacesConfigProcessor();
         config.parse(facesConfigResource, FacesConfigProcessor.ParsingLocation.DEFAULT);
-        Map<String, String> mapping = FacesConfigProcessor.getPublicParameterMappings();
+        Map<String, String> mapping = config.getPublicParameterMappings();
         assertEquals(3, mapping.size());
         assertEquals("UserBean.lastName", mapping.get("name"));
         assertEquals("AnotherUser.name", mapping.get("AnotherPortlet:name"));
     }
 
+    public void testExtensionElementsPreCheck() throws Exception {
+        assertTrue(FacesConfigProcessor.hasExtensionElements(readResource("/test/WEB-INF/faces-config.xml")));
+        assertFalse(FacesConfigProcessor.hasExtensionElements("<faces-config><application/></faces-config>"
+            .getBytes("UTF-8")));
+        // Can't be checked without decoding
+        assertTrue(FacesConfigProcessor.hasExtensionElements("<faces-config/>".getBytes("UTF-16")));
+    }
+
+    public void testCachedDocuments() throws Exception {
+        File cacheFile = File.createTempFile("faces-config", ".cache");
+        try {
+            ParsedDocument document = FacesConfigProcessor.parseDocument(new InputSource(new ByteArrayInputStream(
+                readResource("/test/WEB-INF/faces-config-params.xml"))), 42);
+            String key = "jar:file:/a.jar!/META-INF/faces-config.xml";
+            FacesConfigProcessor.writeCache(cacheFile, Collections.singletonMap(key, document));
+
+            Map<String, ParsedDocument> cache = FacesConfigProcessor.readCache(cacheFile);
+            FacesConfigProcessor config = new FacesConfigProcessor();
+            config.apply(cache.get(key), ParsingLocation.CLASSPATH);
+            assertEquals(3, config.getPublicParameterMappings().size());
+            assertEquals("UserBean.lastName", config.getPublicParameterMappings().get("name"));
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+    private byte[] readResource(String name) throws Exception {
+        InputStream inputStream = this.getClass().getResourceAsStream(name);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+
 }
@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.portlet.PortletContext;
+import javax.servlet.ServletContext;
+
+import junit.framework.TestCase;
+
+public class StartupReportTest extends TestCase {
+
+    public void testSteps() throws Exception {
+        StartupReport report = new StartupReport("test", "/test");
+
+        report.start(StartupReport.APPLICATION, "web.xml").stop();
+        StartupReport.Timer init = report.start("portlet", "init");
+        report.start("portlet", "config").stop();
+        init.stop();
+
+        String[] steps = report.getSteps();
+        assertEquals(3, steps.length);
+        assertTrue(steps[0], steps[0].matches("application/web\\.xml=\\d+\\.\\dms(/\\d+KB)?"));
+        assertTrue(steps[1], steps[1].startsWith("portlet/config="));
+        assertTrue(steps[2], steps[2].startsWith("portlet/init="));
+    }
+
+    public void testAllocationsWithHotSpotThreadBean() throws Exception {
+        boolean hotSpot;
+        try {
+            hotSpot = Class.forName("com.sun.management.ThreadMXBean").isInstance(ManagementFactory.getThreadMXBean());
+        } catch (ClassNotFoundException e) {
+            hotSpot = false;
+        }
+        StartupReport report = new StartupReport("test", "/test");
+        report.start(StartupReport.APPLICATION, "web.xml").stop();
+
+        // Other JVMs only report the time of each step
+        assertEquals(hotSpot, report.getSteps()[0].endsWith("KB"));
+    }
+
+    public void testSummary() throws Exception {
+        StartupReport report = new StartupReport(null, null);
+
+        report.start("portlet", "init").stop();
+        report.start(StartupReport.APPLICATION, "faces-config.xml").stop();
+
+        String[] lines = report.getSummary().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0], lines[0].startsWith("application [faces-config.xml="));
+        assertTrue(lines[1], lines[1].startsWith("portlet [init="));
+    }
+
+    public void testObjectNameFromContextPath() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        StartupReport first = StartupReport.getInstance(createContext(ServletContext.class, "/first"));
+        StartupReport second = StartupReport.getInstance(createContext(ServletContext.class, "/second"));
+        try {
+            assertEquals("\"/first\"", first.getObjectName().getKeyProperty("context"));
+            assertEquals("\"/second\"", second.getObjectName().getKeyProperty("context"));
+            assertTrue(server.isRegistered(second.getObjectName()));
+
+            ObjectName name = first.getObjectName();
+            first.unregister();
+            assertFalse(server.isRegistered(name));
+            assertTrue(server.isRegistered(second.getObjectName()));
+        } finally {
+            first.unregister();
+            second.unregister();
+        }
+    }
+
+    public void testObjectNameWithoutContextPath() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        StartupReport first = StartupReport.getInstance(createContext(PortletContext.class, null));
+        StartupReport second = StartupReport.getInstance(createContext(PortletContext.class, null));
+        try {
+            assertFalse(first.getObjectName().equals(second.getObjectName()));
+            assertTrue(server.isRegistered(first.getObjectName()));
+            assertTrue(server.isRegistered(second.getObjectName()));
+        } finally {
+            first.unregister();
+            second.unregister();
+        }
+    }
+
+    private static <T> T createContext(Class<T> type, final String contextPath) {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        return type.cast(Proxy.newProxyInstance(StartupReportTest.class.getClassLoader(), new Class<?>[] { type },
+            new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if ("getAttribute".equals(name)) {
+                        return attributes.get(args[0]);
+                    } else if ("setAttribute".equals(name)) {
+                        attributes.put((String) args[0], args[1]);
+                    } else if ("getContextPath".equals(name)) {
+                        return contextPath;
+                    }
+                    return null;
+                }
+            }));
+    }
+}
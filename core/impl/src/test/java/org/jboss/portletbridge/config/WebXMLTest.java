@@ -22,6 +22,8 @@
 package org.jboss.portletbridge.config;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -155,6 +157,25 @@ public class WebXMLTest {
         assertEquals(1, webXml.getErrorViews().size());
     }
 
+    @Test
+    public void modelSharedPerContext() throws Exception {
+        PortletContext portletContext = getPortletContext(buildWebXml());
+        WebXmlModel model = WebXmlModel.getInstance(portletContext);
+
+        assertSame(model, WebXmlModel.getInstance(portletContext));
+        assertEquals(2, model.getFacesServletMappings().size());
+        assertEquals("/faces/*", model.getFacesServletMappings().get(0));
+        assertEquals(0, model.getErrorViews().size());
+        assertNull(model.getLifecycleId());
+        assertNull(model.getPreventSelfClosingScriptTag());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void modelIsImmutable() throws Exception {
+        WebXmlModel model = WebXmlModel.getInstance(getPortletContext(buildWebXml()));
+        model.getFacesServletMappings().add("*.faces");
+    }
+
     private WebAppDescriptor buildWebXml() {
         WebAppDescriptor webApp = Descriptors.create(WebAppDescriptor.class);
         webApp.addDefaultNamespaces()
@@ -181,6 +202,7 @@ public class WebXMLTest {
     }
 
     private PortletContext getPortletContext(final WebAppDescriptor webApp) {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
         return new PortletContext() {
             @Override
             public String getServerInfo() {
@@ -234,7 +256,7 @@ public class WebXMLTest {
 
             @Override
             public Object getAttribute(String name) {
-                return null;
+                return attributes.get(name);
             }
 
             @Override
@@ -262,10 +284,12 @@ public class WebXMLTest {
 
             @Override
             public void removeAttribute(String name) {
+                attributes.remove(name);
             }
 
             @Override
             public void setAttribute(String name, Object object) {
+                attributes.put(name, object);
             }
 
             @Override
@@ -21,9 +21,13 @@
  */
 package org.jboss.portletbridge.context;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.security.Principal;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
@@ -145,6 +149,34 @@ public class BridgeContextTest extends TestCase {
         assertEquals(null, viewId);
     }
 
+    public void testViewHistoryWrittenOnChange() throws Exception {
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+        final int[] writes = new int[1];
+        TestPortletRequest request = new TestPortletRequest(null, null);
+        request.session = (PortletSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PortletSession.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getAttribute".equals(method.getName())) {
+                            return attributes.get(args[0]);
+                        } else if ("setAttribute".equals(method.getName())) {
+                            writes[0]++;
+                            return attributes.put((String) args[0], args[1]);
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        context.setPortletRequest(request);
+        context.setViewHistory("view", "/pages/main.xhtml", false);
+        context.setViewHistory("view", "/pages/main.xhtml", false);
+        context.setViewHistory("view", "/pages/main.xhtml?foo=bar", false);
+        context.setPortletRequest(null);
+
+        assertEquals(2, writes[0]);
+        assertEquals("/pages/main.xhtml?foo=bar&" + Bridge.PORTLET_MODE_PARAMETER + "=view",
+                attributes.get(Bridge.VIEWID_HISTORY + ".view"));
+    }
+
     static class TestBridgeContext extends BridgeContextImpl {
         public TestBridgeContext(BridgeConfig bridgeConfig) {
             super(bridgeConfig);
@@ -158,6 +190,7 @@ public class BridgeContextTest extends TestCase {
     static class TestPortletRequest implements PortletRequest {
         String viewId = null;
         String renderViewId = null;
+        PortletSession session = null;
 
         public TestPortletRequest(String viewId, String renderViewId) {
             this.viewId = viewId;
@@ -196,7 +229,7 @@ public class BridgeContextTest extends TestCase {
 
         @Override
         public PortletSession getPortletSession(boolean create) {
-            return null;
+            return session;
         }
 
         @Override
@@ -0,0 +1,76 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.context;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class ResourceUrlTemplateTest extends TestCase {
+
+    private static final String[] NAMES = new String[] { "javax.faces.resource", "ln", "v" };
+
+    public void testExpandInContainerOrder() throws Exception {
+        // Container wrote the parameters in a different order to the one they were set
+        String encoded = "/portal/res?p_r=" + ResourceUrlTemplate.getPlaceholder(2) + "&amp;ln="
+                + ResourceUrlTemplate.getPlaceholder(1) + "&amp;javax.faces.resource="
+                + ResourceUrlTemplate.getPlaceholder(0) + "&amp;w=1";
+        ResourceUrlTemplate template = ResourceUrlTemplate.compile(NAMES, encoded);
+        assertNotNull(template);
+
+        Map<String, String[]> values = new HashMap<String, String[]>();
+        values.put("javax.faces.resource", new String[] { "jsf.js" });
+        values.put("ln", new String[] { "javax.faces" });
+        values.put("v", new String[] { "2 2" });
+        assertEquals("/portal/res?p_r=2+2&amp;ln=javax.faces&amp;javax.faces.resource=jsf.js&amp;w=1",
+                template.expand(values));
+    }
+
+    public void testMissingPlaceholder() throws Exception {
+        String encoded = "/portal/res?ln=" + ResourceUrlTemplate.getPlaceholder(1) + "&javax.faces.resource="
+                + ResourceUrlTemplate.getPlaceholder(0);
+        assertNull(ResourceUrlTemplate.compile(NAMES, encoded));
+    }
+
+    public void testDuplicatePlaceholder() throws Exception {
+        String placeholder = ResourceUrlTemplate.getPlaceholder(0);
+        String encoded = "/portal/" + placeholder + "?javax.faces.resource=" + placeholder;
+        assertNull(ResourceUrlTemplate.compile(new String[] { "javax.faces.resource" }, encoded));
+    }
+
+    public void testKey() throws Exception {
+        Map<String, String[]> first = new LinkedHashMap<String, String[]>();
+        first.put("ln", new String[] { "a" });
+        first.put("javax.faces.resource", new String[] { "b" });
+        Map<String, String[]> second = new LinkedHashMap<String, String[]>();
+        second.put("javax.faces.resource", new String[] { "c" });
+        second.put("ln", new String[] { "d" });
+
+        assertEquals(ResourceUrlTemplate.getKey(first, false), ResourceUrlTemplate.getKey(second, false));
+        assertFalse(ResourceUrlTemplate.getKey(first, true).equals(ResourceUrlTemplate.getKey(second, false)));
+
+        second.put("v", new String[] { "1", "2" });
+        assertNull(ResourceUrlTemplate.getKey(second, false));
+    }
+}
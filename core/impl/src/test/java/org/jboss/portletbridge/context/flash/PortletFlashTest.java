@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.context.flash;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletSession;
+import javax.portlet.faces.Bridge;
+
+import junit.framework.TestCase;
+
+public class PortletFlashTest extends TestCase {
+
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+    private PortletSession session;
+
+    private int writes;
+
+    public void testUnusedFlashCreatesNoSession() throws Exception {
+        PortletFlash render = new PortletFlash(createRequest(), Bridge.PortletPhase.RENDER_PHASE);
+        assertTrue(render.isEmpty());
+        assertNull(render.get("foo"));
+        render.doLastPhaseActions(null, false);
+
+        PortletFlash action = new PortletFlash(createRequest(), Bridge.PortletPhase.ACTION_PHASE);
+        action.doLastPhaseActions(null, false);
+        assertNull(session);
+    }
+
+    public void testValuesConsumedByRender() throws Exception {
+        PortletFlash action = new PortletFlash(createRequest(), Bridge.PortletPhase.ACTION_PHASE);
+        action.put("foo", "bar");
+        assertEquals("bar", action.get("foo"));
+        action.doLastPhaseActions(null, false);
+        assertNotNull(session);
+        assertEquals(1, writes);
+
+        PortletFlash event = new PortletFlash(createRequest(), Bridge.PortletPhase.EVENT_PHASE);
+        assertEquals("bar", event.get("foo"));
+        event.doLastPhaseActions(null, false);
+        assertEquals(1, writes);
+
+        PortletFlash render = new PortletFlash(createRequest(), Bridge.PortletPhase.RENDER_PHASE);
+        assertEquals("bar", render.get("foo"));
+        assertEquals(1, render.size());
+        render.doLastPhaseActions(null, false);
+        assertTrue(attributes.isEmpty());
+
+        PortletFlash nextRender = new PortletFlash(createRequest(), Bridge.PortletPhase.RENDER_PHASE);
+        assertNull(nextRender.get("foo"));
+    }
+
+    public void testKeep() throws Exception {
+        PortletFlash action = new PortletFlash(createRequest(), Bridge.PortletPhase.ACTION_PHASE);
+        action.put("foo", "bar");
+        action.doLastPhaseActions(null, false);
+
+        PortletFlash render = new PortletFlash(createRequest(), Bridge.PortletPhase.RENDER_PHASE);
+        render.keep("foo");
+        render.doLastPhaseActions(null, false);
+
+        PortletFlash nextRender = new PortletFlash(createRequest(), Bridge.PortletPhase.RENDER_PHASE);
+        assertEquals("bar", nextRender.get("foo"));
+    }
+
+    private PortletRequest createRequest() {
+        return (PortletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PortletRequest.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getPortletSession".equals(method.getName())) {
+                            if (null == session && (null == args || (Boolean) args[0])) {
+                                session = createSession();
+                            }
+                            return session;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PortletSession createSession() {
+        return (PortletSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PortletSession.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if ("getAttribute".equals(name)) {
+                            return attributes.get(args[0]);
+                        } else if ("setAttribute".equals(name)) {
+                            writes++;
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        } else if ("removeAttribute".equals(name)) {
+                            attributes.remove(args[0]);
+                            return null;
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+}
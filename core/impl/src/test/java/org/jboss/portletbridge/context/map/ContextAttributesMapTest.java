@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.context.map;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class ContextAttributesMapTest extends TestCase {
+
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+    private int enumerations;
+
+    public void testContainerChangesVisible() throws Exception {
+        Map<String, Object> map = new AttributesMap(false);
+        assertTrue(map.isEmpty());
+
+        attributes.put("foo", "bar");
+        assertFalse(map.isEmpty());
+        assertEquals(1, map.size());
+        assertTrue(map.containsValue("bar"));
+
+        attributes.put("baz", "qux");
+        assertEquals(2, map.entrySet().size());
+        assertEquals(attributes, new HashMap<String, Object>(map));
+    }
+
+    public void testIndexedNamesEnumeratedOnce() throws Exception {
+        attributes.put("foo", "bar");
+        attributes.put("baz", "qux");
+        Map<String, Object> map = new AttributesMap(true);
+
+        assertEquals(2, map.size());
+        assertFalse(map.isEmpty());
+        assertEquals(attributes, new HashMap<String, Object>(map));
+        assertTrue(map.keySet().contains("baz"));
+        assertEquals(1, enumerations);
+
+        map.put("quux", "corge");
+        assertEquals(3, map.size());
+        map.put("quux", "grault");
+        map.remove("foo");
+        assertEquals(2, map.size());
+        assertFalse(map.containsValue("bar"));
+        assertTrue(map.containsValue("grault"));
+        assertEquals(3, enumerations);
+    }
+
+    public void testInvalidateIndex() throws Exception {
+        ContextAttributesMap<Object> map = new AttributesMap(true);
+        assertTrue(map.isEmpty());
+
+        attributes.put("foo", "bar");
+        assertTrue(map.isEmpty());
+
+        map.invalidateIndex();
+        assertEquals(Collections.singleton("foo"), map.keySet());
+    }
+
+    private class AttributesMap extends ContextAttributesMap<Object> {
+
+        AttributesMap(boolean indexed) {
+            super(indexed);
+        }
+
+        @Override
+        protected Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        protected void setAttribute(String name, Object value) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        protected void removeAttribute(String name) {
+            attributes.remove(name);
+        }
+
+        @Override
+        protected Enumeration<String> getEnumeration() {
+            enumerations++;
+            return Collections.enumeration(attributes.keySet());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.context.map;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletSession;
+
+import junit.framework.TestCase;
+
+public class PortletSessionMapTest extends TestCase {
+
+    private final Map<String, Object> attributes = new HashMap<String, Object>();
+
+    private PortletSession session;
+
+    public void testReadsDoNotCreateSession() throws Exception {
+        Map<String, Object> map = new PortletSessionMap(createRequest());
+
+        assertNull(map.get("foo"));
+        assertFalse(map.containsKey("foo"));
+        assertTrue(map.isEmpty());
+        assertNull(map.remove("foo"));
+        map.put("foo", null);
+        assertNull(session);
+    }
+
+    public void testWriteCreatesSession() throws Exception {
+        Map<String, Object> map = new PortletSessionMap(createRequest());
+
+        map.put("foo", "bar");
+        assertNotNull(session);
+        assertEquals("bar", map.get("foo"));
+        assertEquals("bar", attributes.get("foo"));
+
+        map.put("foo", null);
+        assertFalse(attributes.containsKey("foo"));
+    }
+
+    private PortletRequest createRequest() {
+        return (PortletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PortletRequest.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getPortletSession".equals(method.getName())) {
+                            if (null == session && (null == args || (Boolean) args[0])) {
+                                session = createSession();
+                            }
+                            return session;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private PortletSession createSession() {
+        return (PortletSession) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PortletSession.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        String name = method.getName();
+                        if ("getAttribute".equals(name)) {
+                            return attributes.get(args[0]);
+                        } else if ("setAttribute".equals(name)) {
+                            attributes.put((String) args[0], args[1]);
+                            return null;
+                        } else if ("removeAttribute".equals(name)) {
+                            attributes.remove(args[0]);
+                            return null;
+                        } else if ("getAttributeNames".equals(name)) {
+                            return Collections.enumeration(attributes.keySet());
+                        }
+                        throw new UnsupportedOperationException(name);
+                    }
+                });
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.el;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.ELException;
+import javax.el.PropertyNotFoundException;
+import javax.faces.context.ExternalContext;
+import javax.faces.context.ExternalContextWrapper;
+import javax.faces.context.FacesContext;
+import javax.faces.context.FacesContextWrapper;
+import javax.portlet.PortletConfig;
+import javax.portlet.PortletPreferences;
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletResponse;
+import javax.portlet.PortletSession;
+import javax.portlet.faces.Bridge;
+import javax.portlet.faces.preference.Preference;
+
+import junit.framework.TestCase;
+
+import org.jboss.portletbridge.context.map.PortletApplicationScopeSessionMap;
+
+public class PortletELResolverTest extends TestCase {
+
+    private static final String[] IMPLICIT_OBJECTS = { PortletELResolver.PORTLET_CONFIG, PortletELResolver.ACTION_REQUEST,
+            PortletELResolver.ACTION_RESPONSE, PortletELResolver.EVENT_REQUEST, PortletELResolver.EVENT_RESPONSE,
+            PortletELResolver.RENDER_REQUEST, PortletELResolver.RENDER_RESPONSE, PortletELResolver.RESOURCE_REQUEST,
+            PortletELResolver.RESOURCE_RESPONSE, PortletELResolver.PORTLET_SESSION, PortletELResolver.PORTLET_SESSION_SCOPE,
+            PortletELResolver.HTTP_SESSION_SCOPE, PortletELResolver.PORTLET_PREFERENCES,
+            PortletELResolver.PORTLET_PREFERENCES_VALUES, PortletELResolver.MUTABLE_PORTLET_PREFERENCES_VALUES,
+            PortletELResolver.SESSION_APPLICATION_SCOPE, PortletELResolver.SESSION_PORTLET_SCOPE,
+            PortletELResolver.PORTLET_PREFERENCE_VALUE };
+
+    private static final String[] REQUESTS = { PortletELResolver.ACTION_REQUEST, PortletELResolver.EVENT_REQUEST,
+            PortletELResolver.RENDER_REQUEST, PortletELResolver.RESOURCE_REQUEST };
+
+    private static final String[] RESPONSES = { PortletELResolver.ACTION_RESPONSE, PortletELResolver.EVENT_RESPONSE,
+            PortletELResolver.RENDER_RESPONSE, PortletELResolver.RESOURCE_RESPONSE };
+
+    private static final Bridge.PortletPhase[] PHASES = { Bridge.PortletPhase.ACTION_PHASE,
+            Bridge.PortletPhase.EVENT_PHASE, Bridge.PortletPhase.RENDER_PHASE, Bridge.PortletPhase.RESOURCE_PHASE };
+
+    private final PortletELResolver resolver = new PortletELResolver();
+    private final Map<String, Object> requestMap = new HashMap<String, Object>();
+    private final Map<String, Object> sessionMap = new HashMap<String, Object>();
+
+    private PortletConfig portletConfig;
+    private PortletRequest request;
+    private PortletResponse response;
+    private PortletSession session;
+    private PortletPreferences preferences;
+    private TestFacesContext facesContext;
+    private ELContextImpl elContext;
+
+    @Override
+    protected void setUp() throws Exception {
+        final Map<String, String[]> preferenceValues = new HashMap<String, String[]>();
+        preferenceValues.put("color", new String[] { "red", "blue" });
+        preferenceValues.put("empty", new String[0]);
+        preferences = createProxy(PortletPreferences.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                String name = method.getName();
+                if ("getMap".equals(name)) {
+                    return preferenceValues;
+                } else if ("getNames".equals(name)) {
+                    return Collections.enumeration(preferenceValues.keySet());
+                } else if ("getValues".equals(name)) {
+                    return preferenceValues.get(args[0]);
+                }
+                return null;
+            }
+        });
+        request = createProxy(PortletRequest.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("getPreferences".equals(method.getName())) {
+                    return preferences;
+                }
+                return null;
+            }
+        });
+        response = createProxy(PortletResponse.class, null);
+        session = createProxy(PortletSession.class, null);
+        portletConfig = createProxy(PortletConfig.class, null);
+
+        facesContext = new TestFacesContext(new TestExternalContext());
+        elContext = createELContext(true);
+        setPhase(Bridge.PortletPhase.RENDER_PHASE);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        facesContext.release();
+    }
+
+    public void testAllImplicitObjectsResolved() throws Exception {
+        assertEquals(18, IMPLICIT_OBJECTS.length);
+        for (String name : IMPLICIT_OBJECTS) {
+            boolean resolved = false;
+            for (Bridge.PortletPhase phase : PHASES) {
+                setPhase(phase);
+                elContext = createELContext(true);
+                Object value = resolver.getValue(elContext, null, name);
+                if (elContext.isPropertyResolved()) {
+                    assertNotNull(name, value);
+                    resolved = true;
+                }
+            }
+            assertTrue(name, resolved);
+        }
+    }
+
+    public void testRequestAndResponseLimitedToPhase() throws Exception {
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            setPhase(PHASES[phase]);
+            for (int i = 0; i < REQUESTS.length; i++) {
+                elContext = createELContext(true);
+                Object value = resolver.getValue(elContext, null, REQUESTS[i]);
+                assertEquals(REQUESTS[i] + " in " + PHASES[phase], i == phase, elContext.isPropertyResolved());
+                assertSame(i == phase ? request : null, value);
+
+                elContext = createELContext(true);
+                value = resolver.getValue(elContext, null, RESPONSES[i]);
+                assertEquals(RESPONSES[i] + " in " + PHASES[phase], i == phase, elContext.isPropertyResolved());
+                assertSame(i == phase ? response : null, value);
+            }
+        }
+    }
+
+    public void testActionRequestOutsideActionPhase() throws Exception {
+        setPhase(Bridge.PortletPhase.RENDER_PHASE);
+        assertNull(resolver.getValue(elContext, null, PortletELResolver.ACTION_REQUEST));
+        assertFalse(elContext.isPropertyResolved());
+
+        setPhase(Bridge.PortletPhase.ACTION_PHASE);
+        assertSame(request, resolver.getValue(elContext, null, PortletELResolver.ACTION_REQUEST));
+        assertTrue(elContext.isPropertyResolved());
+    }
+
+    public void testPortletConfig() throws Exception {
+        assertSame(portletConfig, resolver.getValue(elContext, null, PortletELResolver.PORTLET_CONFIG));
+        assertTrue(elContext.isPropertyResolved());
+
+        elContext = createELContext(true);
+        elContext.setPortletConfig(null);
+        try {
+            resolver.getValue(elContext, null, PortletELResolver.PORTLET_CONFIG);
+            fail("Expected ELException");
+        } catch (ELException e) {
+            // expected
+        }
+    }
+
+    public void testSessionObjects() throws Exception {
+        assertSame(session, resolver.getValue(elContext, null, PortletELResolver.PORTLET_SESSION));
+        assertSame(sessionMap, resolver.getValue(elContext, null, PortletELResolver.PORTLET_SESSION_SCOPE));
+        assertSame(sessionMap, resolver.getValue(elContext, null, PortletELResolver.SESSION_PORTLET_SCOPE));
+
+        Object httpSessionScope = resolver.getValue(elContext, null, PortletELResolver.HTTP_SESSION_SCOPE);
+        assertTrue(httpSessionScope instanceof PortletApplicationScopeSessionMap);
+        assertSame(httpSessionScope, resolver.getValue(elContext, null, PortletELResolver.SESSION_APPLICATION_SCOPE));
+        assertSame(httpSessionScope, elContext.getHttpSessionMap());
+
+        // The cache lives only as long as the ELContext of the request
+        assertNotSame(httpSessionScope, resolver.getValue(createELContext(true), null, PortletELResolver.HTTP_SESSION_SCOPE));
+    }
+
+    public void testPreferences() throws Exception {
+        assertSame(preferences, resolver.getValue(elContext, null, PortletELResolver.PORTLET_PREFERENCES));
+        assertSame(preferences.getMap(), resolver.getValue(elContext, null, PortletELResolver.PORTLET_PREFERENCES_VALUES));
+
+        Map<?, ?> values = (Map<?, ?>) resolver.getValue(elContext, null, PortletELResolver.PORTLET_PREFERENCE_VALUE);
+        assertEquals(Collections.singletonMap("color", "red"), values);
+        assertSame(values, resolver.getValue(elContext, null, PortletELResolver.PORTLET_PREFERENCE_VALUE));
+
+        Map<?, ?> mutableValues = (Map<?, ?>) resolver.getValue(elContext, null,
+                PortletELResolver.MUTABLE_PORTLET_PREFERENCES_VALUES);
+        assertEquals(2, mutableValues.size());
+        Preference color = (Preference) mutableValues.get("color");
+        assertEquals("color", color.getName());
+        assertEquals(Arrays.asList("red", "blue"), color.getValues());
+        assertSame(mutableValues, resolver.getValue(elContext, null, PortletELResolver.MUTABLE_PORTLET_PREFERENCES_VALUES));
+    }
+
+    public void testJspResolution() throws Exception {
+        elContext = createELContext(false);
+        assertTrue(resolver.getValue(elContext, null, PortletELResolver.HTTP_SESSION_SCOPE) instanceof Map);
+        assertTrue(elContext.isPropertyResolved());
+
+        elContext = createELContext(false);
+        assertTrue(resolver.getValue(elContext, null, PortletELResolver.MUTABLE_PORTLET_PREFERENCES_VALUES) instanceof Map);
+        assertTrue(elContext.isPropertyResolved());
+
+        // The remaining implicit objects are left to the JSP resolvers
+        elContext = createELContext(false);
+        assertNull(resolver.getValue(elContext, null, PortletELResolver.RENDER_REQUEST));
+        assertNull(resolver.getValue(elContext, null, PortletELResolver.PORTLET_SESSION_SCOPE));
+        assertFalse(elContext.isPropertyResolved());
+    }
+
+    public void testOtherProperties() throws Exception {
+        assertNull(resolver.getValue(elContext, null, "bean"));
+        assertNull(resolver.getValue(elContext, "base", PortletELResolver.RENDER_REQUEST));
+        assertNull(resolver.getValue(elContext, null, PortletELResolver.AJAX_CONTEXT));
+        assertFalse(elContext.isPropertyResolved());
+    }
+
+    public void testNullProperty() throws Exception {
+        try {
+            resolver.getValue(elContext, null, null);
+            fail("Expected PropertyNotFoundException");
+        } catch (PropertyNotFoundException e) {
+            // expected
+        }
+
+        setPhase(null);
+        assertNull(resolver.getValue(elContext, null, null));
+    }
+
+    public void testOutsidePortletRequest() throws Exception {
+        setPhase(null);
+        for (String name : IMPLICIT_OBJECTS) {
+            assertNull(name, resolver.getValue(elContext, null, name));
+        }
+        assertFalse(elContext.isPropertyResolved());
+    }
+
+    public void testGetType() throws Exception {
+        assertNull(resolver.getType(elContext, "base", PortletELResolver.RENDER_REQUEST));
+        assertNull(resolver.getType(elContext, null, PortletELResolver.RENDER_REQUEST));
+        assertFalse(elContext.isPropertyResolved());
+        try {
+            resolver.getType(elContext, null, null);
+            fail("Expected PropertyNotFoundException");
+        } catch (PropertyNotFoundException e) {
+            // expected
+        }
+    }
+
+    public void testIsReadOnly() throws Exception {
+        assertFalse(resolver.isReadOnly(elContext, "base", PortletELResolver.RENDER_REQUEST));
+        assertFalse(resolver.isReadOnly(elContext, null, PortletELResolver.RENDER_REQUEST));
+        assertFalse(elContext.isPropertyResolved());
+        try {
+            resolver.isReadOnly(elContext, null, null);
+            fail("Expected PropertyNotFoundException");
+        } catch (PropertyNotFoundException e) {
+            // expected
+        }
+    }
+
+    public void testCommonPropertyType() throws Exception {
+        assertEquals(String.class, resolver.getCommonPropertyType(elContext, null));
+        assertNull(resolver.getCommonPropertyType(elContext, "base"));
+    }
+
+    private ELContextImpl createELContext(boolean facesResolved) {
+        ELContextImpl context = new ELContextImpl(resolver);
+        context.setFacesResolved(facesResolved);
+        context.setPortletConfig(portletConfig);
+        context.putContext(FacesContext.class, facesContext);
+        context.putContext(ELContextImpl.class, context);
+        return context;
+    }
+
+    private void setPhase(Bridge.PortletPhase phase) {
+        requestMap.put(Bridge.PORTLET_LIFECYCLE_PHASE, phase);
+    }
+
+    private static <T> T createProxy(Class<T> type, final InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(PortletELResolverTest.class.getClassLoader(), new Class<?>[] { type },
+            null != handler ? handler : new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    return null;
+                }
+            }));
+    }
+
+    private class TestExternalContext extends ExternalContextWrapper {
+
+        @Override
+        public ExternalContext getWrapped() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, Object> getRequestMap() {
+            return requestMap;
+        }
+
+        @Override
+        public Object getRequest() {
+            return request;
+        }
+
+        @Override
+        public Object getResponse() {
+            return response;
+        }
+
+        @Override
+        public Map<String, Object> getSessionMap() {
+            return sessionMap;
+        }
+
+        @Override
+        public Object getSession(boolean create) {
+            return session;
+        }
+    }
+
+    private static class TestFacesContext extends FacesContextWrapper {
+
+        private final ExternalContext externalContext;
+
+        TestFacesContext(ExternalContext externalContext) {
+            this.externalContext = externalContext;
+            setCurrentInstance(this);
+        }
+
+        @Override
+        public FacesContext getWrapped() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ExternalContext getExternalContext() {
+            return externalContext;
+        }
+
+        @Override
+        public void release() {
+            setCurrentInstance(null);
+        }
+    }
+}
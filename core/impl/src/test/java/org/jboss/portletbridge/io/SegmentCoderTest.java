@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SegmentCoderTest extends TestCase {
+
+    /**
+     * 63 chars followed by a surrogate pair, so that the pair is split between the first and the second segment.
+     */
+    private static final String CONTENT = repeat('a', 63) + "\uD83D\uDE00" + repeat('\u00e9', 100) + "end";
+
+    public void testSurrogatePairAcrossSegments() throws Exception {
+        FastBufferWriter writer = new FastBufferWriter(new SegmentPool(64, 10));
+        writer.write(CONTENT);
+
+        byte[] expected = CONTENT.getBytes("UTF-8");
+        assertTrue(Arrays.equals(expected, writer.convertToOutputStream("UTF-8").toByteArray()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out, "UTF-8");
+        assertTrue(Arrays.equals(expected, out.toByteArray()));
+    }
+
+    public void testMultiByteSequenceAcrossSegments() throws Exception {
+        FastBufferOutputStream stream = new FastBufferOutputStream(new SegmentPool(64, 10));
+        stream.write(CONTENT.getBytes("UTF-8"));
+
+        assertEquals(CONTENT, stream.convertToWriter("UTF-8").toString());
+
+        StringWriter out = new StringWriter();
+        stream.writeTo(out, "UTF-8");
+        assertEquals(CONTENT, out.toString());
+    }
+
+    public void testUnsupportedEncoding() throws Exception {
+        FastBufferWriter writer = new FastBufferWriter();
+        writer.write(CONTENT);
+        try {
+            writer.convertToOutputStream("no-such-charset");
+            fail();
+        } catch (UnsupportedEncodingException e) {
+            // expected
+        }
+        writer.reset();
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
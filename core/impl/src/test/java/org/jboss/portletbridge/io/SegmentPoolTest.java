@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.io;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+public class SegmentPoolTest extends TestCase {
+
+    public void testWriterReturnsSegmentsOnReset() throws Exception {
+        SegmentPool pool = new SegmentPool(64, 10);
+        FastBufferWriter writer = new FastBufferWriter(pool);
+        char[] content = new char[200];
+        Arrays.fill(content, 'a');
+        content[199] = 'z';
+
+        writer.write(content);
+        writer.write('!');
+
+        assertEquals(201, writer.getLength());
+        assertEquals(new String(content) + "!", writer.toString());
+        assertEquals(0, pool.getPooledChars());
+
+        writer.reset();
+        assertEquals(4, pool.getPooledChars());
+        assertEquals("", writer.toString());
+
+        writer.write("reused");
+        assertEquals("reused", writer.toString());
+        assertEquals(3, pool.getPooledChars());
+    }
+
+    public void testStreamReturnsSegmentsOnReset() throws Exception {
+        SegmentPool pool = new SegmentPool(64, 10);
+        FastBufferOutputStream stream = new FastBufferOutputStream(pool);
+        byte[] content = new byte[130];
+        Arrays.fill(content, (byte) 'b');
+
+        stream.write(content);
+        assertTrue(Arrays.equals(content, stream.toByteArray()));
+
+        stream.reset();
+        assertEquals(3, pool.getPooledBytes());
+    }
+
+    public void testPoolIsBounded() throws Exception {
+        SegmentPool pool = new SegmentPool(64, 2);
+        FastBufferWriter writer = new FastBufferWriter(pool);
+        writer.write(new char[64 * 5]);
+        writer.reset();
+
+        assertEquals(2, pool.getPooledChars());
+    }
+
+    public void testLeakDetection() throws Exception {
+        Logger logger = Logger.getLogger(SegmentPool.class.getName());
+        Level level = logger.getLevel();
+        logger.setLevel(Level.FINE);
+        try {
+            SegmentPool pool = new SegmentPool(64, 10);
+            FastBufferWriter released = new FastBufferWriter(pool);
+            released.write("released");
+            released.reset();
+            FastBufferWriter leaked = new FastBufferWriter(pool);
+            leaked.write("leaked");
+            leaked = null;
+
+            for (int i = 0; i < 20 && pool.getLeakCount() == 0; i++) {
+                System.gc();
+                Thread.sleep(50);
+            }
+            assertEquals(1, pool.getLeakCount());
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+}
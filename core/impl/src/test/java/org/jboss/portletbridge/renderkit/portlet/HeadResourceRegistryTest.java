@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.renderkit.portlet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.portlet.PortletMode;
+import javax.portlet.WindowState;
+
+import junit.framework.TestCase;
+
+import org.w3c.dom.Element;
+
+public class HeadResourceRegistryTest extends TestCase {
+
+    private static final List<String> IDS = Arrays.asList("javax.faces:jsf.js");
+
+    public void testKeyCoversLocale() throws Exception {
+        assertFalse(getKey(Locale.ENGLISH, null).equals(getKey(Locale.FRENCH, null)));
+        assertEquals(getKey(Locale.ENGLISH, null), getKey(Locale.ENGLISH, new HashMap<String, String[]>()));
+    }
+
+    public void testKeyCoversPublicRenderParameters() throws Exception {
+        Map<String, String[]> first = new HashMap<String, String[]>();
+        first.put("a", new String[] { "1" });
+        first.put("b", new String[] { "2", "3" });
+        Map<String, String[]> reordered = new HashMap<String, String[]>();
+        reordered.put("b", new String[] { "2", "3" });
+        reordered.put("a", new String[] { "1" });
+        Map<String, String[]> other = new HashMap<String, String[]>();
+        other.put("a", new String[] { "1" });
+        other.put("b", new String[] { "2,3" });
+        Map<String, String[]> separators = new HashMap<String, String[]>();
+        separators.put("a", new String[] { "1|b" });
+
+        assertEquals(getKey(Locale.ENGLISH, first), getKey(Locale.ENGLISH, reordered));
+        assertFalse(getKey(Locale.ENGLISH, first).equals(getKey(Locale.ENGLISH, other)));
+        assertFalse(getKey(Locale.ENGLISH, first).equals(getKey(Locale.ENGLISH, null)));
+        assertFalse(getKey(Locale.ENGLISH, separators).equals(getKey(Locale.ENGLISH,
+                Collections.singletonMap("a", new String[] { "1", "b" }))));
+    }
+
+    public void testKeyIgnoresBridgeParameters() throws Exception {
+        assertEquals(getKey(Locale.ENGLISH, null),
+                getKey(Locale.ENGLISH, Collections.singletonMap("__pbrReqScopeId", new String[] { "1" })));
+    }
+
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        HeadResourceRegistry registry = new HeadResourceRegistry();
+        String first = getKey(Locale.ENGLISH, Collections.singletonMap("p", new String[] { "first" }));
+        registry.put(first, IDS, Collections.<Element> emptyList(), Collections.<Object, Object> emptyMap());
+        for (int i = 0; i < HeadResourceRegistry.MAX_ENTRIES; i++) {
+            registry.put(getKey(Locale.ENGLISH, Collections.singletonMap("p", new String[] { Integer.toString(i) })), IDS,
+                    Collections.<Element> emptyList(), Collections.<Object, Object> emptyMap());
+            // Keeps the first view in use
+            assertNotNull(registry.get(first, IDS));
+        }
+
+        assertEquals(HeadResourceRegistry.MAX_ENTRIES, registry.size());
+        assertNotNull(registry.get(first, IDS));
+        assertNull(registry.get(getKey(Locale.ENGLISH, Collections.singletonMap("p", new String[] { "0" })), IDS));
+
+        // New views are still cached once the registry is full
+        String last = getKey(Locale.FRENCH, null);
+        registry.put(last, IDS, Collections.<Element> emptyList(), Collections.<Object, Object> emptyMap());
+        assertNotNull(registry.get(last, IDS));
+    }
+
+    public void testSetDynamic() throws Exception {
+        HeadResourceRegistry registry = new HeadResourceRegistry();
+        String key = getKey(Locale.ENGLISH, null);
+
+        registry.setDynamic(key);
+        assertTrue(registry.isDynamic(key));
+
+        registry.put(key, IDS, Collections.<Element> emptyList(), Collections.<Object, Object> emptyMap());
+        assertTrue(registry.isDynamic(key));
+        assertNull(registry.get(key, IDS));
+    }
+
+    public void testPutAndGet() throws Exception {
+        HeadResourceRegistry registry = new HeadResourceRegistry();
+        String key = getKey(Locale.ENGLISH, null);
+
+        registry.put(key, IDS, Collections.<Element> emptyList(), Collections.<Object, Object> emptyMap());
+        assertNotNull(registry.get(key, IDS));
+        assertNull(registry.get(getKey(Locale.FRENCH, null), IDS));
+
+        registry.put(key, Arrays.asList("javax.faces:jsf.js", "style.css"), Collections.<Element> emptyList(),
+                Collections.<Object, Object> emptyMap());
+        assertTrue(registry.isDynamic(key));
+    }
+
+    private static String getKey(Locale locale, Map<String, String[]> publicRenderParameters) {
+        return HeadResourceRegistry.getKey("/view.xhtml", PortletMode.VIEW, WindowState.NORMAL, "ns", locale,
+                publicRenderParameters);
+    }
+}
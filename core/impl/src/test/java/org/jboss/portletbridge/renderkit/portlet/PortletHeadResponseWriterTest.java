@@ -0,0 +1,224 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.renderkit.portlet;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.faces.FactoryFinder;
+import javax.portlet.MimeResponse;
+import javax.portlet.PortletConfig;
+import javax.portlet.PortletResponse;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.jboss.portletbridge.bridge.config.BridgeConfig;
+import org.jboss.portletbridge.bridge.config.BridgeConfigImpl;
+import org.jboss.portletbridge.bridge.context.BridgeContextImpl;
+import org.jboss.portletbridge.context.BridgeContextTest;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+public class PortletHeadResponseWriterTest extends TestCase {
+
+    private final List<Element> headElements = new ArrayList<Element>();
+
+    private BridgeConfig bridgeConfig;
+
+    private PortletResponse response;
+
+    @Override
+    protected void setUp() throws Exception {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        response = (PortletResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PortletResponse.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("createElement".equals(method.getName())) {
+                            return document.createElement((String) args[0]);
+                        } else if ("addProperty".equals(method.getName())
+                                && MimeResponse.MARKUP_HEAD_ELEMENT.equals(args[0])) {
+                            headElements.add((Element) args[1]);
+                            return null;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        bridgeConfig = new BridgeConfigImpl();
+        bridgeConfig.setPortletConfig((PortletConfig) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { PortletConfig.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        return null;
+                    }
+                }));
+        FactoryFinder.setFactory(FactoryFinder.APPLICATION_FACTORY, BridgeContextTest.TestAppFactory.class.getName());
+        new TestBridgeContext(bridgeConfig);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        TestBridgeContext.clear();
+        FactoryFinder.releaseFactories();
+    }
+
+    public void testElementWithAttributes() throws Exception {
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        writer.startElement("link", null);
+        writer.writeAttribute("rel", "stylesheet", null);
+        writer.writeURIAttribute("href", "/app/style.css", null);
+        writer.writeAttribute("media", null, null);
+        writer.endElement("link");
+
+        assertEquals(1, headElements.size());
+        Element link = headElements.get(0);
+        assertEquals("link", link.getTagName());
+        assertEquals("stylesheet", link.getAttribute("rel"));
+        assertEquals("/app/style.css", link.getAttribute("href"));
+        assertFalse(link.hasChildNodes());
+    }
+
+    public void testInlineScriptWrappedInCData() throws Exception {
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        writer.startElement("script", null);
+        writer.writeAttribute("type", "text/javascript", null);
+        writer.write("var a = 1;");
+        writer.writeText(" var b = a < 2;", null);
+        writer.endElement("script");
+
+        Element script = headElements.get(0);
+        assertEquals(2, script.getChildNodes().getLength());
+        assertEquals(Node.TEXT_NODE, script.getFirstChild().getNodeType());
+        assertEquals("\n//", script.getFirstChild().getNodeValue());
+        assertEquals(Node.CDATA_SECTION_NODE, script.getLastChild().getNodeType());
+        assertEquals("\nvar a = 1; var b = a < 2;\n//", script.getLastChild().getNodeValue());
+    }
+
+    public void testInlineStyleWrappedInCData() throws Exception {
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        writer.startElement("style", null);
+        writer.write("p { color: red; }".toCharArray(), 0, 17);
+        writer.endElement("style");
+
+        Element style = headElements.get(0);
+        assertEquals(3, style.getChildNodes().getLength());
+        assertEquals("\n/*", style.getChildNodes().item(0).getNodeValue());
+        assertEquals(Node.CDATA_SECTION_NODE, style.getChildNodes().item(1).getNodeType());
+        assertEquals("*/\np { color: red; }\n/*", style.getChildNodes().item(1).getNodeValue());
+        assertEquals("*/", style.getChildNodes().item(2).getNodeValue());
+    }
+
+    public void testExternalScriptKeptEmpty() throws Exception {
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        writer.startElement("script", null);
+        writer.writeURIAttribute("src", "/app/script.js", null);
+        writer.endElement("script");
+
+        Element script = headElements.get(0);
+        assertEquals("/app/script.js", script.getAttribute("src"));
+        assertFalse(script.hasChildNodes());
+    }
+
+    public void testExternalScriptPreventedFromSelfClosing() throws Exception {
+        bridgeConfig.setPreventSelfClosingScriptTag(true);
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        writer.startElement("script", null);
+        writer.writeURIAttribute("src", "/app/script.js", null);
+        writer.endElement("script");
+
+        Element script = headElements.get(0);
+        assertEquals(1, script.getChildNodes().getLength());
+        assertEquals(Node.COMMENT_NODE, script.getFirstChild().getNodeType());
+    }
+
+    public void testTextAroundNestedElements() throws Exception {
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        writer.startElement("noscript", null);
+        writer.write("before");
+        writer.append(' ');
+        writer.startElement("span", null);
+        writer.write('a');
+        writer.append("bc", 0, 1);
+        writer.endElement("span");
+        writer.startElement("br", null);
+        writer.endElement("br");
+        writer.writeComment("after");
+        writer.endElement("noscript");
+
+        assertEquals(1, headElements.size());
+        Element noscript = headElements.get(0);
+        assertEquals(4, noscript.getChildNodes().getLength());
+        assertEquals("before ", noscript.getChildNodes().item(0).getNodeValue());
+        Element span = (Element) noscript.getChildNodes().item(1);
+        assertEquals("span", span.getTagName());
+        assertEquals("ab", span.getTextContent());
+        assertEquals("br", ((Element) noscript.getChildNodes().item(2)).getTagName());
+        assertEquals("after", noscript.getChildNodes().item(3).getNodeValue());
+    }
+
+    public void testRecording() throws Exception {
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        writer.startElement("meta", null);
+        writer.endElement("meta");
+
+        writer.startRecording();
+        writer.startElement("link", null);
+        writer.endElement("link");
+        writer.startElement("script", null);
+        writer.writeURIAttribute("src", "/app/script.js", null);
+        writer.endElement("script");
+        List<Element> recorded = writer.stopRecording();
+
+        writer.startElement("title", null);
+        writer.endElement("title");
+
+        assertEquals(4, headElements.size());
+        assertEquals(2, recorded.size());
+        assertSame(headElements.get(1), recorded.get(0));
+        assertSame(headElements.get(2), recorded.get(1));
+        assertNull(writer.stopRecording());
+    }
+
+    public void testTextOutsideElementRejected() throws Exception {
+        PortletHeadResponseWriter writer = new PortletHeadResponseWriter(null, response);
+        try {
+            writer.write("text");
+            fail("Text written outside of an element");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    static class TestBridgeContext extends BridgeContextImpl {
+        TestBridgeContext(BridgeConfig bridgeConfig) {
+            super(bridgeConfig);
+        }
+
+        static void clear() {
+            setCurrentInstance(null);
+        }
+    }
+}
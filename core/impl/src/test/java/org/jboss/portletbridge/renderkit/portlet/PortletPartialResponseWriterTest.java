@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.renderkit.portlet;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import junit.framework.TestCase;
+
+import org.jboss.portletbridge.renderkit.portlet.PortletPartialResponseWriter.AmpersandUnescapingWriter;
+
+public class PortletPartialResponseWriterTest extends TestCase {
+
+    private StringWriter target;
+
+    private Writer writer;
+
+    @Override
+    protected void setUp() throws Exception {
+        target = new StringWriter();
+        writer = new AmpersandUnescapingWriter(target);
+    }
+
+    public void testUnescapesWithinOneWrite() throws Exception {
+        write("/portal?a=1&amp;b=2&amp;c=3");
+        writer.flush();
+        assertEquals("/portal?a=1&b=2&c=3", target.toString());
+    }
+
+    public void testEntitySplitAcrossWrites() throws Exception {
+        write("a=1&");
+        write("am");
+        write("p;b=2&a");
+        write("mp");
+        write(";");
+        writer.flush();
+        assertEquals("a=1&b=2&", target.toString());
+    }
+
+    public void testPartialMatchFollowedByOtherChar() throws Exception {
+        write("x&amx&ay&");
+        write("az");
+        writer.flush();
+        assertEquals("x&amx&ay&az", target.toString());
+    }
+
+    public void testAmpersandRestartsMatch() throws Exception {
+        write("&&amp;&am&amp;");
+        writer.flush();
+        assertEquals("&&&am&", target.toString());
+    }
+
+    public void testPendingMatchWrittenOnFlush() throws Exception {
+        write("a=1&am");
+        assertEquals("a=1", target.toString());
+        writer.flush();
+        assertEquals("a=1&am", target.toString());
+        writer.flush();
+        assertEquals("a=1&am", target.toString());
+    }
+
+    public void testPendingMatchWrittenOnClose() throws Exception {
+        write("a=1&");
+        writer.close();
+        assertEquals("a=1&", target.toString());
+    }
+
+    public void testWriteString() throws Exception {
+        writer.write("a=1&amp;b=2&am");
+        writer.write("p;c=3&amx", 0, 9);
+        writer.flush();
+        assertEquals("a=1&b=2&c=3&amx", target.toString());
+    }
+
+    public void testWriteChar() throws Exception {
+        for (char c : "a&amp;&amb".toCharArray()) {
+            writer.write(c);
+        }
+        writer.flush();
+        assertEquals("a&&amb", target.toString());
+    }
+
+    public void testMixedWrites() throws Exception {
+        write("a&a");
+        writer.write('m');
+        writer.write("p;b");
+        writer.flush();
+        assertEquals("a&b", target.toString());
+    }
+
+    private void write(String str) throws IOException {
+        char[] chars = ("--" + str + "--").toCharArray();
+        writer.write(chars, 2, str.length());
+    }
+}
@@ -46,6 +46,17 @@ import org.richfaces.request.ProgressControl;
  */
 public class FileUploadFacesContextFactory extends FacesContextFactory implements FacesWrapper<FacesContextFactory> {
 
+    /**
+     * Context init parameter holding the number of bytes up to which a multipart request is parsed in memory. Larger
+     * requests, or requests that don't declare their length, are spooled to temp files. Only applies when
+     * <code>org.richfaces.fileUpload.createTempFiles</code> is not set to <code>false</code>.
+     * <p>
+     * Note that when <code>org.richfaces.fileUpload.maxRequestSize</code> is set, requests that don't declare their
+     * length, such as chunked uploads, are rejected as exceeding it.
+     * </p>
+     */
+    public static final String MEMORY_THRESHOLD = "org.jboss.portletbridge.fileUpload.memoryThreshold";
+
     private FacesContextFactory wrappedFactory;
 
     public FileUploadFacesContextFactory(FacesContextFactory wrappedFactory) {
@@ -94,9 +105,8 @@ public class FileUploadFacesContextFactory extends FacesContextFactory implement
         HttpServletRequest multipartRequest;
         HttpServletRequestAdapter adapter = new HttpServletRequestAdapter(request);
 
-        long maxRequestSize = getMaxRequestSize(portletContext);
-        if (maxRequestSize == 0 || contentLength <= maxRequestSize) {
-            boolean createTempFiles = isCreateTempFiles(portletContext);
+        if (isRequestSizeAllowed(portletContext, contentLength)) {
+            boolean createTempFiles = isCreateTempFiles(portletContext, contentLength);
             String tempFilesDirectory = getTempFilesDirectory(portletContext);
 
             MultipartRequestParser requestParser = new MultipartRequestParser(adapter, createTempFiles, tempFilesDirectory,
@@ -112,6 +122,26 @@ public class FileUploadFacesContextFactory extends FacesContextFactory implement
         return multipartRequest;
     }
 
+    /**
+     * Without a <code>maxRequestSize</code> every request is parsed. Otherwise the request has to declare a length that
+     * doesn't exceed it, since the size of a request of unknown length can't be checked before its body is read.
+     */
+    boolean isRequestSizeAllowed(PortletContext portletContext, long contentLength) {
+        long maxRequestSize = getMaxRequestSize(portletContext);
+        return maxRequestSize == 0 || (contentLength >= 0 && contentLength <= maxRequestSize);
+    }
+
+    /**
+     * Requests that declare a length up to the {@link #MEMORY_THRESHOLD} are parsed in memory. Every part is bounded by
+     * the request length, so none of them can grow past the threshold.
+     */
+    boolean isCreateTempFiles(PortletContext portletContext, long contentLength) {
+        if (!isCreateTempFiles(portletContext)) {
+            return false;
+        }
+        return contentLength < 0 || contentLength > getMemoryThreshold(portletContext);
+    }
+
     private long getMaxRequestSize(PortletContext portletContext) {
         String param = portletContext.getInitParameter("org.richfaces.fileUpload.maxRequestSize");
         if (param != null) {
@@ -121,6 +151,15 @@ public class FileUploadFacesContextFactory extends FacesContextFactory implement
         return 0;
     }
 
+    private long getMemoryThreshold(PortletContext portletContext) {
+        String param = portletContext.getInitParameter(MEMORY_THRESHOLD);
+        if (param != null) {
+            return Long.parseLong(param);
+        }
+
+        return -1;
+    }
+
     private boolean isCreateTempFiles(PortletContext portletContext) {
         String param = portletContext.getInitParameter("org.richfaces.fileUpload.createTempFiles");
         if (param != null) {
@@ -22,17 +22,27 @@
 package org.jboss.portletbridge.richfaces.request;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import javax.portlet.ClientDataRequest;
 import javax.servlet.ServletInputStream;
 
 /**
+ * Exposes the portlet input stream of a {@link ClientDataRequest} as a {@link ServletInputStream}. Bulk reads are
+ * passed straight to the portlet stream so that multipart parsers don't pull the request body one byte at a time.
+ *
  * @author <a href="http://community.jboss.org/people/kenfinni">Ken Finnigan</a>
  */
 public class ServletInputStreamAdapter extends ServletInputStream {
 
+    private static final int SKIP_BUFFER_SIZE = 2048;
+
     private ClientDataRequest request;
 
+    private InputStream inputStream;
+
+    private byte[] skipBuffer;
+
     public ServletInputStreamAdapter(ClientDataRequest request) {
         this.request = request;
     }
@@ -42,7 +52,68 @@ public class ServletInputStreamAdapter extends ServletInputStream {
      */
     @Override
     public int read() throws IOException {
-        return request.getPortletInputStream().read();
+        return getInputStream().read();
+    }
+
+    /**
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return getInputStream().read(b, off, len);
+    }
+
+    /**
+     * @see java.io.InputStream#available()
+     */
+    @Override
+    public int available() throws IOException {
+        return getInputStream().available();
+    }
+
+    /**
+     * Discards bytes through a buffer kept for the life of the stream, rather than relying on the portlet stream's
+     * skip implementation which may allocate on every call or read byte by byte.
+     *
+     * @see java.io.InputStream#skip(long)
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        if (null == skipBuffer) {
+            skipBuffer = new byte[SKIP_BUFFER_SIZE];
+        }
+        InputStream in = getInputStream();
+        long remaining = n;
+        while (remaining > 0) {
+            int read = in.read(skipBuffer, 0, (int) Math.min(SKIP_BUFFER_SIZE, remaining));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    /**
+     * Closes the portlet stream if it has been opened. A stream that was never read is left alone.
+     *
+     * @see java.io.InputStream#close()
+     */
+    @Override
+    public void close() throws IOException {
+        if (null != inputStream) {
+            inputStream.close();
+        }
+    }
+
+    private InputStream getInputStream() throws IOException {
+        if (null == inputStream) {
+            inputStream = request.getPortletInputStream();
+        }
+        return inputStream;
     }
 
 }
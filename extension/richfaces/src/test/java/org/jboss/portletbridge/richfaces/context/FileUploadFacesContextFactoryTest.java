@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.richfaces.context;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.portlet.PortletContext;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class FileUploadFacesContextFactoryTest {
+
+    private static final String MAX_REQUEST_SIZE = "org.richfaces.fileUpload.maxRequestSize";
+    private static final String CREATE_TEMP_FILES = "org.richfaces.fileUpload.createTempFiles";
+
+    private final FileUploadFacesContextFactory factory = new FileUploadFacesContextFactory(null);
+
+    private final Map<String, String> initParameters = new HashMap<String, String>();
+
+    @Test
+    public void testBelowThresholdParsedInMemory() {
+        initParameters.put(FileUploadFacesContextFactory.MEMORY_THRESHOLD, "1024");
+        Assert.assertFalse(factory.isCreateTempFiles(createPortletContext(), 1023));
+    }
+
+    @Test
+    public void testAtThresholdParsedInMemory() {
+        initParameters.put(FileUploadFacesContextFactory.MEMORY_THRESHOLD, "1024");
+        Assert.assertFalse(factory.isCreateTempFiles(createPortletContext(), 1024));
+    }
+
+    @Test
+    public void testAboveThresholdSpooledToTempFiles() {
+        initParameters.put(FileUploadFacesContextFactory.MEMORY_THRESHOLD, "1024");
+        Assert.assertTrue(factory.isCreateTempFiles(createPortletContext(), 1025));
+    }
+
+    @Test
+    public void testUnknownLengthSpooledToTempFiles() {
+        initParameters.put(FileUploadFacesContextFactory.MEMORY_THRESHOLD, "1024");
+        Assert.assertTrue(factory.isCreateTempFiles(createPortletContext(), -1));
+    }
+
+    @Test
+    public void testNoThresholdSpooledToTempFiles() {
+        Assert.assertTrue(factory.isCreateTempFiles(createPortletContext(), 0));
+    }
+
+    @Test
+    public void testThresholdIgnoredWithoutTempFiles() {
+        initParameters.put(FileUploadFacesContextFactory.MEMORY_THRESHOLD, "1024");
+        initParameters.put(CREATE_TEMP_FILES, "false");
+        Assert.assertFalse(factory.isCreateTempFiles(createPortletContext(), 4096));
+        Assert.assertFalse(factory.isCreateTempFiles(createPortletContext(), -1));
+    }
+
+    @Test
+    public void testUnknownLengthAllowedWithoutMaxRequestSize() {
+        Assert.assertTrue(factory.isRequestSizeAllowed(createPortletContext(), -1));
+    }
+
+    @Test
+    public void testUnknownLengthRejectedWithMaxRequestSize() {
+        initParameters.put(MAX_REQUEST_SIZE, "1024");
+        Assert.assertFalse(factory.isRequestSizeAllowed(createPortletContext(), -1));
+    }
+
+    @Test
+    public void testDeclaredLengthCheckedAgainstMaxRequestSize() {
+        initParameters.put(MAX_REQUEST_SIZE, "1024");
+        Assert.assertTrue(factory.isRequestSizeAllowed(createPortletContext(), 1024));
+        Assert.assertFalse(factory.isRequestSizeAllowed(createPortletContext(), 1025));
+    }
+
+    private PortletContext createPortletContext() {
+        return (PortletContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PortletContext.class },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getInitParameter".equals(method.getName())) {
+                            return initParameters.get(args[0]);
+                        }
+                        return null;
+                    }
+                });
+    }
+}
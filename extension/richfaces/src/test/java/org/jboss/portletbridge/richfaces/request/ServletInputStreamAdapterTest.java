@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.richfaces.request;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.portlet.ClientDataRequest;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ServletInputStreamAdapterTest {
+
+    private static final byte[] CONTENT = createContent(5000);
+
+    private int streamsOpened;
+
+    private boolean closed;
+
+    @Test
+    public void testBulkRead() throws Exception {
+        ServletInputStreamAdapter adapter = new ServletInputStreamAdapter(createRequest());
+
+        byte[] buffer = new byte[CONTENT.length + 10];
+        int total = 0;
+        int read;
+        while ((read = adapter.read(buffer, total, buffer.length - total)) > 0) {
+            total += read;
+        }
+
+        Assert.assertEquals(CONTENT.length, total);
+        for (int i = 0; i < CONTENT.length; i++) {
+            Assert.assertEquals(CONTENT[i], buffer[i]);
+        }
+        Assert.assertEquals(-1, adapter.read(buffer, 0, buffer.length));
+        Assert.assertEquals(1, streamsOpened);
+    }
+
+    @Test
+    public void testBulkReadAtOffset() throws Exception {
+        ServletInputStreamAdapter adapter = new ServletInputStreamAdapter(createRequest());
+        Assert.assertEquals(CONTENT[0], (byte) adapter.read());
+
+        byte[] buffer = new byte[8];
+        Assert.assertEquals(4, adapter.read(buffer, 4, 4));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(0, buffer[i]);
+            Assert.assertEquals(CONTENT[i + 1], buffer[i + 4]);
+        }
+        Assert.assertEquals(CONTENT.length - 5, adapter.available());
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        ServletInputStreamAdapter adapter = new ServletInputStreamAdapter(createRequest());
+
+        Assert.assertEquals(0, adapter.skip(0));
+        Assert.assertEquals(0, adapter.skip(-1));
+        Assert.assertEquals(4097, adapter.skip(4097));
+        Assert.assertEquals(CONTENT[4097], (byte) adapter.read());
+    }
+
+    @Test
+    public void testSkipPastEnd() throws Exception {
+        ServletInputStreamAdapter adapter = new ServletInputStreamAdapter(createRequest());
+
+        Assert.assertEquals(CONTENT.length, adapter.skip(CONTENT.length + 1000L));
+        Assert.assertEquals(0, adapter.skip(10));
+        Assert.assertEquals(-1, adapter.read());
+    }
+
+    @Test
+    public void testCloseWithoutRead() throws Exception {
+        ServletInputStreamAdapter adapter = new ServletInputStreamAdapter(createRequest());
+        adapter.close();
+
+        Assert.assertEquals(0, streamsOpened);
+        Assert.assertFalse(closed);
+    }
+
+    @Test
+    public void testCloseAfterRead() throws Exception {
+        ServletInputStreamAdapter adapter = new ServletInputStreamAdapter(createRequest());
+        adapter.read();
+        adapter.close();
+
+        Assert.assertEquals(1, streamsOpened);
+        Assert.assertTrue(closed);
+    }
+
+    private ClientDataRequest createRequest() {
+        return (ClientDataRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ClientDataRequest.class }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("getPortletInputStream".equals(method.getName())) {
+                            streamsOpened++;
+                            return createInputStream();
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private InputStream createInputStream() {
+        return new ByteArrayInputStream(CONTENT) {
+            @Override
+            public void close() throws IOException {
+                closed = true;
+                super.close();
+            }
+        };
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i % 251 + 1);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+
+import javax.portlet.ClientDataRequest;
+import javax.portlet.PortletMode;
+import javax.portlet.WindowState;
+
+/**
+ * Request with a body. Form fields are passed as parameters, as a portal does after decoding a
+ * <code>application/x-www-form-urlencoded</code> post, so the body itself is empty unless one is set.
+ */
+public abstract class HarnessClientDataRequest extends HarnessRequest implements ClientDataRequest {
+
+    private byte[] body = new byte[0];
+    private String contentType = "application/x-www-form-urlencoded";
+    private String characterEncoding;
+    private boolean bodyRead;
+
+    protected HarnessClientDataRequest(HarnessPortal portal, String lifecyclePhase, HarnessPortletSession session,
+            PortletMode portletMode, WindowState windowState) {
+        super(portal, lifecyclePhase, session, portletMode, windowState);
+    }
+
+    public void setBody(byte[] body, String contentType) {
+        this.body = body.clone();
+        this.contentType = contentType;
+    }
+
+    @Override
+    public InputStream getPortletInputStream() throws IOException {
+        bodyRead = true;
+        return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public void setCharacterEncoding(String enc) throws UnsupportedEncodingException {
+        if (bodyRead) {
+            throw new IllegalStateException("Request body has already been read");
+        }
+        if (!Charset.isSupported(enc)) {
+            throw new UnsupportedEncodingException(enc);
+        }
+        characterEncoding = enc;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        bodyRead = true;
+        String encoding = null != characterEncoding ? characterEncoding : "UTF-8";
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), encoding));
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public int getContentLength() {
+        return body.length;
+    }
+
+    @Override
+    public String getMethod() {
+        return "POST";
+    }
+}
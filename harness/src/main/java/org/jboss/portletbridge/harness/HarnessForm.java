@@ -0,0 +1,204 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parts of the first form of a rendered page that a browser would need to post it, either as a full submit or as
+ * a JSF Ajax request. The markup is the one written by the JSF HTML renderers, so regular expressions are enough.
+ */
+public class HarnessForm {
+
+    public static final String VIEW_STATE = "javax.faces.ViewState";
+
+    static final String ENCODED_URL = "javax.faces.encodedURL";
+
+    private static final Pattern FORM = Pattern.compile("<form\\b([^>]*)>(.*?)</form>", Pattern.DOTALL);
+    private static final Pattern INPUT = Pattern.compile("<input\\b([^>]*)>", Pattern.DOTALL);
+    private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:.-]+)\\s*=\\s*\"([^\"]*)\"");
+    private static final Pattern AJAX_BEHAVIOR = Pattern
+            .compile("mojarra\\.ab\\(this,event,'(\\w+)',(0|'[^']*'),(0|'[^']*')");
+    private static final Pattern PARTIAL_VIEW_STATE = Pattern.compile("javax\\.faces\\.ViewState[^\"]*\"><!\\[CDATA\\[(.*?)\\]\\]>");
+
+    private final String id;
+    private final String action;
+    private final String partialAction;
+    private final Map<String, String> hiddenFields = new LinkedHashMap<String, String>();
+    private final Map<String, String> textFields = new LinkedHashMap<String, String>();
+    private final Map<String, String> behaviors = new HashMap<String, String>();
+    private final List<String> submitButtons = new ArrayList<String>();
+
+    private HarnessForm(String attributes, String body) {
+        Map<String, String> formAttributes = parseAttributes(attributes);
+        this.id = formAttributes.get("id");
+        this.action = formAttributes.get("action");
+
+        Matcher input = INPUT.matcher(body);
+        while (input.find()) {
+            Map<String, String> inputAttributes = parseAttributes(input.group(1));
+            String type = inputAttributes.get("type");
+            String name = inputAttributes.get("name");
+            String value = inputAttributes.containsKey("value") ? inputAttributes.get("value") : "";
+            if (null == name) {
+                continue;
+            }
+            if ("hidden".equals(type)) {
+                hiddenFields.put(name, value);
+            } else if ("text".equals(type)) {
+                textFields.put(name, value);
+                String onchange = inputAttributes.get("onchange");
+                if (null != onchange) {
+                    behaviors.put(name, onchange);
+                }
+            } else if ("submit".equals(type)) {
+                submitButtons.add(name);
+            }
+        }
+        String encodedURL = hiddenFields.remove(ENCODED_URL);
+        this.partialAction = null != encodedURL ? encodedURL : action;
+    }
+
+    /**
+     * @return the first form of the page, or <code>null</code> if it has none.
+     */
+    public static HarnessForm parse(String markup) {
+        Matcher form = FORM.matcher(markup);
+        return form.find() ? new HarnessForm(form.group(1), form.group(2)) : null;
+    }
+
+    private static Map<String, String> parseAttributes(String attributes) {
+        Map<String, String> values = new HashMap<String, String>();
+        Matcher attribute = ATTRIBUTE.matcher(attributes);
+        while (attribute.find()) {
+            values.put(attribute.group(1), unescape(attribute.group(2)));
+        }
+        return values;
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('&') == -1) {
+            return value;
+        }
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&#39;", "'")
+                .replace("&amp;", "&");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * @return the URL that <code>jsf.ajax.request</code> posts to, which the bridge renders as a resource URL.
+     */
+    public String getPartialAction() {
+        return partialAction;
+    }
+
+    public List<String> getTextFields() {
+        return new ArrayList<String>(textFields.keySet());
+    }
+
+    public List<String> getSubmitButtons() {
+        return new ArrayList<String>(submitButtons);
+    }
+
+    public void setTextField(String name, String value) {
+        textFields.put(name, value);
+    }
+
+    /**
+     * Picks up the view state returned by a partial response, so that the next post of this form is accepted.
+     */
+    public void updateViewState(String partialResponse) {
+        Matcher viewState = PARTIAL_VIEW_STATE.matcher(partialResponse);
+        if (viewState.find()) {
+            hiddenFields.put(VIEW_STATE, viewState.group(1));
+        }
+    }
+
+    /**
+     * Parameters of a full submit of the form with the given button.
+     */
+    public Map<String, String[]> getSubmitParameters(String button) {
+        Map<String, String[]> parameters = getFieldParameters();
+        if (null != button) {
+            parameters.put(button, new String[] { button });
+        }
+        return parameters;
+    }
+
+    /**
+     * Parameters that <code>jsf.ajax.request</code> sends for a change event of a text field, using the Ajax behavior
+     * rendered for the field or, if it has none, executing the field and rendering the whole form.
+     */
+    public Map<String, String[]> getAjaxParameters(String field) {
+        String event = "valueChange";
+        String execute = field;
+        String render = id;
+        String behavior = behaviors.get(field);
+        if (null != behavior) {
+            Matcher ajax = AJAX_BEHAVIOR.matcher(behavior);
+            if (ajax.find()) {
+                event = ajax.group(1);
+                execute = "0".equals(ajax.group(2)) ? field : unquote(ajax.group(2));
+                render = "0".equals(ajax.group(3)) ? null : unquote(ajax.group(3));
+            }
+        }
+
+        Map<String, String[]> parameters = getFieldParameters();
+        parameters.put("javax.faces.source", new String[] { field });
+        parameters.put("javax.faces.partial.event", new String[] { "change" });
+        parameters.put("javax.faces.partial.execute", new String[] { execute });
+        if (null != render) {
+            parameters.put("javax.faces.partial.render", new String[] { render });
+        }
+        parameters.put("javax.faces.behavior.event", new String[] { event });
+        parameters.put("javax.faces.partial.ajax", new String[] { Boolean.TRUE.toString() });
+        return parameters;
+    }
+
+    private static String unquote(String value) {
+        return value.substring(1, value.length() - 1);
+    }
+
+    private Map<String, String[]> getFieldParameters() {
+        Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        for (Map.Entry<String, String> field : hiddenFields.entrySet()) {
+            parameters.put(field.getKey(), new String[] { field.getValue() });
+        }
+        for (Map.Entry<String, String> field : textFields.entrySet()) {
+            parameters.put(field.getKey(), new String[] { field.getValue() });
+        }
+        return parameters;
+    }
+}
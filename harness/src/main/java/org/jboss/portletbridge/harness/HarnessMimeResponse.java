@@ -0,0 +1,203 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.util.Locale;
+
+import javax.portlet.CacheControl;
+import javax.portlet.MimeResponse;
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletURL;
+import javax.portlet.ResourceURL;
+
+/**
+ * Base of the responses that produce content. The writer or output stream writes to memory, and the URLs created by
+ * the portlet are {@link HarnessURL}s that {@link HarnessURL#parse(String)} reads back from the markup.
+ */
+public abstract class HarnessMimeResponse extends HarnessResponse implements MimeResponse {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final CacheControl cacheControl = new HarnessCacheControl();
+    private StringWriter characters;
+    private PrintWriter writer;
+    private ByteArrayOutputStream bytes;
+    private String contentType;
+    private String characterEncoding = "UTF-8";
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean committed;
+
+    protected HarnessMimeResponse(HarnessPortal portal, HarnessRequest request) {
+        super(portal, request);
+    }
+
+    /**
+     * The content written by the portlet, decoded with the response character encoding if it was written as bytes.
+     */
+    public String getContent() {
+        if (null != writer) {
+            writer.flush();
+            return characters.toString();
+        }
+        if (null != bytes) {
+            try {
+                return bytes.toString(characterEncoding);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return "";
+    }
+
+    public int getContentSize() {
+        if (null != writer) {
+            writer.flush();
+            return characters.getBuffer().length();
+        }
+        return null != bytes ? bytes.size() : 0;
+    }
+
+    protected void setCharacterEncodingInternal(String characterEncoding) {
+        this.characterEncoding = characterEncoding;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setContentType(String type) {
+        int charset = type.indexOf("charset=");
+        if (charset != -1) {
+            characterEncoding = type.substring(charset + "charset=".length()).trim();
+        }
+        this.contentType = type;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (null != bytes) {
+            throw new IllegalStateException("getPortletOutputStream() has already been called");
+        }
+        if (null == writer) {
+            characters = new StringWriter(bufferSize);
+            writer = new PrintWriter(characters);
+        }
+        return writer;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return getRequest().getLocale();
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        if (null != writer || null != bytes) {
+            throw new IllegalStateException("Content has already been written");
+        }
+        this.bufferSize = size;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public void flushBuffer() {
+        committed = true;
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        if (null != writer) {
+            writer.flush();
+            characters.getBuffer().setLength(0);
+        }
+        if (null != bytes) {
+            bytes.reset();
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+    }
+
+    @Override
+    public OutputStream getPortletOutputStream() {
+        if (null != writer) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if (null == bytes) {
+            bytes = new ByteArrayOutputStream(bufferSize);
+        }
+        return bytes;
+    }
+
+    @Override
+    public PortletURL createRenderURL() {
+        return createURL(PortletRequest.RENDER_PHASE);
+    }
+
+    @Override
+    public PortletURL createActionURL() {
+        return createURL(PortletRequest.ACTION_PHASE);
+    }
+
+    @Override
+    public ResourceURL createResourceURL() {
+        return createURL(PortletRequest.RESOURCE_PHASE);
+    }
+
+    @Override
+    public CacheControl getCacheControl() {
+        return cacheControl;
+    }
+
+    private HarnessURL createURL(String lifecycle) {
+        HarnessURL url = new HarnessURL(getPortal().getPortalPath(), lifecycle);
+        url.setPortletMode(getRequest().getPortletMode());
+        url.setWindowState(getRequest().getWindowState());
+        return url;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.portlet.EventPortlet;
+import javax.portlet.Portlet;
+import javax.portlet.PortletException;
+import javax.portlet.PortletMode;
+import javax.portlet.ResourceServingPortlet;
+import javax.portlet.WindowState;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.xml.namespace.QName;
+
+import com.sun.faces.config.ConfigureListener;
+
+/**
+ * Minimal portal that hosts a single portlet of an exploded web application in memory. It starts Mojarra the way a
+ * servlet container would, instantiates the portlet named in <code>WEB-INF/portlet.xml</code> and calls it with
+ * in-memory requests on behalf of {@link SimulatedUser}s.
+ */
+public class HarnessPortal {
+
+    public static final String CONTEXT_PATH = "/harness";
+
+    private static final String EXPRESSION_FACTORY = "com.sun.faces.expressionFactory";
+    private static final String EXPRESSION_FACTORY_IMPL = "com.sun.el.ExpressionFactoryImpl";
+
+    private final File webappDirectory;
+    private final String portletName;
+    private final Queue<HarnessPortletSession> sessions = new ConcurrentLinkedQueue<HarnessPortletSession>();
+    private final HarnessPortalContext portalContext = new HarnessPortalContext();
+    private final HarnessPortletPreferences preferences = new HarnessPortletPreferences();
+    private final Map<String, String> initParameters = new LinkedHashMap<String, String>();
+    private HarnessServletContext servletContext;
+    private HarnessPortletContext portletContext;
+    private HarnessPortletConfig portletConfig;
+    private ServletContextListener facesListener;
+    private Portlet portlet;
+
+    /**
+     * @param webappDirectory exploded web application containing <code>WEB-INF/web.xml</code> and
+     *        <code>WEB-INF/portlet.xml</code>.
+     * @param portletName to host, or <code>null</code> for the first portlet of <code>WEB-INF/portlet.xml</code>.
+     */
+    public HarnessPortal(File webappDirectory, String portletName) {
+        this.webappDirectory = webappDirectory;
+        this.portletName = portletName;
+    }
+
+    /**
+     * Overrides a portlet init parameter of <code>WEB-INF/portlet.xml</code>, must be called before {@link #start()}.
+     */
+    public void setInitParameter(String name, String value) {
+        initParameters.put(name, value);
+    }
+
+    public void start() throws IOException, PortletException {
+        servletContext = new HarnessServletContext(webappDirectory, CONTEXT_PATH);
+        if (null == servletContext.getInitParameter(EXPRESSION_FACTORY)) {
+            servletContext.setInitParameter(EXPRESSION_FACTORY, EXPRESSION_FACTORY_IMPL);
+        }
+        facesListener = new ConfigureListener();
+        facesListener.contextInitialized(new ServletContextEvent(servletContext));
+
+        portletContext = new HarnessPortletContext(servletContext);
+        portletConfig = HarnessPortletConfig.load(portletContext, portletName);
+        for (Map.Entry<String, String> initParameter : initParameters.entrySet()) {
+            portletConfig.setInitParameter(initParameter.getKey(), initParameter.getValue());
+        }
+        try {
+            Class<?> portletClass = Class.forName(portletConfig.getPortletClass(), true, Thread.currentThread()
+                    .getContextClassLoader());
+            portlet = (Portlet) portletClass.newInstance();
+        } catch (Exception e) {
+            throw new PortletException("Unable to instantiate " + portletConfig.getPortletClass(), e);
+        }
+        portlet.init(portletConfig);
+    }
+
+    public void stop() {
+        if (null != portlet) {
+            portlet.destroy();
+            portlet = null;
+        }
+        for (HarnessPortletSession session : sessions) {
+            session.invalidate();
+        }
+        sessions.clear();
+        if (null != facesListener) {
+            facesListener.contextDestroyed(new ServletContextEvent(servletContext));
+            facesListener = null;
+        }
+    }
+
+    public HarnessServletContext getServletContext() {
+        return servletContext;
+    }
+
+    public HarnessPortletContext getPortletContext() {
+        return portletContext;
+    }
+
+    public HarnessPortletConfig getPortletConfig() {
+        return portletConfig;
+    }
+
+    public HarnessPortalContext getPortalContext() {
+        return portalContext;
+    }
+
+    public HarnessPortletPreferences getPreferences() {
+        return preferences;
+    }
+
+    /**
+     * Path of the page containing the portlet, used as the base of every {@link HarnessURL}.
+     */
+    public String getPortalPath() {
+        return "/portal/" + portletConfig.getPortletName();
+    }
+
+    /**
+     * Sessions created since the portal started that have not been invalidated.
+     */
+    public Collection<HarnessPortletSession> getSessions() {
+        List<HarnessPortletSession> valid = new ArrayList<HarnessPortletSession>(sessions.size());
+        for (HarnessPortletSession session : sessions) {
+            if (session.isValid()) {
+                valid.add(session);
+            }
+        }
+        return valid;
+    }
+
+    HarnessPortletSession createSession() {
+        HarnessPortletSession session = new HarnessPortletSession(portletContext);
+        sessions.add(session);
+        return session;
+    }
+
+    public HarnessRenderResponse render(SimulatedUser user, PortletMode portletMode, WindowState windowState,
+            Map<String, String[]> renderParameters) throws IOException, PortletException {
+        HarnessRenderRequest request = new HarnessRenderRequest(this, user.getSession(), portletMode, windowState);
+        request.setParameters(renderParameters);
+        HarnessRenderResponse response = new HarnessRenderResponse(this, request);
+        try {
+            portlet.render(request, response);
+        } finally {
+            user.setSession(request.getSession());
+        }
+        return response;
+    }
+
+    public HarnessActionResponse action(SimulatedUser user, HarnessURL url, Map<String, String[]> formParameters)
+            throws IOException, PortletException {
+        HarnessActionRequest request = new HarnessActionRequest(this, user.getSession(), url.getPortletMode(),
+                url.getWindowState());
+        request.setParameters(url.getParameterMap());
+        request.setParameters(formParameters);
+        HarnessActionResponse response = new HarnessActionResponse(this, request);
+        try {
+            portlet.processAction(request, response);
+        } finally {
+            user.setSession(request.getSession());
+        }
+        return response;
+    }
+
+    public HarnessResourceResponse resource(SimulatedUser user, HarnessURL url, Map<String, String[]> formParameters,
+            Map<String, String> properties) throws IOException, PortletException {
+        HarnessResourceRequest request = new HarnessResourceRequest(this, user.getSession(), url.getPortletMode(),
+                url.getWindowState(), url.getResourceID(), url.getCacheability());
+        request.setParameters(url.getParameterMap());
+        request.setParameters(formParameters);
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            request.addProperty(property.getKey(), property.getValue());
+        }
+        HarnessResourceResponse response = new HarnessResourceResponse(this, request);
+        try {
+            ((ResourceServingPortlet) portlet).serveResource(request, response);
+        } finally {
+            user.setSession(request.getSession());
+        }
+        return response;
+    }
+
+    public HarnessEventResponse event(SimulatedUser user, QName name, Serializable value) throws IOException,
+            PortletException {
+        HarnessEventRequest request = new HarnessEventRequest(this, user.getSession(), user.getPortletMode(),
+                WindowState.NORMAL, new HarnessEvent(name, value));
+        request.setParameters(user.getRenderParameters());
+        HarnessEventResponse response = new HarnessEventResponse(this, request);
+        try {
+            ((EventPortlet) portlet).processEvent(request, response);
+        } finally {
+            user.setSession(request.getSession());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.portlet.PortalContext;
+import javax.portlet.PortletMode;
+import javax.portlet.WindowState;
+
+/**
+ * {@link PortalContext} of the harness, which supports the standard portlet modes and window states and accepts
+ * head elements from the portlet.
+ */
+public class HarnessPortalContext implements PortalContext {
+
+    private static final List<PortletMode> MODES = Arrays.asList(PortletMode.VIEW, PortletMode.EDIT, PortletMode.HELP);
+    private static final List<WindowState> STATES = Arrays.asList(WindowState.NORMAL, WindowState.MAXIMIZED,
+            WindowState.MINIMIZED);
+
+    @Override
+    public String getProperty(String name) {
+        return MARKUP_HEAD_ELEMENT_SUPPORT.equals(name) ? Boolean.TRUE.toString() : null;
+    }
+
+    @Override
+    public Enumeration<String> getPropertyNames() {
+        return Collections.enumeration(Collections.singleton(MARKUP_HEAD_ELEMENT_SUPPORT));
+    }
+
+    @Override
+    public Enumeration<PortletMode> getSupportedPortletModes() {
+        return Collections.enumeration(MODES);
+    }
+
+    @Override
+    public Enumeration<WindowState> getSupportedWindowStates() {
+        return Collections.enumeration(STATES);
+    }
+
+    @Override
+    public String getPortalInfo() {
+        return "Portlet Bridge Load Harness/1.0";
+    }
+}
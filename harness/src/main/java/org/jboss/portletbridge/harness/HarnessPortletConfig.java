@@ -0,0 +1,199 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import javax.portlet.PortletConfig;
+import javax.portlet.PortletContext;
+import javax.portlet.PortletMode;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * {@link PortletConfig} of a portlet defined in <code>WEB-INF/portlet.xml</code>.
+ */
+public class HarnessPortletConfig implements PortletConfig {
+
+    private final HarnessPortletContext portletContext;
+    private final String portletName;
+    private final String portletClass;
+    private final Map<String, String> initParameters = new LinkedHashMap<String, String>();
+    private final List<PortletMode> supportedModes = new ArrayList<PortletMode>();
+    private final String title;
+
+    HarnessPortletConfig(HarnessPortletContext portletContext, Element portlet) {
+        this.portletContext = portletContext;
+        this.portletName = getChildText(portlet, "portlet-name");
+        this.portletClass = getChildText(portlet, "portlet-class");
+
+        NodeList params = portlet.getElementsByTagName("init-param");
+        for (int i = 0; i < params.getLength(); i++) {
+            Element param = (Element) params.item(i);
+            initParameters.put(getChildText(param, "name"), getChildText(param, "value"));
+        }
+
+        NodeList modes = portlet.getElementsByTagName("portlet-mode");
+        for (int i = 0; i < modes.getLength(); i++) {
+            PortletMode mode = new PortletMode(modes.item(i).getTextContent().trim());
+            if (!supportedModes.contains(mode)) {
+                supportedModes.add(mode);
+            }
+        }
+
+        String portletTitle = null;
+        NodeList infos = portlet.getElementsByTagName("portlet-info");
+        if (infos.getLength() > 0) {
+            portletTitle = getChildText((Element) infos.item(0), "title");
+        }
+        this.title = null != portletTitle ? portletTitle : portletName;
+    }
+
+    /**
+     * Reads the definition of a portlet from <code>WEB-INF/portlet.xml</code>.
+     *
+     * @param portletContext of the web application.
+     * @param portletName of the portlet, or <code>null</code> for the first portlet that is defined.
+     */
+    public static HarnessPortletConfig load(HarnessPortletContext portletContext, String portletName) throws IOException {
+        InputStream portletXml = portletContext.getResourceAsStream("/WEB-INF/portlet.xml");
+        if (null == portletXml) {
+            throw new FileNotFoundException("No WEB-INF/portlet.xml in " + portletContext.getPortletContextName());
+        }
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(portletXml);
+            NodeList portlets = document.getElementsByTagName("portlet");
+            for (int i = 0; i < portlets.getLength(); i++) {
+                Element portlet = (Element) portlets.item(i);
+                if (null == portletName || portletName.equals(getChildText(portlet, "portlet-name"))) {
+                    return new HarnessPortletConfig(portletContext, portlet);
+                }
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to read WEB-INF/portlet.xml", e);
+        } finally {
+            portletXml.close();
+        }
+        throw new IllegalArgumentException("No portlet named " + portletName + " in WEB-INF/portlet.xml");
+    }
+
+    static String getChildText(Element parent, String name) {
+        for (Node child = parent.getFirstChild(); null != child; child = child.getNextSibling()) {
+            if (child instanceof Element && name.equals(child.getNodeName())) {
+                return child.getTextContent().trim();
+            }
+        }
+        return null;
+    }
+
+    void setInitParameter(String name, String value) {
+        initParameters.put(name, value);
+    }
+
+    public String getPortletClass() {
+        return portletClass;
+    }
+
+    public List<PortletMode> getSupportedModes() {
+        return supportedModes;
+    }
+
+    @Override
+    public String getPortletName() {
+        return portletName;
+    }
+
+    @Override
+    public PortletContext getPortletContext() {
+        return portletContext;
+    }
+
+    @Override
+    public ResourceBundle getResourceBundle(Locale locale) {
+        return new ListResourceBundle() {
+            @Override
+            protected Object[][] getContents() {
+                return new Object[][] { { "javax.portlet.title", title }, { "javax.portlet.short-title", title },
+                        { "javax.portlet.keywords", "" } };
+            }
+        };
+    }
+
+    @Override
+    public String getInitParameter(String name) {
+        return initParameters.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(initParameters.keySet());
+    }
+
+    @Override
+    public Enumeration<String> getPublicRenderParameterNames() {
+        return Collections.enumeration(Collections.<String> emptySet());
+    }
+
+    @Override
+    public String getDefaultNamespace() {
+        return XMLConstants.NULL_NS_URI;
+    }
+
+    @Override
+    public Enumeration<QName> getPublishingEventQNames() {
+        return Collections.enumeration(Collections.<QName> emptySet());
+    }
+
+    @Override
+    public Enumeration<QName> getProcessingEventQNames() {
+        return Collections.enumeration(Collections.<QName> emptySet());
+    }
+
+    @Override
+    public Enumeration<Locale> getSupportedLocales() {
+        return Collections.enumeration(Collections.singleton(Locale.ENGLISH));
+    }
+
+    @Override
+    public Map<String, String[]> getContainerRuntimeOptions() {
+        return Collections.emptyMap();
+    }
+}
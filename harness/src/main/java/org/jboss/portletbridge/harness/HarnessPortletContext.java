@@ -0,0 +1,149 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Set;
+
+import javax.portlet.PortletContext;
+import javax.portlet.PortletRequestDispatcher;
+
+/**
+ * {@link PortletContext} of the web application, which shares its attributes, resources and init parameters with the
+ * {@link HarnessServletContext} as it would in a portlet container.
+ */
+public class HarnessPortletContext implements PortletContext {
+
+    private final HarnessServletContext servletContext;
+
+    public HarnessPortletContext(HarnessServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    public HarnessServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public String getServerInfo() {
+        return servletContext.getServerInfo();
+    }
+
+    @Override
+    public PortletRequestDispatcher getRequestDispatcher(String path) {
+        return null;
+    }
+
+    @Override
+    public PortletRequestDispatcher getNamedDispatcher(String name) {
+        return null;
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String path) {
+        return servletContext.getResourceAsStream(path);
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 2;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public String getMimeType(String file) {
+        return servletContext.getMimeType(file);
+    }
+
+    @Override
+    public String getRealPath(String path) {
+        return servletContext.getRealPath(path);
+    }
+
+    @Override
+    public Set<String> getResourcePaths(String path) {
+        return servletContext.getResourcePaths(path);
+    }
+
+    @Override
+    public URL getResource(String path) throws MalformedURLException {
+        return servletContext.getResource(path);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return servletContext.getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return servletContext.getAttributeNames();
+    }
+
+    @Override
+    public String getInitParameter(String name) {
+        return servletContext.getInitParameter(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return servletContext.getInitParameterNames();
+    }
+
+    @Override
+    public void log(String msg) {
+        servletContext.log(msg);
+    }
+
+    @Override
+    public void log(String message, Throwable throwable) {
+        servletContext.log(message, throwable);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        servletContext.removeAttribute(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object object) {
+        servletContext.setAttribute(name, object);
+    }
+
+    @Override
+    public String getPortletContextName() {
+        return servletContext.getServletContextName();
+    }
+
+    @Override
+    public Enumeration<String> getContainerRuntimeOptions() {
+        return Collections.enumeration(Collections.<String> emptySet());
+    }
+}
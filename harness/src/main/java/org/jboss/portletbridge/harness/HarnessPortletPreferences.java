@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.portlet.PortletPreferences;
+import javax.portlet.ReadOnlyException;
+
+/**
+ * {@link PortletPreferences} of a simulated user, which are kept for the lifetime of the user.
+ */
+public class HarnessPortletPreferences implements PortletPreferences {
+
+    private final Map<String, String[]> values = new ConcurrentHashMap<String, String[]>();
+
+    @Override
+    public boolean isReadOnly(String key) {
+        return false;
+    }
+
+    @Override
+    public String getValue(String key, String def) {
+        String[] value = values.get(key);
+        return null != value && value.length > 0 ? value[0] : def;
+    }
+
+    @Override
+    public String[] getValues(String key, String[] def) {
+        String[] value = values.get(key);
+        return null != value ? value.clone() : def;
+    }
+
+    @Override
+    public void setValue(String key, String value) throws ReadOnlyException {
+        values.put(key, new String[] { value });
+    }
+
+    @Override
+    public void setValues(String key, String[] values) throws ReadOnlyException {
+        this.values.put(key, values.clone());
+    }
+
+    @Override
+    public Enumeration<String> getNames() {
+        return Collections.enumeration(values.keySet());
+    }
+
+    @Override
+    public Map<String, String[]> getMap() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public void reset(String key) throws ReadOnlyException {
+        values.remove(key);
+    }
+
+    @Override
+    public void store() {
+        // Held in memory
+    }
+}
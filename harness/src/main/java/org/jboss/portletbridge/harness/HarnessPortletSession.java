@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.portlet.PortletContext;
+import javax.portlet.PortletSession;
+
+/**
+ * {@link PortletSession} of a simulated user, holding the application and portlet scoped attributes in memory.
+ */
+public class HarnessPortletSession implements PortletSession {
+
+    private final PortletContext portletContext;
+    private final String id = UUID.randomUUID().toString();
+    private final long creationTime = System.currentTimeMillis();
+    private final Map<String, Object> applicationScope = new ConcurrentHashMap<String, Object>();
+    private final Map<String, Object> portletScope = new ConcurrentHashMap<String, Object>();
+    private volatile long lastAccessedTime = creationTime;
+    private volatile boolean accessed;
+    private volatile boolean valid = true;
+    private int maxInactiveInterval = 1800;
+
+    public HarnessPortletSession(PortletContext portletContext) {
+        this.portletContext = portletContext;
+    }
+
+    void access() {
+        if (!valid) {
+            throw new IllegalStateException("Session " + id + " has been invalidated");
+        }
+        lastAccessedTime = System.currentTimeMillis();
+        accessed = true;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    private Map<String, Object> getScope(int scope) {
+        return scope == APPLICATION_SCOPE ? applicationScope : portletScope;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return getAttribute(name, PORTLET_SCOPE);
+    }
+
+    @Override
+    public Object getAttribute(String name, int scope) {
+        return getScope(scope).get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return getAttributeNames(PORTLET_SCOPE);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames(int scope) {
+        return Collections.enumeration(getScope(scope).keySet());
+    }
+
+    @Override
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    @Override
+    public void invalidate() {
+        valid = false;
+        applicationScope.clear();
+        portletScope.clear();
+    }
+
+    @Override
+    public boolean isNew() {
+        return !accessed;
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        removeAttribute(name, PORTLET_SCOPE);
+    }
+
+    @Override
+    public void removeAttribute(String name, int scope) {
+        getScope(scope).remove(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        setAttribute(name, value, PORTLET_SCOPE);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value, int scope) {
+        if (null == value) {
+            removeAttribute(name, scope);
+        } else {
+            getScope(scope).put(name, value);
+        }
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        this.maxInactiveInterval = interval;
+    }
+
+    @Override
+    public PortletContext getPortletContext() {
+        return portletContext;
+    }
+
+    @Override
+    public Map<String, Object> getAttributeMap() {
+        return getAttributeMap(PORTLET_SCOPE);
+    }
+
+    @Override
+    public Map<String, Object> getAttributeMap(int scope) {
+        return Collections.unmodifiableMap(getScope(scope));
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.portlet.PortalContext;
+import javax.portlet.PortletMode;
+import javax.portlet.PortletPreferences;
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletSession;
+import javax.portlet.WindowState;
+import javax.servlet.http.Cookie;
+
+/**
+ * Base of the in-memory portlet requests. Attributes, parameters and properties are plain maps that the
+ * {@link HarnessPortal} fills in before calling the portlet, and the session is created on demand for the
+ * {@link SimulatedUser} that issued the request.
+ */
+public abstract class HarnessRequest implements PortletRequest {
+
+    private final HarnessPortal portal;
+    private final String lifecyclePhase;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+    private final Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+    private final Map<String, List<String>> properties = new HashMap<String, List<String>>();
+    private final PortletMode portletMode;
+    private final WindowState windowState;
+    private HarnessPortletSession session;
+
+    protected HarnessRequest(HarnessPortal portal, String lifecyclePhase, HarnessPortletSession session,
+            PortletMode portletMode, WindowState windowState) {
+        this.portal = portal;
+        this.lifecyclePhase = lifecyclePhase;
+        this.session = session;
+        this.portletMode = null != portletMode ? portletMode : PortletMode.VIEW;
+        this.windowState = null != windowState ? windowState : WindowState.NORMAL;
+        attributes.put(LIFECYCLE_PHASE, lifecyclePhase);
+        if (null != session) {
+            session.access();
+        }
+    }
+
+    public String getLifecyclePhase() {
+        return lifecyclePhase;
+    }
+
+    /**
+     * The session used or created while serving this request, so the caller can keep it for the next one.
+     */
+    public HarnessPortletSession getSession() {
+        return session;
+    }
+
+    public void addParameter(String name, String value) {
+        HarnessURL.addParameter(parameters, name, value);
+    }
+
+    public void setParameters(Map<String, String[]> parameters) {
+        this.parameters.putAll(parameters);
+    }
+
+    public void addProperty(String name, String value) {
+        List<String> values = properties.get(name);
+        if (null == values) {
+            values = new ArrayList<String>(1);
+            properties.put(name, values);
+        }
+        values.add(value);
+    }
+
+    @Override
+    public boolean isWindowStateAllowed(WindowState state) {
+        return Collections.list(portal.getPortalContext().getSupportedWindowStates()).contains(state);
+    }
+
+    @Override
+    public boolean isPortletModeAllowed(PortletMode mode) {
+        return portal.getPortletConfig().getSupportedModes().contains(mode);
+    }
+
+    @Override
+    public PortletMode getPortletMode() {
+        return portletMode;
+    }
+
+    @Override
+    public WindowState getWindowState() {
+        return windowState;
+    }
+
+    @Override
+    public PortletPreferences getPreferences() {
+        return portal.getPreferences();
+    }
+
+    @Override
+    public PortletSession getPortletSession() {
+        return getPortletSession(true);
+    }
+
+    @Override
+    public PortletSession getPortletSession(boolean create) {
+        if (null != session && !session.isValid()) {
+            session = null;
+        }
+        if (null == session && create) {
+            session = portal.createSession();
+        }
+        return session;
+    }
+
+    @Override
+    public String getProperty(String name) {
+        List<String> values = properties.get(name);
+        return null != values ? values.get(0) : null;
+    }
+
+    @Override
+    public Enumeration<String> getProperties(String name) {
+        List<String> values = properties.get(name);
+        return Collections.enumeration(null != values ? values : Collections.<String> emptyList());
+    }
+
+    @Override
+    public Enumeration<String> getPropertyNames() {
+        return Collections.enumeration(properties.keySet());
+    }
+
+    @Override
+    public PortalContext getPortalContext() {
+        return portal.getPortalContext();
+    }
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public String getContextPath() {
+        return portal.getServletContext().getContextPath();
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return null != values && values.length > 0 ? values[0] : null;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters.keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters.get(name);
+        return null != values ? values.clone() : null;
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (null == value) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null != session ? session.getId() : null;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return null != session && session.isValid();
+    }
+
+    @Override
+    public String getResponseContentType() {
+        return "text/html";
+    }
+
+    @Override
+    public Enumeration<String> getResponseContentTypes() {
+        return Collections.enumeration(Collections.singletonList(getResponseContentType()));
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.ENGLISH;
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        return Collections.enumeration(Collections.singletonList(getLocale()));
+    }
+
+    @Override
+    public String getScheme() {
+        return "http";
+    }
+
+    @Override
+    public String getServerName() {
+        return "localhost";
+    }
+
+    @Override
+    public int getServerPort() {
+        return 8080;
+    }
+
+    @Override
+    public String getWindowID() {
+        return portal.getPortletConfig().getPortletName();
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return new Cookie[0];
+    }
+
+    @Override
+    public Map<String, String[]> getPrivateParameterMap() {
+        return getParameterMap();
+    }
+
+    @Override
+    public Map<String, String[]> getPublicParameterMap() {
+        return Collections.emptyMap();
+    }
+}
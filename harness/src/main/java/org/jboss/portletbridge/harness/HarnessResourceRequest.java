@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.util.Collections;
+import java.util.Map;
+
+import javax.portlet.PortletMode;
+import javax.portlet.ResourceRequest;
+import javax.portlet.ResourceURL;
+import javax.portlet.WindowState;
+
+/**
+ * In-memory {@link ResourceRequest}.
+ */
+public class HarnessResourceRequest extends HarnessClientDataRequest implements ResourceRequest {
+
+    private final String resourceId;
+    private final String cacheability;
+
+    public HarnessResourceRequest(HarnessPortal portal, HarnessPortletSession session, PortletMode portletMode,
+            WindowState windowState, String resourceId, String cacheability) {
+        super(portal, RESOURCE_PHASE, session, portletMode, windowState);
+        this.resourceId = resourceId;
+        this.cacheability = null != cacheability ? cacheability : ResourceURL.PAGE;
+    }
+
+    @Override
+    public String getETag() {
+        return null;
+    }
+
+    @Override
+    public String getResourceID() {
+        return resourceId;
+    }
+
+    @Override
+    public Map<String, String[]> getPrivateRenderParameterMap() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public String getCacheability() {
+        return cacheability;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.util.Locale;
+
+import javax.portlet.ResourceResponse;
+
+/**
+ * In-memory {@link ResourceResponse}.
+ */
+public class HarnessResourceResponse extends HarnessMimeResponse implements ResourceResponse {
+
+    private Locale locale;
+    private int contentLength = -1;
+
+    public HarnessResourceResponse(HarnessPortal portal, HarnessResourceRequest request) {
+        super(portal, request);
+    }
+
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public Locale getLocale() {
+        return null != locale ? locale : super.getLocale();
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        this.locale = loc;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        setCharacterEncodingInternal(charset);
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        this.contentLength = len;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.portlet.MimeResponse;
+import javax.portlet.PortletResponse;
+import javax.servlet.http.Cookie;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Base of the in-memory portlet responses. Properties, cookies and the head elements contributed through
+ * {@link MimeResponse#MARKUP_HEAD_ELEMENT} are kept so that a {@link SimulatedUser} can inspect them.
+ */
+public abstract class HarnessResponse implements PortletResponse {
+
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+
+    private final HarnessPortal portal;
+    private final HarnessRequest request;
+    private final Map<String, List<String>> properties = new LinkedHashMap<String, List<String>>();
+    private final List<Cookie> cookies = new ArrayList<Cookie>();
+    private final List<Element> headElements = new ArrayList<Element>();
+    private Document document;
+
+    protected HarnessResponse(HarnessPortal portal, HarnessRequest request) {
+        this.portal = portal;
+        this.request = request;
+    }
+
+    protected HarnessPortal getPortal() {
+        return portal;
+    }
+
+    protected HarnessRequest getRequest() {
+        return request;
+    }
+
+    public Map<String, List<String>> getProperties() {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    public String getPropertyValue(String key) {
+        List<String> values = properties.get(key);
+        return null != values && !values.isEmpty() ? values.get(0) : null;
+    }
+
+    public List<Cookie> getCookies() {
+        return Collections.unmodifiableList(cookies);
+    }
+
+    public List<Element> getHeadElements() {
+        return Collections.unmodifiableList(headElements);
+    }
+
+    @Override
+    public void addProperty(String key, String value) {
+        List<String> values = properties.get(key);
+        if (null == values) {
+            values = new ArrayList<String>(1);
+            properties.put(key, values);
+        }
+        values.add(value);
+    }
+
+    @Override
+    public void setProperty(String key, String value) {
+        List<String> values = new ArrayList<String>(1);
+        values.add(value);
+        properties.put(key, values);
+    }
+
+    @Override
+    public String encodeURL(String path) {
+        return path;
+    }
+
+    @Override
+    public String getNamespace() {
+        return "_" + portal.getPortletConfig().getPortletName() + "_";
+    }
+
+    @Override
+    public void addProperty(Cookie cookie) {
+        cookies.add(cookie);
+    }
+
+    @Override
+    public void addProperty(String key, Element element) {
+        if (MimeResponse.MARKUP_HEAD_ELEMENT.equals(key)) {
+            if (null != element) {
+                headElements.add(element);
+            }
+        } else if (null != element) {
+            addProperty(key, element.getTextContent());
+        }
+    }
+
+    @Override
+    public Element createElement(String tagName) {
+        if (null == document) {
+            try {
+                synchronized (DOCUMENT_BUILDER_FACTORY) {
+                    document = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder().newDocument();
+                }
+            } catch (ParserConfigurationException e) {
+                throw new DOMException(DOMException.NOT_SUPPORTED_ERR, e.getMessage());
+            }
+        }
+        return document.createElement(tagName);
+    }
+}
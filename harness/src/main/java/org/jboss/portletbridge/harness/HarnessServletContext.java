@@ -0,0 +1,410 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.EventListener;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterRegistration;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.Servlet;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+import javax.servlet.SessionCookieConfig;
+import javax.servlet.SessionTrackingMode;
+import javax.servlet.descriptor.JspConfigDescriptor;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * {@link ServletContext} for an exploded web application directory, which is all Faces needs to initialize outside
+ * of a servlet container. Context parameters are read from <code>WEB-INF/web.xml</code>, and can be added to or
+ * overridden before the application is started.
+ */
+public class HarnessServletContext implements ServletContext {
+
+    private static final Logger LOG = Logger.getLogger(HarnessServletContext.class.getName());
+
+    private final File webappDirectory;
+    private final String contextPath;
+    private final Map<String, String> initParameters = new ConcurrentHashMap<String, String>();
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+    public HarnessServletContext(File webappDirectory, String contextPath) throws IOException {
+        this.webappDirectory = webappDirectory.getCanonicalFile();
+        this.contextPath = contextPath;
+
+        InputStream webXml = getResourceAsStream("/WEB-INF/web.xml");
+        if (null == webXml) {
+            throw new FileNotFoundException("No WEB-INF/web.xml in " + webappDirectory);
+        }
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(webXml);
+            NodeList params = document.getElementsByTagName("context-param");
+            for (int i = 0; i < params.getLength(); i++) {
+                Element param = (Element) params.item(i);
+                initParameters.put(HarnessPortletConfig.getChildText(param, "param-name"),
+                        HarnessPortletConfig.getChildText(param, "param-value"));
+            }
+        } catch (Exception e) {
+            throw new IOException("Unable to read WEB-INF/web.xml in " + webappDirectory, e);
+        } finally {
+            webXml.close();
+        }
+    }
+
+    public File getWebappDirectory() {
+        return webappDirectory;
+    }
+
+    private File getFile(String path) {
+        if (null == path || !path.startsWith("/")) {
+            return null;
+        }
+        File file = new File(webappDirectory, path.substring(1));
+        try {
+            // Don't serve anything outside of the application
+            if (!file.getCanonicalPath().startsWith(webappDirectory.getPath())) {
+                return null;
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return file.exists() ? file : null;
+    }
+
+    @Override
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public ServletContext getContext(String uripath) {
+        return null;
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 3;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public int getEffectiveMajorVersion() {
+        return 3;
+    }
+
+    @Override
+    public int getEffectiveMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public String getMimeType(String file) {
+        if (file.endsWith(".js")) {
+            return "text/javascript";
+        } else if (file.endsWith(".css")) {
+            return "text/css";
+        } else if (file.endsWith(".png")) {
+            return "image/png";
+        } else if (file.endsWith(".gif")) {
+            return "image/gif";
+        } else if (file.endsWith(".html") || file.endsWith(".xhtml")) {
+            return "text/html";
+        }
+        return null;
+    }
+
+    @Override
+    public Set<String> getResourcePaths(String path) {
+        File directory = getFile(path);
+        if (null == directory || !directory.isDirectory()) {
+            return null;
+        }
+        String prefix = path.endsWith("/") ? path : path + "/";
+        Set<String> paths = new LinkedHashSet<String>();
+        File[] files = directory.listFiles();
+        if (null != files) {
+            for (File file : files) {
+                paths.add(prefix + file.getName() + (file.isDirectory() ? "/" : ""));
+            }
+        }
+        return paths;
+    }
+
+    @Override
+    public URL getResource(String path) throws MalformedURLException {
+        File file = getFile(path);
+        return null != file ? file.toURI().toURL() : null;
+    }
+
+    @Override
+    public InputStream getResourceAsStream(String path) {
+        File file = getFile(path);
+        if (null == file || file.isDirectory()) {
+            return null;
+        }
+        try {
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        return null;
+    }
+
+    @Override
+    public RequestDispatcher getNamedDispatcher(String name) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public Servlet getServlet(String name) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public Enumeration<Servlet> getServlets() {
+        return Collections.enumeration(Collections.<Servlet> emptySet());
+    }
+
+    @Override
+    @Deprecated
+    public Enumeration<String> getServletNames() {
+        return Collections.enumeration(Collections.<String> emptySet());
+    }
+
+    @Override
+    public void log(String msg) {
+        LOG.info(msg);
+    }
+
+    @Override
+    @Deprecated
+    public void log(Exception exception, String msg) {
+        LOG.log(Level.WARNING, msg, exception);
+    }
+
+    @Override
+    public void log(String message, Throwable throwable) {
+        LOG.log(Level.WARNING, message, throwable);
+    }
+
+    @Override
+    public String getRealPath(String path) {
+        File file = getFile(path);
+        return null != file ? file.getPath() : null;
+    }
+
+    @Override
+    public String getServerInfo() {
+        return "Portlet Bridge Load Harness";
+    }
+
+    @Override
+    public String getInitParameter(String name) {
+        return initParameters.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(initParameters.keySet());
+    }
+
+    @Override
+    public boolean setInitParameter(String name, String value) {
+        initParameters.put(name, value);
+        return true;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object object) {
+        if (null == object) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, object);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public String getServletContextName() {
+        return webappDirectory.getName();
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, String className) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, Servlet servlet) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ServletRegistration.Dynamic addServlet(String servletName, Class<? extends Servlet> servletClass) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Servlet> T createServlet(Class<T> clazz) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ServletRegistration getServletRegistration(String servletName) {
+        return null;
+    }
+
+    @Override
+    public Map<String, ? extends ServletRegistration> getServletRegistrations() {
+        return new HashMap<String, ServletRegistration>();
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, String className) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, Filter filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FilterRegistration.Dynamic addFilter(String filterName, Class<? extends Filter> filterClass) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Filter> T createFilter(Class<T> clazz) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FilterRegistration getFilterRegistration(String filterName) {
+        return null;
+    }
+
+    @Override
+    public Map<String, ? extends FilterRegistration> getFilterRegistrations() {
+        return new HashMap<String, FilterRegistration>();
+    }
+
+    @Override
+    public SessionCookieConfig getSessionCookieConfig() {
+        return null;
+    }
+
+    @Override
+    public void setSessionTrackingModes(Set<SessionTrackingMode> sessionTrackingModes) {
+        // Sessions are held by the harness
+    }
+
+    @Override
+    public Set<SessionTrackingMode> getDefaultSessionTrackingModes() {
+        return Collections.singleton(SessionTrackingMode.COOKIE);
+    }
+
+    @Override
+    public Set<SessionTrackingMode> getEffectiveSessionTrackingModes() {
+        return Collections.singleton(SessionTrackingMode.COOKIE);
+    }
+
+    @Override
+    public void addListener(String className) {
+        // Listeners are started by the harness
+    }
+
+    @Override
+    public <T extends EventListener> void addListener(T t) {
+        // Listeners are started by the harness
+    }
+
+    @Override
+    public void addListener(Class<? extends EventListener> listenerClass) {
+        // Listeners are started by the harness
+    }
+
+    @Override
+    public <T extends EventListener> T createListener(Class<T> clazz) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public JspConfigDescriptor getJspConfigDescriptor() {
+        return null;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return Thread.currentThread().getContextClassLoader();
+    }
+
+    @Override
+    public void declareRoles(String... roleNames) {
+        // No security in the harness
+    }
+}
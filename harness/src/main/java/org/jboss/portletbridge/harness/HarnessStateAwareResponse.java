@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.portlet.Event;
+import javax.portlet.PortletMode;
+import javax.portlet.StateAwareResponse;
+import javax.portlet.WindowState;
+import javax.xml.namespace.QName;
+
+/**
+ * Base of the action and event responses, which only record the render parameters, portlet mode, window state and
+ * events that the portal would apply to the following render.
+ */
+public abstract class HarnessStateAwareResponse extends HarnessResponse implements StateAwareResponse {
+
+    private final Map<String, String[]> renderParameters = new LinkedHashMap<String, String[]>();
+    private final List<Event> events = new ArrayList<Event>();
+    private PortletMode portletMode;
+    private WindowState windowState;
+
+    protected HarnessStateAwareResponse(HarnessPortal portal, HarnessRequest request) {
+        super(portal, request);
+    }
+
+    public List<Event> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    @Override
+    public void setWindowState(WindowState windowState) {
+        this.windowState = windowState;
+    }
+
+    @Override
+    public void setPortletMode(PortletMode portletMode) {
+        this.portletMode = portletMode;
+    }
+
+    @Override
+    public void setRenderParameters(Map<String, String[]> parameters) {
+        renderParameters.clear();
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            setRenderParameter(parameter.getKey(), parameter.getValue());
+        }
+    }
+
+    @Override
+    public void setRenderParameter(String key, String value) {
+        if (null == key) {
+            throw new IllegalArgumentException("Render parameter name must not be null");
+        }
+        if (null == value) {
+            renderParameters.remove(key);
+        } else {
+            renderParameters.put(key, new String[] { value });
+        }
+    }
+
+    @Override
+    public void setRenderParameter(String key, String[] values) {
+        if (null == key) {
+            throw new IllegalArgumentException("Render parameter name must not be null");
+        }
+        if (null == values) {
+            renderParameters.remove(key);
+        } else {
+            renderParameters.put(key, values.clone());
+        }
+    }
+
+    @Override
+    public void setEvent(QName name, Serializable value) {
+        events.add(new HarnessEvent(name, value));
+    }
+
+    @Override
+    public void setEvent(String name, Serializable value) {
+        setEvent(new QName(getPortal().getPortletConfig().getDefaultNamespace(), name), value);
+    }
+
+    @Override
+    public Map<String, String[]> getRenderParameterMap() {
+        return Collections.unmodifiableMap(renderParameters);
+    }
+
+    @Override
+    public PortletMode getPortletMode() {
+        return portletMode;
+    }
+
+    @Override
+    public WindowState getWindowState() {
+        return windowState;
+    }
+
+    @Override
+    public void removePublicRenderParameter(String name) {
+        renderParameters.remove(name);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.portlet.PortletMode;
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletURL;
+import javax.portlet.ResourceURL;
+import javax.portlet.WindowState;
+
+/**
+ * Portlet URL created by the harness responses. The lifecycle, portlet mode, window state and resource id are written
+ * as reserved parameters, so that {@link #parse(String)} can recreate the URL from the markup that a simulated user
+ * follows.
+ */
+public class HarnessURL implements PortletURL, ResourceURL {
+
+    static final String LIFECYCLE = "pb_lifecycle";
+    static final String MODE = "pb_mode";
+    static final String STATE = "pb_state";
+    static final String RESOURCE_ID = "pb_resource";
+    static final String CACHEABILITY = "pb_cache";
+
+    private static final String ENCODING = "UTF-8";
+
+    private final String base;
+    private final String lifecycle;
+    private final Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+    private PortletMode portletMode;
+    private WindowState windowState;
+    private String resourceId;
+    private String cacheability = PAGE;
+
+    public HarnessURL(String base, String lifecycle) {
+        this.base = base;
+        this.lifecycle = lifecycle;
+    }
+
+    /**
+     * Recreates a URL written by {@link #write(Writer, boolean)}, with or without the <code>&amp;</code> escaped.
+     */
+    public static HarnessURL parse(String url) {
+        String unescaped = url.replace("&amp;", "&");
+        int query = unescaped.indexOf('?');
+        String base = query == -1 ? unescaped : unescaped.substring(0, query);
+
+        Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+        if (query != -1) {
+            for (String pair : unescaped.substring(query + 1).split("&")) {
+                if (pair.length() == 0) {
+                    continue;
+                }
+                int equals = pair.indexOf('=');
+                String name = decode(equals == -1 ? pair : pair.substring(0, equals));
+                String value = equals == -1 ? "" : decode(pair.substring(equals + 1));
+                addParameter(parameters, name, value);
+            }
+        }
+
+        String[] lifecycle = parameters.remove(LIFECYCLE);
+        HarnessURL harnessURL = new HarnessURL(base, null != lifecycle ? lifecycle[0] : PortletRequest.RENDER_PHASE);
+        String[] mode = parameters.remove(MODE);
+        if (null != mode) {
+            harnessURL.portletMode = new PortletMode(mode[0]);
+        }
+        String[] state = parameters.remove(STATE);
+        if (null != state) {
+            harnessURL.windowState = new WindowState(state[0]);
+        }
+        String[] resource = parameters.remove(RESOURCE_ID);
+        if (null != resource) {
+            harnessURL.resourceId = resource[0];
+        }
+        String[] cache = parameters.remove(CACHEABILITY);
+        if (null != cache) {
+            harnessURL.cacheability = cache[0];
+        }
+        harnessURL.parameters.putAll(parameters);
+        return harnessURL;
+    }
+
+    static void addParameter(Map<String, String[]> parameters, String name, String value) {
+        String[] existing = parameters.get(name);
+        if (null == existing) {
+            parameters.put(name, new String[] { value });
+        } else {
+            String[] values = Arrays.copyOf(existing, existing.length + 1);
+            values[existing.length] = value;
+            parameters.put(name, values);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String getLifecycle() {
+        return lifecycle;
+    }
+
+    @Override
+    public void setParameter(String name, String value) {
+        if (null == name) {
+            throw new IllegalArgumentException("Parameter name must not be null");
+        }
+        if (null == value) {
+            parameters.remove(name);
+        } else {
+            parameters.put(name, new String[] { value });
+        }
+    }
+
+    @Override
+    public void setParameter(String name, String[] values) {
+        if (null == name) {
+            throw new IllegalArgumentException("Parameter name must not be null");
+        }
+        if (null == values) {
+            parameters.remove(name);
+        } else {
+            parameters.put(name, values.clone());
+        }
+    }
+
+    @Override
+    public void setParameters(Map<String, String[]> parameters) {
+        this.parameters.clear();
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            setParameter(parameter.getKey(), parameter.getValue());
+        }
+    }
+
+    @Override
+    public void setSecure(boolean secure) {
+        // Everything is local
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    @Override
+    public void write(Writer out) throws IOException {
+        write(out, true);
+    }
+
+    @Override
+    public void write(Writer out, boolean escapeXML) throws IOException {
+        out.write(toString(escapeXML));
+    }
+
+    @Override
+    public void addProperty(String key, String value) {
+        // Not used by the harness
+    }
+
+    @Override
+    public void setProperty(String key, String value) {
+        // Not used by the harness
+    }
+
+    @Override
+    public void setWindowState(WindowState windowState) {
+        this.windowState = windowState;
+    }
+
+    @Override
+    public void setPortletMode(PortletMode portletMode) {
+        this.portletMode = portletMode;
+    }
+
+    @Override
+    public PortletMode getPortletMode() {
+        return portletMode;
+    }
+
+    @Override
+    public WindowState getWindowState() {
+        return windowState;
+    }
+
+    @Override
+    public void removePublicRenderParameter(String name) {
+        parameters.remove(name);
+    }
+
+    public String getResourceID() {
+        return resourceId;
+    }
+
+    @Override
+    public void setResourceID(String resourceID) {
+        this.resourceId = resourceID;
+    }
+
+    @Override
+    public String getCacheability() {
+        return cacheability;
+    }
+
+    @Override
+    public void setCacheability(String cacheLevel) {
+        this.cacheability = cacheLevel;
+    }
+
+    @Override
+    public String toString() {
+        return toString(true);
+    }
+
+    private String toString(boolean escapeXML) {
+        String separator = escapeXML ? "&amp;" : "&";
+        StringBuilder url = new StringBuilder(base);
+        url.append('?').append(LIFECYCLE).append('=').append(lifecycle);
+        if (null != portletMode) {
+            url.append(separator).append(MODE).append('=').append(encode(portletMode.toString()));
+        }
+        if (null != windowState) {
+            url.append(separator).append(STATE).append('=').append(encode(windowState.toString()));
+        }
+        if (null != resourceId) {
+            url.append(separator).append(RESOURCE_ID).append('=').append(encode(resourceId));
+        }
+        if (PortletRequest.RESOURCE_PHASE.equals(lifecycle) && !PAGE.equals(cacheability)) {
+            url.append(separator).append(CACHEABILITY).append('=').append(cacheability);
+        }
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                url.append(separator).append(encode(parameter.getKey())).append('=').append(encode(value));
+            }
+        }
+        return url.toString();
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.portlet.PortletRequest;
+import javax.portlet.PortletSession;
+
+import org.jboss.portletbridge.bridge.context.BridgeContextImpl;
+
+/**
+ * Drives a {@link HarnessPortal} with many {@link SimulatedUser}s spread over a pool of threads. Every iteration, each
+ * user renders the portlet, sends an Ajax request, submits the form and renders the result. After unmeasured warm-up
+ * iterations, the latency and allocations of every request are recorded, and once the run is over the heap retained
+ * by the sessions of the users is measured. Requests failing during warm-up are reported separately from those of the
+ * measured iterations.
+ *
+ * <p>
+ * Usage: <code>LoadHarness [-webapp dir] [-portlet name] [-users n] [-threads n] [-iterations n] [-warmup n]</code>
+ * </p>
+ */
+public class LoadHarness {
+
+    private static final Logger LOG = Logger.getLogger(LoadHarness.class.getName());
+
+    private static final String[] SCENARIO = { PortletRequest.RENDER_PHASE, PortletRequest.RESOURCE_PHASE,
+            PortletRequest.ACTION_PHASE, PortletRequest.RENDER_PHASE };
+
+    private static final int GC_ROUNDS = 4;
+
+    private final HarnessPortal portal;
+    private final int users;
+    private final int threads;
+    private final int iterations;
+    private final int warmupIterations;
+    private final Errors warmupErrors = new Errors("Warm-up request failed");
+    private final Errors errors = new Errors("Request failed");
+
+    public LoadHarness(HarnessPortal portal, int users, int threads, int iterations, int warmupIterations) {
+        this.portal = portal;
+        this.users = users;
+        this.threads = Math.min(threads, users);
+        this.iterations = iterations;
+        this.warmupIterations = warmupIterations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File webapp = new File("../examples/jsf2portlet/src/main/webapp");
+        String portletName = null;
+        int users = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int iterations = 20;
+        int warmup = 5;
+
+        for (int i = 0; i < args.length - 1; i += 2) {
+            String value = args[i + 1];
+            if ("-webapp".equals(args[i])) {
+                webapp = new File(value);
+            } else if ("-portlet".equals(args[i])) {
+                portletName = value;
+            } else if ("-users".equals(args[i])) {
+                users = Integer.parseInt(value);
+            } else if ("-threads".equals(args[i])) {
+                threads = Integer.parseInt(value);
+            } else if ("-iterations".equals(args[i])) {
+                iterations = Integer.parseInt(value);
+            } else if ("-warmup".equals(args[i])) {
+                warmup = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        HarnessPortal portal = new HarnessPortal(webapp, portletName);
+        portal.start();
+        try {
+            LoadReport report = new LoadHarness(portal, users, threads, iterations, warmup).run();
+            report.print(System.out);
+        } finally {
+            portal.stop();
+        }
+    }
+
+    public LoadReport run() throws InterruptedException {
+        List<List<SimulatedUser>> usersPerThread = new ArrayList<List<SimulatedUser>>(threads);
+        for (int i = 0; i < threads; i++) {
+            usersPerThread.add(new ArrayList<SimulatedUser>());
+        }
+        for (int i = 0; i < users; i++) {
+            usersPerThread.get(i % threads).add(new SimulatedUser(portal, "user" + i));
+        }
+
+        // Mojarra 2.2 builds its navigation maps lazily and without synchronization, so concurrent first actions can
+        // fail in NavigationHandlerImpl.getNavigationMap. One user goes through the scenario alone to prime them.
+        runScenario(usersPerThread.get(0).get(0), createRecorders(), warmupErrors);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            runIterations(executor, usersPerThread, warmupIterations, warmupErrors);
+
+            long start = System.nanoTime();
+            Map<String, LatencyRecorder> recorders = runIterations(executor, usersPerThread, iterations, errors);
+            long elapsed = System.nanoTime() - start;
+
+            LoadReport report = new LoadReport(users, threads, iterations, elapsed, recorders,
+                    AllocationCounter.isSupported(), warmupErrors.count.get(), errors.count.get(),
+                    null != warmupErrors.first.get() ? warmupErrors.first.get() : errors.first.get());
+            measureRetainedHeap(report);
+            return report;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, LatencyRecorder> runIterations(ExecutorService executor,
+            List<List<SimulatedUser>> usersPerThread, final int count, final Errors errors)
+            throws InterruptedException {
+        List<Future<Map<String, LatencyRecorder>>> results = new ArrayList<Future<Map<String, LatencyRecorder>>>();
+        for (final List<SimulatedUser> threadUsers : usersPerThread) {
+            results.add(executor.submit(new Callable<Map<String, LatencyRecorder>>() {
+                @Override
+                public Map<String, LatencyRecorder> call() {
+                    Map<String, LatencyRecorder> recorders = createRecorders();
+                    for (int i = 0; i < count; i++) {
+                        for (SimulatedUser user : threadUsers) {
+                            runScenario(user, recorders, errors);
+                        }
+                    }
+                    return recorders;
+                }
+            }));
+        }
+
+        Map<String, LatencyRecorder> totals = createRecorders();
+        for (Future<Map<String, LatencyRecorder>> result : results) {
+            try {
+                for (Map.Entry<String, LatencyRecorder> recorder : result.get().entrySet()) {
+                    totals.get(recorder.getKey()).merge(recorder.getValue());
+                }
+            } catch (ExecutionException e) {
+                errors.record(e.getCause());
+            }
+        }
+        return totals;
+    }
+
+    private static Map<String, LatencyRecorder> createRecorders() {
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<String, LatencyRecorder>();
+        for (String phase : SCENARIO) {
+            if (!recorders.containsKey(phase)) {
+                recorders.put(phase, new LatencyRecorder());
+            }
+        }
+        return recorders;
+    }
+
+    private static void runScenario(SimulatedUser user, Map<String, LatencyRecorder> recorders, Errors errors) {
+        for (String phase : SCENARIO) {
+            long allocatedBefore = AllocationCounter.getAllocatedBytes();
+            long start = System.nanoTime();
+            Object response;
+            try {
+                response = perform(user, phase);
+            } catch (Exception e) {
+                errors.record(e);
+                return;
+            }
+            long latency = System.nanoTime() - start;
+            if (null != response) {
+                recorders.get(phase).record(latency, AllocationCounter.getAllocatedBytes() - allocatedBefore);
+            }
+        }
+    }
+
+    static Object perform(SimulatedUser user, String phase) throws Exception {
+        if (PortletRequest.RENDER_PHASE.equals(phase)) {
+            return user.render();
+        } else if (PortletRequest.RESOURCE_PHASE.equals(phase)) {
+            return user.ajax();
+        } else if (PortletRequest.ACTION_PHASE.equals(phase)) {
+            return user.submit();
+        } else {
+            throw new IllegalArgumentException(phase);
+        }
+    }
+
+    /**
+     * Measures the heap freed by dropping first the bridge request scopes and then the whole sessions. This ends the
+     * sessions, so it is the last thing a run does.
+     */
+    private void measureRetainedHeap(LoadReport report) throws InterruptedException {
+        Collection<HarnessPortletSession> sessions = portal.getSessions();
+        if (sessions.isEmpty()) {
+            return;
+        }
+        long withSessions = getUsedHeap();
+        for (HarnessPortletSession session : sessions) {
+            session.removeAttribute(BridgeContextImpl.REQUEST_SCOPE_MANAGER, PortletSession.PORTLET_SCOPE);
+        }
+        long withoutBridgeScopes = getUsedHeap();
+        for (HarnessPortletSession session : sessions) {
+            session.invalidate();
+        }
+        long withoutSessions = getUsedHeap();
+
+        report.setRetainedHeap(sessions.size(), Math.max(0, withSessions - withoutBridgeScopes) / sessions.size(),
+                Math.max(0, withSessions - withoutSessions) / sessions.size());
+    }
+
+    private static long getUsedHeap() throws InterruptedException {
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < GC_ROUNDS; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Failed requests of either the warm-up or the measured iterations.
+     */
+    private static final class Errors {
+        private final String message;
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicReference<Throwable> first = new AtomicReference<Throwable>();
+
+        private Errors(String message) {
+            this.message = message;
+        }
+
+        private void record(Throwable error) {
+            count.incrementAndGet();
+            if (first.compareAndSet(null, error)) {
+                LOG.log(Level.WARNING, message, error);
+            }
+        }
+    }
+}
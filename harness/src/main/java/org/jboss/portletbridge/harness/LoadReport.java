@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link LoadHarness} run.
+ */
+public class LoadReport {
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    private final int users;
+    private final int threads;
+    private final int iterations;
+    private final long elapsedNanos;
+    private final Map<String, LatencyRecorder> recorders;
+    private final boolean allocationsMeasured;
+    private final int warmupErrors;
+    private final int errors;
+    private final Throwable firstError;
+    private int sessions;
+    private long bridgeScopeBytesPerSession;
+    private long sessionBytesPerSession;
+
+    LoadReport(int users, int threads, int iterations, long elapsedNanos, Map<String, LatencyRecorder> recorders,
+            boolean allocationsMeasured, int warmupErrors, int errors, Throwable firstError) {
+        this.users = users;
+        this.threads = threads;
+        this.iterations = iterations;
+        this.elapsedNanos = elapsedNanos;
+        this.recorders = recorders;
+        this.allocationsMeasured = allocationsMeasured;
+        this.warmupErrors = warmupErrors;
+        this.errors = errors;
+        this.firstError = firstError;
+    }
+
+    void setRetainedHeap(int sessions, long bridgeScopeBytesPerSession, long sessionBytesPerSession) {
+        this.sessions = sessions;
+        this.bridgeScopeBytesPerSession = bridgeScopeBytesPerSession;
+        this.sessionBytesPerSession = sessionBytesPerSession;
+    }
+
+    /**
+     * @return the recorders of the measured requests, keyed by their {@link javax.portlet.PortletRequest} lifecycle
+     *         phase.
+     */
+    public Map<String, LatencyRecorder> getRecorders() {
+        return Collections.unmodifiableMap(recorders);
+    }
+
+    public int getRequestCount() {
+        int count = 0;
+        for (LatencyRecorder recorder : recorders.values()) {
+            count += recorder.getCount();
+        }
+        return count;
+    }
+
+    public double getThroughput() {
+        return elapsedNanos > 0 ? getRequestCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+
+    /**
+     * @return number of requests that failed during the unmeasured warm-up iterations.
+     */
+    public int getWarmupErrors() {
+        return warmupErrors;
+    }
+
+    /**
+     * @return number of requests that failed during the measured iterations.
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the first failure of the run, warm-up included, or <code>null</code> if every request succeeded.
+     */
+    public Throwable getFirstError() {
+        return firstError;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * @return heap retained per session by the bridge request scopes, or 0 if it was not measured.
+     */
+    public long getBridgeScopeBytesPerSession() {
+        return bridgeScopeBytesPerSession;
+    }
+
+    /**
+     * @return heap retained per session by all of its attributes, or 0 if it was not measured.
+     */
+    public long getSessionBytesPerSession() {
+        return sessionBytesPerSession;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("Users: %d, threads: %d, iterations: %d, elapsed: %d ms%n", users, threads, iterations,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        out.printf("Requests: %d, throughput: %.1f requests/s, errors: %d, warm-up errors: %d%n", getRequestCount(),
+                getThroughput(), errors, warmupErrors);
+        out.printf("%-15s %8s %10s %10s %10s %10s %10s %12s%n", "Phase", "Count", "p50 us", "p90 us", "p99 us",
+                "p99.9 us", "max us", "alloc/req");
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            out.printf("%-15s %8d", entry.getKey(), recorder.getCount());
+            for (double percentile : PERCENTILES) {
+                out.printf(" %10d", TimeUnit.NANOSECONDS.toMicros(recorder.getPercentile(percentile)));
+            }
+            out.printf(" %10d %12s%n", TimeUnit.NANOSECONDS.toMicros(recorder.getMax()),
+                    allocationsMeasured ? String.valueOf(recorder.getAllocatedBytesPerRequest()) : "n/a");
+        }
+        if (sessions > 0) {
+            out.printf("Sessions: %d, retained per session: bridge scope %d bytes, whole session %d bytes%n", sessions,
+                    bridgeScopeBytesPerSession, sessionBytesPerSession);
+        }
+        if (null != firstError) {
+            out.print("First error: ");
+            firstError.printStackTrace(out);
+        }
+    }
+}
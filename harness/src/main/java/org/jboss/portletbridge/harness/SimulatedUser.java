@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.portlet.PortletException;
+import javax.portlet.PortletMode;
+import javax.portlet.PortletRequest;
+import javax.portlet.WindowState;
+
+/**
+ * A browser visiting the portal page. It keeps its portlet session, the render parameters of the portlet and the form
+ * of the last page, and goes through the render &rarr; Ajax &rarr; action &rarr; render sequence of a user editing the
+ * first text field of the form and submitting it.
+ */
+public class SimulatedUser {
+
+    private static final String FACES_REQUEST_HEADER = "Faces-Request";
+    private static final String FACES_REQUEST_PARTIAL = "partial/ajax";
+
+    private final HarnessPortal portal;
+    private final String name;
+    private HarnessPortletSession session;
+    private PortletMode portletMode = PortletMode.VIEW;
+    private Map<String, String[]> renderParameters = Collections.emptyMap();
+    private HarnessForm form;
+    private int edits;
+
+    public SimulatedUser(HarnessPortal portal, String name) {
+        this.portal = portal;
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public HarnessPortletSession getSession() {
+        return session;
+    }
+
+    void setSession(HarnessPortletSession session) {
+        this.session = session;
+    }
+
+    public PortletMode getPortletMode() {
+        return portletMode;
+    }
+
+    /**
+     * Switches the portlet to another mode, as the mode buttons of the portlet window do, for the next render.
+     */
+    public void setPortletMode(PortletMode portletMode) {
+        this.portletMode = portletMode;
+        this.renderParameters = Collections.emptyMap();
+        this.form = null;
+    }
+
+    public Map<String, String[]> getRenderParameters() {
+        return renderParameters;
+    }
+
+    public HarnessForm getForm() {
+        return form;
+    }
+
+    /**
+     * Renders the portlet with the current render parameters and keeps the first form of the page.
+     */
+    public HarnessRenderResponse render() throws IOException, PortletException {
+        HarnessRenderResponse response = portal.render(this, portletMode, WindowState.NORMAL, renderParameters);
+        form = HarnessForm.parse(response.getContent());
+        return response;
+    }
+
+    /**
+     * Types into the first text field of the form and sends the Ajax request that its change event triggers.
+     *
+     * @return the partial response, or <code>null</code> if the page has no form with a text field.
+     */
+    public HarnessResourceResponse ajax() throws IOException, PortletException {
+        List<String> fields = null != form ? form.getTextFields() : Collections.<String> emptyList();
+        if (fields.isEmpty()) {
+            return null;
+        }
+        String field = fields.get(0);
+        form.setTextField(field, name + "-" + ++edits);
+
+        HarnessURL url = HarnessURL.parse(form.getPartialAction());
+        if (!PortletRequest.RESOURCE_PHASE.equals(url.getLifecycle())) {
+            throw new IllegalStateException("Partial action of form " + form.getId() + " is not a resource URL: "
+                    + form.getPartialAction());
+        }
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(FACES_REQUEST_HEADER, FACES_REQUEST_PARTIAL);
+        HarnessResourceResponse response = portal.resource(this, url, form.getAjaxParameters(field), properties);
+
+        String content = response.getContent();
+        if (!content.contains("<partial-response") || content.contains("<error>")) {
+            throw new IllegalStateException("Ajax request of " + name + " failed: " + content);
+        }
+        form.updateViewState(content);
+        return response;
+    }
+
+    /**
+     * Submits the form with its last submit button, applying the resulting render parameters and portlet mode.
+     *
+     * @return the action response, or <code>null</code> if the page has no form.
+     */
+    public HarnessActionResponse submit() throws IOException, PortletException {
+        if (null == form) {
+            return null;
+        }
+        List<String> buttons = form.getSubmitButtons();
+        String button = buttons.isEmpty() ? null : buttons.get(buttons.size() - 1);
+
+        HarnessURL url = HarnessURL.parse(form.getAction());
+        HarnessActionResponse response = portal.action(this, url, form.getSubmitParameters(button));
+        if (null != response.getRedirectLocation()) {
+            throw new IllegalStateException("Unexpected redirect of " + name + " to " + response.getRedirectLocation());
+        }
+        renderParameters = response.getRenderParameterMap();
+        if (null != response.getPortletMode()) {
+            portletMode = response.getPortletMode();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+import javax.portlet.PortletMode;
+import javax.portlet.PortletRequest;
+
+import junit.framework.TestCase;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+/**
+ * Guards the bytes that the bridge allocates per request against the budgets of
+ * <code>allocation-budgets.properties</code>, measured on the serving thread once the views and the JIT are warm. JVMs
+ * with compact strings are held to the <code>compact.</code> budgets.
+ * <p>
+ * The budgets are measured on HotSpot and only hold there, so the test runs in the <code>allocation-budgets</code>
+ * profile (<code>-DallocationBudgets</code>) and is skipped on other JVMs.
+ * </p>
+ */
+public class AllocationBudgetTest extends TestCase {
+
+    private static final String BUDGETS = "/allocation-budgets.properties";
+    private static final String COMPACT_PREFIX = "compact.";
+    private static final int WARMUP_ITERATIONS = 300;
+    private static final int MEASURED_ITERATIONS = 100;
+
+    private HarnessPortal portal;
+    private Properties budgets;
+
+    @Override
+    protected void setUp() throws Exception {
+        budgets = new Properties();
+        InputStream in = getClass().getResourceAsStream(BUDGETS);
+        try {
+            budgets.load(in);
+        } finally {
+            in.close();
+        }
+
+        String webapp = System.getProperty("harness.webapp", "../examples/jsf2portlet/src/main/webapp");
+        portal = new HarnessPortal(new File(webapp), null);
+        portal.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        portal.stop();
+    }
+
+    public void testViewMode() throws Exception {
+        if (!isMeasurable()) {
+            return;
+        }
+        SimulatedUser user = new SimulatedUser(portal, "user");
+        String[] phases = { PortletRequest.RENDER_PHASE, PortletRequest.RESOURCE_PHASE, PortletRequest.ACTION_PHASE };
+        long[] allocated = new long[phases.length];
+
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            for (int phase = 0; phase < phases.length; phase++) {
+                long before = AllocationCounter.getAllocatedBytes();
+                assertNotNull(LoadHarness.perform(user, phases[phase]));
+                if (i >= WARMUP_ITERATIONS) {
+                    allocated[phase] += AllocationCounter.getAllocatedBytes() - before;
+                }
+            }
+        }
+
+        assertWithinBudget("view.render", allocated[0]);
+        assertWithinBudget("view.ajax", allocated[1]);
+        assertWithinBudget("view.action", allocated[2]);
+    }
+
+    public void testEditMode() throws Exception {
+        if (!isMeasurable()) {
+            return;
+        }
+        SimulatedUser user = new SimulatedUser(portal, "user");
+        user.setPortletMode(PortletMode.EDIT);
+        long allocated = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            long before = AllocationCounter.getAllocatedBytes();
+            user.render();
+            if (i >= WARMUP_ITERATIONS) {
+                allocated += AllocationCounter.getAllocatedBytes() - before;
+            }
+        }
+
+        assertWithinBudget("edit.render", allocated);
+    }
+
+    private void assertWithinBudget(String scenario, long allocated) {
+        if (isCompactStrings()) {
+            scenario = COMPACT_PREFIX + scenario;
+        }
+        String budget = budgets.getProperty(scenario);
+        assertNotNull("No allocation budget for " + scenario + " in " + BUDGETS, budget);
+
+        long perRequest = allocated / MEASURED_ITERATIONS;
+        assertTrue("Scenario " + scenario + " allocated " + perRequest + " bytes per request, over its budget of "
+                + budget + " bytes", perRequest <= Long.parseLong(budget.trim()));
+    }
+
+    private static boolean isMeasurable() {
+        String vmName = System.getProperty("java.vm.name", "");
+        return AllocationCounter.isSupported() && (vmName.contains("HotSpot") || vmName.contains("OpenJDK"));
+    }
+
+    private static boolean isCompactStrings() {
+        try {
+            HotSpotDiagnosticMXBean hotSpotBean = ManagementFactory.newPlatformMXBeanProxy(
+                    ManagementFactory.getPlatformMBeanServer(), "com.sun.management:type=HotSpotDiagnostic",
+                    HotSpotDiagnosticMXBean.class);
+            return Boolean.parseBoolean(hotSpotBean.getVMOption("CompactStrings").getValue());
+        } catch (IllegalArgumentException e) {
+            // Not an option before Java 9
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
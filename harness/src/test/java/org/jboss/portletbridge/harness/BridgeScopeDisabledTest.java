@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a portlet with the bridge request scope disabled keeps no scope or view history in the session and still
+ * renders its view after an action, and that only views setting the attribute of the same name opt in on their own.
+ */
+public class BridgeScopeDisabledTest extends TestCase {
+
+    private static final String BRIDGE_SCOPE_DISABLED = "org.jboss.portletbridge.BRIDGE_SCOPE_DISABLED";
+
+    private static final String REQUEST_SCOPE_ID = "__pbrReqScopeId";
+
+    private static final String REQUEST_SCOPE_MANAGER = "org.jboss.portletbridge.bridge.scope.BridgeRequestScopeManagerImpl";
+
+    private static final String VIEWID_HISTORY = "javax.portlet.faces.viewIdHistory";
+
+    private static final String MAIN_PAGE = "pages/main.xhtml";
+
+    private static final String REQUIRED_MESSAGE = "Input is required";
+
+    private static final String INPUT = "<h:inputText ";
+
+    private static final String REQUIRED_INPUT = INPUT + "required=\"true\" requiredMessage=\"" + REQUIRED_MESSAGE + "\" ";
+
+    public void testScopeEnabled() throws Exception {
+        submitAndRender(false);
+    }
+
+    public void testScopeDisabled() throws Exception {
+        submitAndRender(true);
+    }
+
+    public void testTransientViewKeepsMessages() throws Exception {
+        File webapp = WebappCopy.create(MAIN_PAGE, "<f:view ", "<f:view transient=\"true\" ", INPUT, REQUIRED_INPUT);
+        try {
+            HarnessPortal portal = new HarnessPortal(webapp, null);
+            portal.start();
+            try {
+                SimulatedUser user = new SimulatedUser(portal, "user");
+                user.render();
+                user.getForm().setTextField(user.getForm().getTextFields().get(0), "");
+                assertNotNull(user.submit());
+                assertTrue(user.getRenderParameters().containsKey(REQUEST_SCOPE_ID));
+
+                // The validation message of the action reaches the render through the bridge request scope
+                assertTrue(user.render().getContent().contains(REQUIRED_MESSAGE));
+            } finally {
+                portal.stop();
+            }
+        } finally {
+            WebappCopy.delete(webapp);
+        }
+    }
+
+    public void testViewAttributeDisablesScope() throws Exception {
+        File webapp = WebappCopy.create(MAIN_PAGE, "<h:head />", "<f:attribute name=\"" + BRIDGE_SCOPE_DISABLED
+                + "\" value=\"true\" /><h:head />");
+        try {
+            HarnessPortal portal = new HarnessPortal(webapp, null);
+            portal.start();
+            try {
+                SimulatedUser user = new SimulatedUser(portal, "user");
+                user.render();
+                assertNotNull(user.submit());
+                assertFalse(user.getRenderParameters().containsKey(REQUEST_SCOPE_ID));
+                assertNotNull(user.render().getContent());
+                assertFalse(user.getSession().getAttributeMap().containsKey(REQUEST_SCOPE_MANAGER));
+            } finally {
+                portal.stop();
+            }
+        } finally {
+            WebappCopy.delete(webapp);
+        }
+    }
+
+    private void submitAndRender(boolean bridgeScopeDisabled) throws Exception {
+        HarnessPortal portal = new HarnessPortal(new File(WebappCopy.getWebapp()), null);
+        portal.setInitParameter(BRIDGE_SCOPE_DISABLED, Boolean.toString(bridgeScopeDisabled));
+        portal.start();
+        try {
+            SimulatedUser user = new SimulatedUser(portal, "user");
+            user.render();
+            assertNotNull(user.submit());
+            assertEquals(bridgeScopeDisabled, !user.getRenderParameters().containsKey(REQUEST_SCOPE_ID));
+
+            assertFalse(user.render().getContent().length() == 0);
+            assertNotNull(user.getForm());
+
+            Map<String, Object> attributes = user.getSession().getAttributeMap();
+            assertEquals(bridgeScopeDisabled, !attributes.containsKey(REQUEST_SCOPE_MANAGER));
+            if (bridgeScopeDisabled) {
+                for (String name : attributes.keySet()) {
+                    assertFalse(name, name.startsWith(VIEWID_HISTORY));
+                }
+            }
+        } finally {
+            portal.stop();
+        }
+    }
+}
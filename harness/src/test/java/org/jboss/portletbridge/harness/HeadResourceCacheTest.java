@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import junit.framework.TestCase;
+
+import org.jboss.portletbridge.renderkit.portlet.HeadResourceRegistry;
+import org.w3c.dom.Element;
+
+/**
+ * Checks that head elements served from the head resource registry equal the ones rendered by the head resources.
+ */
+public class HeadResourceCacheTest extends TestCase {
+
+    private static final String HEAD_RESOURCE_CACHE_ENABLED = "org.jboss.portletbridge.HEAD_RESOURCE_CACHE_ENABLED";
+
+    public void testCachedHeadElements() throws Exception {
+        List<String> rendered = renderHeadElements(false);
+        List<String> cached = renderHeadElements(true);
+
+        assertFalse(rendered.isEmpty());
+        assertEquals(rendered, cached);
+    }
+
+    public void testEntriesStayFlatOverActions() throws Exception {
+        String webapp = System.getProperty("harness.webapp", "../examples/jsf2portlet/src/main/webapp");
+        HarnessPortal portal = new HarnessPortal(new File(webapp), null);
+        portal.setInitParameter(HEAD_RESOURCE_CACHE_ENABLED, Boolean.TRUE.toString());
+        portal.start();
+        try {
+            SimulatedUser user = new SimulatedUser(portal, "user");
+            user.render();
+            assertNotNull(user.submit());
+            user.render();
+            HeadResourceRegistry registry = (HeadResourceRegistry) portal.getServletContext().getAttribute(
+                    HeadResourceRegistry.class.getName());
+            int entries = registry.size();
+            assertTrue(entries > 0);
+
+            // Each action sets a new bridge request scope id as a render parameter
+            for (int i = 0; i < 20; i++) {
+                assertNotNull(user.submit());
+                user.render();
+            }
+            assertEquals(entries, registry.size());
+        } finally {
+            portal.stop();
+        }
+    }
+
+    private List<String> renderHeadElements(boolean cacheEnabled) throws Exception {
+        String webapp = System.getProperty("harness.webapp", "../examples/jsf2portlet/src/main/webapp");
+        HarnessPortal portal = new HarnessPortal(new File(webapp), null);
+        portal.setInitParameter(HEAD_RESOURCE_CACHE_ENABLED, Boolean.toString(cacheEnabled));
+        portal.start();
+        try {
+            List<String> heads = new ArrayList<String>();
+            for (int i = 0; i < 3; i++) {
+                SimulatedUser user = new SimulatedUser(portal, "user" + i);
+                heads.add(serialize(user.render().getHeadElements()));
+
+                // Ajax needs the resources rendered from the cache to be known as rendered
+                assertTrue(user.ajax().getContent().contains("user" + i + "-1"));
+                heads.add(serialize(user.render().getHeadElements()));
+
+                // The action changes the render parameters that resource URLs carry
+                assertNotNull(user.submit());
+                heads.add(serialize(user.render().getHeadElements()));
+            }
+            return heads;
+        } finally {
+            portal.stop();
+        }
+    }
+
+    private String serialize(List<Element> elements) throws Exception {
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        StringWriter writer = new StringWriter();
+        for (Element element : elements) {
+            transformer.transform(new DOMSource(element), new StreamResult(writer));
+        }
+        return writer.toString();
+    }
+}
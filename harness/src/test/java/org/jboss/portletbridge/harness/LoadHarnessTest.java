@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+
+import javax.portlet.PortletRequest;
+
+import junit.framework.TestCase;
+
+public class LoadHarnessTest extends TestCase {
+
+    private HarnessPortal portal;
+
+    @Override
+    protected void setUp() throws Exception {
+        String webapp = System.getProperty("harness.webapp", "../examples/jsf2portlet/src/main/webapp");
+        portal = new HarnessPortal(new File(webapp), null);
+        portal.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        portal.stop();
+    }
+
+    public void testSimulatedUser() throws Exception {
+        SimulatedUser user = new SimulatedUser(portal, "user");
+
+        HarnessRenderResponse render = user.render();
+        assertNotNull(user.getForm());
+        assertFalse(render.getHeadElements().isEmpty());
+
+        HarnessResourceResponse ajax = user.ajax();
+        assertNotNull(ajax);
+        assertTrue(ajax.getContent().contains("user-1"));
+
+        assertNotNull(user.submit());
+        assertTrue(user.render().getContent().contains("user-1"));
+    }
+
+    public void testRun() throws Exception {
+        LoadReport report = new LoadHarness(portal, 4, 2, 3, 1).run();
+
+        assertNull(report.getFirstError());
+        assertEquals(0, report.getWarmupErrors());
+        assertEquals(0, report.getErrors());
+        assertEquals(4 * 3 * 2, report.getRecorders().get(PortletRequest.RENDER_PHASE).getCount());
+        assertEquals(4 * 3, report.getRecorders().get(PortletRequest.RESOURCE_PHASE).getCount());
+        assertEquals(4 * 3, report.getRecorders().get(PortletRequest.ACTION_PHASE).getCount());
+        assertEquals(4, report.getSessions());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the startup report of an application is registered under its context path and removed when the
+ * application is destroyed, without the servlet context listener of the bridge being installed.
+ */
+public class StartupReportTest extends TestCase {
+
+    public void testReportUnregisteredOnDestroy() throws Exception {
+        ObjectName name = new ObjectName("org.jboss.portletbridge:type=StartupReport,context="
+                + ObjectName.quote(HarnessPortal.CONTEXT_PATH));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        String webapp = System.getProperty("harness.webapp", "../examples/jsf2portlet/src/main/webapp");
+        HarnessPortal portal = new HarnessPortal(new File(webapp), null);
+        portal.start();
+        try {
+            new SimulatedUser(portal, "user").render();
+            assertTrue(server.isRegistered(name));
+        } finally {
+            portal.stop();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
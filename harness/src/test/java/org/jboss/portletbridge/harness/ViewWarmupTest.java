@@ -0,0 +1,147 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a portlet with view warm-up enabled prepares its default views when the bridge is initialized and still
+ * renders them the same way on the first request, and that a view failing to build is reported without stopping the
+ * others.
+ */
+public class ViewWarmupTest extends TestCase {
+
+    private static final String VIEW_WARMUP_ENABLED = "org.jboss.portletbridge.VIEW_WARMUP_ENABLED";
+
+    private static final Pattern VIEW_STATE = Pattern.compile("(ViewState:\\d+\" value=\")[^\"]*");
+
+    private static final String WARMUP_LISTENER = "org.jboss.portletbridge.config.ViewWarmupListener";
+
+    private static final String WARMUP_THREAD = "portletbridge-view-warmup";
+
+    private static final String[] VIEWS = { "/pages/main.xhtml", "/pages/edit.xhtml", "/pages/help.xhtml" };
+
+    public void testWarmedUpViewRenders() throws Exception {
+        File webapp = new File(WebappCopy.getWebapp());
+        List<LogRecord> records = new ArrayList<LogRecord>();
+        String cold = renderFirstView(webapp, false, records);
+        assertTrue(records.isEmpty());
+        String warm = renderFirstView(webapp, true, records);
+
+        assertFalse(cold.length() == 0);
+        assertEquals(cold, warm);
+        String prepared = getMessage(records, Level.FINE);
+        assertTrue(prepared, prepared.startsWith("Prepared views"));
+        for (String view : VIEWS) {
+            assertTrue(prepared, prepared.contains(view));
+        }
+    }
+
+    public void testBrokenViewReported() throws Exception {
+        File webapp = WebappCopy.create("pages/help.xhtml", "Help Mode", "Help Mode <unclosed>");
+        try {
+            List<LogRecord> records = new ArrayList<LogRecord>();
+            assertFalse(renderFirstView(webapp, true, records).length() == 0);
+
+            String warning = getMessage(records, Level.WARNING);
+            assertTrue(warning, warning.contains("/pages/help.xhtml"));
+            // The other views are still prepared
+            String prepared = getMessage(records, Level.FINE);
+            assertTrue(prepared, prepared.contains(VIEWS[0]));
+            assertTrue(prepared, prepared.contains(VIEWS[1]));
+            assertFalse(prepared, prepared.contains(VIEWS[2]));
+        } finally {
+            WebappCopy.delete(webapp);
+        }
+    }
+
+    private static String getMessage(List<LogRecord> records, Level level) {
+        for (LogRecord record : records) {
+            if (level.equals(record.getLevel())) {
+                if (Level.WARNING.equals(level)) {
+                    assertNotNull(record.getThrown());
+                }
+                return record.getMessage();
+            }
+        }
+        fail("No " + level + " record in " + records);
+        return null;
+    }
+
+    private String renderFirstView(File webapp, boolean warmupEnabled, final List<LogRecord> records)
+            throws Exception {
+        HarnessPortal portal = new HarnessPortal(webapp, null);
+        portal.setInitParameter(VIEW_WARMUP_ENABLED, Boolean.toString(warmupEnabled));
+
+        Logger logger = Logger.getLogger(WARMUP_LISTENER);
+        Level level = logger.getLevel();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        portal.start();
+        logger.setLevel(Level.FINE);
+        logger.addHandler(handler);
+        try {
+            // The bridge, and with it the warm-up, is initialized by the first request
+            String content = new SimulatedUser(portal, "user").render().getContent();
+            assertNoWarmupThreads();
+            // View state identifiers are generated per session
+            return VIEW_STATE.matcher(content).replaceAll("$1");
+        } finally {
+            logger.removeHandler(handler);
+            logger.setLevel(level);
+            portal.stop();
+        }
+    }
+
+    private static void assertNoWarmupThreads() throws InterruptedException {
+        Thread[] threads = new Thread[Thread.activeCount() * 2];
+        int count = Thread.enumerate(threads);
+        for (int i = 0; i < count; i++) {
+            if (WARMUP_THREAD.equals(threads[i].getName())) {
+                // Idle workers exit as soon as they notice the executor has been shut down
+                threads[i].join(5000);
+                assertFalse(threads[i].isAlive());
+            }
+        }
+    }
+}
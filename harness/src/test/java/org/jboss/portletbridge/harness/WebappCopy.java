@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2014, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.portletbridge.harness;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Temporary copy of the example webapp with one of its pages edited, for tests that need a variation of a view.
+ */
+final class WebappCopy {
+
+    private WebappCopy() {
+    }
+
+    static String getWebapp() {
+        return System.getProperty("harness.webapp", "../examples/jsf2portlet/src/main/webapp");
+    }
+
+    /**
+     * @param page path of the page to edit, relative to the webapp
+     * @param replacements pairs of text to find in the page and its replacement
+     * @return the directory of the copy, to be removed with {@link #delete(File)}
+     */
+    static File create(String page, String... replacements) throws IOException {
+        File webapp = File.createTempFile("harness", "");
+        if (!webapp.delete()) {
+            throw new IOException("Unable to create " + webapp);
+        }
+        copy(new File(getWebapp()), webapp);
+
+        File file = new File(webapp, page);
+        String content = new String(read(file), "UTF-8");
+        for (int i = 0; i < replacements.length; i += 2) {
+            if (!content.contains(replacements[i])) {
+                throw new IllegalArgumentException(replacements[i] + " not found in " + page);
+            }
+            content = content.replace(replacements[i], replacements[i + 1]);
+        }
+        write(file, content.getBytes("UTF-8"));
+        return webapp;
+    }
+
+    static void delete(File file) {
+        File[] children = file.listFiles();
+        if (null != children) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static void copy(File source, File target) throws IOException {
+        if (source.isDirectory()) {
+            if (!target.mkdirs()) {
+                throw new IOException("Unable to create " + target);
+            }
+            for (File child : source.listFiles()) {
+                copy(child, new File(target, child.getName()));
+            }
+        } else {
+            write(target, read(source));
+        }
+    }
+
+    private static byte[] read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] content = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < content.length) {
+                int read = in.read(content, offset, content.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            return content;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void write(File file, byte[] content) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+    }
+}